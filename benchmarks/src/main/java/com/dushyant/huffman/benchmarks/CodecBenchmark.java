@@ -0,0 +1,86 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dushyant.huffman.tools.HuffmanCompressor;
+import com.dushyant.huffman.tools.HuffmanDecompressor;
+
+/**
+ * The {@code CodecBenchmark} class measures the throughput of {@link HuffmanCompressor#compress(byte[])} and
+ * {@link HuffmanDecompressor#decompress(byte[])} over every corpus and size, on the calling thread ({@code threads = 0}) or
+ * on a {@link ForkJoinPool}. Run with {@code -prof gc} for the bytes allocated per operation.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"ENGLISH_TEXT", "JSON_LOGS", "BINARY", "UNIFORM_RANDOM", "SINGLE_SYMBOL", "HIGHLY_SKEWED"})
+    public Corpus corpus;
+
+    @Param({"1024", "1048576", "67108864", "1073741824"})
+    public int size;
+
+    @Param({"0", "4"})
+    public int threads;
+
+    private ExecutorService executor;
+
+    private HuffmanCompressor huffmanCompressor;
+
+    private HuffmanDecompressor huffmanDecompressor;
+
+    private byte[] originalData;
+
+    private byte[] compressedData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = threads == 0 ? null : new ForkJoinPool(threads);
+        huffmanCompressor = new HuffmanCompressor(executor);
+        huffmanDecompressor = new HuffmanDecompressor(executor);
+        originalData = corpus.create(size);
+        compressedData = huffmanCompressor.compress(originalData);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Benchmark
+    public byte[] compress(ProcessedBytes processedBytes) {
+        processedBytes.bytes += size;
+        return huffmanCompressor.compress(originalData);
+    }
+
+    @Benchmark
+    public byte[] decompress(ProcessedBytes processedBytes) {
+        processedBytes.bytes += size;
+        return huffmanDecompressor.decompress(compressedData);
+    }
+}
@@ -0,0 +1,26 @@
+package com.dushyant.huffman.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The {@code CompressedBytes} class counts the compressed bytes written by a benchmark. JMH reports the counter as a throughput
+ * like {@link ProcessedBytes}, so the compression ratio is the {@code compressedBytes} counter over the {@code bytes} counter.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CompressedBytes {
+
+    public long compressedBytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        compressedBytes = 0;
+    }
+}
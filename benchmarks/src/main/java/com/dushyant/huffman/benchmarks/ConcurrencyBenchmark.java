@@ -0,0 +1,69 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dushyant.huffman.tools.HuffmanCompressor;
+import com.dushyant.huffman.tools.HuffmanDecompressor;
+
+/**
+ * The {@code ConcurrencyBenchmark} class samples the latency of {@link HuffmanCompressor#compress(byte[])} and
+ * {@link HuffmanDecompressor#decompress(byte[])} on small and medium messages while all the benchmark threads share one
+ * compressor and one decompressor, as a service handling requests would. Run it with {@code -t} for the number of threads, or
+ * through {@link LoadHarness} for the scaling from 1 to 64 threads.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrencyBenchmark {
+
+    @Param({"JSON_LOGS"})
+    public Corpus corpus;
+
+    @Param({"1024", "65536"})
+    public int size;
+
+    private HuffmanCompressor huffmanCompressor;
+
+    private HuffmanDecompressor huffmanDecompressor;
+
+    private byte[] originalData;
+
+    private byte[] compressedData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        huffmanCompressor = new HuffmanCompressor();
+        huffmanDecompressor = new HuffmanDecompressor();
+        originalData = corpus.create(size);
+        compressedData = huffmanCompressor.compress(originalData);
+    }
+
+    @Benchmark
+    public byte[] compress() {
+        return huffmanCompressor.compress(originalData);
+    }
+
+    @Benchmark
+    public byte[] decompress() {
+        return huffmanDecompressor.decompress(compressedData);
+    }
+}
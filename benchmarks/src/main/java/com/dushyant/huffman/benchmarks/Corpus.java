@@ -0,0 +1,153 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The {@code Corpus} enum generates the synthetic data the benchmarks run on. Data is generated from a fixed seed, so every run
+ * measures the same bytes. At most {@link #UNIQUE_SIZE} bytes are generated, larger sizes repeat them; Huffman encoding only
+ * looks at the statistics of a block, which repeating does not change.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public enum Corpus {
+
+    ENGLISH_TEXT {
+        @Override
+        void generate(Random random, byte[] data) {
+            StringBuilder text = new StringBuilder(data.length + 64);
+            while (text.length() < data.length) {
+                int numberOfWords = 4 + random.nextInt(16);
+                for (int word = 0; word < numberOfWords; ++word) {
+                    String nextWord = WORDS[zipf(random, WORDS.length)];
+                    text.append(word == 0 ? Character.toUpperCase(nextWord.charAt(0)) + nextWord.substring(1) : nextWord);
+                    text.append(word == numberOfWords - 1 ? ". " : random.nextInt(12) == 0 ? ", " : " ");
+                }
+                if (random.nextInt(8) == 0) {
+                    text.append('\n');
+                }
+            }
+            copy(text.toString().getBytes(StandardCharsets.US_ASCII), data);
+        }
+    },
+
+    JSON_LOGS {
+        @Override
+        void generate(Random random, byte[] data) {
+            StringBuilder logs = new StringBuilder(data.length + 256);
+            long timestamp = 1700000000000L;
+            while (logs.length() < data.length) {
+                timestamp += random.nextInt(50);
+                logs.append("{\"timestamp\":").append(timestamp)
+                        .append(",\"level\":\"").append(LEVELS[zipf(random, LEVELS.length)])
+                        .append("\",\"service\":\"").append(SERVICES[random.nextInt(SERVICES.length)])
+                        .append("\",\"requestId\":\"").append(Long.toHexString(random.nextLong()))
+                        .append("\",\"latencyMs\":").append((int) Math.abs(random.nextGaussian() * 40))
+                        .append(",\"message\":\"").append(WORDS[zipf(random, WORDS.length)]).append(' ').append(WORDS[zipf(random, WORDS.length)])
+                        .append("\"}\n");
+            }
+            copy(logs.toString().getBytes(StandardCharsets.US_ASCII), data);
+        }
+    },
+
+    BINARY {
+        @Override
+        void generate(Random random, byte[] data) {
+            // Records of a growing identifier, a small counter and a measurement, as found in columnar or serialized data.
+            ByteBuffer records = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+            int identifier = 0;
+            while (records.remaining() >= Integer.BYTES + Short.BYTES + Double.BYTES) {
+                identifier += 1 + random.nextInt(4);
+                records.putInt(identifier);
+                records.putShort((short) random.nextInt(100));
+                records.putDouble(20.0 + random.nextGaussian());
+            }
+            while (records.hasRemaining()) {
+                records.put((byte) 0);
+            }
+        }
+    },
+
+    UNIFORM_RANDOM {
+        @Override
+        void generate(Random random, byte[] data) {
+            random.nextBytes(data);
+        }
+    },
+
+    SINGLE_SYMBOL {
+        @Override
+        void generate(Random random, byte[] data) {
+            Arrays.fill(data, (byte) 'a');
+        }
+    },
+
+    HIGHLY_SKEWED {
+        @Override
+        void generate(Random random, byte[] data) {
+            // Every bit pattern is half as frequent as the previous one, which makes the deepest possible Huffman Tree.
+            for (int index = 0; index < data.length; ++index) {
+                data[index] = (byte) Math.min(Long.numberOfTrailingZeros(random.nextLong() | Long.MIN_VALUE), 255);
+            }
+        }
+    };
+
+    public static final int UNIQUE_SIZE = 16 * 1024 * 1024;
+
+    private static final long SEED = 0x48756666L;
+
+    private static final String[] WORDS = ("the of and to a in is it you that he was for on are with as his they be at one have this from or had by "
+            + "word but what some we can out other were all there when up use your how said an each she which do their time if will way about "
+            + "many then them write would like so these her long make thing see him two has look more day could go come did number sound no most "
+            + "people my over know water than call first who may down side been now find any new work part take get place made live where after "
+            + "back little only round man year came show every good me give our under name very through just form sentence great think say help "
+            + "low line differ turn cause much mean before move right boy old too same tell does set three want air well also play small end put "
+            + "home read hand port large spell add even land here must big high such follow act why ask men change went light kind off need house "
+            + "picture try us again animal point mother world near build self earth father head stand own page should country found answer school "
+            + "grow study still learn plant cover food sun four between state keep eye never last let thought city tree cross farm hard start might "
+            + "story saw far sea draw left late run while press close night real life few north compression encoding symbol frequency block").split(" ");
+
+    private static final String[] LEVELS = {"INFO", "DEBUG", "WARN", "ERROR", "TRACE"};
+
+    private static final String[] SERVICES = {"gateway", "orders", "payments", "inventory", "search", "accounts", "shipping", "notifications"};
+
+    /**
+     * @param int, size of the data in bytes
+     * @return byte[], the data of this corpus
+     */
+    public byte[] create(int size) {
+        return create(size, 0);
+    }
+
+    /**
+     * @param int, size of the data in bytes
+     * @param int, number of the sample, samples of the same corpus share its statistics but not its bytes
+     * @return byte[], a sample of this corpus, sample 0 is the data of {@link #create(int)}
+     */
+    public byte[] create(int size, int sample) {
+        byte[] data = new byte[size];
+        byte[] unique = new byte[Math.min(size, UNIQUE_SIZE)];
+        generate(new Random(SEED + ordinal() + (long) sample * values().length), unique);
+        for (int offset = 0; offset < size; offset += unique.length) {
+            System.arraycopy(unique, 0, data, offset, Math.min(unique.length, size - offset));
+        }
+        return data;
+    }
+
+    abstract void generate(Random random, byte[] data);
+
+    /**
+     * @return int, an index below the bound, small indices far more likely than large ones as in natural language
+     */
+    private static int zipf(Random random, int bound) {
+        return (int) Math.min(bound - 1, Math.floor(Math.pow(bound + 1, random.nextDouble()) - 1));
+    }
+
+    private static void copy(byte[] source, byte[] data) {
+        System.arraycopy(source, 0, data, 0, data.length);
+    }
+}
@@ -0,0 +1,79 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.tools.HuffmanCompressor;
+import com.dushyant.huffman.tools.HuffmanDecompressor;
+
+/**
+ * The {@code DigramBenchmark} class measures digram blocks (see {@link CompressionSettings#setNumberOfDigrams(int)}): the
+ * decompress benchmark shows the bytes per second gained by decoding up to two bytes per lookup, the {@code compressedBytes}
+ * counter over the {@code bytes} counter of the compress benchmark the ratio. {@code digrams = 0} is the plain alphabet of 256
+ * bit patterns.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigramBenchmark {
+
+    @Param({"ENGLISH_TEXT", "JSON_LOGS", "BINARY"})
+    public Corpus corpus;
+
+    @Param({"1048576"})
+    public int size;
+
+    @Param({"0", "64", "256"})
+    public int digrams;
+
+    private HuffmanCompressor huffmanCompressor;
+
+    private HuffmanDecompressor huffmanDecompressor;
+
+    private byte[] originalData;
+
+    private byte[] compressedData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CompressionSettings settings = new CompressionSettings();
+        settings.setNumberOfDigrams(digrams);
+        huffmanCompressor = new HuffmanCompressor(null, settings);
+        huffmanDecompressor = new HuffmanDecompressor();
+        originalData = corpus.create(size);
+        compressedData = huffmanCompressor.compress(originalData);
+    }
+
+    @Benchmark
+    public byte[] compress(ProcessedBytes processedBytes, CompressedBytes compressedBytes) {
+        byte[] compressed = huffmanCompressor.compress(originalData);
+        processedBytes.bytes += size;
+        compressedBytes.compressedBytes += compressed.length;
+        return compressed;
+    }
+
+    @Benchmark
+    public byte[] decompress(ProcessedBytes processedBytes) {
+        processedBytes.bytes += size;
+        return huffmanDecompressor.decompress(compressedData);
+    }
+}
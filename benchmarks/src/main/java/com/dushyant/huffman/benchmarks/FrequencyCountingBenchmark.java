@@ -0,0 +1,55 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dushyant.huffman.model.FrequencyTable;
+
+/**
+ * The {@code FrequencyCountingBenchmark} class measures how fast {@link FrequencyTable} counts the 8 bit patterns of every
+ * corpus and size.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FrequencyCountingBenchmark {
+
+    @Param({"ENGLISH_TEXT", "JSON_LOGS", "BINARY", "UNIFORM_RANDOM", "SINGLE_SYMBOL", "HIGHLY_SKEWED"})
+    public Corpus corpus;
+
+    @Param({"1024", "1048576", "67108864", "1073741824"})
+    public int size;
+
+    private byte[] originalData;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        originalData = corpus.create(size);
+    }
+
+    @Benchmark
+    public FrequencyTable count(ProcessedBytes processedBytes) {
+        processedBytes.bytes += size;
+        FrequencyTable frequencyTable = new FrequencyTable();
+        frequencyTable.count(originalData, 0, originalData.length);
+        return frequencyTable;
+    }
+}
@@ -0,0 +1,110 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.tools.HuffmanCompressor;
+import com.dushyant.huffman.tools.HuffmanDecompressor;
+
+/**
+ * The {@code LevelBenchmark} class measures the throughput of every compression level (see
+ * {@link CompressionSettings#setLevel(int)}) together with the ratio it reaches: the {@code compressedBytes} counter over the
+ * {@code bytes} counter of the compress benchmark. Larger data shows the saving of reused code tables at the fast level and
+ * the cost of the block splitting at the max level. Every call takes the next of {@link #NUMBER_OF_SAMPLES} distinct samples
+ * of the corpus, so no level gets to code the same bytes twice in a row. The blocks are compressed on the calling thread
+ * ({@code threads = 0}) or on a {@link ForkJoinPool}, where the fast level prepares its runs of chained blocks concurrently.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LevelBenchmark {
+
+    private static final int NUMBER_OF_SAMPLES = 8;
+
+    @Param({"ENGLISH_TEXT", "JSON_LOGS", "BINARY", "HIGHLY_SKEWED"})
+    public Corpus corpus;
+
+    @Param({"1024", "1048576"})
+    public int size;
+
+    @Param({"1", "2", "3"})
+    public int level;
+
+    @Param({"0", "4"})
+    public int threads;
+
+    private ExecutorService executor;
+
+    private HuffmanCompressor huffmanCompressor;
+
+    private HuffmanDecompressor huffmanDecompressor;
+
+    private byte[][] originalData;
+
+    private byte[][] compressedData;
+
+    private int sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CompressionSettings settings = new CompressionSettings();
+        settings.setLevel(level);
+        executor = threads == 0 ? null : new ForkJoinPool(threads);
+        huffmanCompressor = new HuffmanCompressor(executor, settings);
+        huffmanDecompressor = new HuffmanDecompressor(executor);
+        originalData = new byte[NUMBER_OF_SAMPLES][];
+        compressedData = new byte[NUMBER_OF_SAMPLES][];
+        for (int index = 0; index < NUMBER_OF_SAMPLES; ++index) {
+            originalData[index] = corpus.create(size, index);
+            compressedData[index] = huffmanCompressor.compress(originalData[index]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private int nextSample() {
+        sample = (sample + 1) % NUMBER_OF_SAMPLES;
+        return sample;
+    }
+
+    @Benchmark
+    public byte[] compress(ProcessedBytes processedBytes, CompressedBytes compressedBytes) {
+        byte[] compressed = huffmanCompressor.compress(originalData[nextSample()]);
+        processedBytes.bytes += size;
+        compressedBytes.compressedBytes += compressed.length;
+        return compressed;
+    }
+
+    @Benchmark
+    public byte[] decompress(ProcessedBytes processedBytes) {
+        processedBytes.bytes += size;
+        return huffmanDecompressor.decompress(compressedData[nextSample()]);
+    }
+}
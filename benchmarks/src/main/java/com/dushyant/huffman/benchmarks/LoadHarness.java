@@ -0,0 +1,50 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.util.Collection;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.util.Statistics;
+
+/**
+ * The {@code LoadHarness} class runs {@link ConcurrencyBenchmark} with 1, 2, 4, ... 64 threads sharing one compressor and one
+ * decompressor, and prints a line per benchmark, message size and number of threads with the operations per second of all the
+ * threads together and the p50, p99 and p999 latencies:
+ *
+ *      ~$ java -cp target/benchmarks.jar com.dushyant.huffman.benchmarks.LoadHarness [max threads]
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class LoadHarness {
+
+    private static final int DEFAULT_MAX_THREADS = 64;
+
+    private LoadHarness() {
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        int maxThreads = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_MAX_THREADS;
+        StringBuilder report = new StringBuilder(String.format("%-12s %8s %8s %14s %10s %10s %10s%n", "benchmark", "size", "threads", "ops/s", "p50 us",
+                "p99 us", "p999 us"));
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            Options options = new OptionsBuilder()
+                    .include(ConcurrencyBenchmark.class.getName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                Statistics statistics = result.getPrimaryResult().getStatistics();
+                // SampleTime reports microseconds per operation of a single thread
+                double operationsPerSecond = threads * 1_000_000 / statistics.getMean();
+                report.append(String.format("%-12s %8s %8d %14.0f %10.1f %10.1f %10.1f%n", result.getParams().getBenchmark().replaceAll(".*\\.", ""),
+                        result.getParams().getParam("size"), threads, operationsPerSecond, statistics.getPercentile(50), statistics.getPercentile(99),
+                        statistics.getPercentile(99.9)));
+            }
+        }
+        System.out.print(report);
+    }
+}
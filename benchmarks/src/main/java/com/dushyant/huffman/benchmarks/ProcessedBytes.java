@@ -0,0 +1,26 @@
+package com.dushyant.huffman.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * The {@code ProcessedBytes} class counts the original bytes processed by a benchmark. JMH reports the counter as a throughput
+ * next to the operations per second, i.e. in bytes per second: divide by 10^6 for MB/s.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class ProcessedBytes {
+
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        bytes = 0;
+    }
+}
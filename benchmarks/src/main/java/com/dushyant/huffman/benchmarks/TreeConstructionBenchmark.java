@@ -0,0 +1,75 @@
+package com.dushyant.huffman.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dushyant.huffman.model.FrequencyTable;
+import com.dushyant.huffman.model.HuffmanCodeLengths;
+import com.dushyant.huffman.model.HuffmanTree;
+import com.dushyant.huffman.model.PackageMerge;
+import com.dushyant.huffman.utils.HuffmanUtility;
+
+/**
+ * The {@code TreeConstructionBenchmark} class measures how fast the code lengths of a block are built from its frequencies,
+ * through the Huffman Tree of node objects, through the flat arrays of {@link HuffmanCodeLengths} and through the package-merge
+ * algorithm. Only the frequencies matter, so every corpus is counted over one default block.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeConstructionBenchmark {
+
+    @Param({"ENGLISH_TEXT", "JSON_LOGS", "BINARY", "UNIFORM_RANDOM", "SINGLE_SYMBOL", "HIGHLY_SKEWED"})
+    public Corpus corpus;
+
+    @Param({"11", "15"})
+    public int maxCodeLength;
+
+    private FrequencyTable frequencyTable;
+
+    private final byte[] codeLengths = new byte[256];
+
+    private final int[] unlimitedCodeLengths = new int[256];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        byte[] block = corpus.create(HuffmanUtility.DEFAULT_BLOCK_SIZE);
+        frequencyTable = new FrequencyTable();
+        frequencyTable.count(block, 0, block.length);
+    }
+
+    @Benchmark
+    public HuffmanTree huffmanTree() {
+        return new HuffmanTree(frequencyTable);
+    }
+
+    @Benchmark
+    public int[] twoQueueCodeLengths() {
+        HuffmanCodeLengths.computeCodeLengths(frequencyTable.getFrequencies(), unlimitedCodeLengths);
+        return unlimitedCodeLengths;
+    }
+
+    @Benchmark
+    public byte[] packageMerge() {
+        PackageMerge.computeCodeLengths(frequencyTable.getFrequencies(), maxCodeLength, codeLengths);
+        return codeLengths;
+    }
+}
@@ -0,0 +1,132 @@
+package com.dushyant.huffman.application;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.CompressionSettings;
+
+/**
+ * The {@code CommandLineOptions} class parses the arguments of the command line:
+ *
+ *      huffman (compress | decompress | test | bench) [-o OUTPUT] [-j JOBS] [-b BLOCK_SIZE] [-l LEVEL] INPUT...
+ *
+ * An input is a file, a directory, whose files are all processed, or a glob such as {@code logs/*.txt}; {@code -} reads the
+ * standard input. The output is a file for a single input, a directory for several, and {@code -} writes to the standard
+ * output. Throws {@link HuffmanException} if the arguments are invalid.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class CommandLineOptions {
+
+    public static final String STANDARD_STREAM = "-";
+
+    public static final String USAGE = "usage: huffman (compress | decompress | test | bench) [-o OUTPUT] [-j JOBS] [-b BLOCK_SIZE] [-l LEVEL] INPUT...\n"
+            + "  compress    compress every INPUT to INPUT.huf, or to OUTPUT\n"
+            + "  decompress  expand every INPUT.huf to INPUT, or to OUTPUT\n"
+            + "  test        check that every compressed INPUT expands\n"
+            + "  bench       compress and expand every INPUT in memory and report the throughput\n"
+            + "  -o OUTPUT   output file for a single INPUT, output directory for several, '-' for the standard output\n"
+            + "  -j JOBS     number of files processed at once, or of threads for a single file (default: number of processors)\n"
+            + "  -b BLOCK    block size in bytes (default: " + new CompressionSettings().getBlockSize() + ")\n"
+            + "  -l LEVEL    compression level, " + CompressionSettings.FAST_LEVEL + " (fast) to " + CompressionSettings.MAX_LEVEL + " (smallest) (default: "
+            + CompressionSettings.DEFAULT_LEVEL + ")\n"
+            + "  INPUT       a file, a directory, a glob such as 'logs/*.txt', or '-' for the standard input\n"
+            + "Without arguments the program runs the interactive menu.";
+
+    private final String command;
+
+    private final List<String> inputs = new ArrayList<>();
+
+    private String output;
+
+    private int jobs = Runtime.getRuntime().availableProcessors();
+
+    private final CompressionSettings settings = new CompressionSettings();
+
+    /**
+     * @param String[], the arguments of the command line
+     */
+    public CommandLineOptions(String[] args) {
+        if (args.length == 0) {
+            throw new HuffmanException("Missing command.");
+        }
+        command = args[0];
+        if (!command.equals("compress") && !command.equals("decompress") && !command.equals("test") && !command.equals("bench")) {
+            throw new HuffmanException("Unknown command: " + command);
+        }
+        for (int index = 1; index < args.length; ++index) {
+            String argument = args[index];
+            switch (argument) {
+                case "-o":
+                    output = value(args, ++index, argument);
+                    break;
+                case "-j":
+                    jobs = number(value(args, ++index, argument), argument);
+                    if (jobs <= 0) {
+                        throw new HuffmanException("Invalid number of jobs: " + jobs);
+                    }
+                    break;
+                case "-b":
+                    settings.setBlockSize(number(value(args, ++index, argument), argument));
+                    break;
+                case "-l":
+                    settings.setLevel(number(value(args, ++index, argument), argument));
+                    break;
+                default:
+                    if (argument.startsWith("-") && !argument.equals(STANDARD_STREAM)) {
+                        throw new HuffmanException("Unknown option: " + argument);
+                    }
+                    inputs.add(argument);
+            }
+        }
+        if (inputs.isEmpty()) {
+            throw new HuffmanException("Missing input.");
+        }
+        if (inputs.contains(STANDARD_STREAM) && inputs.size() > 1) {
+            throw new HuffmanException("The standard input cannot be combined with other inputs.");
+        }
+        if (STANDARD_STREAM.equals(output) && !inputs.contains(STANDARD_STREAM)) {
+            throw new HuffmanException("Only the standard input can be written to the standard output.");
+        }
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public List<String> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * @return String, the output file or directory, null to write next to the inputs
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    public int getJobs() {
+        return jobs;
+    }
+
+    public CompressionSettings getSettings() {
+        return settings;
+    }
+
+    private static String value(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new HuffmanException("Missing value of option " + option);
+        }
+        return args[index];
+    }
+
+    private static int number(String value, String option) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException numberFormatException) {
+            throw new HuffmanException("Invalid value of option " + option + ": " + value, numberFormatException);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.dushyant.huffman.application;
+
+/**
+ * The {@code FileSummary} class holds the outcome of one input of the command line: its sizes, the time spent on it and the
+ * error which stopped it, if any.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class FileSummary {
+
+    private final String name;
+
+    private long sizeofOriginalData;
+
+    private long sizeofCompressedData;
+
+    private long compressionNanos;
+
+    private long decompressionNanos;
+
+    private String error;
+
+    public FileSummary(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSizeofOriginalData() {
+        return sizeofOriginalData;
+    }
+
+    public void setSizeofOriginalData(long sizeofOriginalData) {
+        this.sizeofOriginalData = sizeofOriginalData;
+    }
+
+    public long getSizeofCompressedData() {
+        return sizeofCompressedData;
+    }
+
+    public void setSizeofCompressedData(long sizeofCompressedData) {
+        this.sizeofCompressedData = sizeofCompressedData;
+    }
+
+    public long getCompressionNanos() {
+        return compressionNanos;
+    }
+
+    public void setCompressionNanos(long compressionNanos) {
+        this.compressionNanos = compressionNanos;
+    }
+
+    public long getDecompressionNanos() {
+        return decompressionNanos;
+    }
+
+    public void setDecompressionNanos(long decompressionNanos) {
+        this.decompressionNanos = decompressionNanos;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return double, size of the compressed data in percent of the size of the original data
+     */
+    public double getRatio() {
+        return sizeofOriginalData == 0 ? 0 : 100.0 * sizeofCompressedData / sizeofOriginalData;
+    }
+
+    /**
+     * @return double, original megabytes per second over the passed in time, 0 if no time has been measured
+     */
+    public double getThroughput(long nanos) {
+        return nanos == 0 ? 0 : sizeofOriginalData * 1e9 / nanos / (1024 * 1024);
+    }
+}
@@ -0,0 +1,488 @@
+package com.dushyant.huffman.application;
+
+import static com.dushyant.huffman.application.CommandLineOptions.STANDARD_STREAM;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.MIN_BLOCK_FORMAT_VERSION;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.tools.HuffmanCompressor;
+import com.dushyant.huffman.tools.HuffmanDecompressor;
+import com.dushyant.huffman.tools.HuffmanInputStream;
+import com.dushyant.huffman.tools.HuffmanOutputStream;
+
+/**
+ * The {@code HuffmanCommandLine} class runs the commands of {@link CommandLineOptions} without any interaction, so that it can
+ * be scripted and used in pipelines. Several input files are processed concurrently, at most as many at once as the number of
+ * jobs; a single file gets the jobs as threads for its blocks instead. The standard input is compressed and expanded as a
+ * stream. A summary of every input, with its sizes, ratio and throughput, is printed at the end, to the standard error when the
+ * standard output carries data.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanCommandLine {
+
+    public static final String COMPRESSED_FILE_EXTENSION = ".huf";
+
+    public static final int EXIT_SUCCESS = 0;
+
+    public static final int EXIT_FAILURE = 1;
+
+    public static final int EXIT_USAGE = 2;
+
+    private static final int BENCHMARK_ITERATIONS = 3;
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream in;
+
+    private final PrintStream out;
+
+    private final PrintStream err;
+
+    /**
+     * @param {@code InputStream}, the standard input
+     * @param {@code PrintStream}, the standard output
+     * @param {@code PrintStream}, the standard error
+     */
+    public HuffmanCommandLine(InputStream in, PrintStream out, PrintStream err) {
+        this.in = in;
+        this.out = out;
+        this.err = err;
+    }
+
+    /**
+     * @param String[], the arguments of the command line
+     * @return int, the exit status: {@link #EXIT_SUCCESS}, {@link #EXIT_FAILURE} if an input failed, {@link #EXIT_USAGE} if
+     *              the arguments are invalid
+     */
+    public int run(String[] args) {
+        CommandLineOptions options;
+        try {
+            options = new CommandLineOptions(args);
+        } catch (HuffmanException huffmanException) {
+            err.println(huffmanException.getMessage());
+            err.println(CommandLineOptions.USAGE);
+            return EXIT_USAGE;
+        }
+
+        List<FileSummary> summaries;
+        PrintStream report = out;
+        try {
+            if (options.getInputs().contains(STANDARD_STREAM)) {
+                if (writesData(options.getCommand()) && (options.getOutput() == null || STANDARD_STREAM.equals(options.getOutput()))) {
+                    report = err;
+                }
+                summaries = Collections.singletonList(processStandardInput(options));
+            } else {
+                summaries = processFiles(options);
+            }
+        } catch (HuffmanException | IOException exception) {
+            err.println(exception.getMessage());
+            return EXIT_FAILURE;
+        }
+        printSummary(report, options.getCommand(), summaries);
+        for (FileSummary summary : summaries) {
+            if (summary.getError() != null) {
+                return EXIT_FAILURE;
+            }
+        }
+        return EXIT_SUCCESS;
+    }
+
+    private List<FileSummary> processFiles(CommandLineOptions options) throws IOException {
+        List<Path[]> inputFiles = resolveInputs(options.getInputs());
+        if (inputFiles.isEmpty()) {
+            throw new HuffmanException("No input file found.");
+        }
+        boolean singleInputFile = options.getInputs().size() == 1 && Files.isRegularFile(Paths.get(options.getInputs().get(0)));
+        int jobs = options.getJobs();
+        ExecutorService codecExecutor = inputFiles.size() == 1 && jobs > 1 ? new ForkJoinPool(jobs) : null;
+        ExecutorService fileExecutor = inputFiles.size() > 1 && jobs > 1 ? Executors.newFixedThreadPool(Math.min(jobs, inputFiles.size())) : null;
+        try {
+            HuffmanCompressor huffmanCompressor = new HuffmanCompressor(codecExecutor, options.getSettings());
+            HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor(codecExecutor);
+            List<Callable<FileSummary>> tasks = new ArrayList<>(inputFiles.size());
+            for (Path[] inputFile : inputFiles) {
+                Path outputFile = resolveOutput(options, inputFile[0], inputFile[1], singleInputFile);
+                tasks.add(() -> processFile(options.getCommand(), inputFile[0], outputFile, huffmanCompressor, huffmanDecompressor));
+            }
+            List<FileSummary> summaries = new ArrayList<>(tasks.size());
+            if (fileExecutor == null) {
+                for (Callable<FileSummary> task : tasks) {
+                    summaries.add(task.call());
+                }
+                return summaries;
+            }
+            for (Future<FileSummary> future : fileExecutor.invokeAll(tasks)) {
+                summaries.add(future.get());
+            }
+            return summaries;
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new HuffmanException("The operation has been interrupted.", interruptedException);
+        } catch (ExecutionException executionException) {
+            throw new HuffmanException("An error occurred while processing the files.", executionException.getCause());
+        } catch (IOException | RuntimeException exception) {
+            throw exception;
+        } catch (Exception exception) {
+            throw new HuffmanException("An error occurred while processing the files.", exception);
+        } finally {
+            if (codecExecutor != null) {
+                codecExecutor.shutdown();
+            }
+            if (fileExecutor != null) {
+                fileExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * The method runs the command on one file; an error is recorded in the summary of the file instead of stopping the others.
+     *
+     * @return {@code FileSummary}
+     */
+    private FileSummary processFile(String command, Path inputFile, Path outputFile, HuffmanCompressor huffmanCompressor, HuffmanDecompressor huffmanDecompressor) {
+        FileSummary summary = new FileSummary(outputFile == null ? inputFile.toString() : inputFile + " -> " + outputFile);
+        try {
+            if (outputFile != null && outputFile.toAbsolutePath().getParent() != null) {
+                Files.createDirectories(outputFile.toAbsolutePath().getParent());
+            }
+            long start = System.nanoTime();
+            switch (command) {
+                case "compress":
+                    huffmanCompressor.compress(inputFile, outputFile);
+                    summary.setCompressionNanos(System.nanoTime() - start);
+                    summary.setSizeofOriginalData(Files.size(inputFile));
+                    summary.setSizeofCompressedData(Files.size(outputFile));
+                    break;
+                case "decompress":
+                    huffmanDecompressor.decompress(inputFile, outputFile);
+                    summary.setDecompressionNanos(System.nanoTime() - start);
+                    summary.setSizeofOriginalData(Files.size(outputFile));
+                    summary.setSizeofCompressedData(Files.size(inputFile));
+                    break;
+                case "test":
+                    summary.setSizeofOriginalData(testFile(inputFile, huffmanDecompressor));
+                    summary.setDecompressionNanos(System.nanoTime() - start);
+                    summary.setSizeofCompressedData(Files.size(inputFile));
+                    break;
+                default:
+                    benchmark(Files.readAllBytes(inputFile), summary, huffmanCompressor, huffmanDecompressor);
+            }
+        } catch (IOException | RuntimeException exception) {
+            summary.setError(exception.getMessage() == null ? exception.toString() : exception.getMessage());
+        }
+        return summary;
+    }
+
+    private FileSummary processStandardInput(CommandLineOptions options) throws IOException {
+        FileSummary summary = new FileSummary("<stdin>");
+        String output = options.getOutput();
+        CountingInputStream source = new CountingInputStream(new BufferedInputStream(in, COPY_BUFFER_SIZE));
+        long start = System.nanoTime();
+        switch (options.getCommand()) {
+            case "compress":
+                try (CountingOutputStream target = new CountingOutputStream(openOutput(output))) {
+                    HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(target, options.getSettings());
+                    summary.setSizeofOriginalData(copy(source, huffmanOutputStream));
+                    huffmanOutputStream.finish();
+                    summary.setCompressionNanos(System.nanoTime() - start);
+                    summary.setSizeofCompressedData(target.getCount());
+                }
+                break;
+            case "decompress":
+                try (OutputStream target = openOutput(output)) {
+                    summary.setSizeofOriginalData(copy(new HuffmanInputStream(source), target));
+                    summary.setDecompressionNanos(System.nanoTime() - start);
+                    summary.setSizeofCompressedData(source.getCount());
+                }
+                break;
+            case "test":
+                summary.setSizeofOriginalData(copy(new HuffmanInputStream(source), null));
+                summary.setDecompressionNanos(System.nanoTime() - start);
+                summary.setSizeofCompressedData(source.getCount());
+                break;
+            default:
+                ByteArrayOutputStream data = new ByteArrayOutputStream();
+                copy(source, data);
+                benchmark(data.toByteArray(), summary, new HuffmanCompressor(null, options.getSettings()), new HuffmanDecompressor());
+        }
+        return summary;
+    }
+
+    /**
+     * @return {@code OutputStream}, the standard output, left open on close, or the output file
+     */
+    private OutputStream openOutput(String output) throws IOException {
+        if (output == null || STANDARD_STREAM.equals(output)) {
+            return new FilterOutputStream(out) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+        Path outputFile = Paths.get(output);
+        if (outputFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(outputFile.toAbsolutePath().getParent());
+        }
+        return Files.newOutputStream(outputFile);
+    }
+
+    /**
+     * The method expands a compressed file without writing the decompressed data anywhere. Block compressed files are expanded
+     * as a stream, block by block; files of the other formats are expanded in memory.
+     *
+     * @return long, number of decompressed bytes
+     */
+    private static long testFile(Path compressedFile, HuffmanDecompressor huffmanDecompressor) throws IOException {
+        byte[] header = new byte[MAGIC_BYTES.length + 1];
+        try (InputStream compressedData = new BufferedInputStream(Files.newInputStream(compressedFile), COPY_BUFFER_SIZE)) {
+            compressedData.mark(header.length);
+            int sizeofHeader = compressedData.read(header);
+            compressedData.reset();
+            if (sizeofHeader == header.length && header[0] == MAGIC_BYTES[0] && header[1] == MAGIC_BYTES[1]
+                    && header[MAGIC_BYTES.length] >= MIN_BLOCK_FORMAT_VERSION && header[MAGIC_BYTES.length] <= BLOCK_FORMAT_VERSION) {
+                return copy(new HuffmanInputStream(compressedData), null);
+            }
+        }
+        return huffmanDecompressor.decompress(Files.readAllBytes(compressedFile)).length;
+    }
+
+    /**
+     * The method compresses and expands the data in memory a few times, keeps the fastest time of each and checks that the
+     * data comes back unchanged.
+     */
+    private static void benchmark(byte[] originalData, FileSummary summary, HuffmanCompressor huffmanCompressor, HuffmanDecompressor huffmanDecompressor) {
+        summary.setSizeofOriginalData(originalData.length);
+        summary.setCompressionNanos(Long.MAX_VALUE);
+        summary.setDecompressionNanos(Long.MAX_VALUE);
+        for (int iteration = 0; iteration < BENCHMARK_ITERATIONS; ++iteration) {
+            long start = System.nanoTime();
+            byte[] compressedData = huffmanCompressor.compress(originalData);
+            long middle = System.nanoTime();
+            byte[] decompressedData = huffmanDecompressor.decompress(compressedData);
+            long end = System.nanoTime();
+            if (!Arrays.equals(originalData, decompressedData)) {
+                throw new HuffmanException("The decompressed data differs from the original data.");
+            }
+            summary.setSizeofCompressedData(compressedData.length);
+            summary.setCompressionNanos(Math.min(summary.getCompressionNanos(), middle - start));
+            summary.setDecompressionNanos(Math.min(summary.getDecompressionNanos(), end - middle));
+        }
+    }
+
+    /**
+     * The method resolves the inputs into the files to process. Every file is returned with its path relative to the input it
+     * was found under, which places it in an output directory.
+     *
+     * @return List<Path[]>, pairs of the path of a file and its relative path
+     */
+    private static List<Path[]> resolveInputs(List<String> inputs) throws IOException {
+        List<Path[]> inputFiles = new ArrayList<>();
+        for (String input : inputs) {
+            int globStart = indexOfGlob(input);
+            if (globStart >= 0) {
+                int separator = Math.max(input.lastIndexOf('/', globStart), input.lastIndexOf(File.separatorChar, globStart));
+                Path directory = Paths.get(separator < 0 ? "." : input.substring(0, separator + 1));
+                String glob = input.substring(separator + 1);
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+                int depth = glob.contains("**") ? Integer.MAX_VALUE : glob.split("/").length;
+                addFiles(inputFiles, directory, depth, matcher);
+            } else if (Files.isDirectory(Paths.get(input))) {
+                addFiles(inputFiles, Paths.get(input), Integer.MAX_VALUE, null);
+            } else if (Files.isRegularFile(Paths.get(input))) {
+                inputFiles.add(new Path[]{Paths.get(input), Paths.get(input).getFileName()});
+            } else {
+                throw new HuffmanException("No such file or directory: " + input);
+            }
+        }
+        return inputFiles;
+    }
+
+    private static void addFiles(List<Path[]> inputFiles, Path directory, int depth, PathMatcher matcher) throws IOException {
+        try (Stream<Path> files = Files.walk(directory, depth)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                Path relativePath = directory.relativize(file);
+                if (matcher == null || matcher.matches(relativePath)) {
+                    inputFiles.add(new Path[]{file, relativePath});
+                }
+            }
+        }
+    }
+
+    private static int indexOfGlob(String input) {
+        for (int index = 0; index < input.length(); ++index) {
+            if ("*?[{".indexOf(input.charAt(index)) >= 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@code Path}, the output file of the input file, null for commands writing no output
+     */
+    private static Path resolveOutput(CommandLineOptions options, Path inputFile, Path relativePath, boolean singleInputFile) {
+        if (!writesData(options.getCommand())) {
+            return null;
+        }
+        if (options.getOutput() == null) {
+            return inputFile.resolveSibling(outputName(options.getCommand(), inputFile.getFileName().toString()));
+        }
+        Path output = Paths.get(options.getOutput());
+        if (singleInputFile && !Files.isDirectory(output)) {
+            return output;
+        }
+        return output.resolve(outputName(options.getCommand(), relativePath.toString()));
+    }
+
+    private static String outputName(String command, String inputName) {
+        if (command.equals("compress")) {
+            return inputName + COMPRESSED_FILE_EXTENSION;
+        }
+        if (inputName.endsWith(COMPRESSED_FILE_EXTENSION) && inputName.length() > COMPRESSED_FILE_EXTENSION.length()) {
+            return inputName.substring(0, inputName.length() - COMPRESSED_FILE_EXTENSION.length());
+        }
+        return inputName + ".out";
+    }
+
+    private static boolean writesData(String command) {
+        return command.equals("compress") || command.equals("decompress");
+    }
+
+    /**
+     * @param {@code OutputStream}, the destination, null to discard the data
+     * @return long, number of bytes copied
+     */
+    private static long copy(InputStream source, OutputStream destination) throws IOException {
+        byte[] buffer = new byte[COPY_BUFFER_SIZE];
+        long count = 0;
+        int length;
+        while ((length = source.read(buffer)) != -1) {
+            if (destination != null) {
+                destination.write(buffer, 0, length);
+            }
+            count += length;
+        }
+        return count;
+    }
+
+    private static void printSummary(PrintStream report, String command, List<FileSummary> summaries) {
+        long sizeofOriginalData = 0;
+        long sizeofCompressedData = 0;
+        for (FileSummary summary : summaries) {
+            if (summary.getError() != null) {
+                report.println(summary.getName() + ": FAILED: " + summary.getError());
+                continue;
+            }
+            sizeofOriginalData += summary.getSizeofOriginalData();
+            sizeofCompressedData += summary.getSizeofCompressedData();
+            StringBuilder line = new StringBuilder(String.format("%s: %d -> %d bytes (%.2f%%)", summary.getName(), summary.getSizeofOriginalData(),
+                    summary.getSizeofCompressedData(), summary.getRatio()));
+            if (!command.equals("decompress") && !command.equals("test")) {
+                line.append(String.format(", compress %.1f MB/s", summary.getThroughput(summary.getCompressionNanos())));
+            }
+            if (!command.equals("compress")) {
+                line.append(String.format(", decompress %.1f MB/s", summary.getThroughput(summary.getDecompressionNanos())));
+            }
+            report.println(line);
+        }
+        if (summaries.size() > 1) {
+            FileSummary total = new FileSummary("total");
+            total.setSizeofOriginalData(sizeofOriginalData);
+            total.setSizeofCompressedData(sizeofCompressedData);
+            report.println(String.format("%d files: %d -> %d bytes (%.2f%%)", summaries.size(), sizeofOriginalData, sizeofCompressedData, total.getRatio()));
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) {
+                ++count;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int length = super.read(b, off, len);
+            if (length > 0) {
+                count += length;
+            }
+            return length;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.dushyant.huffman.application;
 import static com.dushyant.huffman.utils.HuffmanUtility.COMPRESSED_FILE;
 import static com.dushyant.huffman.utils.HuffmanUtility.DECOMPRESSED_FILE;
 
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Scanner;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -11,16 +13,26 @@ import com.dushyant.huffman.tools.HuffmanCompressor;
 import com.dushyant.huffman.tools.HuffmanDecompressor;
 import com.dushyant.huffman.utils.HuffmanUtility;
 
+/**
+ * The {@code HuffmanEncodingApplication} class is the entry point of the program. With arguments it runs the command line, see
+ * {@link CommandLineOptions}; without arguments it runs the interactive menu, which stores its output under
+ * java.io.tmpdir/huffman.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
 public class HuffmanEncodingApplication {
 
     private static final Logger LOGGER = Logger.getLogger(HuffmanEncodingApplication.class.getName());
 
     public static void main(String[] args) {
+        if (args.length > 0) {
+            System.exit(new HuffmanCommandLine(System.in, System.out, System.err).run(args));
+        }
         try {
-            System.out.print("Please create a folder with name 'huffman' under " + System.getProperty("java.io.tmpdir") +
-                    ".\nThe program will store the compressed file under " + System.getProperty("java.io.tmpdir") + "/huffman." +
-                    "\n\nPress 'ENTER' when ready.");
-            System.in.read();
+            Files.createDirectories(Paths.get(COMPRESSED_FILE).getParent());
+            System.out.print("The program will store the compressed file under " + Paths.get(COMPRESSED_FILE).getParent() + ".\n"
+                    + "Run it with arguments to compress or decompress files without the menu:\n" + CommandLineOptions.USAGE + "\n");
             Scanner scanner = new Scanner(System.in);
             int choice;
             String exit;
@@ -55,9 +67,7 @@ public class HuffmanEncodingApplication {
             System.out.print("\nPlease enter the absolute path for the file you want to compress below:\npath: ");
             Scanner inputScanner = new Scanner(System.in);
             String inputFilePath = inputScanner.nextLine();
-            byte[] inputBytes = HuffmanUtility.readAllBytes(inputFilePath.trim());
-            byte[] compressedData = huffmanCompressor.compress(inputBytes);
-            HuffmanUtility.writeAllBytes(compressedData, COMPRESSED_FILE);
+            huffmanCompressor.compress(HuffmanUtility.getPath(inputFilePath), HuffmanUtility.getPath(COMPRESSED_FILE));
             LOGGER.info("The compressed data has been saved successfully at: " + COMPRESSED_FILE);
         } catch (Exception exception) {
             LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
@@ -70,9 +80,7 @@ public class HuffmanEncodingApplication {
             System.out.print("\nPlease enter the absolute path for the file you want to decompress below:\npath: ");
             Scanner inputScanner = new Scanner(System.in);
             String compressedFilePath = inputScanner.nextLine();
-            byte[] encodedData = HuffmanUtility.readAllBytes(compressedFilePath);
-            Byte[] decompressedData = huffmanDecompressor.decompress(encodedData);
-            HuffmanUtility.writeAllBytes(decompressedData, DECOMPRESSED_FILE);
+            huffmanDecompressor.decompress(HuffmanUtility.getPath(compressedFilePath), HuffmanUtility.getPath(DECOMPRESSED_FILE));
             LOGGER.info("The decoded content has been saved successfully at: " + DECOMPRESSED_FILE);
         } catch (Exception exception) {
             LOGGER.log(Level.SEVERE, exception.getMessage(), exception);
@@ -0,0 +1,83 @@
+package com.dushyant.huffman.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code BlockDirectory} class lists the blocks of block compressed data: where every block starts in the compressed data,
+ * the size of its block body and the number of original bytes it expands to. The position of every block in the original data
+ * follows from the sizes of the blocks before it.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class BlockDirectory {
+
+    private long[] blockOffsets = new long[16];
+
+    private int[] sizesOfBlockBodies = new int[16];
+
+    private int[] numbersOfOriginalBytes = new int[16];
+
+    private long[] originalOffsets = new long[16];
+
+    private int numberOfBlocks;
+
+    private long sizeofOriginalData;
+
+    /**
+     * @param long, offset of the block header in the compressed data
+     * @param int, size of the block body in bytes
+     * @param int, number of original bytes in the block
+     */
+    public void addBlock(long blockOffset, int sizeofBlockBody, int numberOfOriginalBytes) {
+        if (numberOfBlocks == blockOffsets.length) {
+            int capacity = numberOfBlocks * 2;
+            blockOffsets = Arrays.copyOf(blockOffsets, capacity);
+            sizesOfBlockBodies = Arrays.copyOf(sizesOfBlockBodies, capacity);
+            numbersOfOriginalBytes = Arrays.copyOf(numbersOfOriginalBytes, capacity);
+            originalOffsets = Arrays.copyOf(originalOffsets, capacity);
+        }
+        blockOffsets[numberOfBlocks] = blockOffset;
+        sizesOfBlockBodies[numberOfBlocks] = sizeofBlockBody;
+        numbersOfOriginalBytes[numberOfBlocks] = numberOfOriginalBytes;
+        originalOffsets[numberOfBlocks] = sizeofOriginalData;
+        sizeofOriginalData += numberOfOriginalBytes;
+        ++numberOfBlocks;
+    }
+
+    public int getNumberOfBlocks() {
+        return numberOfBlocks;
+    }
+
+    public long getSizeofOriginalData() {
+        return sizeofOriginalData;
+    }
+
+    public long getBlockOffset(int block) {
+        return blockOffsets[block];
+    }
+
+    public int getSizeofBlockBody(int block) {
+        return sizesOfBlockBodies[block];
+    }
+
+    public int getNumberOfOriginalBytes(int block) {
+        return numbersOfOriginalBytes[block];
+    }
+
+    /**
+     * @return long, position of the first original byte of the block in the original data
+     */
+    public long getOriginalOffset(int block) {
+        return originalOffsets[block];
+    }
+
+    /**
+     * @param long, position in the original data, below the size of the original data
+     * @return int, the block holding the original byte at the position
+     */
+    public int findBlock(long originalOffset) {
+        int block = Arrays.binarySearch(originalOffsets, 0, numberOfBlocks, originalOffset);
+        return block >= 0 ? block : -block - 2;
+    }
+}
@@ -0,0 +1,180 @@
+package com.dushyant.huffman.model;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_ENTRY_SIZE;
+
+import java.util.Arrays;
+
+/**
+ * The {@code BlockSplitter} class picks the block boundaries of data whose statistics change along the way, e.g. text headers
+ * followed by binary payloads, so that every section gets code tables of its own instead of one table which suits neither. The
+ * data is read once, a segment of {@link #SEGMENT_SIZE} bytes at a time:
+ *  - the 8 bit patterns of the segment are counted into a sub-histogram, which becomes the newest open block
+ *  - the newest open block is merged into the one before it wherever the estimated size of the merged block is at most the
+ *    estimated size of the two blocks and the merged block does not exceed the maximum block size, as long as merges succeed
+ *  - at most {@link #WINDOW_SIZE} blocks are open; when another one is needed, the oldest block is closed and its sub-histogram
+ *    is reused
+ *
+ * The estimated size of a block is its entropy under its own frequencies, i.e. the size of its Huffman encoding give or take a
+ * bit per symbol, plus the block header, the directory entry and about a byte of code length table per bit pattern it holds. So
+ * sections with similar statistics end up in one block sharing one table, and a section is split off where separate tables save
+ * more than another header costs. Counts are ints, since a block never exceeds the maximum block size, and only the open blocks
+ * hold one, so the memory used does not grow with the data.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class BlockSplitter {
+
+    public static final int SEGMENT_SIZE = 4096;
+
+    /**
+     * The most blocks open at a time.
+     */
+    public static final int WINDOW_SIZE = 64;
+
+    private static final int BLOCK_OVERHEAD = 1 + BLOCK_HEADER_SIZE + DIRECTORY_ENTRY_SIZE; // block type + block header + directory entry
+
+    private BlockSplitter() {
+    }
+
+    /**
+     * The method splits data into blocks of at most the passed in size, from segments of {@link #SEGMENT_SIZE} bytes.
+     *
+     * @param byte[], the original data
+     * @param int, offset of the data to split
+     * @param int, length of the data to split
+     * @param int, the largest block
+     * @return int[], number of original bytes of every block, in order
+     */
+    public static int[] split(byte[] data, int offset, int length, int maxBlockSize) {
+        return split(data, offset, length, maxBlockSize, SEGMENT_SIZE);
+    }
+
+    /**
+     * The method splits data into blocks of at most the passed in size. Smaller segments find the boundaries more precisely and
+     * take longer.
+     *
+     * @param byte[], the original data
+     * @param int, offset of the data to split
+     * @param int, length of the data to split
+     * @param int, the largest block
+     * @param int, the smallest block
+     * @return int[], number of original bytes of every block, in order
+     */
+    public static int[] split(byte[] data, int offset, int length, int maxBlockSize, int segmentSize) {
+        int sizeofSegment = Math.min(segmentSize, maxBlockSize);
+        int numberOfSegments = (length + sizeofSegment - 1) / sizeofSegment;
+        int[] lengths = new int[numberOfSegments];
+        int numberOfBlocks = 0;
+
+        // the open blocks form a ring, oldest first
+        int windowSize = Math.min(WINDOW_SIZE, numberOfSegments);
+        int[][] openFrequencies = new int[windowSize][256];
+        int[] openLengths = new int[windowSize];
+        double[] openSizes = new double[windowSize];
+        int[] mergedFrequencies = new int[256];
+        int oldest = 0;
+        int numberOfOpenBlocks = 0;
+        for (int segment = 0; segment < numberOfSegments; ++segment) {
+            if (numberOfOpenBlocks == windowSize) {
+                lengths[numberOfBlocks++] = openLengths[oldest];
+                oldest = (oldest + 1) % windowSize;
+                --numberOfOpenBlocks;
+            }
+            int next = (oldest + numberOfOpenBlocks) % windowSize;
+            int[] frequencies = openFrequencies[next];
+            Arrays.fill(frequencies, 0);
+            int start = offset + segment * sizeofSegment;
+            int end = start + Math.min(sizeofSegment, length - segment * sizeofSegment);
+            for (int index = start; index < end; ++index) {
+                ++frequencies[data[index] & 0xFF];
+            }
+            openLengths[next] = end - start;
+            openSizes[next] = estimateSize(frequencies);
+
+            if (numberOfOpenBlocks == 0) {
+                numberOfOpenBlocks = 1;
+                continue;
+            }
+            // The segment joins the newest block if that pays off. Otherwise the newest block is complete, and is merged into
+            // the blocks before it wherever that pays off, before the segment opens a block of its own.
+            while (true) {
+                int newest = (next + windowSize - 1) % windowSize;
+                if (merge(openFrequencies, openLengths, openSizes, newest, next, maxBlockSize, mergedFrequencies)) {
+                    break;
+                }
+                if (numberOfOpenBlocks == 1 || !merge(openFrequencies, openLengths, openSizes, (newest + windowSize - 1) % windowSize, newest, maxBlockSize, mergedFrequencies)) {
+                    ++numberOfOpenBlocks;
+                    break;
+                }
+                // the segment moves next to the merged block
+                int[] freedFrequencies = openFrequencies[newest];
+                openFrequencies[newest] = openFrequencies[next];
+                openFrequencies[next] = freedFrequencies;
+                openLengths[newest] = openLengths[next];
+                openSizes[newest] = openSizes[next];
+                next = newest;
+                --numberOfOpenBlocks;
+            }
+        }
+        while (numberOfOpenBlocks > 1) {
+            int newest = (oldest + numberOfOpenBlocks - 1) % windowSize;
+            if (!merge(openFrequencies, openLengths, openSizes, (newest + windowSize - 1) % windowSize, newest, maxBlockSize, mergedFrequencies)) {
+                break;
+            }
+            --numberOfOpenBlocks;
+        }
+        for (int block = 0; block < numberOfOpenBlocks; ++block) {
+            lengths[numberOfBlocks++] = openLengths[(oldest + block) % windowSize];
+        }
+        return Arrays.copyOf(lengths, numberOfBlocks);
+    }
+
+    /**
+     * The method merges an open block into the open block before it, if the merged block fits the maximum block size and its
+     * estimated size is at most the estimated size of the two blocks.
+     *
+     * @param int[], holds the frequencies of the merged block afterwards
+     * @return boolean, true if the blocks have been merged; the first block then holds them both
+     */
+    private static boolean merge(int[][] openFrequencies, int[] openLengths, double[] openSizes, int first, int second, int maxBlockSize,
+                                 int[] mergedFrequencies) {
+        if ((long) openLengths[first] + openLengths[second] > maxBlockSize) {
+            return false;
+        }
+        int[] firstFrequencies = openFrequencies[first];
+        int[] secondFrequencies = openFrequencies[second];
+        for (int symbol = 0; symbol < 256; ++symbol) {
+            mergedFrequencies[symbol] = firstFrequencies[symbol] + secondFrequencies[symbol];
+        }
+        double mergedSize = estimateSize(mergedFrequencies);
+        if (mergedSize > openSizes[first] + openSizes[second]) {
+            return false;
+        }
+        System.arraycopy(mergedFrequencies, 0, firstFrequencies, 0, 256);
+        openLengths[first] += openLengths[second];
+        openSizes[first] = mergedSize;
+        return true;
+    }
+
+    /**
+     * @return double, estimated size of a block in bits
+     */
+    private static double estimateSize(int[] frequencies) {
+        long total = 0;
+        int numberOfBitPatterns = 0;
+        for (int frequency : frequencies) {
+            total += frequency;
+            numberOfBitPatterns += frequency > 0 ? 1 : 0;
+        }
+        // the entropy, sum of frequency * log2(total / frequency), as total * ln(total) - sum of frequency * ln(frequency)
+        double entropyInNats = total * Math.log(total);
+        for (int frequency : frequencies) {
+            if (frequency > 0) {
+                entropyInNats -= frequency * Math.log(frequency);
+            }
+        }
+        return Byte.SIZE * (BLOCK_OVERHEAD + numberOfBitPatterns) + entropyInNats / Math.log(2);
+    }
+}
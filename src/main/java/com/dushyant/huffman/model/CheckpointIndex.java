@@ -0,0 +1,88 @@
+package com.dushyant.huffman.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code CheckpointIndex} class lists the checkpoints of block compressed data. A block of n original bytes has a checkpoint
+ * at every multiple of the checkpoint interval from 1 to n - 1 within the block; the checkpoint holds the bit offset, within its
+ * bitstream, of the code of the original byte at that position. The checkpoints of raw and run blocks hold 0, those blocks are
+ * read at any position without them.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class CheckpointIndex {
+
+    private final int checkpointInterval;
+
+    private int[] bitOffsets = new int[16];
+
+    private int numberOfCheckpoints;
+
+    private int[] firstCheckpoints = new int[16];
+
+    private int numberOfBlocks;
+
+    /**
+     * @param int, number of original bytes between two checkpoints
+     */
+    public CheckpointIndex(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * @param int, number of original bytes between two checkpoints
+     * @param int, number of original bytes in a block
+     * @return int, number of checkpoints of the block
+     */
+    public static int getNumberOfCheckpoints(int checkpointInterval, int numberOfOriginalBytes) {
+        return (numberOfOriginalBytes - 1) / checkpointInterval;
+    }
+
+    /**
+     * @param int[], bit offset per checkpoint of the next block, as many as {@link #getNumberOfCheckpoints(int, int)} tells
+     */
+    public void addBlock(int[] blockBitOffsets) {
+        if (numberOfBlocks == firstCheckpoints.length) {
+            firstCheckpoints = Arrays.copyOf(firstCheckpoints, numberOfBlocks * 2);
+        }
+        if (numberOfCheckpoints + blockBitOffsets.length > bitOffsets.length) {
+            bitOffsets = Arrays.copyOf(bitOffsets, Math.max(bitOffsets.length * 2, numberOfCheckpoints + blockBitOffsets.length));
+        }
+        firstCheckpoints[numberOfBlocks++] = numberOfCheckpoints;
+        System.arraycopy(blockBitOffsets, 0, bitOffsets, numberOfCheckpoints, blockBitOffsets.length);
+        numberOfCheckpoints += blockBitOffsets.length;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public int getNumberOfBlocks() {
+        return numberOfBlocks;
+    }
+
+    /**
+     * @return int, number of checkpoints of all the blocks
+     */
+    public int getNumberOfCheckpoints() {
+        return numberOfCheckpoints;
+    }
+
+    /**
+     * @param int, index of a checkpoint over all the blocks
+     * @return int, bit offset of the checkpoint
+     */
+    public int getBitOffset(int checkpoint) {
+        return bitOffsets[checkpoint];
+    }
+
+    /**
+     * @param int, the block
+     * @return int[], bit offset per checkpoint of the block
+     */
+    public int[] getBlockBitOffsets(int block) {
+        int end = block + 1 < numberOfBlocks ? firstCheckpoints[block + 1] : numberOfCheckpoints;
+        return Arrays.copyOfRange(bitOffsets, firstCheckpoints[block], end);
+    }
+}
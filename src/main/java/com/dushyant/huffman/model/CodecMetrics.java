@@ -0,0 +1,146 @@
+package com.dushyant.huffman.model;
+
+/**
+ * The {@code CodecMetrics} class holds what compression and decompression have in common: the sizes of the original and the
+ * compressed data, the elapsed time and the number of blocks of every block type. The times of the single phases are summed
+ * over all the blocks, so with blocks processed concurrently they add up to more than the elapsed time.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public abstract class CodecMetrics {
+
+    private long sizeofOriginalData;
+
+    private long sizeofCompressedData;
+
+    private long totalNanos;
+
+    private long numberOfHuffmanBlocks;
+
+    private long numberOfInterleavedBlocks;
+
+    private long numberOfRawBlocks;
+
+    private long numberOfRunBlocks;
+
+    private long numberOfContextBlocks;
+
+    private long numberOfDigramBlocks;
+
+    public long getSizeofOriginalData() {
+        return sizeofOriginalData;
+    }
+
+    public void setSizeofOriginalData(long sizeofOriginalData) {
+        this.sizeofOriginalData = sizeofOriginalData;
+    }
+
+    public long getSizeofCompressedData() {
+        return sizeofCompressedData;
+    }
+
+    public void setSizeofCompressedData(long sizeofCompressedData) {
+        this.sizeofCompressedData = sizeofCompressedData;
+    }
+
+    /**
+     * @return long, elapsed time of the call in nanoseconds
+     */
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public void setTotalNanos(long totalNanos) {
+        this.totalNanos = totalNanos;
+    }
+
+    /**
+     * @return long, number of blocks encoded as a single bitstream, including data of the original single block format and
+     *               messages compressed with a shared table
+     */
+    public long getNumberOfHuffmanBlocks() {
+        return numberOfHuffmanBlocks;
+    }
+
+    public void setNumberOfHuffmanBlocks(long numberOfHuffmanBlocks) {
+        this.numberOfHuffmanBlocks = numberOfHuffmanBlocks;
+    }
+
+    public long getNumberOfInterleavedBlocks() {
+        return numberOfInterleavedBlocks;
+    }
+
+    public void setNumberOfInterleavedBlocks(long numberOfInterleavedBlocks) {
+        this.numberOfInterleavedBlocks = numberOfInterleavedBlocks;
+    }
+
+    public long getNumberOfRawBlocks() {
+        return numberOfRawBlocks;
+    }
+
+    public void setNumberOfRawBlocks(long numberOfRawBlocks) {
+        this.numberOfRawBlocks = numberOfRawBlocks;
+    }
+
+    public long getNumberOfRunBlocks() {
+        return numberOfRunBlocks;
+    }
+
+    public void setNumberOfRunBlocks(long numberOfRunBlocks) {
+        this.numberOfRunBlocks = numberOfRunBlocks;
+    }
+
+    /**
+     * @return long, number of blocks encoded with code tables picked by the previous byte
+     */
+    public long getNumberOfContextBlocks() {
+        return numberOfContextBlocks;
+    }
+
+    public void setNumberOfContextBlocks(long numberOfContextBlocks) {
+        this.numberOfContextBlocks = numberOfContextBlocks;
+    }
+
+    /**
+     * @return long, number of blocks encoded with byte pairs as symbols of their own
+     */
+    public long getNumberOfDigramBlocks() {
+        return numberOfDigramBlocks;
+    }
+
+    public void setNumberOfDigramBlocks(long numberOfDigramBlocks) {
+        this.numberOfDigramBlocks = numberOfDigramBlocks;
+    }
+
+    /**
+     * @return double, size of the compressed data in percent of the size of the original data
+     */
+    public double getRatio() {
+        return sizeofOriginalData == 0 ? 0 : 100.0 * sizeofCompressedData / sizeofOriginalData;
+    }
+
+    /**
+     * @return double, original megabytes per second over the elapsed time, 0 if no time has been measured
+     */
+    public double getThroughput() {
+        return totalNanos == 0 ? 0 : sizeofOriginalData * 1e9 / totalNanos / (1024 * 1024);
+    }
+
+    /**
+     * The method adds the sizes, times and block counts of other metrics to these ones.
+     *
+     * @param {@code CodecMetrics}
+     */
+    protected void add(CodecMetrics metrics) {
+        sizeofOriginalData += metrics.sizeofOriginalData;
+        sizeofCompressedData += metrics.sizeofCompressedData;
+        totalNanos += metrics.totalNanos;
+        numberOfHuffmanBlocks += metrics.numberOfHuffmanBlocks;
+        numberOfInterleavedBlocks += metrics.numberOfInterleavedBlocks;
+        numberOfRawBlocks += metrics.numberOfRawBlocks;
+        numberOfRunBlocks += metrics.numberOfRunBlocks;
+        numberOfContextBlocks += metrics.numberOfContextBlocks;
+        numberOfDigramBlocks += metrics.numberOfDigramBlocks;
+    }
+}
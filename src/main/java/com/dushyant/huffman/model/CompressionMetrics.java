@@ -0,0 +1,136 @@
+package com.dushyant.huffman.model;
+
+/**
+ * The {@code CompressionMetrics} class holds the measurements of one or more compressions: the time spent counting the 8 bit
+ * patterns (histogram), building the code lengths and codes (tree), writing the code length tables and the container (header)
+ * and Huffman encoding, next to the entropy of the original data, the number of bits it was actually encoded in and the number
+ * of bits it would have taken without the maximum code length.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class CompressionMetrics extends CodecMetrics {
+
+    private long histogramNanos;
+
+    private long treeNanos;
+
+    private long headerNanos;
+
+    private long encodingNanos;
+
+    private long sizeofEntropyInBits;
+
+    private long sizeofEncodingInBits;
+
+    private long sizeofUnlimitedEncodingInBits;
+
+    public long getHistogramNanos() {
+        return histogramNanos;
+    }
+
+    public void setHistogramNanos(long histogramNanos) {
+        this.histogramNanos = histogramNanos;
+    }
+
+    public long getTreeNanos() {
+        return treeNanos;
+    }
+
+    public void setTreeNanos(long treeNanos) {
+        this.treeNanos = treeNanos;
+    }
+
+    public long getHeaderNanos() {
+        return headerNanos;
+    }
+
+    public void setHeaderNanos(long headerNanos) {
+        this.headerNanos = headerNanos;
+    }
+
+    public long getEncodingNanos() {
+        return encodingNanos;
+    }
+
+    public void setEncodingNanos(long encodingNanos) {
+        this.encodingNanos = encodingNanos;
+    }
+
+    /**
+     * @return long, the least number of bits any prefix code encodes the blocks in, summed over the blocks
+     */
+    public long getSizeofEntropyInBits() {
+        return sizeofEntropyInBits;
+    }
+
+    public void setSizeofEntropyInBits(long sizeofEntropyInBits) {
+        this.sizeofEntropyInBits = sizeofEntropyInBits;
+    }
+
+    /**
+     * @return long, number of bits the bit patterns were encoded in, without code length tables and headers; 8 bits per byte of
+     *               raw blocks
+     */
+    public long getSizeofEncodingInBits() {
+        return sizeofEncodingInBits;
+    }
+
+    public void setSizeofEncodingInBits(long sizeofEncodingInBits) {
+        this.sizeofEncodingInBits = sizeofEncodingInBits;
+    }
+
+    /**
+     * @return long, number of bits the bit patterns would have been encoded in with unrestricted Huffman codes, counted like
+     *               {@link #getSizeofEncodingInBits()}
+     */
+    public long getSizeofUnlimitedEncodingInBits() {
+        return sizeofUnlimitedEncodingInBits;
+    }
+
+    public void setSizeofUnlimitedEncodingInBits(long sizeofUnlimitedEncodingInBits) {
+        this.sizeofUnlimitedEncodingInBits = sizeofUnlimitedEncodingInBits;
+    }
+
+    /**
+     * @return double, percentage by which the maximum code length enlarged the encoding
+     */
+    public double getCodeLengthLimitPenalty() {
+        return sizeofUnlimitedEncodingInBits == 0 ? 0 : 100.0 * (sizeofEncodingInBits - sizeofUnlimitedEncodingInBits) / sizeofUnlimitedEncodingInBits;
+    }
+
+    /**
+     * @return double, Shannon entropy of the blocks in bits per original byte
+     */
+    public double getEntropyPerSymbol() {
+        return getSizeofOriginalData() == 0 ? 0 : (double) sizeofEntropyInBits / getSizeofOriginalData();
+    }
+
+    /**
+     * @return double, achieved bits per original byte of the encoding alone
+     */
+    public double getEncodingBitsPerSymbol() {
+        return getSizeofOriginalData() == 0 ? 0 : (double) sizeofEncodingInBits / getSizeofOriginalData();
+    }
+
+    /**
+     * @return double, achieved bits per original byte of the whole compressed data, tables and headers included
+     */
+    public double getBitsPerSymbol() {
+        return getSizeofOriginalData() == 0 ? 0 : (double) getSizeofCompressedData() * Byte.SIZE / getSizeofOriginalData();
+    }
+
+    /**
+     * @param {@code CompressionMetrics}, metrics added to these ones
+     */
+    public void add(CompressionMetrics metrics) {
+        super.add(metrics);
+        histogramNanos += metrics.histogramNanos;
+        treeNanos += metrics.treeNanos;
+        headerNanos += metrics.headerNanos;
+        encodingNanos += metrics.encodingNanos;
+        sizeofEntropyInBits += metrics.sizeofEntropyInBits;
+        sizeofEncodingInBits += metrics.sizeofEncodingInBits;
+        sizeofUnlimitedEncodingInBits += metrics.sizeofUnlimitedEncodingInBits;
+    }
+}
@@ -0,0 +1,200 @@
+package com.dushyant.huffman.model;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.DEFAULT_BLOCK_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DEFAULT_MAX_CODE_LENGTH;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAX_BLOCK_SIZE;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+/**
+ * The {@code CompressionSettings} class holds the tuning parameters shared by the compressors:
+ *  - block size: number of original bytes per block, every block is Huffman encoded with its own codes
+ *  - maximum code length: no Huffman code is longer than this many bits; codes of skewed data are length limited with the
+ *    package-merge algorithm. With the default of 11 bits every code is resolved by a single lookup into the primary decoding
+ *    table.
+ *  - interleaved: blocks are encoded as four sub-streams under one code table, which a single core decodes with four
+ *    independent bit readers in one loop, keeping several decodes in flight. Costs 12 bytes per block.
+ *  - checkpoint interval: every this many original bytes the bit offset of the Huffman encoding is recorded in a checkpoint
+ *    index, so a range of the original data is decoded from the nearest checkpoint instead of the start of its block. Costs 4
+ *    bytes per checkpoint; 0, the default, writes no checkpoint index.
+ *  - number of context tables: with 2 or more, a block may be encoded with up to this many code tables, each symbol with the
+ *    table picked by the byte in front of it (order-1 context), see {@link ContextClustering}. Structured text compresses
+ *    better, decoding is somewhat slower; 1, the default, encodes every symbol of a block with the same table.
+ *  - number of digrams: with 1 or more, the most frequent byte pairs of a block, up to this many, become symbols of their own
+ *    next to the 256 bytes, so the decoder writes two bytes for a single lookup. Text compresses better and decodes faster; 0,
+ *    the default, codes every byte on its own.
+ *  - adaptive blocks: blocks end where the statistics of the data change and neighbouring sections with similar statistics
+ *    share a block, see {@link BlockSplitter}; the block size is the largest block. Off by default, every block but the last
+ *    one has the block size. Applies to {@link com.dushyant.huffman.tools.HuffmanCompressor}, the streams encode the blocks
+ *    they buffer.
+ *  - level: trades the quality of the code tables for speed.
+ *     - {@link #FAST_LEVEL}: a block is coded with the code table of the block before it in the same run of blocks when a
+ *       sample of the block, 1 in 8 bytes, says that table costs at most a few percent more than a table of its own; the runs
+ *       of the compressor are 8 blocks long and prepared concurrently; over-long codes are
+ *       shortened with a heuristic instead of package-merge, and no context tables are tried
+ *     - {@link #DEFAULT_LEVEL}: a code table per block from the exact frequencies
+ *     - {@link #MAX_LEVEL}: the compressor splits the data into adaptive blocks in any case, from finer segments, and then
+ *       merges neighbouring blocks wherever a single block encodes smaller than two, headers included
+ *
+ * Throws {@link HuffmanException} if a parameter is out of range.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class CompressionSettings {
+
+    public static final int MIN_CODE_LENGTH_LIMIT = 8; // 256 bit patterns need codes of at least 8 bits
+
+    public static final int MAX_CODE_LENGTH_LIMIT = 15;
+
+    public static final int MIN_CHECKPOINT_INTERVAL = 64; // closer checkpoints would take more space than they save decoding
+
+    public static final int MAX_CONTEXT_TABLES = 16;
+
+    public static final int MAX_DIGRAMS = 256;
+
+    public static final int FAST_LEVEL = 1;
+
+    public static final int DEFAULT_LEVEL = 2;
+
+    public static final int MAX_LEVEL = 3;
+
+    private int blockSize = DEFAULT_BLOCK_SIZE;
+
+    private int maxCodeLength = DEFAULT_MAX_CODE_LENGTH;
+
+    private boolean interleaved;
+
+    private int checkpointInterval;
+
+    private int numberOfContextTables = 1;
+
+    private int numberOfDigrams;
+
+    private boolean adaptiveBlocks;
+
+    private int level = DEFAULT_LEVEL;
+
+    public CompressionSettings() {
+    }
+
+    /**
+     * Creates a copy of the passed in settings.
+     *
+     * @param {@code CompressionSettings}
+     */
+    public CompressionSettings(CompressionSettings otherSettings) {
+        this.blockSize = otherSettings.blockSize;
+        this.maxCodeLength = otherSettings.maxCodeLength;
+        this.interleaved = otherSettings.interleaved;
+        this.checkpointInterval = otherSettings.checkpointInterval;
+        this.numberOfContextTables = otherSettings.numberOfContextTables;
+        this.numberOfDigrams = otherSettings.numberOfDigrams;
+        this.adaptiveBlocks = otherSettings.adaptiveBlocks;
+        this.level = otherSettings.level;
+    }
+
+    /**
+     * @param int, number of original bytes per block
+     */
+    public CompressionSettings(int blockSize) {
+        setBlockSize(blockSize);
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        if (blockSize <= 0 || blockSize > MAX_BLOCK_SIZE) {
+            throw new HuffmanException("Invalid block size: " + blockSize);
+        }
+        this.blockSize = blockSize;
+    }
+
+    public int getMaxCodeLength() {
+        return maxCodeLength;
+    }
+
+    /**
+     * @param int, the maximum Huffman code length in bits, from {@link #MIN_CODE_LENGTH_LIMIT} to {@link #MAX_CODE_LENGTH_LIMIT}
+     */
+    public void setMaxCodeLength(int maxCodeLength) {
+        if (maxCodeLength < MIN_CODE_LENGTH_LIMIT || maxCodeLength > MAX_CODE_LENGTH_LIMIT) {
+            throw new HuffmanException("Invalid maximum code length: " + maxCodeLength);
+        }
+        this.maxCodeLength = maxCodeLength;
+    }
+
+    public boolean isInterleaved() {
+        return interleaved;
+    }
+
+    public void setInterleaved(boolean interleaved) {
+        this.interleaved = interleaved;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * @param int, number of original bytes between two checkpoints, at least {@link #MIN_CHECKPOINT_INTERVAL}; 0 for none
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        if (checkpointInterval != 0 && (checkpointInterval < MIN_CHECKPOINT_INTERVAL || checkpointInterval > MAX_BLOCK_SIZE)) {
+            throw new HuffmanException("Invalid checkpoint interval: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public int getNumberOfContextTables() {
+        return numberOfContextTables;
+    }
+
+    /**
+     * @param int, the most code tables per block, from 1 to {@link #MAX_CONTEXT_TABLES}
+     */
+    public void setNumberOfContextTables(int numberOfContextTables) {
+        if (numberOfContextTables < 1 || numberOfContextTables > MAX_CONTEXT_TABLES) {
+            throw new HuffmanException("Invalid number of context tables: " + numberOfContextTables);
+        }
+        this.numberOfContextTables = numberOfContextTables;
+    }
+
+    public int getNumberOfDigrams() {
+        return numberOfDigrams;
+    }
+
+    /**
+     * @param int, the most byte pairs coded as a single symbol per block, from 0 to {@link #MAX_DIGRAMS}
+     */
+    public void setNumberOfDigrams(int numberOfDigrams) {
+        if (numberOfDigrams < 0 || numberOfDigrams > MAX_DIGRAMS) {
+            throw new HuffmanException("Invalid number of digrams: " + numberOfDigrams);
+        }
+        this.numberOfDigrams = numberOfDigrams;
+    }
+
+    public boolean isAdaptiveBlocks() {
+        return adaptiveBlocks;
+    }
+
+    public void setAdaptiveBlocks(boolean adaptiveBlocks) {
+        this.adaptiveBlocks = adaptiveBlocks;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @param int, from {@link #FAST_LEVEL} to {@link #MAX_LEVEL}
+     */
+    public void setLevel(int level) {
+        if (level < FAST_LEVEL || level > MAX_LEVEL) {
+            throw new HuffmanException("Invalid compression level: " + level);
+        }
+        this.level = level;
+    }
+}
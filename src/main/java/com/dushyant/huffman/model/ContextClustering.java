@@ -0,0 +1,230 @@
+package com.dushyant.huffman.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code ContextClustering} class groups the 256 order-1 contexts of a block, i.e. the bit patterns preceding a symbol, into
+ * a few clusters with similar symbol frequencies, so that every cluster gets a code table of its own. One table per context would
+ * cost up to 256 code length tables per block; a handful of tables keeps most of the gain of order-1 statistics.
+ *
+ * The clusters are found by k-means over the frequency tables of the contexts, with the cost of a context under a cluster being
+ * the number of bits the context takes when coded with the ideal code lengths of the cluster:
+ *  - seeding: the most frequent context starts the first cluster; each further cluster starts with the context which costs the
+ *    most bits above its own entropy under the clusters so far
+ *  - refinement: every context moves to the cluster which codes it in the fewest bits, the frequencies of the clusters are
+ *    recomputed, for a few rounds or until no context moves
+ *
+ * Empty clusters are dropped, so a block may end up with fewer tables than allowed.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class ContextClustering {
+
+    public static final int NUMBER_OF_CONTEXTS = 256;
+
+    private static final int REFINEMENT_ROUNDS = 4;
+
+    private static final double ABSENT_SYMBOL_WEIGHT = 0.5; // keeps symbols absent from a cluster at a finite cost
+
+    private ContextClustering() {
+    }
+
+    /**
+     * The method counts every symbol of the data under its context, the bit pattern preceding it; the first symbol has the context
+     * 0.
+     *
+     * @param byte[], the original data
+     * @param int, offset of the block in the original data
+     * @param int, length of the block
+     * @param long[], populated with the frequency of symbol s under context c at index (c * 256 + s), 65536 entries
+     */
+    public static void countPairs(byte[] data, int offset, int length, long[] pairFrequencies) {
+        Arrays.fill(pairFrequencies, 0);
+        int context = 0;
+        for (int index = offset; index < offset + length; ++index) {
+            int symbol = data[index] & 0xFF;
+            ++pairFrequencies[context << 8 | symbol];
+            context = symbol;
+        }
+    }
+
+    /**
+     * The method clusters the contexts of a block. Contexts which never occur join the cluster of the context in front of them,
+     * which makes long runs in the stored context map.
+     *
+     * @param long[], frequencies counted by {@link #countPairs(byte[], int, int, long[])}
+     * @param int, the most clusters
+     * @param int[], populated with the cluster per context, 256 entries
+     * @param long[][], populated with the frequency per symbol of every cluster, at least (maximum number of clusters) x 256
+     * @return int, number of clusters
+     */
+    public static int cluster(long[] pairFrequencies, int maxNumberOfClusters, int[] contextClusters, long[][] clusterFrequencies) {
+        long[] contextTotals = new long[NUMBER_OF_CONTEXTS];
+        int[] usedContexts = new int[NUMBER_OF_CONTEXTS];
+        int numberOfUsedContexts = 0;
+        for (int context = 0; context < NUMBER_OF_CONTEXTS; ++context) {
+            for (int symbol = 0; symbol < 256; ++symbol) {
+                contextTotals[context] += pairFrequencies[context << 8 | symbol];
+            }
+            if (contextTotals[context] > 0) {
+                usedContexts[numberOfUsedContexts++] = context;
+            }
+        }
+
+        int numberOfClusters;
+        if (numberOfUsedContexts <= maxNumberOfClusters) {
+            numberOfClusters = numberOfUsedContexts;
+            for (int cluster = 0; cluster < numberOfUsedContexts; ++cluster) {
+                contextClusters[usedContexts[cluster]] = cluster;
+            }
+        } else {
+            numberOfClusters = seed(pairFrequencies, contextTotals, usedContexts, numberOfUsedContexts, maxNumberOfClusters, contextClusters);
+            double[][] clusterBits = new double[numberOfClusters][256];
+            for (int round = 0; round < REFINEMENT_ROUNDS; ++round) {
+                sumClusters(pairFrequencies, usedContexts, numberOfUsedContexts, contextClusters, numberOfClusters, clusterFrequencies);
+                for (int cluster = 0; cluster < numberOfClusters; ++cluster) {
+                    idealBits(clusterFrequencies[cluster], 0, clusterBits[cluster]);
+                }
+                boolean moved = false;
+                for (int used = 0; used < numberOfUsedContexts; ++used) {
+                    int context = usedContexts[used];
+                    int bestCluster = closestCluster(pairFrequencies, context, clusterBits, numberOfClusters);
+                    moved |= bestCluster != contextClusters[context];
+                    contextClusters[context] = bestCluster;
+                }
+                if (!moved) {
+                    break;
+                }
+            }
+            numberOfClusters = dropEmptyClusters(usedContexts, numberOfUsedContexts, contextClusters, numberOfClusters);
+        }
+        sumClusters(pairFrequencies, usedContexts, numberOfUsedContexts, contextClusters, numberOfClusters, clusterFrequencies);
+
+        int previousCluster = 0;
+        for (int context = 0; context < NUMBER_OF_CONTEXTS; ++context) {
+            if (contextTotals[context] == 0) {
+                contextClusters[context] = previousCluster;
+            }
+            previousCluster = contextClusters[context];
+        }
+        return numberOfClusters;
+    }
+
+    /**
+     * The method picks the first context of every cluster, farthest first, and assigns every context to its closest seed.
+     *
+     * @return int, number of seeds
+     */
+    private static int seed(long[] pairFrequencies, long[] contextTotals, int[] usedContexts, int numberOfUsedContexts, int maxNumberOfClusters,
+                            int[] contextClusters) {
+        double[] ownBits = new double[NUMBER_OF_CONTEXTS];
+        double[] excessBits = new double[NUMBER_OF_CONTEXTS];
+        double[] bits = new double[256];
+        int firstSeed = usedContexts[0];
+        for (int used = 0; used < numberOfUsedContexts; ++used) {
+            int context = usedContexts[used];
+            idealBits(pairFrequencies, context << 8, bits);
+            ownBits[context] = cost(pairFrequencies, context, bits);
+            excessBits[context] = Double.MAX_VALUE;
+            if (contextTotals[context] > contextTotals[firstSeed]) {
+                firstSeed = context;
+            }
+        }
+
+        int seed = firstSeed;
+        int numberOfSeeds = 0;
+        while (true) {
+            double[] seedBits = bits;
+            idealBits(pairFrequencies, seed << 8, seedBits);
+            int cluster = numberOfSeeds++;
+            int farthestContext = -1;
+            for (int used = 0; used < numberOfUsedContexts; ++used) {
+                int context = usedContexts[used];
+                double excess = cost(pairFrequencies, context, seedBits) - ownBits[context];
+                if (excess < excessBits[context] || context == seed) {
+                    excessBits[context] = context == seed ? 0 : excess;
+                    contextClusters[context] = cluster;
+                }
+                if (farthestContext < 0 || excessBits[context] > excessBits[farthestContext]) {
+                    farthestContext = context;
+                }
+            }
+            if (numberOfSeeds == maxNumberOfClusters || excessBits[farthestContext] <= 0) {
+                return numberOfSeeds;
+            }
+            seed = farthestContext;
+        }
+    }
+
+    private static void sumClusters(long[] pairFrequencies, int[] usedContexts, int numberOfUsedContexts, int[] contextClusters, int numberOfClusters,
+                                    long[][] clusterFrequencies) {
+        for (int cluster = 0; cluster < numberOfClusters; ++cluster) {
+            Arrays.fill(clusterFrequencies[cluster], 0, 256, 0);
+        }
+        for (int used = 0; used < numberOfUsedContexts; ++used) {
+            int context = usedContexts[used];
+            long[] frequencies = clusterFrequencies[contextClusters[context]];
+            for (int symbol = 0; symbol < 256; ++symbol) {
+                frequencies[symbol] += pairFrequencies[context << 8 | symbol];
+            }
+        }
+    }
+
+    private static int closestCluster(long[] pairFrequencies, int context, double[][] clusterBits, int numberOfClusters) {
+        int bestCluster = 0;
+        double bestCost = Double.MAX_VALUE;
+        for (int cluster = 0; cluster < numberOfClusters; ++cluster) {
+            double cost = cost(pairFrequencies, context, clusterBits[cluster]);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestCluster = cluster;
+            }
+        }
+        return bestCluster;
+    }
+
+    /**
+     * @return int, number of clusters left, renumbered from 0
+     */
+    private static int dropEmptyClusters(int[] usedContexts, int numberOfUsedContexts, int[] contextClusters, int numberOfClusters) {
+        int[] newClusters = new int[numberOfClusters];
+        Arrays.fill(newClusters, -1);
+        int numberOfNewClusters = 0;
+        for (int used = 0; used < numberOfUsedContexts; ++used) {
+            int context = usedContexts[used];
+            if (newClusters[contextClusters[context]] < 0) {
+                newClusters[contextClusters[context]] = numberOfNewClusters++;
+            }
+            contextClusters[context] = newClusters[contextClusters[context]];
+        }
+        return numberOfNewClusters;
+    }
+
+    /**
+     * @return double, bits taken by the symbols of the context coded with the passed in bits per symbol
+     */
+    private static double cost(long[] pairFrequencies, int context, double[] bits) {
+        double cost = 0;
+        int base = context << 8;
+        for (int symbol = 0; symbol < 256; ++symbol) {
+            cost += pairFrequencies[base + symbol] * bits[symbol];
+        }
+        return cost;
+    }
+
+    /**
+     * @param long[], frequency per symbol
+     * @param int, index of the frequency of symbol 0
+     * @param double[], populated with log2(total / frequency) per symbol, with absent symbols counted as a fraction of an occurrence
+     */
+    private static void idealBits(long[] frequencies, int offset, double[] bits) {
+        double total = 256 * ABSENT_SYMBOL_WEIGHT;
+        for (int symbol = 0; symbol < 256; ++symbol) {
+            total += frequencies[offset + symbol];
+        }
+        for (int symbol = 0; symbol < 256; ++symbol) {
+            bits[symbol] = Math.log(total / (frequencies[offset + symbol] + ABSENT_SYMBOL_WEIGHT)) / Math.log(2);
+        }
+    }
+}
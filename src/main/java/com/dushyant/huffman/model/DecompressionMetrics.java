@@ -0,0 +1,40 @@
+package com.dushyant.huffman.model;
+
+/**
+ * The {@code DecompressionMetrics} class holds the measurements of one or more decompressions: the time spent reading the code
+ * length tables and building the decoding tables (table) and decoding the blocks (decoding).
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class DecompressionMetrics extends CodecMetrics {
+
+    private long tableNanos;
+
+    private long decodingNanos;
+
+    public long getTableNanos() {
+        return tableNanos;
+    }
+
+    public void setTableNanos(long tableNanos) {
+        this.tableNanos = tableNanos;
+    }
+
+    public long getDecodingNanos() {
+        return decodingNanos;
+    }
+
+    public void setDecodingNanos(long decodingNanos) {
+        this.decodingNanos = decodingNanos;
+    }
+
+    /**
+     * @param {@code DecompressionMetrics}, metrics added to these ones
+     */
+    public void add(DecompressionMetrics metrics) {
+        super.add(metrics);
+        tableNanos += metrics.tableNanos;
+        decodingNanos += metrics.decodingNanos;
+    }
+}
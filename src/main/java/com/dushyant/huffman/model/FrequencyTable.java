@@ -1,29 +1,119 @@
 package com.dushyant.huffman.model;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 
+/**
+ * The {@code FrequencyTable} class counts the occurrences of the 256 8 bit patterns in an array indexed by the unsigned value of
+ * the bit pattern. Counts are longs, so they never overflow whatever the amount of data counted.
+ *
+ * {@link #count(byte[], int, int)} spreads consecutive bytes over {@link #NUMBER_OF_SUB_HISTOGRAMS} interleaved sub-histograms
+ * which are summed at the end; a run of the same bit pattern then increments different counters instead of waiting for the
+ * previous increment of the same counter to be stored. The sub-histograms are kept with the table and zeroed as they are
+ * summed, so a table reused block after block allocates them once. Tables counted over separate parts of the data, e.g. on separate threads,
+ * are combined with {@link #add(FrequencyTable)}.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
 public class FrequencyTable {
 
-    private Map<Byte, Integer> frequencies;
+    public static final int NUMBER_OF_SUB_HISTOGRAMS = 4;
 
-    public FrequencyTable() {
-        this.frequencies = new HashMap<>();
-    }
+    private final long[] frequencies = new long[256];
+
+    private int[] subHistograms;
 
     public void incrementCount(byte newByte) {
-        if (frequencies.containsKey(newByte)) {
-            frequencies.computeIfPresent(newByte, (theByte, theCount) -> ++theCount);
-        } else {
-            frequencies.put(newByte, 1);
+        ++frequencies[newByte & 0xFF];
+    }
+
+    /**
+     * The method sets the frequency of a bit pattern which has not been counted yet.
+     *
+     * @param byte, the 8 bit pattern
+     * @param long, its frequency
+     */
+    public void addSymbol(byte newByte, long frequency) {
+        if (frequencies[newByte & 0xFF] == 0) {
+            frequencies[newByte & 0xFF] = frequency;
+        }
+    }
+
+    /**
+     * The method counts the 8 bit patterns of a part of the data.
+     *
+     * @param byte[], the data
+     * @param int, offset of the part to count
+     * @param int, length of the part to count
+     */
+    public void count(byte[] data, int offset, int length) {
+        // A single part holds less than 2^31 bytes, so int counters cannot overflow before they are added to the frequencies.
+        if (subHistograms == null) {
+            subHistograms = new int[NUMBER_OF_SUB_HISTOGRAMS * 256];
+        }
+        int[] subHistograms = this.subHistograms;
+        int index = offset;
+        int end = offset + length;
+        int interleavedEnd = offset + (length & -NUMBER_OF_SUB_HISTOGRAMS);
+        while (index < interleavedEnd) {
+            ++subHistograms[data[index] & 0xFF];
+            ++subHistograms[256 + (data[index + 1] & 0xFF)];
+            ++subHistograms[512 + (data[index + 2] & 0xFF)];
+            ++subHistograms[768 + (data[index + 3] & 0xFF)];
+            index += NUMBER_OF_SUB_HISTOGRAMS;
+        }
+        while (index < end) {
+            ++subHistograms[data[index++] & 0xFF];
+        }
+        for (int bitPattern = 0; bitPattern < 256; ++bitPattern) {
+            frequencies[bitPattern] += (long) subHistograms[bitPattern] + subHistograms[256 + bitPattern] + subHistograms[512 + bitPattern]
+                    + subHistograms[768 + bitPattern];
+            subHistograms[bitPattern] = 0;
+            subHistograms[256 + bitPattern] = 0;
+            subHistograms[512 + bitPattern] = 0;
+            subHistograms[768 + bitPattern] = 0;
         }
     }
 
-    public void addSymbol(byte newByte, int frequency) {
-        this.frequencies.putIfAbsent(newByte, frequency);
+    /**
+     * The method adds the frequencies of another table to this one.
+     *
+     * @param {@code FrequencyTable}
+     */
+    public void add(FrequencyTable otherTable) {
+        for (int bitPattern = 0; bitPattern < 256; ++bitPattern) {
+            frequencies[bitPattern] += otherTable.frequencies[bitPattern];
+        }
     }
 
-    public Map<Byte, Integer> getFrequencyTable() {
-        return this.frequencies;
+    public void clear() {
+        Arrays.fill(frequencies, 0);
+    }
+
+    /**
+     * @return long, the frequency of the 8 bit pattern given by its unsigned value
+     */
+    public long getFrequency(int bitPattern) {
+        return frequencies[bitPattern];
+    }
+
+    /**
+     * @return long[], frequency per 8 bit pattern, indexed by the unsigned value of the bit pattern
+     */
+    public long[] getFrequencies() {
+        return frequencies;
+    }
+
+    /**
+     * @return int, the number of bit patterns occurring at least once
+     */
+    public int getNumberOfSymbols() {
+        int numberOfSymbols = 0;
+        for (long frequency : frequencies) {
+            if (frequency > 0) {
+                ++numberOfSymbols;
+            }
+        }
+        return numberOfSymbols;
     }
 }
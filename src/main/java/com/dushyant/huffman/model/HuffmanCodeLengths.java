@@ -0,0 +1,162 @@
+package com.dushyant.huffman.model;
+
+import java.util.Arrays;
+
+/**
+ * The {@code HuffmanCodeLengths} class computes Huffman code lengths without any node objects. The tree is held in parallel
+ * arrays indexed by node: the leaves come first, sorted by frequency, followed by the internal nodes in the order they are
+ * created. Internal nodes are created with increasing weights, so the two lightest nodes are always at the head of either the
+ * leaves or the internal nodes created so far, and the tree is built in linear time once the leaves are sorted (the two-queue
+ * method). Every node is created after its children, so the depths are assigned in a single pass from the root down.
+ *
+ * Ties between a leaf and an internal node of equal weight are broken in favour of the leaf, which keeps the tree as shallow as
+ * any Huffman Tree of the frequencies can be. The class holds no state and is safe to use from any number of threads.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class HuffmanCodeLengths {
+
+    private HuffmanCodeLengths() {
+    }
+
+    /**
+     * @param long[], frequency per symbol, 0 for absent symbols
+     * @param int[], populated with the code length per symbol; a single symbol gets a code length of 1
+     * @return int, the longest code length
+     */
+    public static int computeCodeLengths(long[] frequencies, int[] codeLengths) {
+        Arrays.fill(codeLengths, 0);
+        int[] symbols = sortSymbols(frequencies);
+        int numberOfSymbols = symbols.length;
+        if (numberOfSymbols < 2) {
+            if (numberOfSymbols == 1) {
+                codeLengths[symbols[0]] = 1;
+            }
+            return numberOfSymbols;
+        }
+
+        int numberOfNodes = 2 * numberOfSymbols - 1;
+        long[] weights = new long[numberOfNodes];
+        int[] parents = new int[numberOfNodes];
+        for (int leaf = 0; leaf < numberOfSymbols; ++leaf) {
+            weights[leaf] = frequencies[symbols[leaf]];
+        }
+        int nextLeaf = 0;
+        int nextInternalNode = numberOfSymbols;
+        for (int node = numberOfSymbols; node < numberOfNodes; ++node) {
+            int firstChild = nextLeaf < numberOfSymbols && (nextInternalNode == node || weights[nextLeaf] <= weights[nextInternalNode]) ? nextLeaf++ : nextInternalNode++;
+            int secondChild = nextLeaf < numberOfSymbols && (nextInternalNode == node || weights[nextLeaf] <= weights[nextInternalNode]) ? nextLeaf++ : nextInternalNode++;
+            weights[node] = weights[firstChild] + weights[secondChild];
+            parents[firstChild] = node;
+            parents[secondChild] = node;
+        }
+
+        // The root is the last node; the parent of every other node comes after it and already has its depth.
+        int[] depths = new int[numberOfNodes];
+        int maxCodeLength = 0;
+        for (int node = numberOfNodes - 2; node >= 0; --node) {
+            depths[node] = depths[parents[node]] + 1;
+        }
+        for (int leaf = 0; leaf < numberOfSymbols; ++leaf) {
+            codeLengths[symbols[leaf]] = depths[leaf];
+            maxCodeLength = Math.max(maxCodeLength, depths[leaf]);
+        }
+        return maxCodeLength;
+    }
+
+    /**
+     * The method limits code lengths to a maximum without looking at the frequencies again, as in Annex K.3 of the JPEG standard:
+     * two codes of a length above the maximum are replaced by one code a bit shorter, and a code of the longest length below the
+     * one moved up is split in two codes a bit longer, which keeps the code complete. The symbols keep the order of their code
+     * lengths, so the frequent symbols still get the shortest codes. Much cheaper than {@link PackageMerge}, at the price of an
+     * encoding which may be slightly longer.
+     *
+     * @param int[], code length per symbol of a complete code, 0 for absent symbols
+     * @param int, the maximum code length, at least 8
+     * @param byte[], populated with the limited code length per symbol
+     */
+    public static void limitCodeLengths(int[] codeLengths, int maxCodeLength, byte[] limitedCodeLengths) {
+        int longestCodeLength = 0;
+        for (int codeLength : codeLengths) {
+            longestCodeLength = Math.max(longestCodeLength, codeLength);
+        }
+        int[] lengthCounts = new int[Math.max(longestCodeLength, maxCodeLength) + 1];
+        for (int codeLength : codeLengths) {
+            if (codeLength > 0) {
+                ++lengthCounts[codeLength];
+            }
+        }
+        for (int length = longestCodeLength; length > maxCodeLength; --length) {
+            while (lengthCounts[length] > 0) {
+                int shorterLength = length - 2;
+                while (lengthCounts[shorterLength] == 0) {
+                    --shorterLength;
+                }
+                lengthCounts[length] -= 2;
+                ++lengthCounts[length - 1];
+                lengthCounts[shorterLength + 1] += 2;
+                --lengthCounts[shorterLength];
+            }
+        }
+
+        Arrays.fill(limitedCodeLengths, (byte) 0);
+        int limitedLength = 1;
+        for (int length = 1; length <= longestCodeLength; ++length) {
+            for (int symbol = 0; symbol < codeLengths.length; ++symbol) {
+                if (codeLengths[symbol] == length) {
+                    while (lengthCounts[limitedLength] == 0) {
+                        ++limitedLength;
+                    }
+                    --lengthCounts[limitedLength];
+                    limitedCodeLengths[symbol] = (byte) limitedLength;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return int[], the symbols occurring at least once, lightest first and symbols of equal frequency in increasing order
+     */
+    private static int[] sortSymbols(long[] frequencies) {
+        int numberOfSymbols = 0;
+        long maxFrequency = 0;
+        for (long frequency : frequencies) {
+            if (frequency > 0) {
+                ++numberOfSymbols;
+                maxFrequency = Math.max(maxFrequency, frequency);
+            }
+        }
+        int[] symbols = new int[numberOfSymbols];
+        int symbolBits = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(frequencies.length - 1, 1));
+        if (maxFrequency >>> (Long.SIZE - 1 - symbolBits) == 0) {
+            // Frequency and symbol packed into one long sort as primitives, without boxing.
+            long[] keys = new long[numberOfSymbols];
+            int index = 0;
+            for (int symbol = 0; symbol < frequencies.length; ++symbol) {
+                if (frequencies[symbol] > 0) {
+                    keys[index++] = frequencies[symbol] << symbolBits | symbol;
+                }
+            }
+            Arrays.sort(keys);
+            for (index = 0; index < numberOfSymbols; ++index) {
+                symbols[index] = (int) (keys[index] & ((1L << symbolBits) - 1));
+            }
+            return symbols;
+        }
+
+        Integer[] boxedSymbols = new Integer[numberOfSymbols];
+        int index = 0;
+        for (int symbol = 0; symbol < frequencies.length; ++symbol) {
+            if (frequencies[symbol] > 0) {
+                boxedSymbols[index++] = symbol;
+            }
+        }
+        Arrays.sort(boxedSymbols, (first, second) -> frequencies[first] != frequencies[second]
+                ? Long.compare(frequencies[first], frequencies[second]) : Integer.compare(first, second));
+        for (index = 0; index < numberOfSymbols; ++index) {
+            symbols[index] = boxedSymbols[index];
+        }
+        return symbols;
+    }
+}
@@ -0,0 +1,154 @@
+package com.dushyant.huffman.model;
+
+import java.util.Arrays;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+/**
+ * The {@code HuffmanCodeTable} class assigns canonical Huffman codes from the code length of every symbol. Canonical codes are
+ * handed out in increasing numerical order, shorter codes first and symbols of equal code length in increasing order, so the
+ * code lengths alone describe the whole code and the shape of the Huffman Tree does not matter.
+ *
+ * Codes are stored least significant bit first, i.e. bit reversed, since the {@code BitWriter} packs bits in that order. A
+ * table holding a single symbol encodes it with zero bits; its code length is kept as 1 so that the symbol can be stored.
+ *
+ * A table kept by a block encoder or decoder is rebuilt in place for every block with {@link #rebuild(byte[])}, which reuses
+ * its arrays as long as the size of the alphabet stays the same.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanCodeTable {
+
+    public static final int MAX_CODE_LENGTH = Long.SIZE - 2;
+
+    private byte[] codeLengths;
+
+    private long[] codes;
+
+    private int numberOfSymbols;
+
+    private int singleSymbol;
+
+    private final int[] lengthCounts = new int[MAX_CODE_LENGTH + 1];
+
+    private final long[] nextCodes = new long[MAX_CODE_LENGTH + 1];
+
+    /**
+     * Throws {@link HuffmanException} if the code lengths do not describe a complete prefix code.
+     *
+     * @param byte[], code length per symbol, 0 for absent symbols
+     */
+    public HuffmanCodeTable(byte[] codeLengths) {
+        rebuild(codeLengths);
+    }
+
+    /**
+     * The method assigns the codes of new code lengths, keeping the arrays of the table. The table refers to the code lengths
+     * afterwards, so they must not change while it is in use. Throws {@link HuffmanException} if the code lengths do not
+     * describe a complete prefix code, which leaves the table unusable until it is rebuilt successfully.
+     *
+     * @param byte[], code length per symbol, 0 for absent symbols
+     */
+    public void rebuild(byte[] codeLengths) {
+        this.codeLengths = codeLengths;
+        if (codes == null || codes.length != codeLengths.length) {
+            codes = new long[codeLengths.length];
+        }
+
+        Arrays.fill(lengthCounts, 0);
+        int symbols = 0;
+        int lastSymbol = -1;
+        int maxLength = 0;
+        for (int symbol = 0; symbol < codeLengths.length; ++symbol) {
+            int length = codeLengths[symbol];
+            if (length < 0 || length > MAX_CODE_LENGTH) {
+                throw new HuffmanException("Unsupported Huffman code length: " + length);
+            }
+            if (length > 0) {
+                ++lengthCounts[length];
+                ++symbols;
+                lastSymbol = symbol;
+                maxLength = Math.max(maxLength, length);
+            }
+        }
+        this.numberOfSymbols = symbols;
+        if (symbols == 1) {
+            if (maxLength != 1) {
+                throw new HuffmanException("Invalid code length for a single symbol: " + maxLength);
+            }
+            this.singleSymbol = lastSymbol;
+            return;
+        }
+        this.singleSymbol = -1;
+
+        // The first code of every length follows the last code of the previous length; the codes must fill the code space exactly.
+        long code = 0;
+        for (int length = 1; length <= maxLength; ++length) {
+            code = (code + lengthCounts[length - 1]) << 1;
+            nextCodes[length] = code;
+            if (code + lengthCounts[length] > (1L << length)) {
+                throw new HuffmanException("The code lengths do not describe a valid Huffman code.");
+            }
+        }
+        if (symbols > 0 && code + lengthCounts[maxLength] != (1L << maxLength)) {
+            throw new HuffmanException("The code lengths do not describe a complete Huffman code.");
+        }
+
+        for (int symbol = 0; symbol < codeLengths.length; ++symbol) {
+            int length = codeLengths[symbol];
+            if (length > 0) {
+                codes[symbol] = Long.reverse(nextCodes[length]++) >>> (Long.SIZE - length);
+            }
+        }
+    }
+
+    /**
+     * @return byte[], code length per symbol as stored in the header
+     */
+    public byte[] getCodeLengths() {
+        return codeLengths;
+    }
+
+    /**
+     * @return long[], code per symbol, least significant bit first
+     */
+    public long[] getCodes() {
+        return codes;
+    }
+
+    public int getNumberOfSymbols() {
+        return numberOfSymbols;
+    }
+
+    /**
+     * @return boolean, true if the table holds a single symbol, which is encoded with zero bits
+     */
+    public boolean isSingleSymbol() {
+        return singleSymbol >= 0;
+    }
+
+    /**
+     * @return int, the number of bits written per occurrence of the symbol
+     */
+    public int bitsPerSymbol(int symbol) {
+        return isSingleSymbol() ? 0 : codeLengths[symbol];
+    }
+
+    public HuffmanDecodingTable createDecodingTable() {
+        return rebuildDecodingTable(new HuffmanDecodingTable());
+    }
+
+    /**
+     * @param {@code HuffmanDecodingTable}, a table to rebuild in place for the codes of this table
+     * @return {@code HuffmanDecodingTable}, the rebuilt table
+     */
+    public HuffmanDecodingTable rebuildDecodingTable(HuffmanDecodingTable decodingTable) {
+        if (isSingleSymbol()) {
+            decodingTable.rebuild(singleSymbol);
+        } else {
+            decodingTable.rebuild(codeLengths, codes);
+        }
+        return decodingTable;
+    }
+}
@@ -0,0 +1,202 @@
+package com.dushyant.huffman.model;
+
+import java.util.Arrays;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+/**
+ * The {@code HuffmanDecodingTable} class resolves Huffman codes through table lookups instead of a walk over the Huffman Tree.
+ * The primary table is indexed by the next {@link #PRIMARY_TABLE_BITS} (or fewer) bits of the encoding. Codes that are longer
+ * than the primary table spill into secondary tables which are chained from the primary table entry sharing their prefix.
+ *
+ * Each entry is an int:
+ *  - leaf entry (non-negative): symbol in bits 8-30, number of bits to consume at this level in bits 0-7
+ *  - link entry (negative): offset of the secondary table in bits 5-30, number of index bits of the secondary table in bits 0-4
+ *
+ * Codes are stored least significant bit first, i.e. bit 0 of a code is the first bit written to the encoding.
+ *
+ * A table kept by a block decoder is rebuilt in place for every block, see {@link #rebuild(byte[], long[])}: the entries only
+ * grow, so once they hold the largest table seen no block allocates any more. The entries may therefore be longer than the
+ * table they hold.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanDecodingTable {
+
+    public static final int PRIMARY_TABLE_BITS = 11;
+
+    public static final int INVALID_ENTRY = Integer.MIN_VALUE;
+
+    private static final int LINK_FLAG = Integer.MIN_VALUE;
+
+    private int primaryBits;
+
+    private int[] entries = new int[1];
+
+    private int size;
+
+    private int[] symbols;
+
+    /**
+     * Creates an empty table, to be filled by {@link #rebuild(int)} or {@link #rebuild(byte[], long[])}.
+     */
+    public HuffmanDecodingTable() {
+    }
+
+    /**
+     * Creates the table for an alphabet holding a single symbol. Such a symbol has an empty code, so every lookup resolves to
+     * it without consuming any bit.
+     *
+     * @param int, the only symbol
+     */
+    public HuffmanDecodingTable(int symbol) {
+        rebuild(symbol);
+    }
+
+    /**
+     * @param byte[], code length per symbol (0 for absent symbols)
+     * @param long[], code per symbol, least significant bit first
+     */
+    public HuffmanDecodingTable(byte[] codeLengths, long[] codes) {
+        rebuild(codeLengths, codes);
+    }
+
+    /**
+     * The method turns the table into the one of an alphabet holding a single symbol, see {@link #HuffmanDecodingTable(int)}.
+     *
+     * @param int, the only symbol
+     */
+    public void rebuild(int symbol) {
+        primaryBits = 0;
+        entries[0] = symbol << 8;
+        size = 1;
+    }
+
+    /**
+     * The method rebuilds the table for new codes, keeping its arrays where they are large enough.
+     *
+     * @param byte[], code length per symbol (0 for absent symbols)
+     * @param long[], code per symbol, least significant bit first
+     */
+    public void rebuild(byte[] codeLengths, long[] codes) {
+        if (symbols == null || symbols.length < codeLengths.length) {
+            symbols = new int[codeLengths.length];
+        }
+        int numberOfSymbols = 0;
+        int maxLength = 0;
+        for (int symbol = 0; symbol < codeLengths.length; ++symbol) {
+            int length = codeLengths[symbol] & 0xFF;
+            if (length > Long.SIZE) {
+                throw new HuffmanException("Unsupported Huffman code length: " + length);
+            }
+            if (length > 0) {
+                symbols[numberOfSymbols++] = symbol;
+                maxLength = Math.max(maxLength, length);
+            }
+        }
+        primaryBits = Math.min(PRIMARY_TABLE_BITS, maxLength);
+        size = 0;
+        fill(allocate(1 << primaryBits), primaryBits, 0, symbols, numberOfSymbols, codeLengths, codes);
+    }
+
+    public int getPrimaryBits() {
+        return primaryBits;
+    }
+
+    public int[] getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return int, number of entries the table uses, from the start of {@link #getEntries()}
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public static boolean isLink(int entry) {
+        return entry < 0;
+    }
+
+    public static int symbol(int entry) {
+        return entry >>> 8;
+    }
+
+    public static int codeLength(int entry) {
+        return entry & 0xFF;
+    }
+
+    public static int linkOffset(int entry) {
+        return (entry >>> 5) & 0x3FFFFFF;
+    }
+
+    public static int linkBits(int entry) {
+        return entry & 0x1F;
+    }
+
+    private void fill(int offset, int tableBits, int consumedBits, int[] symbols, int numberOfSymbols, byte[] codeLengths, long[] codes) {
+        int tableSize = 1 << tableBits;
+        int[] longSymbols = null;
+        int numberOfLongSymbols = 0;
+        for (int position = 0; position < numberOfSymbols; ++position) {
+            int symbol = symbols[position];
+            int remainingBits = (codeLengths[symbol] & 0xFF) - consumedBits;
+            if (remainingBits <= tableBits) {
+                int leaf = (symbol << 8) | remainingBits;
+                for (int index = (int) (codes[symbol] >>> consumedBits) & ((1 << remainingBits) - 1); index < tableSize; index += 1 << remainingBits) {
+                    entries[offset + index] = leaf;
+                }
+            } else {
+                if (longSymbols == null) {
+                    longSymbols = new int[numberOfSymbols - position];
+                }
+                longSymbols[numberOfLongSymbols++] = symbol;
+            }
+        }
+        if (numberOfLongSymbols == 0) {
+            return;
+        }
+
+        // Codes that do not fit this level are grouped by the bits indexing this level, each group gets its own secondary table.
+        boolean[] grouped = new boolean[numberOfLongSymbols];
+        int[] group = new int[numberOfLongSymbols];
+        for (int first = 0; first < numberOfLongSymbols; ++first) {
+            if (grouped[first]) {
+                continue;
+            }
+            int prefix = prefix(codes[longSymbols[first]], consumedBits, tableBits);
+            int groupSize = 0;
+            int maxRemainingBits = 0;
+            for (int other = first; other < numberOfLongSymbols; ++other) {
+                int symbol = longSymbols[other];
+                if (!grouped[other] && prefix(codes[symbol], consumedBits, tableBits) == prefix) {
+                    grouped[other] = true;
+                    group[groupSize++] = symbol;
+                    maxRemainingBits = Math.max(maxRemainingBits, (codeLengths[symbol] & 0xFF) - consumedBits - tableBits);
+                }
+            }
+            int subTableBits = Math.min(PRIMARY_TABLE_BITS, maxRemainingBits);
+            int subTableOffset = allocate(1 << subTableBits);
+            entries[offset + prefix] = LINK_FLAG | (subTableOffset << 5) | subTableBits;
+            fill(subTableOffset, subTableBits, consumedBits + tableBits, group, groupSize, codeLengths, codes);
+        }
+    }
+
+    /**
+     * @return int, offset of a new table of the given size, all of its entries invalid
+     */
+    private int allocate(int tableSize) {
+        if (size + tableSize > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(entries.length * 2, size + tableSize));
+        }
+        int offset = size;
+        size += tableSize;
+        Arrays.fill(entries, offset, size, INVALID_ENTRY);
+        return offset;
+    }
+
+    private static int prefix(long code, int consumedBits, int tableBits) {
+        return (int) (code >>> consumedBits) & ((1 << tableBits) - 1);
+    }
+}
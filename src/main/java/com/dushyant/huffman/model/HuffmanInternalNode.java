@@ -6,12 +6,15 @@ public class HuffmanInternalNode implements HuffmanNode {
 
 	private HuffmanNode rightChild;
 
+	private long frequency; // sum of the frequencies of the children, kept up to date so comparisons do not walk the subtree
+
 	public HuffmanNode getLeftChild() {
 		return leftChild;
 	}
 
 	public void setLeftChild(HuffmanNode leftChild) {
 		this.leftChild = leftChild;
+		updateFrequency();
 	}
 
 	public HuffmanNode getRightChild() {
@@ -20,10 +23,15 @@ public class HuffmanInternalNode implements HuffmanNode {
 
 	public void setRightChild(HuffmanNode rightChild) {
 		this.rightChild = rightChild;
+		updateFrequency();
 	}
 
 	@Override
-	public int frequency() {
-		return this.leftChild.frequency() + this.rightChild.frequency();
+	public long frequency() {
+		return this.frequency;
+	}
+
+	private void updateFrequency() {
+		this.frequency = (this.leftChild == null ? 0 : this.leftChild.frequency()) + (this.rightChild == null ? 0 : this.rightChild.frequency());
 	}
 }
@@ -4,9 +4,9 @@ public class HuffmanLeafNode implements HuffmanNode {
 
     private byte bitPattern;
 
-    private int frequency;
+    private long frequency;
 
-    public HuffmanLeafNode(byte bitPattern, int frequency) {
+    public HuffmanLeafNode(byte bitPattern, long frequency) {
         this.bitPattern = bitPattern;
         this.frequency = frequency;
     }
@@ -15,12 +15,12 @@ public class HuffmanLeafNode implements HuffmanNode {
         return bitPattern;
     }
 
-    public int getFrequency() {
+    public long getFrequency() {
         return frequency;
     }
 
     @Override
-    public int frequency() {
+    public long frequency() {
         return getFrequency();
     }
 
@@ -2,10 +2,10 @@ package com.dushyant.huffman.model;
 
 public interface HuffmanNode extends Comparable<HuffmanNode> {
 
-    int frequency();
+    long frequency();
 
     @Override
     default int compareTo(HuffmanNode otherHuffmanNode) {
-        return this.frequency() - otherHuffmanNode.frequency();
+        return Long.compare(this.frequency(), otherHuffmanNode.frequency());
     }
 }
@@ -1,6 +1,7 @@
 package com.dushyant.huffman.model;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.PriorityQueue;
 
 public class HuffmanTree {
@@ -16,11 +17,18 @@ public class HuffmanTree {
     }
 
     public HuffmanTree(FrequencyTable symbolFrequencies) {
+        this(createLeafNodes(symbolFrequencies));
+    }
+
+    /**
+     * Creates the Huffman Tree of the passed in leaf nodes. Nodes of equal frequency are merged in an order that depends on the
+     * order of the leaf nodes, so a decoder must pass the leaf nodes in the same order as the encoder to rebuild the same tree.
+     *
+     * @param List<HuffmanLeafNode>
+     */
+    public HuffmanTree(List<HuffmanLeafNode> leafNodes) {
         PriorityQueue<HuffmanNode> huffmanNodes = new PriorityQueue<>();
-        for (Map.Entry<Byte, Integer> entry : symbolFrequencies.getFrequencyTable().entrySet()) {
-            HuffmanNode newNode = new HuffmanLeafNode(entry.getKey(), entry.getValue());
-            huffmanNodes.add(newNode);
-        }
+        huffmanNodes.addAll(leafNodes);
 
         while (huffmanNodes.size() > 1) {
             HuffmanNode firstNode = huffmanNodes.poll();
@@ -37,4 +45,13 @@ public class HuffmanTree {
         return this.tree;
     }
 
+    private static List<HuffmanLeafNode> createLeafNodes(FrequencyTable symbolFrequencies) {
+        List<HuffmanLeafNode> leafNodes = new ArrayList<>();
+        for (int bitPattern = 0; bitPattern < 256; ++bitPattern) {
+            if (symbolFrequencies.getFrequency(bitPattern) > 0) {
+                leafNodes.add(new HuffmanLeafNode((byte) bitPattern, symbolFrequencies.getFrequency(bitPattern)));
+            }
+        }
+        return leafNodes;
+    }
 }
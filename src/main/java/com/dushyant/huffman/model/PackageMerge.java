@@ -0,0 +1,101 @@
+package com.dushyant.huffman.model;
+
+import java.util.Arrays;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+/**
+ * The {@code PackageMerge} class computes optimal length limited Huffman code lengths with the package-merge algorithm. The
+ * algorithm works on one list per code length, from the longest allowed length up to length 1:
+ *  - the list of the longest length holds the symbols sorted by frequency
+ *  - the list of every shorter length merges the symbols with the packages made of pairs of consecutive items of the list
+ *    below it, by increasing weight
+ *  - the first (2 * number of symbols - 2) items of the list of length 1 are selected; a selected package selects the two
+ *    items it was made of, and the code length of a symbol is the number of lists in which it is selected
+ *
+ * The packages made from a list are formed from consecutive items of that list, so the selected items of every list are a
+ * prefix of it and only the number of packages in each prefix needs to be tracked.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class PackageMerge {
+
+    private PackageMerge() {
+    }
+
+    /**
+     * Throws {@link HuffmanException} if the symbols cannot be coded within the maximum code length.
+     *
+     * @param long[], frequency per symbol, 0 for absent symbols
+     * @param int, the maximum code length
+     * @param byte[], populated with the code length per symbol
+     */
+    public static void computeCodeLengths(long[] frequencies, int maxCodeLength, byte[] codeLengths) {
+        Arrays.fill(codeLengths, (byte) 0);
+        Integer[] symbols = new Integer[frequencies.length];
+        int numberOfSymbols = 0;
+        for (int symbol = 0; symbol < frequencies.length; ++symbol) {
+            if (frequencies[symbol] > 0) {
+                symbols[numberOfSymbols++] = symbol;
+            }
+        }
+        if (numberOfSymbols < 2) {
+            if (numberOfSymbols == 1) {
+                codeLengths[symbols[0]] = 1;
+            }
+            return;
+        }
+        if (maxCodeLength < Integer.SIZE - 1 && (1 << maxCodeLength) < numberOfSymbols) {
+            throw new HuffmanException(numberOfSymbols + " bit patterns cannot be coded with at most " + maxCodeLength + " bits.");
+        }
+
+        // Lightest symbols first, ties broken by symbol so that the code lengths never depend on the sort.
+        Arrays.sort(symbols, 0, numberOfSymbols, (first, second) -> frequencies[first] != frequencies[second]
+                ? Long.compare(frequencies[first], frequencies[second]) : Integer.compare(first, second));
+        long[] leafWeights = new long[numberOfSymbols];
+        for (int index = 0; index < numberOfSymbols; ++index) {
+            leafWeights[index] = frequencies[symbols[index]];
+        }
+
+        // weights[length] holds the list of that code length, isPackage[length] tells its packages from its symbols.
+        long[][] weights = new long[maxCodeLength + 1][];
+        boolean[][] isPackage = new boolean[maxCodeLength + 1][];
+        weights[maxCodeLength] = leafWeights;
+        isPackage[maxCodeLength] = new boolean[numberOfSymbols];
+        for (int length = maxCodeLength - 1; length >= 1; --length) {
+            long[] below = weights[length + 1];
+            int numberOfPackages = below.length / 2;
+            long[] merged = new long[numberOfSymbols + numberOfPackages];
+            boolean[] mergedIsPackage = new boolean[merged.length];
+            int leaf = 0;
+            int pack = 0;
+            for (int index = 0; index < merged.length; ++index) {
+                long packageWeight = pack < numberOfPackages ? below[2 * pack] + below[2 * pack + 1] : Long.MAX_VALUE;
+                if (leaf < numberOfSymbols && leafWeights[leaf] <= packageWeight) {
+                    merged[index] = leafWeights[leaf++];
+                } else {
+                    merged[index] = packageWeight;
+                    mergedIsPackage[index] = true;
+                    ++pack;
+                }
+            }
+            weights[length] = merged;
+            isPackage[length] = mergedIsPackage;
+        }
+
+        int selected = 2 * numberOfSymbols - 2;
+        for (int length = 1; length <= maxCodeLength && selected > 0; ++length) {
+            int packages = 0;
+            for (int index = 0; index < selected; ++index) {
+                if (isPackage[length][index]) {
+                    ++packages;
+                }
+            }
+            for (int leaf = 0; leaf < selected - packages; ++leaf) {
+                ++codeLengths[symbols[leaf]];
+            }
+            selected = 2 * packages;
+        }
+    }
+}
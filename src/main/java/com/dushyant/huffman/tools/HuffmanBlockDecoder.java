@@ -0,0 +1,766 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BYTES_PER_HUFFMAN_NODE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MIN_BLOCK_FORMAT_VERSION;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.*;
+import com.dushyant.huffman.utils.BitReader;
+
+/**
+ * The {@code HuffmanBlockDecoder} class expands a block body written by {@link HuffmanBlockEncoder}, see
+ * {@link #decodeBlock(byte[], int, int, byte[], int, int)}. Decoding is split in two steps: {@link #readTable(byte[], int, int)} builds the decoding table straight from the code lengths at the start of the
+ * block body, {@link #decode(byte[], int, int, byte[], int, int)} then decodes the Huffman encoding following the table.
+ * {@link #readLegacyTable(byte[], int, int)} reads the Huffman leaf nodes of the original single block format instead.
+ *
+ * A symbol of a digram block stands for one or two bytes: the decoding table resolves it to an expansion holding the bytes and
+ * their number, both bytes are written and the destination index advances by the number, so a digram costs no more than a
+ * single byte. An instance must not be shared between threads.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+final class HuffmanBlockDecoder {
+
+    private final int formatVersion;
+
+    private HuffmanDecodingTable decodingTable;
+
+    private final byte[] codeLengths = new byte[256];
+
+    private final HuffmanCodeTable huffmanCodes = new HuffmanCodeTable(codeLengths);
+
+    private final HuffmanDecodingTable blockDecodingTable = new HuffmanDecodingTable();
+
+    private long numberOfSymbols;
+
+    private int blockType;
+
+    private boolean timed;
+
+    private long tableNanos;
+
+    private long decodingNanos;
+
+    private HuffmanDecodingTable[] contextDecodingTables;
+
+    private final int[] contextTables = new int[ContextClustering.NUMBER_OF_CONTEXTS];
+
+    private int[][] entriesByContext;
+
+    private int[] primaryBitsByContext;
+
+    private final int[] expansions = new int[256 + CompressionSettings.MAX_DIGRAMS];
+
+    private byte[] digramCodeLengths;
+
+    private HuffmanCodeTable digramCodes;
+
+    private final HuffmanDecodingTable digramDecodingTable = new HuffmanDecodingTable();
+
+    HuffmanBlockDecoder() {
+        this(BLOCK_FORMAT_VERSION);
+    }
+
+    /**
+     * @param int, the block format version of the compressed data; block bodies of version 2 have no block type
+     */
+    HuffmanBlockDecoder(int formatVersion) {
+        this.formatVersion = formatVersion;
+        for (int bitPattern = 0; bitPattern < 256; ++bitPattern) {
+            expansions[bitPattern] = 1 << 16 | bitPattern << 8;
+        }
+    }
+
+    int getFormatVersion() {
+        return formatVersion;
+    }
+
+    /**
+     * The method decodes a whole block body: the block type followed by the code length table and the Huffman encoding, the
+     * original bytes of a raw block or the bit pattern of a run block. Throws {@link HuffmanException} if the block body is
+     * malformed.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the block body
+     * @param int, size of the block body
+     * @param byte[], the destination of the decoded data
+     * @param int, offset of the decoded data in the destination
+     * @param int, number of original bytes in the block
+     */
+    void decodeBlock(byte[] compressedData, int offset, int length, byte[] decompressedData, int decompressedOffset, int numberOfOriginalBytes) {
+        long start = timed ? System.nanoTime() : 0;
+        long decodingStart = start;
+        int end = offset + length;
+        blockType = HuffmanBlockEncoder.HUFFMAN_BLOCK;
+        if (formatVersion > MIN_BLOCK_FORMAT_VERSION) {
+            if (length < 1) {
+                throw new HuffmanException("The compressed data is truncated.");
+            }
+            blockType = compressedData[offset++] & 0xFF;
+        }
+        switch (blockType) {
+            case HuffmanBlockEncoder.HUFFMAN_BLOCK:
+                offset += readTable(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                decode(compressedData, offset, end - offset, decompressedData, decompressedOffset, numberOfOriginalBytes);
+                break;
+            case HuffmanBlockEncoder.INTERLEAVED_HUFFMAN_BLOCK:
+                offset += readTable(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                decodeInterleaved(compressedData, offset, end - offset, decompressedData, decompressedOffset, numberOfOriginalBytes);
+                break;
+            case HuffmanBlockEncoder.CONTEXT_BLOCK:
+                offset += readContextTables(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                decodeContext(compressedData, offset, end - offset, 0, decompressedData, decompressedOffset, numberOfOriginalBytes);
+                break;
+            case HuffmanBlockEncoder.DIGRAM_BLOCK:
+                offset += readDigramTable(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                decodeDigrams(compressedData, offset, end - offset, 0, decompressedData, decompressedOffset, numberOfOriginalBytes);
+                break;
+            case HuffmanBlockEncoder.RAW_BLOCK:
+                checkDestination(decompressedData, decompressedOffset, numberOfOriginalBytes);
+                if (end - offset != numberOfOriginalBytes) {
+                    throw new HuffmanException("The raw block does not hold the number of original bytes: " + numberOfOriginalBytes);
+                }
+                System.arraycopy(compressedData, offset, decompressedData, decompressedOffset, numberOfOriginalBytes);
+                break;
+            case HuffmanBlockEncoder.RUN_BLOCK:
+                checkDestination(decompressedData, decompressedOffset, numberOfOriginalBytes);
+                if (end - offset != 1) {
+                    throw new HuffmanException("The run block holds more than one bit pattern.");
+                }
+                Arrays.fill(decompressedData, decompressedOffset, decompressedOffset + numberOfOriginalBytes, compressedData[offset]);
+                break;
+            default:
+                throw new HuffmanException("Unsupported block type: " + blockType);
+        }
+        if (timed) {
+            long decodingEnd = System.nanoTime();
+            tableNanos += decodingStart - start;
+            decodingNanos += decodingEnd - decodingStart;
+        }
+    }
+
+    /**
+     * The method decodes a range of the original bytes of a block. Huffman encoded blocks are decoded from the nearest checkpoint
+     * in front of the range, or from the start of the bitstream holding the range without checkpoints, up to the end of the
+     * range; context and digram blocks are decoded from their start. Throws {@link HuffmanException} if the block body is malformed.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the block body
+     * @param int, size of the block body
+     * @param int, number of original bytes in the block
+     * @param int[], bit offset per checkpoint of the block, null without checkpoints
+     * @param int, number of original bytes between two checkpoints
+     * @param int, position of the range within the block
+     * @param byte[], the destination of the decoded range
+     * @param int, offset of the decoded range in the destination
+     * @param int, length of the range
+     */
+    void decodeBlockRange(byte[] compressedData, int offset, int length, int numberOfOriginalBytes, int[] checkpoints, int checkpointInterval, int from,
+                          byte[] decompressedData, int decompressedOffset, int rangeLength) {
+        checkDestination(decompressedData, decompressedOffset, rangeLength);
+        if (from < 0 || rangeLength < 0 || from > numberOfOriginalBytes - rangeLength) {
+            throw new HuffmanException("The range does not lie within the block: " + from + " + " + rangeLength);
+        }
+        long start = timed ? System.nanoTime() : 0;
+        long decodingStart = start;
+        int end = offset + length;
+        blockType = HuffmanBlockEncoder.HUFFMAN_BLOCK;
+        if (formatVersion > MIN_BLOCK_FORMAT_VERSION) {
+            if (length < 1) {
+                throw new HuffmanException("The compressed data is truncated.");
+            }
+            blockType = compressedData[offset++] & 0xFF;
+        }
+        switch (blockType) {
+            case HuffmanBlockEncoder.HUFFMAN_BLOCK:
+                offset += readTable(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                decodeSegmentRange(compressedData, offset, end - offset, 0, checkpoints, checkpointInterval, from, decompressedData, decompressedOffset, rangeLength);
+                break;
+            case HuffmanBlockEncoder.INTERLEAVED_HUFFMAN_BLOCK:
+                offset += readTable(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                if (end - offset < HuffmanBlockEncoder.STREAM_SIZES_LENGTH) {
+                    throw new HuffmanException("The compressed data is truncated.");
+                }
+                ByteBuffer streamSizes = ByteBuffer.wrap(compressedData, offset, HuffmanBlockEncoder.STREAM_SIZES_LENGTH);
+                int streamOffset = offset + HuffmanBlockEncoder.STREAM_SIZES_LENGTH;
+                int segmentLength = numberOfOriginalBytes / HuffmanBlockEncoder.NUMBER_OF_STREAMS;
+                for (int stream = 0; stream < HuffmanBlockEncoder.NUMBER_OF_STREAMS; ++stream) {
+                    int streamEnd = stream == HuffmanBlockEncoder.NUMBER_OF_STREAMS - 1 ? end : streamOffset + streamSizes.getInt();
+                    if (streamEnd < streamOffset || streamEnd > end) {
+                        throw new HuffmanException("The compressed data holds invalid sizes of bitstreams.");
+                    }
+                    int segmentStart = stream * segmentLength;
+                    int segmentEnd = stream == HuffmanBlockEncoder.NUMBER_OF_STREAMS - 1 ? numberOfOriginalBytes : segmentStart + segmentLength;
+                    int rangeStart = Math.max(from, segmentStart);
+                    int rangeEnd = Math.min(from + rangeLength, segmentEnd);
+                    if (rangeStart < rangeEnd) {
+                        decodeSegmentRange(compressedData, streamOffset, streamEnd - streamOffset, segmentStart, checkpoints, checkpointInterval, rangeStart,
+                                decompressedData, decompressedOffset + rangeStart - from, rangeEnd - rangeStart);
+                    }
+                    streamOffset = streamEnd;
+                }
+                break;
+            case HuffmanBlockEncoder.CONTEXT_BLOCK:
+                offset += readContextTables(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                decodeContext(compressedData, offset, end - offset, from, decompressedData, decompressedOffset, rangeLength);
+                break;
+            case HuffmanBlockEncoder.DIGRAM_BLOCK:
+                offset += readDigramTable(compressedData, offset, end - offset);
+                decodingStart = timed ? System.nanoTime() : 0;
+                decodeDigrams(compressedData, offset, end - offset, from, decompressedData, decompressedOffset, rangeLength);
+                break;
+            case HuffmanBlockEncoder.RAW_BLOCK:
+                if (end - offset != numberOfOriginalBytes) {
+                    throw new HuffmanException("The raw block does not hold the number of original bytes: " + numberOfOriginalBytes);
+                }
+                System.arraycopy(compressedData, offset + from, decompressedData, decompressedOffset, rangeLength);
+                break;
+            case HuffmanBlockEncoder.RUN_BLOCK:
+                if (end - offset != 1) {
+                    throw new HuffmanException("The run block holds more than one bit pattern.");
+                }
+                Arrays.fill(decompressedData, decompressedOffset, decompressedOffset + rangeLength, compressedData[offset]);
+                break;
+            default:
+                throw new HuffmanException("Unsupported block type: " + blockType);
+        }
+        if (timed) {
+            long decodingEnd = System.nanoTime();
+            tableNanos += decodingStart - start;
+            decodingNanos += decodingEnd - decodingStart;
+        }
+    }
+
+    /**
+     * The method decodes a range of the original bytes encoded by one bitstream, starting at the nearest checkpoint within the
+     * bitstream in front of the range; the symbols between the checkpoint and the range are decoded and dropped.
+     *
+     * @param int, position of the first original byte of the bitstream within the block
+     * @param int, position of the range within the block
+     */
+    private void decodeSegmentRange(byte[] compressedData, int offset, int length, int segmentStart, int[] checkpoints, int checkpointInterval, int from,
+                                    byte[] decompressedData, int decompressedOffset, int rangeLength) {
+        int position = segmentStart;
+        int bitOffset = 0;
+        if (checkpoints != null && from >= checkpointInterval) {
+            int checkpoint = Math.min(from / checkpointInterval, checkpoints.length);
+            if ((long) checkpoint * checkpointInterval > segmentStart) {
+                position = checkpoint * checkpointInterval;
+                bitOffset = checkpoints[checkpoint - 1];
+            }
+        }
+        if (bitOffset < 0 || bitOffset / Byte.SIZE > length) {
+            throw new HuffmanException("The checkpoint lies beyond the bitstream: " + bitOffset);
+        }
+        BitReader huffmanEncoding = new BitReader(compressedData, offset + bitOffset / Byte.SIZE, length - bitOffset / Byte.SIZE);
+        huffmanEncoding.refill();
+        huffmanEncoding.skip(bitOffset % Byte.SIZE);
+        int[] entries = decodingTable.getEntries();
+        int primaryBits = decodingTable.getPrimaryBits();
+        int primaryMask = (1 << primaryBits) - 1;
+        for (; position < from; ++position) {
+            decodeSymbol(huffmanEncoding, entries, primaryBits, primaryMask);
+        }
+        for (int index = decompressedOffset; index < decompressedOffset + rangeLength; ++index) {
+            decompressedData[index] = (byte) decodeSymbol(huffmanEncoding, entries, primaryBits, primaryMask);
+        }
+    }
+
+    /**
+     * @return int, type of the block decoded last by {@link #decodeBlock(byte[], int, int, byte[], int, int)}
+     */
+    int getBlockType() {
+        return blockType;
+    }
+
+    /**
+     * The method turns the measurement of the time spent on the tables and on decoding on or off; it is off by default, so
+     * decoding a block reads no clock. The times are summed over the blocks decoded by the instance.
+     *
+     * @param boolean, true to measure the next blocks
+     */
+    void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    /**
+     * The method drops the decoding table and the times of the blocks decoded so far, so a decoder kept for reuse starts afresh.
+     */
+    void clear() {
+        decodingTable = null;
+        tableNanos = 0;
+        decodingNanos = 0;
+    }
+
+    long getTableNanos() {
+        return tableNanos;
+    }
+
+    long getDecodingNanos() {
+        return decodingNanos;
+    }
+
+    /**
+     * The method sets an already built decoding table, e.g. the one of a shared table, for {@link #decode(byte[], int, int, byte[], int, int)}.
+     *
+     * @param {@code HuffmanDecodingTable}
+     */
+    void setDecodingTable(HuffmanDecodingTable decodingTable) {
+        this.decodingTable = decodingTable;
+    }
+
+    /**
+     * @return byte[], code length per 8 bit pattern as read by the last call to {@link #readTable(byte[], int, int)}
+     */
+    byte[] getCodeLengths() {
+        return codeLengths;
+    }
+
+    /**
+     * The method reads the run length encoded code lengths at the start of a block body and builds the decoding table from the
+     * canonical Huffman codes they describe. No Huffman Tree is involved.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the block body
+     * @param int, length of the block body
+     * @return int, size of the code length table in bytes
+     */
+    int readTable(byte[] compressedData, int offset, int length) {
+        return readTable(compressedData, offset, length, codeLengths, huffmanCodes, blockDecodingTable);
+    }
+
+    /**
+     * The method rebuilds the code table and the decoding table of the decoder in place, so a pooled decoder allocates neither
+     * per block.
+     *
+     * @param byte[], populated with the code length per symbol, as many symbols as it holds
+     * @param {@code HuffmanCodeTable}, rebuilt from the code lengths
+     * @param {@code HuffmanDecodingTable}, rebuilt from the codes and made the decoding table of the decoder
+     * @return int, size of the code length table in bytes
+     */
+    private int readTable(byte[] compressedData, int offset, int length, byte[] codeLengths, HuffmanCodeTable huffmanCodes,
+                          HuffmanDecodingTable table) {
+        int index = offset;
+        int end = offset + length;
+        int symbol = 0;
+        int previousCodeLength = 0;
+        while (symbol < codeLengths.length) {
+            if (index == end) {
+                throw new HuffmanException("The compressed data is truncated.");
+            }
+            int entry = compressedData[index++] & 0xFF;
+            int codeLength;
+            int run;
+            if (entry < HuffmanBlockEncoder.ABSENT_RUN) {
+                codeLength = entry;
+                run = 1;
+            } else if (entry < HuffmanBlockEncoder.REPEAT_RUN) {
+                codeLength = 0;
+                run = entry - HuffmanBlockEncoder.ABSENT_RUN + HuffmanBlockEncoder.MIN_RUN;
+            } else {
+                codeLength = previousCodeLength;
+                run = entry - HuffmanBlockEncoder.REPEAT_RUN + HuffmanBlockEncoder.MIN_RUN;
+            }
+            if (symbol + run > codeLengths.length) {
+                throw new HuffmanException("The code length table describes more than " + codeLengths.length + " symbols.");
+            }
+            for (int count = 0; count < run; ++count) {
+                codeLengths[symbol++] = (byte) codeLength;
+            }
+            previousCodeLength = codeLength;
+        }
+
+        huffmanCodes.rebuild(codeLengths);
+        if (huffmanCodes.getNumberOfSymbols() == 0) {
+            throw new HuffmanException("The code length table holds no bit pattern.");
+        }
+        decodingTable = huffmanCodes.rebuildDecodingTable(table);
+        return index - offset;
+    }
+
+    /**
+     * The method reads the Huffman leaf nodes at the start of data in the original single block format and builds the decoding
+     * table from the Huffman Tree they describe.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the block body
+     * @param int, length of the block body
+     * @return int, size of the table in bytes
+     */
+    int readLegacyTable(byte[] compressedData, int offset, int length) {
+        long numberOfOriginalBytes = readLegacyNumberOfSymbols(compressedData, offset, length);
+        if (numberOfOriginalBytes > Integer.MAX_VALUE) {
+            throw new HuffmanException("The compressed data holds more symbols than a byte array can hold: " + numberOfOriginalBytes);
+        }
+        ByteBuffer table = ByteBuffer.wrap(compressedData, offset, length);
+        int numberOfHuffmanLeafNodes = table.getInt();
+
+        // The original encoder built its Huffman Tree from the leaf nodes in the iteration order of a HashMap keyed by bit pattern,
+        // the same order has to be used for the tree to break ties between equal frequencies the same way.
+        Map<Byte, Long> huffmanNodeFrequencies = new HashMap<>();
+        numberOfSymbols = 0;
+        for (int node = 0; node < numberOfHuffmanLeafNodes; ++node) {
+            byte bitPattern = table.get();
+            int frequency = table.getInt();
+            huffmanNodeFrequencies.putIfAbsent(bitPattern, (long) frequency);
+            numberOfSymbols += frequency;
+        }
+        List<HuffmanLeafNode> huffmanLeafNodes = new ArrayList<>(huffmanNodeFrequencies.size());
+        for (Map.Entry<Byte, Long> entry : huffmanNodeFrequencies.entrySet()) {
+            huffmanLeafNodes.add(new HuffmanLeafNode(entry.getKey(), entry.getValue()));
+        }
+
+        decodingTable = createDecodingTable(new HuffmanTree(huffmanLeafNodes));
+        return table.position() - offset;
+    }
+
+    /**
+     * The method sums up the frequencies of the Huffman leaf nodes of the original single block format, i.e. the number of bytes
+     * the data expands to, without building the Huffman Tree.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the table
+     * @param int, length of the table and the Huffman encoding
+     * @return long, the number of symbols
+     */
+    static long readLegacyNumberOfSymbols(byte[] compressedData, int offset, int length) {
+        if (length < Integer.BYTES) {
+            throw new HuffmanException("The compressed data is truncated.");
+        }
+        ByteBuffer table = ByteBuffer.wrap(compressedData, offset, length);
+        int numberOfHuffmanLeafNodes = table.getInt();
+        if (numberOfHuffmanLeafNodes < 0 || numberOfHuffmanLeafNodes > 256 || table.remaining() < numberOfHuffmanLeafNodes * BYTES_PER_HUFFMAN_NODE) {
+            throw new HuffmanException("The compressed data holds an invalid number of Huffman leaf nodes: " + numberOfHuffmanLeafNodes);
+        }
+        long numberOfSymbols = 0;
+        for (int node = 0; node < numberOfHuffmanLeafNodes; ++node) {
+            table.get();
+            int frequency = table.getInt();
+            if (frequency <= 0) {
+                throw new HuffmanException("The compressed data holds an invalid frequency: " + frequency);
+            }
+            numberOfSymbols += frequency;
+        }
+        return numberOfSymbols;
+    }
+
+    /**
+     * @return long, the number of bytes the data expands to, as stored in the legacy table read last
+     */
+    long getNumberOfSymbols() {
+        return numberOfSymbols;
+    }
+
+    /**
+     * The method decodes Huffman encoded data using the decoding table read last. Every step resolves up to
+     * {@link HuffmanDecodingTable#PRIMARY_TABLE_BITS} bits with a single lookup; longer codes continue in the secondary tables.
+     * The number of original bytes bounds the loop, so trailing codes made of zero bits are decoded as well.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the Huffman encoding
+     * @param int, length of the Huffman encoding
+     * @param byte[], the destination of the decoded data
+     * @param int, offset of the decoded data in the destination
+     * @param int, number of original bytes to decode
+     */
+    void decode(byte[] compressedData, int offset, int length, byte[] decompressedData, int decompressedOffset, int numberOfSymbols) {
+        checkDestination(decompressedData, decompressedOffset, numberOfSymbols);
+        BitReader huffmanEncoding = new BitReader(compressedData, offset, length);
+        int[] entries = decodingTable.getEntries();
+        int primaryBits = decodingTable.getPrimaryBits();
+        int primaryMask = (1 << primaryBits) - 1;
+        int end = decompressedOffset + numberOfSymbols;
+        for (int index = decompressedOffset; index < end; ++index) {
+            decompressedData[index] = (byte) decodeSymbol(huffmanEncoding, entries, primaryBits, primaryMask);
+        }
+    }
+
+    /**
+     * The method decodes the {@link HuffmanBlockEncoder#NUMBER_OF_STREAMS} bitstreams of an interleaved block in one loop. Every
+     * iteration decodes one symbol of each bitstream through its own bit reader; the decodes do not depend on each other, so the
+     * processor overlaps them instead of waiting for one code length after the other.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the sizes of the bitstreams
+     * @param int, length of the sizes and the bitstreams
+     * @param byte[], the destination of the decoded data
+     * @param int, offset of the decoded data in the destination
+     * @param int, number of original bytes to decode
+     */
+    void decodeInterleaved(byte[] compressedData, int offset, int length, byte[] decompressedData, int decompressedOffset, int numberOfSymbols) {
+        checkDestination(decompressedData, decompressedOffset, numberOfSymbols);
+        if (length < HuffmanBlockEncoder.STREAM_SIZES_LENGTH) {
+            throw new HuffmanException("The compressed data is truncated.");
+        }
+        ByteBuffer streamSizes = ByteBuffer.wrap(compressedData, offset, HuffmanBlockEncoder.STREAM_SIZES_LENGTH);
+        int stream0 = offset + HuffmanBlockEncoder.STREAM_SIZES_LENGTH;
+        int stream1 = stream0 + streamSizes.getInt();
+        int stream2 = stream1 + streamSizes.getInt();
+        int stream3 = stream2 + streamSizes.getInt();
+        int end = offset + length;
+        if (stream1 < stream0 || stream2 < stream1 || stream3 < stream2 || stream3 > end) {
+            throw new HuffmanException("The compressed data holds invalid sizes of bitstreams.");
+        }
+        BitReader huffmanEncoding0 = new BitReader(compressedData, stream0, stream1 - stream0);
+        BitReader huffmanEncoding1 = new BitReader(compressedData, stream1, stream2 - stream1);
+        BitReader huffmanEncoding2 = new BitReader(compressedData, stream2, stream3 - stream2);
+        BitReader huffmanEncoding3 = new BitReader(compressedData, stream3, end - stream3);
+
+        int[] entries = decodingTable.getEntries();
+        int primaryBits = decodingTable.getPrimaryBits();
+        int primaryMask = (1 << primaryBits) - 1;
+        int segmentLength = numberOfSymbols / HuffmanBlockEncoder.NUMBER_OF_STREAMS;
+        int segment1 = decompressedOffset + segmentLength;
+        int segment2 = segment1 + segmentLength;
+        int segment3 = segment2 + segmentLength;
+        for (int index = 0; index < segmentLength; ++index) {
+            decompressedData[decompressedOffset + index] = (byte) decodeSymbol(huffmanEncoding0, entries, primaryBits, primaryMask);
+            decompressedData[segment1 + index] = (byte) decodeSymbol(huffmanEncoding1, entries, primaryBits, primaryMask);
+            decompressedData[segment2 + index] = (byte) decodeSymbol(huffmanEncoding2, entries, primaryBits, primaryMask);
+            decompressedData[segment3 + index] = (byte) decodeSymbol(huffmanEncoding3, entries, primaryBits, primaryMask);
+        }
+        // The last segment holds the remainder of the division by the number of bitstreams.
+        for (int index = segment3 + segmentLength; index < decompressedOffset + numberOfSymbols; ++index) {
+            decompressedData[index] = (byte) decodeSymbol(huffmanEncoding3, entries, primaryBits, primaryMask);
+        }
+    }
+
+    /**
+     * The method reads the number of code tables, the context map and the code length tables of a context block and builds the
+     * decoding table of every table. Throws {@link HuffmanException} if they are malformed.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the number of tables
+     * @param int, length of the rest of the block body
+     * @return int, size of the tables in bytes
+     */
+    private int readContextTables(byte[] compressedData, int offset, int length) {
+        int index = offset;
+        int end = offset + length;
+        if (length < 1) {
+            throw new HuffmanException("The compressed data is truncated.");
+        }
+        int numberOfTables = compressedData[index++] & 0xFF;
+        if (numberOfTables < 2 || numberOfTables > CompressionSettings.MAX_CONTEXT_TABLES) {
+            throw new HuffmanException("Unsupported number of context tables: " + numberOfTables);
+        }
+        for (int context = 0; context < contextTables.length; ) {
+            if (index == end) {
+                throw new HuffmanException("The compressed data is truncated.");
+            }
+            int entry = compressedData[index++] & 0xFF;
+            int table = entry >>> 4;
+            int run = (entry & (HuffmanBlockEncoder.MAX_CONTEXT_RUN - 1)) + 1;
+            if (table >= numberOfTables || context + run > contextTables.length) {
+                throw new HuffmanException("The compressed data holds a malformed context map.");
+            }
+            Arrays.fill(contextTables, context, context + run, table);
+            context += run;
+        }
+        if (contextDecodingTables == null) {
+            contextDecodingTables = new HuffmanDecodingTable[CompressionSettings.MAX_CONTEXT_TABLES];
+            entriesByContext = new int[ContextClustering.NUMBER_OF_CONTEXTS][];
+            primaryBitsByContext = new int[ContextClustering.NUMBER_OF_CONTEXTS];
+        }
+        for (int table = 0; table < numberOfTables; ++table) {
+            if (contextDecodingTables[table] == null) {
+                contextDecodingTables[table] = new HuffmanDecodingTable();
+            }
+            index += readTable(compressedData, index, end - index, codeLengths, huffmanCodes, contextDecodingTables[table]);
+        }
+        return index - offset;
+    }
+
+    /**
+     * The method decodes the bitstream of a context block, looking up every symbol in the decoding table its preceding bit pattern
+     * maps to. The symbols in front of the range are decoded and dropped, since every symbol picks the table of the next one.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the bitstream
+     * @param int, length of the bitstream
+     * @param int, position of the range within the block
+     * @param byte[], the destination of the decoded data
+     * @param int, offset of the decoded data in the destination
+     * @param int, number of original bytes to decode
+     */
+    private void decodeContext(byte[] compressedData, int offset, int length, int from, byte[] decompressedData, int decompressedOffset, int numberOfSymbols) {
+        checkDestination(decompressedData, decompressedOffset, numberOfSymbols);
+        int[][] entriesByContext = this.entriesByContext;
+        int[] primaryBitsByContext = this.primaryBitsByContext;
+        for (int context = 0; context < contextTables.length; ++context) {
+            HuffmanDecodingTable table = contextDecodingTables[contextTables[context]];
+            entriesByContext[context] = table.getEntries();
+            primaryBitsByContext[context] = table.getPrimaryBits();
+        }
+        BitReader huffmanEncoding = new BitReader(compressedData, offset, length);
+        int context = 0;
+        for (int position = 0; position < from; ++position) {
+            int primaryBits = primaryBitsByContext[context];
+            context = decodeSymbol(huffmanEncoding, entriesByContext[context], primaryBits, (1 << primaryBits) - 1);
+        }
+        int end = decompressedOffset + numberOfSymbols;
+        for (int index = decompressedOffset; index < end; ++index) {
+            int primaryBits = primaryBitsByContext[context];
+            context = decodeSymbol(huffmanEncoding, entriesByContext[context], primaryBits, (1 << primaryBits) - 1);
+            decompressedData[index] = (byte) context;
+        }
+    }
+
+    /**
+     * The method reads the digrams and the code length table of a digram block and builds the decoding table of the bit patterns
+     * and digrams. Throws {@link HuffmanException} if they are malformed.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the number of digrams
+     * @param int, length of the rest of the block body
+     * @return int, size of the digrams and the code length table in bytes
+     */
+    private int readDigramTable(byte[] compressedData, int offset, int length) {
+        if (length < 1) {
+            throw new HuffmanException("The compressed data is truncated.");
+        }
+        int numberOfDigrams = (compressedData[offset] & 0xFF) + 1;
+        int index = offset + 1;
+        if (length - 1 < 2 * numberOfDigrams) {
+            throw new HuffmanException("The compressed data is truncated.");
+        }
+        for (int digram = 256; digram < 256 + numberOfDigrams; ++digram) {
+            expansions[digram] = 2 << 16 | (compressedData[index] & 0xFF) << 8 | compressedData[index + 1] & 0xFF;
+            index += 2;
+        }
+        if (digramCodeLengths == null || digramCodeLengths.length != 256 + numberOfDigrams) {
+            digramCodeLengths = new byte[256 + numberOfDigrams];
+            digramCodes = new HuffmanCodeTable(digramCodeLengths);
+        }
+        index += readTable(compressedData, index, offset + length - index, digramCodeLengths, digramCodes, digramDecodingTable);
+        return index - offset;
+    }
+
+    /**
+     * The method decodes the bitstream of a digram block. Every lookup writes the two bytes of the expansion of its symbol and
+     * advances by one or two of them; the byte written behind a single bit pattern is overwritten by the next symbol. The symbols
+     * in front of the range are decoded and dropped, a range may start with the second byte of a digram.
+     *
+     * @param byte[], the compressed data
+     * @param int, offset of the bitstream
+     * @param int, length of the bitstream
+     * @param int, position of the range within the block
+     * @param byte[], the destination of the decoded data
+     * @param int, offset of the decoded data in the destination
+     * @param int, number of original bytes to decode
+     */
+    private void decodeDigrams(byte[] compressedData, int offset, int length, int from, byte[] decompressedData, int decompressedOffset, int numberOfSymbols) {
+        checkDestination(decompressedData, decompressedOffset, numberOfSymbols);
+        BitReader huffmanEncoding = new BitReader(compressedData, offset, length);
+        int[] entries = decodingTable.getEntries();
+        int primaryBits = decodingTable.getPrimaryBits();
+        int primaryMask = (1 << primaryBits) - 1;
+        int position = 0;
+        int expansion = 0;
+        while (position < from) {
+            expansion = expansions[decodeSymbol(huffmanEncoding, entries, primaryBits, primaryMask)];
+            position += expansion >>> 16;
+        }
+        int index = decompressedOffset;
+        int end = decompressedOffset + numberOfSymbols;
+        if (position > from && index < end) {
+            decompressedData[index++] = (byte) expansion;
+        }
+        while (index < end - 1) {
+            expansion = expansions[decodeSymbol(huffmanEncoding, entries, primaryBits, primaryMask)];
+            decompressedData[index] = (byte) (expansion >>> 8);
+            decompressedData[index + 1] = (byte) expansion;
+            index += expansion >>> 16;
+        }
+        if (index < end) {
+            decompressedData[index] = (byte) (expansions[decodeSymbol(huffmanEncoding, entries, primaryBits, primaryMask)] >>> 8);
+        }
+    }
+
+    private static void checkDestination(byte[] decompressedData, int decompressedOffset, int numberOfSymbols) {
+        if (numberOfSymbols > decompressedData.length - decompressedOffset) {
+            throw new HuffmanException("The decoded data does not fit into the destination: " + numberOfSymbols + " bytes");
+        }
+    }
+
+    /**
+     * The method decodes the next symbol of a bitstream. Every step resolves up to {@link HuffmanDecodingTable#PRIMARY_TABLE_BITS}
+     * bits with a single lookup; longer codes continue in the secondary tables.
+     *
+     * @return int, the symbol
+     */
+    private int decodeSymbol(BitReader huffmanEncoding, int[] entries, int primaryBits, int primaryMask) {
+        huffmanEncoding.refill();
+        int entry = entries[(int) huffmanEncoding.peek() & primaryMask];
+        if (HuffmanDecodingTable.isLink(entry)) {
+            entry = followLinks(entry, entries, primaryBits, huffmanEncoding);
+        }
+        huffmanEncoding.skip(HuffmanDecodingTable.codeLength(entry));
+        return HuffmanDecodingTable.symbol(entry);
+    }
+
+    /**
+     * The method resolves a code which is longer than the primary table, consuming the bits of every table level it passes.
+     *
+     * @return int, the leaf entry for the code
+     */
+    private int followLinks(int entry, int[] entries, int tableBits, BitReader huffmanEncoding) {
+        while (HuffmanDecodingTable.isLink(entry)) {
+            if (entry == HuffmanDecodingTable.INVALID_ENTRY) {
+                throw new HuffmanException("The Huffman encoding contains an invalid code.");
+            }
+            huffmanEncoding.skip(tableBits);
+            huffmanEncoding.refill();
+            tableBits = HuffmanDecodingTable.linkBits(entry);
+            entry = entries[HuffmanDecodingTable.linkOffset(entry) + ((int) huffmanEncoding.peek() & ((1 << tableBits) - 1))];
+        }
+        return entry;
+    }
+
+    /**
+     * The method collects the Huffman code of every bit pattern from the passed in Huffman Tree and builds the decoding table.
+     *
+     * @param {@code HuffmanTree}
+     * @return {@code HuffmanDecodingTable}
+     */
+    private HuffmanDecodingTable createDecodingTable(HuffmanTree huffmanTree) {
+        HuffmanNode rootNode = huffmanTree.getTree().poll();
+        if (rootNode instanceof HuffmanLeafNode) {
+            return new HuffmanDecodingTable(((HuffmanLeafNode) rootNode).getBitPattern() & 0xFF);
+        }
+        byte[] codeLengths = new byte[256];
+        long[] codes = new long[256];
+        collectHuffmanCodes(rootNode, 0L, 0, codeLengths, codes);
+        return new HuffmanDecodingTable(codeLengths, codes);
+    }
+
+    private void collectHuffmanCodes(HuffmanNode node, long code, int depth, byte[] codeLengths, long[] codes) {
+        if (depth > Long.SIZE) {
+            throw new HuffmanException("Unsupported Huffman code length: " + depth);
+        }
+        if (node instanceof HuffmanInternalNode) {
+            collectHuffmanCodes(((HuffmanInternalNode) node).getLeftChild(), code, depth + 1, codeLengths, codes);
+            collectHuffmanCodes(((HuffmanInternalNode) node).getRightChild(), code | (1L << depth), depth + 1, codeLengths, codes);
+        } else if (node != null) {
+            int bitPattern = ((HuffmanLeafNode) node).getBitPattern() & 0xFF;
+            codeLengths[bitPattern] = (byte) depth;
+            codes[bitPattern] = code;
+        }
+    }
+}
@@ -0,0 +1,1182 @@
+package com.dushyant.huffman.tools;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.*;
+import com.dushyant.huffman.utils.BitWriter;
+
+/**
+ * The {@code HuffmanBlockEncoder} class encodes one block of data into a block body. A Huffman encoded block body is laid out
+ * as below:
+ *
+ *      ------------    ---------------------    -------------------
+ *     | BLOCK TYPE | + | CODE LENGTH TABLE | + | HUFFMAN ENCODING |
+ *      ------------    ---------------------    -------------------
+ *         1 BYTE         3 TO 256 BYTES
+ *
+ * The block type tells how the Huffman encoding is laid out:
+ *  - {@link #HUFFMAN_BLOCK}: a single bitstream holding the codes of all the bytes of the block
+ *  - {@link #INTERLEAVED_HUFFMAN_BLOCK}: the block is split into {@link #NUMBER_OF_STREAMS} segments, the first three of
+ *    (number of original bytes / 4) bytes and the last one holding the rest. Each segment is encoded into a bitstream of its own
+ *    with the codes of the block; the sizes of the first three bitstreams (4 bytes each) precede the bitstreams. Consecutive
+ *    decodes within one bitstream depend on each other, decodes in different bitstreams do not, so the decoder can keep four
+ *    of them in flight.
+ *  - {@link #RAW_BLOCK}: the original bytes follow the block type as they are, without a code length table
+ *  - {@link #RUN_BLOCK}: the block repeats a single bit pattern, which follows the block type; the number of original bytes in
+ *    the block header tells how often
+ *  - {@link #CONTEXT_BLOCK}: every symbol is coded with one of several code tables, picked by the bit pattern in front of it
+ *    (0 in front of the first one). The block type is followed by the number of tables (1 byte), the context map and one code
+ *    length table per table, then a single bitstream. The context map tells the table of every preceding bit pattern in runs,
+ *    one byte per run: the table in the high 4 bits and the length of the run - 1 in the low 4 bits. The tables come from
+ *    clustering the contexts, see {@link ContextClustering}; the block is only stored this way when it turns out smaller than
+ *    with a single table.
+ *  - {@link #DIGRAM_BLOCK}: the alphabet holds byte pairs (digrams) next to the 256 bit patterns, so a single code stands for
+ *    two bytes. The block type is followed by the number of digrams - 1 (1 byte), the two bytes of every digram, the code length
+ *    table of the (256 + number of digrams) symbols, the digrams after the bit patterns, and a single bitstream. The digrams are
+ *    the byte pairs which save the most bits by the entropy of the block, see {@link #prepareDigramBlock()}; the data is
+ *    read from left to right and a pair of the dictionary is always coded as a digram. The block is only stored this way when it
+ *    turns out smaller than with the 256 bit patterns alone.
+ *
+ * The block type is picked from the frequencies of the block before any Huffman Tree is built: a single bit pattern makes a
+ * run block, and a block whose entropy, i.e. the least number of bits any code of its frequencies needs, is not below 8 bits
+ * per byte makes a raw block, as already compressed or random data does. A Huffman encoded block which turns out no smaller
+ * than the raw block is stored raw as well.
+ *
+ * The block is encoded with canonical Huffman codes, so the code length of every 8 bit pattern is all the decoder needs. The
+ * code lengths of the 256 bit patterns are run length encoded, one byte per entry:
+ *  - 0x00 to 0x3F: the code length of the next bit pattern, 0 for an absent bit pattern
+ *  - 0x40 to 0x7F: the next (entry - 0x40 + 2) bit patterns are absent
+ *  - 0x80 to 0xFF: the next (entry - 0x80 + 2) bit patterns have the same code length as the previous one
+ *
+ * The code lengths are the depths of the Huffman Tree of the block, see {@link HuffmanCodeLengths}. When the tree is deeper than the maximum code length, the
+ * code lengths are rebuilt with the package-merge algorithm instead, which gives the shortest encoding among all the codes
+ * within the limit; {@link #getSizeofUnlimitedEncodingInBits()} keeps the size the unrestricted codes would have produced.
+ *
+ * At {@link CompressionSettings#FAST_LEVEL} an encoder tries the code table of the previous block first, which the caller
+ * passes in as the encoder of that block, see {@link #prepare(byte[], int, int, HuffmanBlockEncoder)}: a sample of the block is counted, the first {@link #SAMPLE_CHUNK_SIZE} bytes of every {@link #SAMPLE_STRIDE} bytes or the whole
+ * of a block below {@link #MIN_SAMPLED_BLOCK_SIZE} bytes, and the table is kept if it codes the sample in at most
+ * {@link #TABLE_REUSE_TOLERANCE} more bits than a table of its own would, so the block is neither counted as a whole nor gets a
+ * table built. The table is stored again with the block, so the decoder does not know the difference. Over-long codes are
+ * shortened with {@link HuffmanCodeLengths#limitCodeLengths} instead of package-merge at that level, and no context tables are
+ * tried.
+ *
+ * Encoding is split in two steps: {@link #prepare(byte[], int, int)} builds the codes and returns the exact size of the block
+ * body, so the caller can provide a buffer large enough for {@link #write(byte[], int)}. An instance reuses its code tables
+ * from one block to the next and must not be shared between threads.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+final class HuffmanBlockEncoder {
+
+    static final int ABSENT_RUN = 0x40;
+
+    static final int REPEAT_RUN = 0x80;
+
+    static final int MIN_RUN = 2;
+
+    static final int PARALLEL_COUNT_PART_SIZE = 1024 * 1024;
+
+    static final int HUFFMAN_BLOCK = 0;
+
+    static final int INTERLEAVED_HUFFMAN_BLOCK = 1;
+
+    static final int RAW_BLOCK = 2;
+
+    static final int RUN_BLOCK = 3;
+
+    static final int CONTEXT_BLOCK = 4;
+
+    static final int DIGRAM_BLOCK = 5;
+
+    static final int NUMBER_OF_STREAMS = 4;
+
+    static final int STREAM_SIZES_LENGTH = (NUMBER_OF_STREAMS - 1) * Integer.BYTES;
+
+    static final int MIN_INTERLEAVED_BLOCK_SIZE = 1024; // smaller blocks are not worth the sizes of the bitstreams
+
+    static final int MIN_CONTEXT_BLOCK_SIZE = 4096; // smaller blocks are not worth the extra code length tables
+
+    static final int MAX_CONTEXT_RUN = 16;
+
+    static final int MIN_DIGRAM_BLOCK_SIZE = 4096; // smaller blocks are not worth the dictionary
+
+    static final int MIN_DIGRAM_FREQUENCY = 4;
+
+    static final int DIGRAM_COST_IN_BITS = 3 * Byte.SIZE; // two bytes in the dictionary and about one in the code length table
+
+    static final int SAMPLE_CHUNK_SIZE = 64;
+
+    static final int SAMPLE_STRIDE = 512;
+
+    static final int MIN_SAMPLED_BLOCK_SIZE = 16 * 1024; // smaller blocks are counted as a whole, a sample would say too little
+
+    static final double TABLE_REUSE_TOLERANCE = 0.05;
+
+    static final int RAW_ENTROPY_MARGIN = 64; // entropy within a bit per this many bytes of 8 bits per byte: stored raw straight away
+
+    private final int maxCodeLength;
+
+    private final boolean interleaved;
+
+    private final int checkpointInterval;
+
+    private final int numberOfContextTables;
+
+    private final int level;
+
+    private final int numberOfDigrams;
+
+    private int[] checkpoints;
+
+    private final int[] sizesOfStreams = new int[NUMBER_OF_STREAMS];
+
+    private int blockType;
+
+    private final byte[] codeLengths = new byte[256];
+
+    private final int[] unlimitedCodeLengths = new int[256 + CompressionSettings.MAX_DIGRAMS];
+
+    private final FrequencyTable bitPatternFrequencies = new FrequencyTable();
+
+    private long[] frequencies;
+
+    private final byte[] codeLengthTable = new byte[256];
+
+    private int sizeofCodeLengthTable;
+
+    private final HuffmanCodeTable huffmanCodes = new HuffmanCodeTable(codeLengths);
+
+    private boolean reusableTable;
+
+    private boolean lengthLimited;
+
+    private boolean tableReused;
+
+    private final long[] sampleFrequencies = new long[256];
+
+    private long[] pairFrequencies;
+
+    private final int[] contextTables = new int[ContextClustering.NUMBER_OF_CONTEXTS];
+
+    private long[][] tableFrequencies;
+
+    private byte[][] contextCodeLengths;
+
+    private HuffmanCodeTable[] contextCodes;
+
+    private byte[][] contextBitsPerSymbol;
+
+    private byte[] contextHeader;
+
+    private long[][] codesByContext;
+
+    private byte[][] bitsByContext;
+
+    private int sizeofContextHeader;
+
+    private long sizeofContextEncodingInBits;
+
+    private long sizeofUnlimitedContextEncodingInBits;
+
+    private short[] digramSymbols;
+
+    private int[] digrams;
+
+    private long[] digramCandidates;
+
+    private int numberOfBlockDigrams;
+
+    private long[] digramFrequencies;
+
+    private double[] bitsPerBitPattern;
+
+    private int[] blockBitPatterns;
+
+    private byte[] digramCodeLengths;
+
+    private HuffmanCodeTable digramCodes;
+
+    private byte[] digramBitsPerSymbol;
+
+    private byte[] digramHeader;
+
+    private int sizeofDigramHeader;
+
+    private long sizeofDigramEncodingInBits;
+
+    private long sizeofUnlimitedDigramEncodingInBits;
+
+    private byte[] data;
+
+    private int offset;
+
+    private int length;
+
+    private long sizeofEncodingInBits;
+
+    private long sizeofUnlimitedEncodingInBits;
+
+    private long sizeofEntropyInBits;
+
+    private boolean timed;
+
+    private long histogramNanos;
+
+    private long treeNanos;
+
+    private long headerNanos;
+
+    private long encodingNanos;
+
+    HuffmanBlockEncoder(CompressionSettings settings) {
+        this(settings.getMaxCodeLength(), settings.isInterleaved(), settings.getCheckpointInterval(), settings.getNumberOfContextTables(), settings.getLevel(),
+                settings.getNumberOfDigrams());
+    }
+
+    /**
+     * @param int, the maximum Huffman code length in bits
+     * @param boolean, true to encode blocks of at least {@link #MIN_INTERLEAVED_BLOCK_SIZE} bytes as interleaved bitstreams
+     */
+    HuffmanBlockEncoder(int maxCodeLength, boolean interleaved) {
+        this(maxCodeLength, interleaved, 0);
+    }
+
+    /**
+     * @param int, the maximum Huffman code length in bits
+     * @param boolean, true to encode blocks of at least {@link #MIN_INTERLEAVED_BLOCK_SIZE} bytes as interleaved bitstreams
+     * @param int, number of original bytes between two checkpoints recorded by {@link #write(byte[], int)}, 0 for none
+     */
+    HuffmanBlockEncoder(int maxCodeLength, boolean interleaved, int checkpointInterval) {
+        this(maxCodeLength, interleaved, checkpointInterval, 1);
+    }
+
+    /**
+     * @param int, the maximum Huffman code length in bits
+     * @param boolean, true to encode blocks of at least {@link #MIN_INTERLEAVED_BLOCK_SIZE} bytes as interleaved bitstreams
+     * @param int, number of original bytes between two checkpoints recorded by {@link #write(byte[], int)}, 0 for none
+     * @param int, the most code tables of a context block, 1 for no context blocks
+     */
+    HuffmanBlockEncoder(int maxCodeLength, boolean interleaved, int checkpointInterval, int numberOfContextTables) {
+        this(maxCodeLength, interleaved, checkpointInterval, numberOfContextTables, CompressionSettings.DEFAULT_LEVEL);
+    }
+
+    /**
+     * @param int, the maximum Huffman code length in bits
+     * @param boolean, true to encode blocks of at least {@link #MIN_INTERLEAVED_BLOCK_SIZE} bytes as interleaved bitstreams
+     * @param int, number of original bytes between two checkpoints recorded by {@link #write(byte[], int)}, 0 for none
+     * @param int, the most code tables of a context block, 1 for no context blocks
+     * @param int, the compression level, see {@link CompressionSettings#setLevel(int)}
+     */
+    HuffmanBlockEncoder(int maxCodeLength, boolean interleaved, int checkpointInterval, int numberOfContextTables, int level) {
+        this(maxCodeLength, interleaved, checkpointInterval, numberOfContextTables, level, 0);
+    }
+
+    /**
+     * @param int, the maximum Huffman code length in bits
+     * @param boolean, true to encode blocks of at least {@link #MIN_INTERLEAVED_BLOCK_SIZE} bytes as interleaved bitstreams
+     * @param int, number of original bytes between two checkpoints recorded by {@link #write(byte[], int)}, 0 for none
+     * @param int, the most code tables of a context block, 1 for no context blocks
+     * @param int, the compression level, see {@link CompressionSettings#setLevel(int)}
+     * @param int, the most digrams of a digram block, 0 for no digram blocks
+     */
+    HuffmanBlockEncoder(int maxCodeLength, boolean interleaved, int checkpointInterval, int numberOfContextTables, int level, int numberOfDigrams) {
+        this.maxCodeLength = maxCodeLength;
+        this.interleaved = interleaved;
+        this.checkpointInterval = checkpointInterval;
+        this.numberOfContextTables = numberOfContextTables;
+        this.level = level;
+        this.numberOfDigrams = numberOfDigrams;
+    }
+
+    /**
+     * The method counts the 8 bit patterns of the block, picks the block type and generates the canonical Huffman codes of
+     * Huffman encoded blocks.
+     *
+     * @param byte[], the original data
+     * @param int, offset of the block in the original data
+     * @param int, length of the block
+     * @return int, size of the block body in bytes
+     */
+    int prepare(byte[] data, int offset, int length) {
+        return prepare(data, offset, length, (HuffmanBlockEncoder) null);
+    }
+
+    /**
+     * The method prepares the block like {@link #prepare(byte[], int, int)}, trying the code table of the previous block first
+     * at {@link CompressionSettings#FAST_LEVEL}. The previous encoder must not be preparing or writing a block meanwhile; it may
+     * be this encoder, whose table then is the one of the block it prepared last.
+     *
+     * @param byte[], the original data
+     * @param int, offset of the block in the original data
+     * @param int, length of the block
+     * @param {@code HuffmanBlockEncoder}, the encoder of the previous block, null for the first block
+     * @return int, size of the block body in bytes
+     */
+    int prepare(byte[] data, int offset, int length, HuffmanBlockEncoder previousBlockEncoder) {
+        long start = timed ? System.nanoTime() : 0;
+        if (level == CompressionSettings.FAST_LEVEL && previousBlockEncoder != null && previousBlockEncoder.reusableTable) {
+            int sizeofBlockBody = prepareWithPreviousTable(data, offset, length, previousBlockEncoder);
+            if (sizeofBlockBody > 0) {
+                encodingNanos = timed ? System.nanoTime() - start - histogramNanos : 0;
+                return sizeofBlockBody;
+            }
+        }
+        bitPatternFrequencies.clear();
+        bitPatternFrequencies.count(data, offset, length);
+        long countingNanos = timed ? System.nanoTime() - start : 0;
+        int sizeofBlockBody = prepare(data, offset, length, bitPatternFrequencies);
+        histogramNanos = countingNanos;
+        return sizeofBlockBody;
+    }
+
+    /**
+     * The method picks the type of a block whose 8 bit patterns have already been counted, e.g. by
+     * {@link #countInParallel(ExecutorService, byte[], int, int)}, and generates the canonical Huffman codes of Huffman
+     * encoded blocks.
+     *
+     * @param byte[], the original data
+     * @param int, offset of the block in the original data
+     * @param int, length of the block
+     * @param {@code FrequencyTable}, the frequencies of the 8 bit patterns of the block
+     * @return int, size of the block body in bytes
+     */
+    int prepare(byte[] data, int offset, int length, FrequencyTable blockFrequencies) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.frequencies = blockFrequencies.getFrequencies();
+        sizeofEncodingInBits = 0;
+        sizeofUnlimitedEncodingInBits = 0;
+        sizeofEntropyInBits = 0;
+        histogramNanos = 0;
+        treeNanos = 0;
+        headerNanos = 0;
+        encodingNanos = 0;
+        long start = timed ? System.nanoTime() : 0;
+        reusableTable = false;
+        tableReused = false;
+
+        int numberOfSymbols = blockFrequencies.getNumberOfSymbols();
+        if (numberOfSymbols == 1) {
+            blockType = RUN_BLOCK;
+            return 2;
+        }
+        sizeofEntropyInBits = estimateSizeofEncodingInBits(frequencies, length);
+        // The entropy counted over a block of random bytes falls short of 8 bits per byte by about (bit patterns - 1) / (2 ln 2)
+        // bits, hence a bit per bit pattern on top of the margin.
+        if (sizeofEntropyInBits >= (long) length * Byte.SIZE - length / RAW_ENTROPY_MARGIN - numberOfSymbols) {
+            blockType = RAW_BLOCK;
+            treeNanos = timed ? System.nanoTime() - start : 0;
+            return 1 + length;
+        }
+
+        buildCodeLengths(blockFrequencies);
+        huffmanCodes.rebuild(codeLengths);
+        reusableTable = true;
+        long headerStart = timed ? System.nanoTime() : 0;
+        sizeofCodeLengthTable = writeCodeLengthTable(codeLengths, codeLengthTable);
+        long sizingStart = timed ? System.nanoTime() : 0;
+        int sizeofBlockBody = calculateSizeOfBlockBody();
+        if (timed) {
+            treeNanos = headerStart - start;
+            headerNanos = sizingStart - headerStart;
+            encodingNanos = System.nanoTime() - sizingStart;
+        }
+        if (numberOfContextTables > 1 && level != CompressionSettings.FAST_LEVEL && length >= MIN_CONTEXT_BLOCK_SIZE) {
+            long contextStart = timed ? System.nanoTime() : 0;
+            long sizeofContextBlockBody = prepareContextBlock();
+            if (sizeofContextBlockBody < sizeofBlockBody) {
+                blockType = CONTEXT_BLOCK;
+                sizeofBlockBody = (int) sizeofContextBlockBody;
+                sizeofEncodingInBits = sizeofContextEncodingInBits;
+                sizeofUnlimitedEncodingInBits = sizeofUnlimitedContextEncodingInBits;
+            }
+            if (timed) {
+                treeNanos += System.nanoTime() - contextStart;
+            }
+        }
+        if (numberOfDigrams > 0 && level != CompressionSettings.FAST_LEVEL && length >= MIN_DIGRAM_BLOCK_SIZE) {
+            long digramStart = timed ? System.nanoTime() : 0;
+            long sizeofDigramBlockBody = prepareDigramBlock();
+            if (sizeofDigramBlockBody < sizeofBlockBody) {
+                blockType = DIGRAM_BLOCK;
+                sizeofBlockBody = (int) sizeofDigramBlockBody;
+                sizeofEncodingInBits = sizeofDigramEncodingInBits;
+                sizeofUnlimitedEncodingInBits = sizeofUnlimitedDigramEncodingInBits;
+            }
+            if (timed) {
+                treeNanos += System.nanoTime() - digramStart;
+            }
+        }
+        if (sizeofBlockBody >= 1 + length) {
+            blockType = RAW_BLOCK;
+            sizeofEncodingInBits = 0;
+            sizeofUnlimitedEncodingInBits = 0;
+            return 1 + length;
+        }
+        return sizeofBlockBody;
+    }
+
+    /**
+     * The method codes the block with the code table of the previous block, if the sample of the block says the table is good
+     * enough for it and the table has a code for every byte of the block. Counting the sample is booked as histogram time.
+     *
+     * @return int, size of the block body in bytes, 0 if the block needs a table of its own
+     */
+    private int prepareWithPreviousTable(byte[] data, int offset, int length, HuffmanBlockEncoder previousBlockEncoder) {
+        long start = timed ? System.nanoTime() : 0;
+        byte[] codeLengths = previousBlockEncoder.codeLengths;
+        Arrays.fill(sampleFrequencies, 0);
+        int end = offset + length;
+        int sampleStride = length < MIN_SAMPLED_BLOCK_SIZE ? SAMPLE_CHUNK_SIZE : SAMPLE_STRIDE;
+        int sampleLength = 0;
+        for (int chunk = offset; chunk < end; chunk += sampleStride) {
+            int chunkEnd = Math.min(chunk + SAMPLE_CHUNK_SIZE, end);
+            for (int index = chunk; index < chunkEnd; ++index) {
+                ++sampleFrequencies[data[index] & 0xFF];
+            }
+            sampleLength += chunkEnd - chunk;
+        }
+        histogramNanos = timed ? System.nanoTime() - start : 0;
+        // a table of its own codes the sample in about its entropy, with at least a bit per byte
+        double sizeofOwnTableInBits = 0;
+        long sizeofPreviousTableInBits = 0;
+        for (int symbol = 0; symbol < sampleFrequencies.length; ++symbol) {
+            long frequency = sampleFrequencies[symbol];
+            if (frequency > 0) {
+                if (codeLengths[symbol] == 0) {
+                    return 0;
+                }
+                sizeofPreviousTableInBits += frequency * codeLengths[symbol];
+                sizeofOwnTableInBits += frequency * Math.max(1, Math.log((double) sampleLength / frequency) / Math.log(2));
+            }
+        }
+        if (sizeofPreviousTableInBits > (1 + TABLE_REUSE_TOLERANCE) * sizeofOwnTableInBits) {
+            return 0;
+        }
+
+        long sizeofEncoding = 0;
+        for (int index = offset; index < end; ++index) {
+            int codeLength = codeLengths[data[index] & 0xFF];
+            if (codeLength == 0) {
+                return 0;
+            }
+            sizeofEncoding += codeLength;
+        }
+        long sizeofUnlimitedEncoding = sizeofEncoding;
+        if (previousBlockEncoder.lengthLimited) {
+            int[] unlimitedCodeLengths = previousBlockEncoder.unlimitedCodeLengths;
+            sizeofUnlimitedEncoding = 0;
+            for (int index = offset; index < end; ++index) {
+                sizeofUnlimitedEncoding += unlimitedCodeLengths[data[index] & 0xFF];
+            }
+        }
+        copyTable(previousBlockEncoder);
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+        this.frequencies = null; // only the sample has been counted
+        sizeofEncodingInBits = sizeofEncoding;
+        sizeofUnlimitedEncodingInBits = sizeofUnlimitedEncoding;
+        sizeofEntropyInBits = estimateSizeofEncodingInBits(sampleFrequencies, sampleLength) * length / sampleLength;
+        treeNanos = 0;
+        headerNanos = 0;
+        int sizeofBlockBody = sizeofBlockBody();
+        tableReused = sizeofBlockBody < 1 + length;
+        return tableReused ? sizeofBlockBody : 0;
+    }
+
+    /**
+     * The method estimates the size of the Huffman encoding from the entropy of the frequencies, sum of frequency * log2(length /
+     * frequency) over all the bit patterns. No prefix code encodes the block in fewer bits, and the code length table and the
+     * rounding of the code lengths to whole bits cost more on top, so a block whose estimate is within a bit per
+     * {@link #RAW_ENTROPY_MARGIN} bytes and a bit per bit pattern of 8 bits per byte is stored raw without building a Huffman
+     * Tree.
+     *
+     * @param long[], frequency per 8 bit pattern
+     * @param int, length of the block
+     * @return long, the least number of bits any prefix code encodes the block in
+     */
+    static long estimateSizeofEncodingInBits(long[] frequencies, int length) {
+        double sizeofEncodingInBits = 0;
+        for (long frequency : frequencies) {
+            if (frequency > 0) {
+                sizeofEncodingInBits += frequency * (Math.log((double) length / frequency) / Math.log(2));
+            }
+        }
+        return (long) sizeofEncodingInBits;
+    }
+
+    /**
+     * The method computes the Huffman code lengths of the frequencies with {@link HuffmanCodeLengths}, rebuilding them with the
+     * package-merge algorithm when a code is longer than the maximum code length. Only the contribution of the unrestricted
+     * code lengths to the size of the encoding is kept.
+     *
+     * @param {@code FrequencyTable}, the frequencies of the 8 bit patterns
+     */
+    void buildCodeLengths(FrequencyTable bitPatternFrequencies) {
+        sizeofUnlimitedEncodingInBits = buildCodeLengths(bitPatternFrequencies.getFrequencies(), codeLengths);
+        lengthLimited = false;
+        for (int bitPattern = 0; bitPattern < codeLengths.length; ++bitPattern) {
+            lengthLimited |= codeLengths[bitPattern] != unlimitedCodeLengths[bitPattern];
+        }
+    }
+
+    /**
+     * @param long[], frequency per 8 bit pattern
+     * @param byte[], populated with the length limited code length per 8 bit pattern
+     * @return long, size of the encoding with the unrestricted code lengths
+     */
+    private long buildCodeLengths(long[] bitPatternCounts, byte[] limitedCodeLengths) {
+        int longestCodeLength = HuffmanCodeLengths.computeCodeLengths(bitPatternCounts, unlimitedCodeLengths);
+        long sizeofUnlimitedEncoding = 0;
+        for (int bitPattern = 0; bitPattern < limitedCodeLengths.length; ++bitPattern) {
+            limitedCodeLengths[bitPattern] = (byte) Math.min(unlimitedCodeLengths[bitPattern], maxCodeLength);
+            sizeofUnlimitedEncoding += bitPatternCounts[bitPattern] * unlimitedCodeLengths[bitPattern];
+        }
+        if (longestCodeLength > maxCodeLength && level == CompressionSettings.FAST_LEVEL) {
+            HuffmanCodeLengths.limitCodeLengths(unlimitedCodeLengths, maxCodeLength, limitedCodeLengths);
+        } else if (longestCodeLength > maxCodeLength) {
+            PackageMerge.computeCodeLengths(bitPatternCounts, maxCodeLength, limitedCodeLengths);
+        }
+        return sizeofUnlimitedEncoding;
+    }
+
+    /**
+     * The method clusters the order-1 contexts of the block, builds the codes of every cluster and writes the number of tables,
+     * the context map and the code length tables into the context header.
+     *
+     * @return long, size of the block body as a context block in bytes, {@link Long#MAX_VALUE} if the block has a single context
+     *               cluster
+     */
+    private long prepareContextBlock() {
+        if (pairFrequencies == null) {
+            pairFrequencies = new long[ContextClustering.NUMBER_OF_CONTEXTS * 256];
+        }
+        if (tableFrequencies == null) {
+            tableFrequencies = new long[numberOfContextTables][256];
+            contextCodeLengths = new byte[numberOfContextTables][256];
+            contextCodes = new HuffmanCodeTable[numberOfContextTables];
+            contextBitsPerSymbol = new byte[numberOfContextTables][256];
+            contextHeader = new byte[1 + ContextClustering.NUMBER_OF_CONTEXTS + numberOfContextTables * 256];
+            codesByContext = new long[ContextClustering.NUMBER_OF_CONTEXTS][];
+            bitsByContext = new byte[ContextClustering.NUMBER_OF_CONTEXTS][];
+        }
+        ContextClustering.countPairs(data, offset, length, pairFrequencies);
+        int numberOfTables = ContextClustering.cluster(pairFrequencies, numberOfContextTables, contextTables, tableFrequencies);
+        if (numberOfTables < 2) {
+            return Long.MAX_VALUE;
+        }
+
+        contextHeader[0] = (byte) numberOfTables;
+        int size = 1;
+        for (int context = 0; context < contextTables.length; ) {
+            int run = 1;
+            while (run < MAX_CONTEXT_RUN && context + run < contextTables.length && contextTables[context + run] == contextTables[context]) {
+                ++run;
+            }
+            contextHeader[size++] = (byte) (contextTables[context] << 4 | (run - 1));
+            context += run;
+        }
+        sizeofContextEncodingInBits = 0;
+        sizeofUnlimitedContextEncodingInBits = 0;
+        for (int table = 0; table < numberOfTables; ++table) {
+            long[] counts = tableFrequencies[table];
+            sizeofUnlimitedContextEncodingInBits += buildCodeLengths(counts, contextCodeLengths[table]);
+            if (contextCodes[table] == null) {
+                contextCodes[table] = new HuffmanCodeTable(contextCodeLengths[table]);
+            } else {
+                contextCodes[table].rebuild(contextCodeLengths[table]);
+            }
+            HuffmanCodeTable tableCodes = contextCodes[table];
+            for (int symbol = 0; symbol < 256; ++symbol) {
+                contextBitsPerSymbol[table][symbol] = (byte) tableCodes.bitsPerSymbol(symbol);
+                sizeofContextEncodingInBits += counts[symbol] * contextBitsPerSymbol[table][symbol];
+            }
+            size += writeCodeLengthTable(contextCodeLengths[table], 256, contextHeader, size);
+        }
+        sizeofContextHeader = size;
+        return 1 + sizeofContextHeader + (sizeofContextEncodingInBits + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    /**
+     * The method picks the digrams of the block and builds the codes of the bit patterns and digrams:
+     *  - every byte pair saves about (frequency * (bits of its first byte + bits of its second byte - bits of the pair)) bits as a
+     *    digram, with the bits of a symbol being log2(length / frequency); the pairs saving the most beyond
+     *    {@link #DIGRAM_COST_IN_BITS} are picked, no more than fit the code space of the maximum code length
+     *  - the block is read into symbols from left to right; a pair which lost its occurrences to an overlapping digram, e.g. "he"
+     *    behind "t" with "th" picked as well, is dropped if it is left with fewer than {@link #MIN_DIGRAM_FREQUENCY} and the
+     *    block is read again
+     *
+     * @return long, size of the block body as a digram block in bytes, {@link Long#MAX_VALUE} if no byte pair is worth a digram
+     */
+    private long prepareDigramBlock() {
+        if (pairFrequencies == null) {
+            pairFrequencies = new long[ContextClustering.NUMBER_OF_CONTEXTS * 256];
+        }
+        if (digramSymbols == null) {
+            digramSymbols = new short[256 * 256];
+            digrams = new int[numberOfDigrams];
+            digramCandidates = new long[numberOfDigrams];
+            digramFrequencies = new long[256 + numberOfDigrams];
+            bitsPerBitPattern = new double[256];
+            blockBitPatterns = new int[256];
+            digramCodeLengths = new byte[256 + numberOfDigrams];
+            digramBitsPerSymbol = new byte[256 + numberOfDigrams];
+            digramHeader = new byte[1 + 2 * numberOfDigrams + 256 + numberOfDigrams];
+        }
+        for (int digram = 0; digram < numberOfBlockDigrams; ++digram) {
+            digramSymbols[digrams[digram]] = 0;
+        }
+        numberOfBlockDigrams = 0;
+
+        // only the pairs of bit patterns occurring in the block are cleared and looked at, a few thousand for text
+        double[] bitsPerSymbol = bitsPerBitPattern;
+        int[] bitPatterns = blockBitPatterns;
+        int numberOfBitPatterns = 0;
+        for (int symbol = 0; symbol < 256; ++symbol) {
+            if (frequencies[symbol] > 0) {
+                bitsPerSymbol[symbol] = Math.log((double) length / frequencies[symbol]) / Math.log(2);
+                bitPatterns[numberOfBitPatterns++] = symbol;
+                Arrays.fill(pairFrequencies, symbol << 8, (symbol + 1) << 8, 0);
+            }
+        }
+        int previous = data[offset] & 0xFF;
+        for (int index = offset + 1; index < offset + length; ++index) {
+            int symbol = data[index] & 0xFF;
+            ++pairFrequencies[previous << 8 | symbol];
+            previous = symbol;
+        }
+        // codes of up to 8 bits have room for no more than 256 symbols, 9 bits and more for any alphabet
+        int maxNumberOfDigrams = Math.min(numberOfDigrams, (1 << Math.min(maxCodeLength, Byte.SIZE + 1)) - numberOfBitPatterns);
+        // the best pairs so far in a min-heap, so a pair only has to beat the worst of them
+        long[] candidates = digramCandidates;
+        int numberOfCandidates = 0;
+        for (int first = 0; first < numberOfBitPatterns && maxNumberOfDigrams > 0; ++first) {
+            for (int second = 0; second < numberOfBitPatterns; ++second) {
+                int pair = bitPatterns[first] << 8 | bitPatterns[second];
+                long frequency = pairFrequencies[pair];
+                if (frequency < MIN_DIGRAM_FREQUENCY) {
+                    continue;
+                }
+                double savedBits = frequency * (bitsPerSymbol[pair >>> 8] + bitsPerSymbol[pair & 0xFF] - Math.log((double) length / frequency) / Math.log(2));
+                if (savedBits <= DIGRAM_COST_IN_BITS) {
+                    continue;
+                }
+                long candidate = (long) savedBits << 16 | pair;
+                if (numberOfCandidates < maxNumberOfDigrams) {
+                    candidates[numberOfCandidates] = candidate;
+                    siftUp(candidates, numberOfCandidates++);
+                } else if (candidate > candidates[0]) {
+                    candidates[0] = candidate;
+                    siftDown(candidates, numberOfCandidates);
+                }
+            }
+        }
+        Arrays.sort(candidates, 0, numberOfCandidates);
+        for (int candidate = numberOfCandidates - 1; candidate >= 0; --candidate) {
+            int pair = (int) (candidates[candidate] & 0xFFFF);
+            digrams[numberOfBlockDigrams] = pair;
+            digramSymbols[pair] = (short) (256 + numberOfBlockDigrams++);
+        }
+        if (numberOfBlockDigrams == 0) {
+            return Long.MAX_VALUE;
+        }
+
+        countDigramSymbols();
+        int numberOfUsedDigrams = 0;
+        for (int digram = 0; digram < numberOfBlockDigrams; ++digram) {
+            int pair = digrams[digram];
+            digramSymbols[pair] = 0;
+            if (digramFrequencies[256 + digram] >= MIN_DIGRAM_FREQUENCY) {
+                digrams[numberOfUsedDigrams] = pair;
+                digramSymbols[pair] = (short) (256 + numberOfUsedDigrams++);
+            }
+        }
+        if (numberOfUsedDigrams == 0) {
+            numberOfBlockDigrams = 0;
+            return Long.MAX_VALUE;
+        }
+        if (numberOfUsedDigrams < numberOfBlockDigrams) {
+            numberOfBlockDigrams = numberOfUsedDigrams;
+            countDigramSymbols();
+        }
+
+        // the digrams past the ones of the block are counted 0 times, so they get no code
+        int numberOfSymbols = 256 + numberOfBlockDigrams;
+        sizeofUnlimitedDigramEncodingInBits = buildCodeLengths(digramFrequencies, digramCodeLengths);
+        if (digramCodes == null) {
+            digramCodes = new HuffmanCodeTable(digramCodeLengths);
+        } else {
+            digramCodes.rebuild(digramCodeLengths);
+        }
+        sizeofDigramEncodingInBits = 0;
+        for (int symbol = 0; symbol < numberOfSymbols; ++symbol) {
+            digramBitsPerSymbol[symbol] = (byte) digramCodes.bitsPerSymbol(symbol);
+            sizeofDigramEncodingInBits += digramFrequencies[symbol] * digramBitsPerSymbol[symbol];
+        }
+
+        digramHeader[0] = (byte) (numberOfBlockDigrams - 1);
+        int size = 1;
+        for (int digram = 0; digram < numberOfBlockDigrams; ++digram) {
+            digramHeader[size++] = (byte) (digrams[digram] >>> 8);
+            digramHeader[size++] = (byte) digrams[digram];
+        }
+        sizeofDigramHeader = size + writeCodeLengthTable(digramCodeLengths, numberOfSymbols, digramHeader, size);
+        return 1 + sizeofDigramHeader + (sizeofDigramEncodingInBits + Byte.SIZE - 1) / Byte.SIZE;
+    }
+
+    private static void siftUp(long[] heap, int node) {
+        long key = heap[node];
+        while (node > 0 && heap[(node - 1) / 2] > key) {
+            heap[node] = heap[(node - 1) / 2];
+            node = (node - 1) / 2;
+        }
+        heap[node] = key;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int node = 0;
+        while (2 * node + 1 < size) {
+            int child = 2 * node + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                ++child;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[node] = heap[child];
+            node = child;
+        }
+        heap[node] = key;
+    }
+
+    /**
+     * The method reads the block into bit patterns and digrams from left to right and counts them.
+     */
+    private void countDigramSymbols() {
+        Arrays.fill(digramFrequencies, 0);
+        int end = offset + length;
+        int index = offset;
+        while (index < end - 1) {
+            int symbol = digramSymbols[(data[index] & 0xFF) << 8 | data[index + 1] & 0xFF];
+            if (symbol != 0) {
+                ++digramFrequencies[symbol];
+                index += 2;
+            } else {
+                ++digramFrequencies[data[index++] & 0xFF];
+            }
+        }
+        if (index < end) {
+            ++digramFrequencies[data[index] & 0xFF];
+        }
+    }
+
+    /**
+     * @return byte[], code length per 8 bit pattern as built last
+     */
+    byte[] getCodeLengths() {
+        return codeLengths;
+    }
+
+    /**
+     * The method counts the 8 bit patterns of a large block on the executor: every part of {@link #PARALLEL_COUNT_PART_SIZE}
+     * bytes is counted by its own task into its own table, the tables are added up at the end.
+     *
+     * @param {@code ExecutorService}, the executor counting the parts, null to count them on the calling thread
+     * @param byte[], the original data
+     * @param int, offset of the block in the original data
+     * @param int, length of the block
+     * @return {@code FrequencyTable}, the frequencies of the 8 bit patterns of the block
+     */
+    static FrequencyTable countInParallel(ExecutorService executor, byte[] data, int offset, int length) {
+        List<Callable<FrequencyTable>> counts = new ArrayList<>();
+        for (int part = 0; part < length; part += PARALLEL_COUNT_PART_SIZE) {
+            int partOffset = offset + part;
+            int partLength = Math.min(PARALLEL_COUNT_PART_SIZE, length - part);
+            counts.add(() -> {
+                FrequencyTable partFrequencies = new FrequencyTable();
+                partFrequencies.count(data, partOffset, partLength);
+                return partFrequencies;
+            });
+        }
+        FrequencyTable blockFrequencies = new FrequencyTable();
+        for (FrequencyTable partFrequencies : HuffmanTasks.invokeAll(executor, counts)) {
+            blockFrequencies.add(partFrequencies);
+        }
+        return blockFrequencies;
+    }
+
+    /**
+     * The method writes the block body prepared by the last call to {@link #prepare(byte[], int, int)}.
+     *
+     * @param byte[], the destination
+     * @param int, offset of the block body in the destination
+     * @return int, the index following the block body
+     */
+    int write(byte[] destination, int destinationOffset) {
+        long start = timed ? System.nanoTime() : 0;
+        if (checkpointInterval > 0) {
+            int numberOfCheckpoints = CheckpointIndex.getNumberOfCheckpoints(checkpointInterval, length);
+            if (checkpoints == null || checkpoints.length != numberOfCheckpoints) {
+                checkpoints = new int[numberOfCheckpoints];
+            } else {
+                Arrays.fill(checkpoints, 0);
+            }
+        }
+        int end = writeBlockBody(destination, destinationOffset);
+        if (timed) {
+            encodingNanos += System.nanoTime() - start;
+        }
+        return end;
+    }
+
+    private int writeBlockBody(byte[] destination, int destinationOffset) {
+        destination[destinationOffset++] = (byte) blockType;
+        if (blockType == RUN_BLOCK) {
+            destination[destinationOffset++] = data[offset];
+            return destinationOffset;
+        }
+        if (blockType == RAW_BLOCK) {
+            System.arraycopy(data, offset, destination, destinationOffset, length);
+            return destinationOffset + length;
+        }
+        if (blockType == CONTEXT_BLOCK) {
+            System.arraycopy(contextHeader, 0, destination, destinationOffset, sizeofContextHeader);
+            return writeContextStream(destination, destinationOffset + sizeofContextHeader);
+        }
+        if (blockType == DIGRAM_BLOCK) {
+            System.arraycopy(digramHeader, 0, destination, destinationOffset, sizeofDigramHeader);
+            return writeDigramStream(destination, destinationOffset + sizeofDigramHeader);
+        }
+        System.arraycopy(codeLengthTable, 0, destination, destinationOffset, sizeofCodeLengthTable);
+        destinationOffset += sizeofCodeLengthTable;
+        if (blockType == HUFFMAN_BLOCK) {
+            return writeStream(destination, destinationOffset, offset, offset + length);
+        }
+
+        ByteBuffer streamSizes = ByteBuffer.wrap(destination, destinationOffset, STREAM_SIZES_LENGTH);
+        for (int stream = 0; stream < NUMBER_OF_STREAMS - 1; ++stream) {
+            streamSizes.putInt(sizesOfStreams[stream]);
+        }
+        destinationOffset += STREAM_SIZES_LENGTH;
+        int segmentLength = length / NUMBER_OF_STREAMS;
+        for (int stream = 0; stream < NUMBER_OF_STREAMS; ++stream) {
+            int segmentOffset = offset + stream * segmentLength;
+            int segmentEnd = stream == NUMBER_OF_STREAMS - 1 ? offset + length : segmentOffset + segmentLength;
+            destinationOffset = writeStream(destination, destinationOffset, segmentOffset, segmentEnd);
+        }
+        return destinationOffset;
+    }
+
+    /**
+     * The method Huffman encodes a part of the block into a bitstream of its own. With checkpoints, the bit offset within the
+     * bitstream is recorded at every checkpoint of the part; the encoding loop itself checks for none.
+     *
+     * @return int, the index following the bitstream
+     */
+    private int writeStream(byte[] destination, int destinationOffset, int from, int to) {
+        BitWriter huffmanEncoding = new BitWriter(destination, destinationOffset);
+        if (!huffmanCodes.isSingleSymbol()) {
+            long[] codes = huffmanCodes.getCodes();
+            int index = from;
+            if (checkpoints != null) {
+                int checkpoint = Math.max(1, (from - offset + checkpointInterval - 1) / checkpointInterval);
+                for (; offset + (long) checkpoint * checkpointInterval < to; ++checkpoint) {
+                    int checkpointIndex = offset + checkpoint * checkpointInterval;
+                    encode(huffmanEncoding, codes, index, checkpointIndex);
+                    checkpoints[checkpoint - 1] = (int) huffmanEncoding.getNumberOfBits();
+                    index = checkpointIndex;
+                }
+            }
+            encode(huffmanEncoding, codes, index, to);
+        }
+        return huffmanEncoding.flush();
+    }
+
+    /**
+     * The method encodes the block into a single bitstream, every symbol with the codes of the table its preceding bit pattern
+     * maps to. No checkpoints are recorded: the table of a symbol depends on the one before it, so a context block is always
+     * decoded from its start.
+     *
+     * @return int, the index following the bitstream
+     */
+    private int writeContextStream(byte[] destination, int destinationOffset) {
+        for (int context = 0; context < ContextClustering.NUMBER_OF_CONTEXTS; ++context) {
+            codesByContext[context] = contextCodes[contextTables[context]].getCodes();
+            bitsByContext[context] = contextBitsPerSymbol[contextTables[context]];
+        }
+        BitWriter huffmanEncoding = new BitWriter(destination, destinationOffset);
+        int context = 0;
+        for (int index = offset; index < offset + length; ++index) {
+            int symbol = data[index] & 0xFF;
+            huffmanEncoding.write(codesByContext[context][symbol], bitsByContext[context][symbol]);
+            context = symbol;
+        }
+        return huffmanEncoding.flush();
+    }
+
+    /**
+     * The method encodes the block into a single bitstream of bit patterns and digrams, read the same way as they were counted.
+     * No checkpoints are recorded: a checkpoint may fall into the middle of a digram, so a digram block is always decoded from
+     * its start.
+     *
+     * @return int, the index following the bitstream
+     */
+    private int writeDigramStream(byte[] destination, int destinationOffset) {
+        long[] codes = digramCodes.getCodes();
+        BitWriter huffmanEncoding = new BitWriter(destination, destinationOffset);
+        int end = offset + length;
+        int index = offset;
+        while (index < end - 1) {
+            int symbol = digramSymbols[(data[index] & 0xFF) << 8 | data[index + 1] & 0xFF];
+            if (symbol != 0) {
+                index += 2;
+            } else {
+                symbol = data[index++] & 0xFF;
+            }
+            huffmanEncoding.write(codes[symbol], digramBitsPerSymbol[symbol]);
+        }
+        if (index < end) {
+            int symbol = data[index] & 0xFF;
+            huffmanEncoding.write(codes[symbol], digramBitsPerSymbol[symbol]);
+        }
+        return huffmanEncoding.flush();
+    }
+
+    private void encode(BitWriter huffmanEncoding, long[] codes, int from, int to) {
+        for (int index = from; index < to; ++index) {
+            int symbol = data[index] & 0xFF;
+            huffmanEncoding.write(codes[symbol], codeLengths[symbol]);
+        }
+    }
+
+    /**
+     * The method drops the references to the data of the last block, so an encoder kept for reuse does not hold on to it, and
+     * the pair tables of context and digram blocks (640 KB), which are allocated again by the next block needing them.
+     */
+    void clear() {
+        data = null;
+        reusableTable = false;
+        pairFrequencies = null;
+        digramSymbols = null;
+        numberOfBlockDigrams = 0;
+    }
+
+    /**
+     * The method takes over the code table of another encoder, so the next block at {@link CompressionSettings#FAST_LEVEL} can
+     * be coded with it even when that encoder is given another block meanwhile.
+     *
+     * @param {@code HuffmanBlockEncoder}, the encoder whose table is copied, with the same settings as this one
+     */
+    void copyTable(HuffmanBlockEncoder blockEncoder) {
+        if (blockEncoder != this) {
+            System.arraycopy(blockEncoder.codeLengths, 0, codeLengths, 0, codeLengths.length);
+            System.arraycopy(blockEncoder.codeLengthTable, 0, codeLengthTable, 0, blockEncoder.sizeofCodeLengthTable);
+            sizeofCodeLengthTable = blockEncoder.sizeofCodeLengthTable;
+            huffmanCodes.rebuild(codeLengths);
+            // the unrestricted code lengths tell the penalty of the maximum code length for the blocks coded with the table
+            System.arraycopy(blockEncoder.unlimitedCodeLengths, 0, unlimitedCodeLengths, 0, codeLengths.length);
+            lengthLimited = blockEncoder.lengthLimited;
+            reusableTable = blockEncoder.reusableTable;
+        }
+    }
+
+    /**
+     * @return int[], bit offset per checkpoint of the block written last, within the bitstream holding the checkpoint; 0 for every
+     *                checkpoint of raw, run, context and digram blocks. Null without checkpoints.
+     */
+    int[] getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * The method run length encodes the code lengths of the 256 bit patterns, or of the bit patterns and digrams of a digram
+     * block.
+     *
+     * @param byte[], code length per symbol
+     * @param byte[], the destination, at least as long as the code lengths
+     * @return int, size of the code length table in bytes
+     */
+    static int writeCodeLengthTable(byte[] codeLengths, byte[] codeLengthTable) {
+        return writeCodeLengthTable(codeLengths, codeLengths.length, codeLengthTable, 0);
+    }
+
+    /**
+     * @param byte[], code length per symbol
+     * @param int, number of symbols whose code lengths are written
+     * @param byte[], the destination, with room for the number of symbols from the offset
+     * @param int, offset of the code length table in the destination
+     * @return int, size of the code length table in bytes
+     */
+    static int writeCodeLengthTable(byte[] codeLengths, int numberOfSymbols, byte[] codeLengthTable, int tableOffset) {
+        int size = tableOffset;
+        int symbol = 0;
+        int previousCodeLength = -1;
+        while (symbol < numberOfSymbols) {
+            int codeLength = codeLengths[symbol];
+            int run = 1;
+            while (symbol + run < numberOfSymbols && codeLengths[symbol + run] == codeLength) {
+                ++run;
+            }
+            if (codeLength == 0 && run >= MIN_RUN) {
+                run = Math.min(run, REPEAT_RUN - ABSENT_RUN + MIN_RUN - 1);
+                codeLengthTable[size++] = (byte) (ABSENT_RUN + run - MIN_RUN);
+            } else if (codeLength == previousCodeLength && run >= MIN_RUN) {
+                run = Math.min(run, 0x100 - REPEAT_RUN + MIN_RUN - 1);
+                codeLengthTable[size++] = (byte) (REPEAT_RUN + run - MIN_RUN);
+            } else {
+                codeLengthTable[size++] = (byte) codeLength;
+                run = 1;
+            }
+            previousCodeLength = codeLength;
+            symbol += run;
+        }
+        return size - tableOffset;
+    }
+
+    /**
+     * @return long, number of bits of the Huffman encoding of the last prepared block
+     */
+    long getSizeofEncodingInBits() {
+        return sizeofEncodingInBits;
+    }
+
+    /**
+     * @return long, number of bits the Huffman encoding of the last prepared block would take without the maximum code length
+     */
+    long getSizeofUnlimitedEncodingInBits() {
+        return sizeofUnlimitedEncodingInBits;
+    }
+
+    /**
+     * @return long, the least number of bits any prefix code encodes the last prepared block in, 0 for a run block
+     */
+    long getSizeofEntropyInBits() {
+        return sizeofEntropyInBits;
+    }
+
+    /**
+     * @return int, type of the last prepared block
+     */
+    int getBlockType() {
+        return blockType;
+    }
+
+    /**
+     * @return int, number of original bytes in the last prepared block
+     */
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * The method turns the measurement of the time spent on every phase on or off; it is off by default, so encoding a block
+     * reads no clock.
+     *
+     * @param boolean, true to measure the phases of the next blocks
+     */
+    void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    long getHistogramNanos() {
+        return histogramNanos;
+    }
+
+    long getTreeNanos() {
+        return treeNanos;
+    }
+
+    /**
+     * @return boolean, true if the last prepared block is coded with the table of the previous block, see
+     *                  {@link #prepare(byte[], int, int, HuffmanBlockEncoder)}
+     */
+    boolean isTableReused() {
+        return tableReused;
+    }
+
+    long getHeaderNanos() {
+        return headerNanos;
+    }
+
+    /**
+     * @return long, time spent sizing and writing the Huffman encoding of the last block
+     */
+    long getEncodingNanos() {
+        return encodingNanos;
+    }
+
+    /**
+     * The method logs the ratio penalty of the maximum code length, i.e. how much larger the Huffman encoding is than it would
+     * be with unrestricted Huffman codes. Nothing is logged when no code had to be shortened.
+     *
+     * @param {@code Logger}
+     * @param int, the maximum Huffman code length in bits
+     * @param long, number of bits of the length limited Huffman encoding
+     * @param long, number of bits of the unrestricted Huffman encoding
+     */
+    static void logCodeLengthLimitPenalty(Logger logger, int maxCodeLength, long sizeofEncodingInBits, long sizeofUnlimitedEncodingInBits) {
+        if (sizeofEncodingInBits > sizeofUnlimitedEncodingInBits && logger.isLoggable(Level.FINE)) {
+            logger.fine(String.format("Huffman codes limited to %d bits: %d encoded bits instead of %d, a penalty of %.3f%%", maxCodeLength,
+                    sizeofEncodingInBits, sizeofUnlimitedEncodingInBits, 100.0 * (sizeofEncodingInBits - sizeofUnlimitedEncodingInBits) / sizeofUnlimitedEncodingInBits));
+        }
+    }
+
+    /**
+     * The method calculates the size of the block body in bytes using the below formula:
+     * Total size = 1 byte for the block type + size of the code length table
+     *                                      +
+     *              total bytes required to store the huffman encoding, i.e. the sum of frequency * code length over all the
+     *              bit patterns, rounded up to whole bytes; interleaved blocks round up every bitstream and add their sizes
+     *
+     * @return int, size of the block body in bytes
+     */
+    private int calculateSizeOfBlockBody() {
+        sizeofEncodingInBits = 0;
+        for (int symbol = 0; symbol < frequencies.length; ++symbol) {
+            sizeofEncodingInBits += frequencies[symbol] * huffmanCodes.bitsPerSymbol(symbol);
+        }
+        return sizeofBlockBody();
+    }
+
+    /**
+     * @return int, size of the block body of a Huffman encoded block whose encoding takes {@link #sizeofEncodingInBits}
+     */
+    private int sizeofBlockBody() {
+        long sizeofHuffmanEncoding = (sizeofEncodingInBits + Byte.SIZE - 1) / Byte.SIZE;
+        blockType = interleaved && length >= MIN_INTERLEAVED_BLOCK_SIZE ? INTERLEAVED_HUFFMAN_BLOCK : HUFFMAN_BLOCK;
+        if (blockType == INTERLEAVED_HUFFMAN_BLOCK) {
+            // Every bitstream is padded to whole bytes on its own.
+            int segmentLength = length / NUMBER_OF_STREAMS;
+            sizeofHuffmanEncoding = STREAM_SIZES_LENGTH;
+            for (int stream = 0; stream < NUMBER_OF_STREAMS; ++stream) {
+                int segmentOffset = offset + stream * segmentLength;
+                int segmentEnd = stream == NUMBER_OF_STREAMS - 1 ? offset + length : segmentOffset + segmentLength;
+                long sizeofStreamInBits = 0;
+                if (!huffmanCodes.isSingleSymbol()) {
+                    for (int index = segmentOffset; index < segmentEnd; ++index) {
+                        sizeofStreamInBits += codeLengths[data[index] & 0xFF];
+                    }
+                }
+                sizesOfStreams[stream] = (int) ((sizeofStreamInBits + Byte.SIZE - 1) / Byte.SIZE);
+                sizeofHuffmanEncoding += sizesOfStreams[stream];
+            }
+        }
+        long totalSize = 1 + sizeofCodeLengthTable + sizeofHuffmanEncoding;
+        if (totalSize > Integer.MAX_VALUE - Long.BYTES) {
+            throw new HuffmanException("The compressed data does not fit into a byte array: " + totalSize + " bytes");
+        }
+        return (int) totalSize;
+    }
+}
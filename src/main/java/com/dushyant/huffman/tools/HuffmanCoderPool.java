@@ -0,0 +1,84 @@
+package com.dushyant.huffman.tools;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The {@code HuffmanCoderPool} class keeps the block encoders or block decoders of every thread for reuse, so a thread which
+ * compresses or expands message after message reuses the tables and buffers of its coders instead of allocating them per call.
+ * Nothing is shared between threads, so taking and giving back coders needs no lock.
+ *
+ * A call takes coders with {@link #acquire(Object[])} on its thread and gives them back with {@link #release(Object[], boolean)}
+ * on the same thread. The coders may be used on other threads in between, e.g. by tasks on an executor the call waits for. A call
+ * made while the coders of its thread are taken, e.g. by a task which a thread waiting for an executor runs in the meantime, gets
+ * new coders. At most {@link #MAX_POOLED_CODERS} coders are kept per thread, further blocks of a call get new coders.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+final class HuffmanCoderPool<T> {
+
+    static final int MAX_POOLED_CODERS = 16;
+
+    private final Supplier<T> factory;
+
+    private final Consumer<T> cleaner;
+
+    private final ThreadLocal<PooledCoders> pooledCoders = ThreadLocal.withInitial(PooledCoders::new);
+
+    /**
+     * @param {@code Supplier<T>}, creates a coder
+     * @param {@code Consumer<T>}, drops what a coder must not keep between calls, e.g. references to the data of the call
+     */
+    HuffmanCoderPool(Supplier<T> factory, Consumer<T> cleaner) {
+        this.factory = factory;
+        this.cleaner = cleaner;
+    }
+
+    /**
+     * The method fills the array with the coders of the calling thread, creating the missing ones.
+     *
+     * @param T[], populated with a coder per block
+     * @return boolean, true if the coders of the thread were taken, to be passed on to {@link #release(Object[], boolean)}
+     */
+    @SuppressWarnings("unchecked")
+    boolean acquire(T[] coders) {
+        PooledCoders threadCoders = pooledCoders.get();
+        boolean pooled = !threadCoders.taken;
+        threadCoders.taken = true;
+        for (int block = 0; block < coders.length; ++block) {
+            if (pooled && block < MAX_POOLED_CODERS) {
+                if (threadCoders.coders[block] == null) {
+                    threadCoders.coders[block] = factory.get();
+                }
+                coders[block] = (T) threadCoders.coders[block];
+            } else {
+                coders[block] = factory.get();
+            }
+        }
+        return pooled;
+    }
+
+    /**
+     * The method gives the coders of the calling thread back.
+     *
+     * @param T[], the coders filled in by {@link #acquire(Object[])}
+     * @param boolean, as returned by {@link #acquire(Object[])}
+     */
+    void release(T[] coders, boolean pooled) {
+        if (!pooled) {
+            return;
+        }
+        for (int block = 0; block < Math.min(coders.length, MAX_POOLED_CODERS); ++block) {
+            cleaner.accept(coders[block]);
+        }
+        pooledCoders.get().taken = false;
+    }
+
+    private static final class PooledCoders {
+
+        private final Object[] coders = new Object[MAX_POOLED_CODERS];
+
+        private boolean taken;
+    }
+}
@@ -1,20 +1,43 @@
 package com.dushyant.huffman.tools;
 
-import static com.dushyant.huffman.utils.HuffmanUtility.BYTES_PER_HUFFMAN_NODE;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_ENTRY_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_FOOTER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.FILE_BATCH_SIZE;
 import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.SHARED_TABLE_FORMAT;
+import static com.dushyant.huffman.utils.HuffmanUtility.SHARED_TABLE_HEADER_SIZE;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.BitSet;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
 import com.dushyant.huffman.exception.HuffmanException;
-import com.dushyant.huffman.model.*;
+import com.dushyant.huffman.model.BlockDirectory;
+import com.dushyant.huffman.model.BlockSplitter;
+import com.dushyant.huffman.model.CheckpointIndex;
+import com.dushyant.huffman.model.CompressionMetrics;
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.model.FrequencyTable;
+import com.dushyant.huffman.utils.BitWriter;
+import com.dushyant.huffman.utils.HuffmanUtility;
 
 /**
  * The {@code HuffmanCompressor} class provides method for compressing data using Huffman encoding.
  *
+ * A compressor is thread safe: any number of threads may share one instance, which holds no mutable state but its metrics
+ * listener. The block encoders, with their frequency and code tables, are kept per thread (see {@link HuffmanCoderPool}), so a
+ * thread compressing message after message does not allocate them again.
+ *
  * @author  Dushyant Shukla
  * @version 1.0
  */
@@ -22,120 +45,677 @@ public class HuffmanCompressor {
 
     private static final Logger LOGGER = Logger.getLogger(HuffmanCompressor.class.getName());
 
+    static final int MAX_LEVEL_SEGMENT_SIZE = 1024;
+
+    static final int TABLE_REUSE_RUN = 8; // blocks chaining their code tables at the fast level, prepared one after the other
+
+    private final ExecutorService executor;
+
+    private final int blockSize;
+
+    private final CompressionSettings settings;
+
+    private volatile HuffmanMetricsListener metricsListener;
+
+    private final HuffmanCoderPool<HuffmanBlockEncoder> blockEncoderPool = new HuffmanCoderPool<>(() -> new HuffmanBlockEncoder(getSettings()),
+            HuffmanBlockEncoder::clear);
+
+    public HuffmanCompressor() {
+        this(null, new CompressionSettings());
+    }
+
     /**
-     * The method compresses data using Huffman encoding. The method adds certain header to the Huffman encoded data. The final
-     * compressed data has below format:
+     * Creates a compressor which compresses the blocks concurrently on the passed in executor, e.g. a
+     * {@link java.util.concurrent.ForkJoinPool}.
      *
-     *          ------------------------------------------------------------------------------------------------------------------------------------------------------------------
-     *         |                                                                                                                                                                 |
-     *        | --------------    ----------------------------------------------------------    ----------------------------------------------------------------------------    |    -------------------
-     *       | | MAGIC BYTES | + | NUMBER OF DIFFERENT 8 BIT PATTERNS (HUFFMAN LEAF NODES) | + | HUFFMAN LEAF NODES (8 BIT PATTERNS FOLLOWED BY CORRESPONDING FREQUENCIES) |   |  + | HUFFMAN ENCODING |
-     *      |  --------------    ----------------------------------------------------------    ----------------------------------------------------------------------------   |     -------------------
-     *     |     2 BYTES                              4 BYTES                                            NUMBER OF HUFFMAN LEAF NODES * (1 + 4) BYTES PER NODE               |
-     *    -----------------------------------------------------------------------------   HEADER   --------------------------------------------------------------------------
+     * @param {@code ExecutorService}
+     */
+    public HuffmanCompressor(ExecutorService executor) {
+        this(executor, new CompressionSettings());
+    }
+
+    /**
+     * @param {@code ExecutorService}, the executor compressing the blocks, null to compress them on the calling thread
+     * @param int, number of original bytes per block
+     */
+    public HuffmanCompressor(ExecutorService executor, int blockSize) {
+        this(executor, new CompressionSettings(blockSize));
+    }
+
+    /**
+     * The settings are copied, later changes to them do not affect the compressor.
+     *
+     * @param {@code ExecutorService}, the executor compressing the blocks, null to compress them on the calling thread
+     * @param {@code CompressionSettings}
+     */
+    public HuffmanCompressor(ExecutorService executor, CompressionSettings settings) {
+        this.executor = executor;
+        this.blockSize = settings.getBlockSize();
+        this.settings = new CompressionSettings(settings);
+    }
+
+    /**
+     * The listener receives the measurements of every following compression. The phases are only timed while a listener is
+     * set; without one the encoding loops read no clock.
+     *
+     * @param {@code HuffmanMetricsListener}, the listener, null to stop measuring
+     */
+    public void setMetricsListener(HuffmanMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public HuffmanMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    private CompressionSettings getSettings() {
+        return settings;
+    }
+
+    /**
+     * The method compresses data using Huffman encoding. The data is split into blocks which are encoded independently, each
+     * with its own Huffman leaf nodes, and a block directory at the end of the compressed data locates every block. The final
+     * compressed data has below format (see {@link HuffmanContainer} and {@link HuffmanBlockEncoder}):
+     *
+     *      --------------    ----------------    -------------------------------    ---------------    -----------------    ------------------
+     *     | MAGIC BYTES | + | FORMAT VERSION | + | BLOCK HEADER + BLOCK BODY ... | + | END OF STREAM | + | BLOCK DIRECTORY | + | DIRECTORY FOOTER |
+     *      --------------    ----------------    -------------------------------    ---------------    -----------------    ------------------
+     *
+     * With adaptive blocks (see {@link CompressionSettings#setAdaptiveBlocks(boolean)}) the blocks end where the statistics of the
+     * data change, see {@link BlockSplitter}; otherwise every block but the last one has the block size. At
+     * {@link CompressionSettings#MAX_LEVEL} the blocks are always adaptive, split from {@link #MAX_LEVEL_SEGMENT_SIZE} byte segments
+     * and merged by their exact sizes afterwards, see {@link #mergeBlocks(byte[], int, int[])}.
+     *
+     * The blocks are compressed concurrently when an executor has been passed in; the compressed data only depends on the
+     * settings and the original data, never on the number of threads or on the data compressed before. At
+     * {@link CompressionSettings#FAST_LEVEL} a block may be coded with the table of the block before it within runs of
+     * {@link #TABLE_REUSE_RUN} blocks, so the blocks of a run are prepared one after the other and the runs concurrently:
+     *  - every block gets its own encoder which counts the 8 bit patterns and generates the codes of the block
+     *  - the sizes of the block bodies give the offset of every block in the compressed data
+     *  - every encoder writes its block straight to its offset in the single array holding the compressed data
      *
      * @param byte[], original data
      * @return byte[], compressed data
      */
     public byte[] compress(byte[] originalData) {
+        int[] blockLengths = splitBlocks(originalData, 0, originalData.length);
+        HuffmanBlockEncoder[] blockEncoders = new HuffmanBlockEncoder[blockLengths.length];
+        boolean pooled = blockEncoderPool.acquire(blockEncoders);
+        try {
+            return compress(originalData, blockLengths, blockEncoders);
+        } finally {
+            blockEncoderPool.release(blockEncoders, pooled);
+        }
+    }
 
-        FrequencyTable bitPatternFrequencies = new FrequencyTable();
-        for (byte bitPattern : originalData) {
-            bitPatternFrequencies.incrementCount(bitPattern);
+    private byte[] compress(byte[] originalData, int[] blockLengths, HuffmanBlockEncoder[] blockEncoders) {
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        long countingNanos = 0;
+        int numberOfBlocks = blockEncoders.length;
+        boolean reuseTables = settings.getLevel() == CompressionSettings.FAST_LEVEL;
+        List<Callable<Integer>> preparations = new ArrayList<>(numberOfBlocks);
+        int nextOffset = 0;
+        for (int block = 0; block < numberOfBlocks; ++block) {
+            int blockIndex = block;
+            int offset = nextOffset;
+            int length = blockLengths[block];
+            nextOffset += length;
+            HuffmanBlockEncoder previousBlockEncoder = reuseTables && block % TABLE_REUSE_RUN != 0 ? blockEncoders[block - 1] : null;
+            blockEncoders[blockIndex].setTimed(listener != null);
+            if (numberOfBlocks == 1 && executor != null && length > HuffmanBlockEncoder.PARALLEL_COUNT_PART_SIZE) {
+                // A single large block leaves the executor idle, so at least its bit patterns are counted concurrently.
+                long countingStart = listener == null ? 0 : System.nanoTime();
+                FrequencyTable blockFrequencies = HuffmanBlockEncoder.countInParallel(executor, originalData, offset, length);
+                countingNanos = listener == null ? 0 : System.nanoTime() - countingStart;
+                preparations.add(() -> blockEncoders[blockIndex].prepare(originalData, offset, length, blockFrequencies));
+            } else {
+                preparations.add(() -> blockEncoders[blockIndex].prepare(originalData, offset, length, previousBlockEncoder));
+            }
         }
+        List<Integer> sizesOfBlockBodies = prepareBlocks(preparations, 0, reuseTables);
+        logCodeLengthLimitPenalty(blockEncoders);
 
-        HuffmanTree huffmanTree = new HuffmanTree(bitPatternFrequencies);
+        BlockDirectory blockDirectory = new BlockDirectory();
+        long sizeofCompressedDataInBytes = HuffmanContainer.BLOCKS_OFFSET;
+        int numberOfCheckpoints = 0;
+        for (int block = 0; block < numberOfBlocks; ++block) {
+            int numberOfOriginalBytes = blockLengths[block];
+            blockDirectory.addBlock(sizeofCompressedDataInBytes, sizesOfBlockBodies.get(block), numberOfOriginalBytes);
+            sizeofCompressedDataInBytes += BLOCK_HEADER_SIZE + sizesOfBlockBodies.get(block);
+            if (settings.getCheckpointInterval() > 0) {
+                numberOfCheckpoints += CheckpointIndex.getNumberOfCheckpoints(settings.getCheckpointInterval(), numberOfOriginalBytes);
+            }
+        }
+        sizeofCompressedDataInBytes += BLOCK_HEADER_SIZE; // end of stream marker
+        long checkpointIndexOffset = sizeofCompressedDataInBytes;
+        if (settings.getCheckpointInterval() > 0) {
+            sizeofCompressedDataInBytes += HuffmanContainer.sizeofCheckpointIndex(numberOfCheckpoints);
+        }
+        long directoryOffset = sizeofCompressedDataInBytes;
+        sizeofCompressedDataInBytes += HuffmanContainer.sizeofDirectory(numberOfBlocks);
+        if (sizeofCompressedDataInBytes > Integer.MAX_VALUE) {
+            throw new HuffmanException("The compressed data does not fit into a byte array: " + sizeofCompressedDataInBytes + " bytes");
+        }
 
-        Map<Byte, String> huffmanCodes = generateHuffmanCodes(huffmanTree);
+        byte[] compressedData = new byte[(int) sizeofCompressedDataInBytes];
+        ByteBuffer.wrap(compressedData).put(MAGIC_BYTES).put(BLOCK_FORMAT_VERSION);
+        List<Callable<Integer>> writes = new ArrayList<>(numberOfBlocks);
+        for (int block = 0; block < numberOfBlocks; ++block) {
+            int blockIndex = block;
+            writes.add(() -> {
+                int offset = (int) blockDirectory.getBlockOffset(blockIndex);
+                ByteBuffer.wrap(compressedData, offset, BLOCK_HEADER_SIZE).putInt(blockDirectory.getNumberOfOriginalBytes(blockIndex)).putInt(blockDirectory.getSizeofBlockBody(blockIndex));
+                return blockEncoders[blockIndex].write(compressedData, offset + BLOCK_HEADER_SIZE);
+            });
+        }
+        HuffmanTasks.invokeAll(executor, writes);
 
-        BitSet huffmanEncoding = encode(originalData, huffmanCodes);
+        // The end of stream marker is made of zero bytes, which the array already holds.
+        long directoryStart = listener == null ? 0 : System.nanoTime();
+        ByteBuffer directory = ByteBuffer.wrap(compressedData);
+        if (settings.getCheckpointInterval() > 0) {
+            directory.position((int) checkpointIndexOffset);
+            HuffmanContainer.writeCheckpointIndex(directory, createCheckpointIndex(blockEncoders));
+        }
+        directory.position((int) directoryOffset);
+        HuffmanContainer.writeDirectory(directory, blockDirectory, directoryOffset);
+        if (listener != null) {
+            CompressionMetrics metrics = new CompressionMetrics();
+            metrics.setHistogramNanos(countingNanos);
+            metrics.setHeaderNanos(System.nanoTime() - directoryStart);
+            addBlockMetrics(metrics, blockEncoders);
+            notifyCompressed(listener, metrics, start, originalData.length, compressedData.length);
+        }
+        return compressedData;
+    }
 
-        return addHeadersToHuffmanEncoding(huffmanEncoding, bitPatternFrequencies);
+    /**
+     * @param byte[], the original data
+     * @param int, offset of the data to split
+     * @param int, length of the data to split
+     * @return int[], number of original bytes of every block, see {@link #compress(byte[])}
+     */
+    private int[] splitBlocks(byte[] data, int offset, int length) {
+        if (settings.getLevel() == CompressionSettings.MAX_LEVEL) {
+            return mergeBlocks(data, offset, BlockSplitter.split(data, offset, length, blockSize, MAX_LEVEL_SEGMENT_SIZE));
+        }
+        if (settings.isAdaptiveBlocks()) {
+            return BlockSplitter.split(data, offset, length, blockSize);
+        }
+        return fixedBlockLengths(length);
     }
 
     /**
-     * The method created Huffman encoding for the original data.
+     * The method merges neighbouring blocks wherever the block encoder codes them in fewer bytes as one block, block header and
+     * directory entry included. {@link BlockSplitter} only estimates the sizes of the Huffman encodings and code length tables;
+     * this pass sees their exact sizes. Every block is counted once, the frequencies of merged blocks are added up.
      *
      * @param byte[], the original data
-     * @param Map<Byte, String>, generated Huffman codes for different bit patterns
-     * @return BitSet holding huffman encoding for the original data
+     * @param int, offset of the first block in the original data
+     * @param int[], number of original bytes of every block
+     * @return int[], number of original bytes of every merged block
+     */
+    private int[] mergeBlocks(byte[] data, int offset, int[] blockLengths) {
+        if (blockLengths.length < 2) {
+            return blockLengths;
+        }
+        HuffmanBlockEncoder blockEncoder = new HuffmanBlockEncoder(settings);
+        int[] mergedLengths = new int[blockLengths.length];
+        int numberOfMergedBlocks = 0;
+        int start = offset;
+        int currentLength = blockLengths[0];
+        FrequencyTable currentFrequencies = new FrequencyTable();
+        currentFrequencies.count(data, start, currentLength);
+        long sizeofCurrentBlock = blockEncoder.prepare(data, start, currentLength, currentFrequencies);
+        for (int block = 1; block < blockLengths.length; ++block) {
+            int nextLength = blockLengths[block];
+            FrequencyTable nextFrequencies = new FrequencyTable();
+            nextFrequencies.count(data, start + currentLength, nextLength);
+            long sizeofNextBlock = blockEncoder.prepare(data, start + currentLength, nextLength, nextFrequencies);
+            if ((long) currentLength + nextLength <= blockSize) {
+                FrequencyTable mergedFrequencies = new FrequencyTable();
+                mergedFrequencies.add(currentFrequencies);
+                mergedFrequencies.add(nextFrequencies);
+                long sizeofMergedBlock = blockEncoder.prepare(data, start, currentLength + nextLength, mergedFrequencies);
+                if (sizeofMergedBlock <= sizeofCurrentBlock + sizeofNextBlock + BLOCK_HEADER_SIZE + DIRECTORY_ENTRY_SIZE) {
+                    currentLength += nextLength;
+                    currentFrequencies = mergedFrequencies;
+                    sizeofCurrentBlock = sizeofMergedBlock;
+                    continue;
+                }
+            }
+            mergedLengths[numberOfMergedBlocks++] = currentLength;
+            start += currentLength;
+            currentLength = nextLength;
+            currentFrequencies = nextFrequencies;
+            sizeofCurrentBlock = sizeofNextBlock;
+        }
+        mergedLengths[numberOfMergedBlocks++] = currentLength;
+        return Arrays.copyOf(mergedLengths, numberOfMergedBlocks);
+    }
+
+    /**
+     * @param int, size of the original data
+     * @return int[], number of original bytes of every block: the block size, but for the last block
+     */
+    private int[] fixedBlockLengths(int sizeofOriginalData) {
+        int[] blockLengths = new int[(sizeofOriginalData + blockSize - 1) / blockSize];
+        for (int block = 0; block < blockLengths.length; ++block) {
+            blockLengths[block] = Math.min(blockSize, sizeofOriginalData - block * blockSize);
+        }
+        return blockLengths;
+    }
+
+    /**
+     * The method compresses a small message with the codes of a shared table, so neither a code length table is stored nor a
+     * Huffman Tree is built. The compressed message has the below format and is expanded by a {@link HuffmanDecompressor} the
+     * table has been added to:
+     *
+     *      --------------    ---------------------    ------------------------    ---------------------------    -------------------
+     *     | MAGIC BYTES | + | SHARED TABLE FORMAT | + | ID OF THE SHARED TABLE | + | NUMBER OF ORIGINAL BYTES | + | HUFFMAN ENCODING |
+     *      --------------    ---------------------    ------------------------    ---------------------------    -------------------
+     *          2 BYTES               1 BYTE                    4 BYTES                       4 BYTES
+     *
+     * @param byte[], original data
+     * @param {@code HuffmanSharedTable}
+     * @return byte[], compressed data
      */
-    private BitSet encode(byte[] originalData, Map<Byte, String> huffmanCodes) {
-        BitSet huffmanEncoding = new BitSet();
-        int bitIndex = 0;
+    public byte[] compress(byte[] originalData, HuffmanSharedTable sharedTable) {
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        byte[] codeLengths = sharedTable.getHuffmanCodes().getCodeLengths();
+        long[] codes = sharedTable.getHuffmanCodes().getCodes();
+        long sizeofEncodingInBits = 0;
+        for (byte bitPattern : originalData) {
+            sizeofEncodingInBits += codeLengths[bitPattern & 0xFF];
+        }
+        long sizeofCompressedDataInBytes = SHARED_TABLE_HEADER_SIZE + (sizeofEncodingInBits + Byte.SIZE - 1) / Byte.SIZE;
+        if (sizeofCompressedDataInBytes > Integer.MAX_VALUE) {
+            throw new HuffmanException("The compressed data does not fit into a byte array: " + sizeofCompressedDataInBytes + " bytes");
+        }
+
+        byte[] compressedData = new byte[(int) sizeofCompressedDataInBytes];
+        ByteBuffer.wrap(compressedData).put(MAGIC_BYTES).put(SHARED_TABLE_FORMAT).putInt(sharedTable.getId()).putInt(originalData.length);
+        BitWriter huffmanEncoding = new BitWriter(compressedData, SHARED_TABLE_HEADER_SIZE);
         for (byte bitPattern : originalData) {
-            String huffmanCode = huffmanCodes.get(bitPattern);
-            for (char bitValue : huffmanCode.toCharArray()) {
-                if (bitValue == '1') {
-                    huffmanEncoding.set(bitIndex++);
+            huffmanEncoding.write(codes[bitPattern & 0xFF], codeLengths[bitPattern & 0xFF]);
+        }
+        huffmanEncoding.flush();
+        if (listener != null) {
+            // The message is encoded without counting its bit patterns; they are only counted for the entropy.
+            CompressionMetrics metrics = new CompressionMetrics();
+            metrics.setEncodingNanos(System.nanoTime() - start);
+            long countingStart = System.nanoTime();
+            FrequencyTable bitPatternFrequencies = new FrequencyTable();
+            bitPatternFrequencies.count(originalData, 0, originalData.length);
+            metrics.setSizeofEntropyInBits(HuffmanBlockEncoder.estimateSizeofEncodingInBits(bitPatternFrequencies.getFrequencies(), originalData.length));
+            metrics.setHistogramNanos(System.nanoTime() - countingStart);
+            metrics.setSizeofEncodingInBits(sizeofEncodingInBits);
+            // the penalty of the maximum code length is paid when the shared table is built
+            metrics.setSizeofUnlimitedEncodingInBits(sizeofEncodingInBits);
+            HuffmanMetrics.countBlock(metrics, HuffmanBlockEncoder.HUFFMAN_BLOCK);
+            notifyCompressed(listener, metrics, start, originalData.length, compressedData.length);
+        }
+        return compressedData;
+    }
+
+    /**
+     * The method compresses a file of any size into another file; the compressed file is the same as the one written by
+     * {@link #compress(byte[])} for the content of the original file. The original file is read in batches of blocks of at most
+     * {@link com.dushyant.huffman.utils.HuffmanUtility#FILE_BATCH_SIZE} bytes: every block is read from its position in the
+     * original file into a buffer of its own, encoded and written to its position in the compressed file, so neither file is
+     * ever held in memory as a whole. Throws {@link HuffmanException} if a file cannot be read or written.
+     *
+     * @param {@code Path}, the original file
+     * @param {@code Path}, the compressed file, replaced if it exists
+     */
+    public void compress(Path originalFile, Path compressedFile) {
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        CompressionMetrics metrics = listener == null ? null : new CompressionMetrics();
+        try (FileChannel source = FileChannel.open(originalFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(compressedFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long sizeofOriginalData = source.size();
+            checkNumberOfBlocks(0, sizeofOriginalData);
+            HuffmanUtility.writeFully(target, ByteBuffer.wrap(new byte[]{MAGIC_BYTES[0], MAGIC_BYTES[1], BLOCK_FORMAT_VERSION}), 0);
+
+            BlockDirectory blockDirectory = new BlockDirectory();
+            CheckpointIndex checkpointIndex = settings.getCheckpointInterval() > 0 ? new CheckpointIndex(settings.getCheckpointInterval()) : null;
+            long endOfBlocks = writeBlocks((block, offset) -> HuffmanUtility.readFully(source, ByteBuffer.wrap(block), offset), sizeofOriginalData, target,
+                    HuffmanContainer.BLOCKS_OFFSET, blockDirectory, checkpointIndex, settings, metrics);
+            long sizeofCompressedData = writeTrailer(target, endOfBlocks, blockDirectory, checkpointIndex, metrics);
+            if (metrics != null) {
+                notifyCompressed(listener, metrics, start, sizeofOriginalData, sizeofCompressedData);
+            }
+        } catch (IOException ioException) {
+            throw new HuffmanException("An error occurred while compressing the file: " + originalFile, ioException);
+        }
+    }
+
+    /**
+     * The method appends data to a compressed file without touching its blocks: the new data is split into blocks which are
+     * encoded, each with its own code length table, and written over the end of stream marker of the file, followed by a new end
+     * of stream marker, checkpoint index and block directory. The cost of an append only grows with the new data, apart from
+     * rewriting the block directory and checkpoint index. The result is the same as compressing the original data of the file and
+     * the new data block by block, so every decompressor reads it as usual; the blocks of the file keep their sizes, though, so
+     * a last block shorter than the block size stays in the middle of the data.
+     *
+     * New blocks get checkpoints at the checkpoint interval of the file, if it has a checkpoint index, whatever the settings of
+     * the compressor. An append is not atomic: a file whose append failed may have lost its block directory. Throws
+     * {@link HuffmanException} if the file is not block compressed data of the current format version or cannot be read or
+     * written.
+     *
+     * @param byte[], the new original data
+     * @param {@code Path}, the compressed file, written by {@link #compress(Path, Path)}, {@link #compress(byte[])} or
+     *                      {@link HuffmanOutputStream}
+     */
+    public void append(byte[] originalData, Path compressedFile) {
+        append((block, offset) -> System.arraycopy(originalData, (int) offset, block, 0, block.length), originalData.length, compressedFile);
+    }
+
+    /**
+     * The method appends the content of a file of any size to a compressed file, see {@link #append(byte[], Path)}. The new file
+     * is read block by block.
+     *
+     * @param {@code Path}, the file holding the new original data
+     * @param {@code Path}, the compressed file
+     */
+    public void append(Path originalFile, Path compressedFile) {
+        try (FileChannel source = FileChannel.open(originalFile, StandardOpenOption.READ)) {
+            append((block, offset) -> HuffmanUtility.readFully(source, ByteBuffer.wrap(block), offset), source.size(), compressedFile);
+        } catch (IOException ioException) {
+            throw new HuffmanException("An error occurred while reading the file: " + originalFile, ioException);
+        }
+    }
+
+    private void append(OriginalDataReader originalDataReader, long sizeofOriginalData, Path compressedFile) {
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        CompressionMetrics metrics = listener == null ? null : new CompressionMetrics();
+        try (FileChannel target = FileChannel.open(compressedFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(HuffmanContainer.BLOCKS_OFFSET, target.size()));
+            HuffmanUtility.readFully(target, header, 0);
+            if (!HuffmanContainer.isBlockFormat(header) || header.get(MAGIC_BYTES.length) != BLOCK_FORMAT_VERSION) {
+                throw new HuffmanException("Data can only be appended to block compressed data of format version " + BLOCK_FORMAT_VERSION + ": " + compressedFile);
+            }
+            BlockDirectory blockDirectory = HuffmanContainer.readDirectory(target);
+            checkNumberOfBlocks(blockDirectory.getNumberOfBlocks(), sizeofOriginalData);
+            CheckpointIndex checkpointIndex = HuffmanContainer.readCheckpointIndex(target, blockDirectory, 0, blockDirectory.getNumberOfBlocks());
+            CompressionSettings blockSettings = new CompressionSettings(settings);
+            blockSettings.setCheckpointInterval(checkpointIndex == null ? 0 : checkpointIndex.getCheckpointInterval());
+
+            long endOfBlocks = writeBlocks(originalDataReader, sizeofOriginalData, target, HuffmanContainer.endOfBlocks(blockDirectory), blockDirectory, checkpointIndex,
+                    blockSettings, metrics);
+            long sizeofCompressedData = writeTrailer(target, endOfBlocks, blockDirectory, checkpointIndex, metrics);
+            target.truncate(sizeofCompressedData);
+            if (metrics != null) {
+                notifyCompressed(listener, metrics, start, sizeofOriginalData, sizeofCompressedData);
+            }
+        } catch (IOException ioException) {
+            throw new HuffmanException("An error occurred while appending to the file: " + compressedFile, ioException);
+        }
+    }
+
+    /**
+     * Reads the original bytes of a block from wherever the original data is held.
+     */
+    private interface OriginalDataReader {
+
+        /**
+         * @param byte[], the destination, as long as the block
+         * @param long, position of the block in the original data
+         */
+        void read(byte[] block, long offset) throws IOException;
+    }
+
+    private void checkNumberOfBlocks(int numberOfExistingBlocks, long sizeofOriginalData) {
+        int smallestBlock = settings.getLevel() == CompressionSettings.MAX_LEVEL ? Math.min(MAX_LEVEL_SEGMENT_SIZE, blockSize)
+                : settings.isAdaptiveBlocks() ? Math.min(BlockSplitter.SEGMENT_SIZE, blockSize) : blockSize;
+        long numberOfBlocks = numberOfExistingBlocks + (sizeofOriginalData + smallestBlock - 1) / smallestBlock;
+        if (numberOfBlocks > (Integer.MAX_VALUE - BLOCK_HEADER_SIZE - DIRECTORY_FOOTER_SIZE) / DIRECTORY_ENTRY_SIZE) {
+            throw new HuffmanException("The original data holds too many blocks: " + numberOfBlocks);
+        }
+    }
+
+    /**
+     * The method compresses original data of any size into a compressed file, in batches of blocks of at most
+     * {@link com.dushyant.huffman.utils.HuffmanUtility#FILE_BATCH_SIZE} bytes: every block is read into a buffer of its own,
+     * encoded and written to its position in the compressed file. With adaptive blocks a batch is read as a whole and split by
+     * {@link BlockSplitter}, so blocks also end at the end of every batch.
+     *
+     * @param {@code OriginalDataReader}, reads the original data
+     * @param long, size of the original data
+     * @param {@code FileChannel}, the compressed file
+     * @param long, offset of the first new block in the compressed file
+     * @param {@code BlockDirectory}, the new blocks are added to it
+     * @param {@code CheckpointIndex}, the checkpoints of the new blocks are added to it, null without checkpoints
+     * @param {@code CompressionSettings}, the settings of the block encoders
+     * @param {@code CompressionMetrics}, null when nothing is measured
+     * @return long, offset following the last block in the compressed file
+     */
+    private long writeBlocks(OriginalDataReader originalDataReader, long sizeofOriginalData, FileChannel target, long blocksOffset, BlockDirectory blockDirectory,
+                             CheckpointIndex checkpointIndex, CompressionSettings blockSettings, CompressionMetrics metrics) throws IOException {
+        long sizeofCompressedDataInBytes = blocksOffset;
+        int sizeofBatch = Math.max(1, FILE_BATCH_SIZE / blockSize) * blockSize;
+        // at the fast level a run of blocks may go on from the last block of the batch before
+        HuffmanBlockEncoder previousBlockEncoder = null;
+        long firstBlock = 0;
+        if (blockSettings.getLevel() == CompressionSettings.FAST_LEVEL) {
+            previousBlockEncoder = new HuffmanBlockEncoder(blockSettings);
+        }
+        for (long batchOffset = 0; batchOffset < sizeofOriginalData; batchOffset += sizeofBatch) {
+            int length = (int) Math.min(sizeofBatch, sizeofOriginalData - batchOffset);
+            byte[] batch = null;
+            int[] blockLengths;
+            if (blockSettings.isAdaptiveBlocks() || blockSettings.getLevel() == CompressionSettings.MAX_LEVEL) {
+                batch = new byte[length];
+                originalDataReader.read(batch, batchOffset);
+                blockLengths = splitBlocks(batch, 0, length);
+            } else {
+                blockLengths = fixedBlockLengths(length);
+            }
+            HuffmanBlockEncoder[] blockEncoders = new HuffmanBlockEncoder[blockLengths.length];
+            boolean pooled = false;
+            if (blockSettings == settings) {
+                pooled = blockEncoderPool.acquire(blockEncoders);
+            } else {
+                for (int block = 0; block < blockEncoders.length; ++block) {
+                    blockEncoders[block] = new HuffmanBlockEncoder(blockSettings);
+                }
+            }
+            try {
+                sizeofCompressedDataInBytes = writeBatch(originalDataReader, batchOffset, batch, blockLengths, target, blockEncoders, firstBlock,
+                        previousBlockEncoder, sizeofCompressedDataInBytes, blockDirectory, checkpointIndex, metrics);
+                if (previousBlockEncoder != null) {
+                    previousBlockEncoder.copyTable(blockEncoders[blockEncoders.length - 1]);
+                }
+                firstBlock += blockLengths.length;
+            } finally {
+                blockEncoderPool.release(blockEncoders, pooled);
+            }
+        }
+        return sizeofCompressedDataInBytes;
+    }
+
+    /**
+     * The method reads, encodes and writes a batch of blocks, see {@link #writeBlocks}.
+     *
+     * @param long, position of the batch in the original data
+     * @param byte[], the original data of the batch, null to read every block on its own
+     * @param int[], number of original bytes of every block of the batch
+     * @param {@code HuffmanBlockEncoder[]}, an encoder per block of the batch
+     * @param long, index of the first block of the batch among the blocks written by {@link #writeBlocks}
+     * @param {@code HuffmanBlockEncoder}, holds the table of the last block of the batch before, if any, at
+     *        {@link CompressionSettings#FAST_LEVEL}; null at the other levels
+     * @return long, offset following the last block of the batch in the compressed file
+     */
+    private long writeBatch(OriginalDataReader originalDataReader, long batchOffset, byte[] batch, int[] blockLengths, FileChannel target,
+                            HuffmanBlockEncoder[] blockEncoders, long firstBlock, HuffmanBlockEncoder lastBatchEncoder, long blocksOffset,
+                            BlockDirectory blockDirectory,
+                            CheckpointIndex checkpointIndex, CompressionMetrics metrics) {
+        int numberOfBatchBlocks = blockEncoders.length;
+        boolean reuseTables = lastBatchEncoder != null;
+        byte[][] blocks = new byte[numberOfBatchBlocks][];
+        List<Callable<Integer>> preparations = new ArrayList<>(numberOfBatchBlocks);
+        int nextOffset = 0;
+        for (int block = 0; block < numberOfBatchBlocks; ++block) {
+            int blockIndex = block;
+            int offset = nextOffset;
+            int length = blockLengths[block];
+            nextOffset += length;
+            boolean runStart = !reuseTables || (firstBlock + block) % TABLE_REUSE_RUN == 0;
+            HuffmanBlockEncoder previousBlockEncoder = runStart ? null : block > 0 ? blockEncoders[block - 1] : lastBatchEncoder;
+            preparations.add(() -> {
+                int blockStart = offset;
+                if (batch == null) {
+                    blocks[blockIndex] = new byte[length];
+                    originalDataReader.read(blocks[blockIndex], batchOffset + offset);
+                    blockStart = 0;
                 } else {
-                    huffmanEncoding.clear(bitIndex++);
+                    blocks[blockIndex] = batch;
                 }
+                blockEncoders[blockIndex].setTimed(metrics != null);
+                return blockEncoders[blockIndex].prepare(blocks[blockIndex], blockStart, length, previousBlockEncoder);
+            });
+        }
+        List<Integer> sizesOfBlockBodies = prepareBlocks(preparations, firstBlock, reuseTables);
+        logCodeLengthLimitPenalty(blockEncoders);
+
+        long sizeofCompressedDataInBytes = blocksOffset;
+        long[] blockOffsets = new long[numberOfBatchBlocks];
+        for (int block = 0; block < numberOfBatchBlocks; ++block) {
+            blockOffsets[block] = sizeofCompressedDataInBytes;
+            blockDirectory.addBlock(sizeofCompressedDataInBytes, sizesOfBlockBodies.get(block), blockLengths[block]);
+            sizeofCompressedDataInBytes += BLOCK_HEADER_SIZE + sizesOfBlockBodies.get(block);
+        }
+        List<Callable<Integer>> writes = new ArrayList<>(numberOfBatchBlocks);
+        for (int block = 0; block < numberOfBatchBlocks; ++block) {
+            int blockIndex = block;
+            int sizeofBlockBody = sizesOfBlockBodies.get(block);
+            writes.add(() -> {
+                byte[] compressedBlock = new byte[BLOCK_HEADER_SIZE + sizeofBlockBody];
+                ByteBuffer.wrap(compressedBlock).putInt(blockLengths[blockIndex]).putInt(sizeofBlockBody);
+                int end = blockEncoders[blockIndex].write(compressedBlock, BLOCK_HEADER_SIZE);
+                HuffmanUtility.writeFully(target, ByteBuffer.wrap(compressedBlock, 0, end), blockOffsets[blockIndex]);
+                blocks[blockIndex] = null;
+                return end;
+            });
+        }
+        HuffmanTasks.invokeAll(executor, writes);
+        if (checkpointIndex != null) {
+            for (HuffmanBlockEncoder blockEncoder : blockEncoders) {
+                checkpointIndex.addBlock(blockEncoder.getCheckpoints());
             }
         }
-        return huffmanEncoding;
+        if (metrics != null) {
+            addBlockMetrics(metrics, blockEncoders);
+        }
+        return sizeofCompressedDataInBytes;
     }
 
     /**
-     * The method generates the Huffman codes for all the different bit patterns in the original data using the
-     * passed in Huffman Tree.
+     * The method runs the preparations of the blocks on the executor. When the blocks chain their code tables, every run of
+     * {@link #TABLE_REUSE_RUN} blocks, counted from the first block of the data, is prepared by a single task one block after the
+     * other, and the runs concurrently; the blocks a run starts with build a table of their own.
      *
-     * @param {@code HuffmanTree}
-     * @return Huffman codes for the bit patterns using the passed in Huffman Tree.
+     * @param List<Callable<Integer>>, the preparation of every block
+     * @param long, index of the first block of the preparations in the data
+     * @param boolean, true if a block may be coded with the table of the block before it
+     * @return List<Integer>, size of every block body
      */
-    private Map<Byte, String> generateHuffmanCodes(HuffmanTree huffmanTree) {
-        Map<Byte, String> huffmanCodes = new HashMap<>();
-        HuffmanNode rootNode = huffmanTree.getTree().poll();
-        createHuffmanCodes(rootNode, "", huffmanCodes);
-        return huffmanCodes;
+    private List<Integer> prepareBlocks(List<Callable<Integer>> preparations, long firstBlock, boolean reuseTables) {
+        if (!reuseTables) {
+            return HuffmanTasks.invokeAll(executor, preparations);
+        }
+        List<Callable<List<Integer>>> runs = new ArrayList<>();
+        int runStart = 0;
+        for (int block = 1; block <= preparations.size(); ++block) {
+            if (block == preparations.size() || (firstBlock + block) % TABLE_REUSE_RUN == 0) {
+                List<Callable<Integer>> run = preparations.subList(runStart, block);
+                runs.add(() -> HuffmanTasks.invokeAll(null, run));
+                runStart = block;
+            }
+        }
+        List<Integer> sizesOfBlockBodies = new ArrayList<>(preparations.size());
+        for (List<Integer> sizesOfRunBlockBodies : HuffmanTasks.invokeAll(executor, runs)) {
+            sizesOfBlockBodies.addAll(sizesOfRunBlockBodies);
+        }
+        return sizesOfBlockBodies;
     }
 
     /**
-     * The method recursively creates Huffman codes and populates the Map<Character,
-     * String> huffmanCodes for the different 8-bit patterns in the input.
+     * The method writes the end of stream marker, the checkpoint index, if any, and the block directory following the last block.
      *
-     * @param {@code HuffmanNode}
-     * @param String, huffman code
-     * @param Map<Byte, String>, map to hold Huffman codes for all the symbols in the input
+     * @return long, size of the compressed file
      */
-    private void createHuffmanCodes(HuffmanNode node, String huffmanCode, Map<Byte, String> huffmanCodes) {
-        if (node instanceof HuffmanInternalNode) {
-            createHuffmanCodes(((HuffmanInternalNode) node).getLeftChild(), huffmanCode + '0', huffmanCodes);
-            createHuffmanCodes(((HuffmanInternalNode) node).getRightChild(), huffmanCode + '1', huffmanCodes);
-        } else {
-            HuffmanLeafNode leafNode = (HuffmanLeafNode) node;
-            huffmanCodes.put(leafNode.getBitPattern(), huffmanCode);
+    private long writeTrailer(FileChannel target, long endOfBlocks, BlockDirectory blockDirectory, CheckpointIndex checkpointIndex, CompressionMetrics metrics)
+            throws IOException {
+        long directoryStart = metrics == null ? 0 : System.nanoTime();
+        long sizeofCheckpointIndex = checkpointIndex != null ? HuffmanContainer.sizeofCheckpointIndex(checkpointIndex.getNumberOfCheckpoints()) : 0;
+        long directoryOffset = endOfBlocks + BLOCK_HEADER_SIZE + sizeofCheckpointIndex;
+        long sizeofTrailer = BLOCK_HEADER_SIZE + sizeofCheckpointIndex + HuffmanContainer.sizeofDirectory(blockDirectory.getNumberOfBlocks());
+        if (sizeofTrailer > Integer.MAX_VALUE) {
+            throw new HuffmanException("The original data holds too many checkpoints: " + checkpointIndex.getNumberOfCheckpoints());
+        }
+        ByteBuffer trailer = ByteBuffer.allocate((int) sizeofTrailer);
+        trailer.position(BLOCK_HEADER_SIZE); // end of stream marker
+        if (checkpointIndex != null) {
+            HuffmanContainer.writeCheckpointIndex(trailer, checkpointIndex);
         }
+        HuffmanContainer.writeDirectory(trailer, blockDirectory, directoryOffset);
+        trailer.flip();
+        HuffmanUtility.writeFully(target, trailer, endOfBlocks);
+        if (metrics != null) {
+            metrics.setHeaderNanos(metrics.getHeaderNanos() + System.nanoTime() - directoryStart);
+        }
+        return endOfBlocks + sizeofTrailer;
     }
 
-    private byte[] addHeadersToHuffmanEncoding(BitSet huffmanEncoding, FrequencyTable bitPatternFrequencies) {
-        ByteBuffer compressedData = ByteBuffer.allocate(calculateSizeAfterCompression(huffmanEncoding, bitPatternFrequencies));
-        compressedData.put(MAGIC_BYTES);
-        compressedData.putInt(bitPatternFrequencies.getFrequencyTable().size());
-        for (Map.Entry<Byte, Integer> entry : bitPatternFrequencies.getFrequencyTable().entrySet()) {
-            compressedData.put(entry.getKey()); // bit pattern
-            compressedData.putInt(entry.getValue()); // number of occurrences of the bit pattern
+    private CheckpointIndex createCheckpointIndex(HuffmanBlockEncoder[] blockEncoders) {
+        CheckpointIndex checkpointIndex = new CheckpointIndex(settings.getCheckpointInterval());
+        for (HuffmanBlockEncoder blockEncoder : blockEncoders) {
+            checkpointIndex.addBlock(blockEncoder.getCheckpoints());
         }
+        return checkpointIndex;
+    }
 
-        compressedData.put(huffmanEncoding.toByteArray());
-        return compressedData.array();
+    /**
+     * The method adds the phase times, block types and sizes of the encoding of the blocks to the metrics.
+     */
+    private static void addBlockMetrics(CompressionMetrics metrics, HuffmanBlockEncoder[] blockEncoders) {
+        for (HuffmanBlockEncoder blockEncoder : blockEncoders) {
+            HuffmanMetrics.countBlock(metrics, blockEncoder.getBlockType());
+            metrics.setHistogramNanos(metrics.getHistogramNanos() + blockEncoder.getHistogramNanos());
+            metrics.setTreeNanos(metrics.getTreeNanos() + blockEncoder.getTreeNanos());
+            metrics.setHeaderNanos(metrics.getHeaderNanos() + blockEncoder.getHeaderNanos());
+            metrics.setEncodingNanos(metrics.getEncodingNanos() + blockEncoder.getEncodingNanos());
+            metrics.setSizeofEntropyInBits(metrics.getSizeofEntropyInBits() + blockEncoder.getSizeofEntropyInBits());
+            boolean raw = blockEncoder.getBlockType() == HuffmanBlockEncoder.RAW_BLOCK;
+            long sizeofEncodingInBits = raw ? (long) blockEncoder.getLength() * Byte.SIZE : blockEncoder.getSizeofEncodingInBits();
+            long sizeofUnlimitedEncodingInBits = raw ? sizeofEncodingInBits : blockEncoder.getSizeofUnlimitedEncodingInBits();
+            metrics.setSizeofEncodingInBits(metrics.getSizeofEncodingInBits() + sizeofEncodingInBits);
+            metrics.setSizeofUnlimitedEncodingInBits(metrics.getSizeofUnlimitedEncodingInBits() + sizeofUnlimitedEncodingInBits);
+        }
+    }
+
+    private static void notifyCompressed(HuffmanMetricsListener listener, CompressionMetrics metrics, long start, long sizeofOriginalData, long sizeofCompressedData) {
+        metrics.setTotalNanos(System.nanoTime() - start);
+        metrics.setSizeofOriginalData(sizeofOriginalData);
+        metrics.setSizeofCompressedData(sizeofCompressedData);
+        listener.compressed(metrics);
     }
 
     /**
-     * The method calculates the total size of the compressed file in bytes using the below formula:
-     * Total size = number of bytes required to store the magic number
-     *                                      +
-     *              number of bytes required for storing the number of different 8 bit patterns in the original data
-     *                                      +
-     *              total number of bytes required to store the huffman nodes (bit pattern + corresponding frequency)
-     *                                      +
-     *              total bytes required to store the huffman encoding
-     *
-     * @param BitSet, the Huffman Encoding
-     * @param {@code FrequencyTable}, the frequencies for different 8 bit patterns in the original data
-     * @return int, size of compressed file in bytes
+     * The method reports how much larger the Huffman encoding got because of the maximum code length.
      */
-    private int calculateSizeAfterCompression(BitSet huffmanEncoding, FrequencyTable bitPatternFrequencies) {
-        return MAGIC_BYTES.length + Integer.BYTES + (BYTES_PER_HUFFMAN_NODE * bitPatternFrequencies.getFrequencyTable().size()) + huffmanEncoding.toByteArray().length;
+    private void logCodeLengthLimitPenalty(HuffmanBlockEncoder[] blockEncoders) {
+        long sizeofEncodingInBits = 0;
+        long sizeofUnlimitedEncodingInBits = 0;
+        for (HuffmanBlockEncoder blockEncoder : blockEncoders) {
+            sizeofEncodingInBits += blockEncoder.getSizeofEncodingInBits();
+            sizeofUnlimitedEncodingInBits += blockEncoder.getSizeofUnlimitedEncodingInBits();
+        }
+        HuffmanBlockEncoder.logCodeLengthLimitPenalty(LOGGER, settings.getMaxCodeLength(), sizeofEncodingInBits, sizeofUnlimitedEncodingInBits);
     }
 }
@@ -0,0 +1,378 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.CHECKPOINT_FOOTER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.CHECKPOINT_MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_ENTRY_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_FOOTER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.MIN_BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.SHARED_TABLE_FORMAT;
+import static com.dushyant.huffman.utils.HuffmanUtility.SHARED_TABLE_HEADER_SIZE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.BlockDirectory;
+import com.dushyant.huffman.model.CheckpointIndex;
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.utils.HuffmanUtility;
+
+/**
+ * The {@code HuffmanContainer} class reads and writes the framing of block compressed data:
+ *
+ *      --------------    ----------------    -------------------------------    ---------------    -----------------    ------------------
+ *     | MAGIC BYTES | + | FORMAT VERSION | + | BLOCK HEADER + BLOCK BODY ... | + | END OF STREAM | + | BLOCK DIRECTORY | + | DIRECTORY FOOTER |
+ *      --------------    ----------------    -------------------------------    ---------------    -----------------    ------------------
+ *          2 BYTES            1 BYTE                   PER BLOCK                    8 ZERO BYTES     16 BYTES PER BLOCK        16 BYTES
+ *
+ * The block directory holds the offset of the block header (8 bytes), the size of the block body (4 bytes) and the number of
+ * original bytes (4 bytes) of every block. The directory footer holds the offset of the directory (8 bytes), the number of
+ * blocks (4 bytes) and the directory magic bytes. The block directory is optional: streams end right after the end of stream
+ * marker, their blocks are then found by following the block headers.
+ *
+ * Data compressed with a checkpoint interval holds a checkpoint index between the end of stream marker and the block directory:
+ * the bit offset of every checkpoint (4 bytes each, block after block, see {@link CheckpointIndex}), the checkpoint interval (4
+ * bytes) and the checkpoint magic bytes. Readers which do not look for the checkpoint index skip it along with the directory.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+final class HuffmanContainer {
+
+    static final int BLOCKS_OFFSET = MAGIC_BYTES.length + 1;
+
+    private HuffmanContainer() {
+    }
+
+    /**
+     * @return long, size of the block directory and directory footer in bytes
+     */
+    static long sizeofDirectory(int numberOfBlocks) {
+        return (long) DIRECTORY_ENTRY_SIZE * numberOfBlocks + DIRECTORY_FOOTER_SIZE;
+    }
+
+    /**
+     * The method writes the block directory and the directory footer at the current position of the destination.
+     *
+     * @param {@code ByteBuffer}, the destination, positioned right after the end of stream marker
+     * @param {@code BlockDirectory}
+     * @param long, offset of the block directory in the compressed data
+     */
+    static void writeDirectory(ByteBuffer destination, BlockDirectory blockDirectory, long directoryOffset) {
+        for (int block = 0; block < blockDirectory.getNumberOfBlocks(); ++block) {
+            destination.putLong(blockDirectory.getBlockOffset(block));
+            destination.putInt(blockDirectory.getSizeofBlockBody(block));
+            destination.putInt(blockDirectory.getNumberOfOriginalBytes(block));
+        }
+        destination.putLong(directoryOffset);
+        destination.putInt(blockDirectory.getNumberOfBlocks());
+        destination.put(DIRECTORY_MAGIC_BYTES);
+    }
+
+    /**
+     * @return long, offset following the last block, i.e. of the end of stream marker
+     */
+    static long endOfBlocks(BlockDirectory blockDirectory) {
+        int lastBlock = blockDirectory.getNumberOfBlocks() - 1;
+        return lastBlock < 0 ? BLOCKS_OFFSET : blockDirectory.getBlockOffset(lastBlock) + BLOCK_HEADER_SIZE + blockDirectory.getSizeofBlockBody(lastBlock);
+    }
+
+    /**
+     * @return long, size of the checkpoint index in bytes
+     */
+    static long sizeofCheckpointIndex(int numberOfCheckpoints) {
+        return (long) Integer.BYTES * numberOfCheckpoints + CHECKPOINT_FOOTER_SIZE;
+    }
+
+    /**
+     * The method writes the checkpoint index at the current position of the destination.
+     *
+     * @param {@code ByteBuffer}, the destination, positioned right after the end of stream marker
+     * @param {@code CheckpointIndex}
+     */
+    static void writeCheckpointIndex(ByteBuffer destination, CheckpointIndex checkpointIndex) {
+        for (int checkpoint = 0; checkpoint < checkpointIndex.getNumberOfCheckpoints(); ++checkpoint) {
+            destination.putInt(checkpointIndex.getBitOffset(checkpoint));
+        }
+        destination.putInt(checkpointIndex.getCheckpointInterval());
+        destination.put(CHECKPOINT_MAGIC_BYTES);
+    }
+
+    /**
+     * The method reads the checkpoints of some consecutive blocks from the checkpoint index in front of the block directory.
+     * Throws {@link HuffmanException} if the checkpoint index is malformed.
+     *
+     * @param {@code ByteBuffer}, block compressed data from index 0 to its limit
+     * @param {@code BlockDirectory}, the block directory of the compressed data
+     * @param int, the first block
+     * @param int, number of blocks
+     * @return {@code CheckpointIndex}, the checkpoints of the blocks, numbered from 0; null if the compressed data has no
+     *                                  checkpoint index
+     */
+    static CheckpointIndex readCheckpointIndex(ByteBuffer compressedData, BlockDirectory blockDirectory, int firstBlock, int numberOfBlocks) {
+        long length = compressedData.limit();
+        if (length < BLOCKS_OFFSET + BLOCK_HEADER_SIZE + CHECKPOINT_FOOTER_SIZE + DIRECTORY_FOOTER_SIZE || !hasDirectoryFooter(compressedData)) {
+            return null;
+        }
+        long footerOffset = compressedData.getLong((int) (length - DIRECTORY_FOOTER_SIZE)) - CHECKPOINT_FOOTER_SIZE;
+        if (footerOffset < BLOCKS_OFFSET + BLOCK_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer checkpointFooter = slice(compressedData, (int) footerOffset, CHECKPOINT_FOOTER_SIZE);
+        long[] checkpoints = locateCheckpoints(checkpointFooter, blockDirectory, footerOffset, firstBlock, numberOfBlocks);
+        if (checkpoints == null) {
+            return null;
+        }
+        ByteBuffer bitOffsets = slice(compressedData, (int) checkpoints[0], (int) checkpoints[1] * Integer.BYTES);
+        return readCheckpoints(bitOffsets, checkpointFooter.getInt(0), blockDirectory, firstBlock, numberOfBlocks);
+    }
+
+    /**
+     * The method reads the checkpoints of some consecutive blocks from the checkpoint index of a compressed file; only the
+     * checkpoints of these blocks are read. Throws {@link HuffmanException} if the checkpoint index is malformed.
+     *
+     * @param {@code FileChannel}, the compressed file
+     * @param {@code BlockDirectory}, the block directory of the compressed file
+     * @param int, the first block
+     * @param int, number of blocks
+     * @return {@code CheckpointIndex}, the checkpoints of the blocks, numbered from 0; null if the compressed file has no
+     *                                  checkpoint index
+     */
+    static CheckpointIndex readCheckpointIndex(FileChannel compressedFile, BlockDirectory blockDirectory, int firstBlock, int numberOfBlocks) throws IOException {
+        long length = compressedFile.size();
+        if (length < BLOCKS_OFFSET + BLOCK_HEADER_SIZE + CHECKPOINT_FOOTER_SIZE + DIRECTORY_FOOTER_SIZE) {
+            return null;
+        }
+        ByteBuffer footer = ByteBuffer.allocate(DIRECTORY_FOOTER_SIZE);
+        HuffmanUtility.readFully(compressedFile, footer, length - DIRECTORY_FOOTER_SIZE);
+        if (!hasDirectoryFooter(footer)) {
+            return null;
+        }
+        long footerOffset = footer.getLong(0) - CHECKPOINT_FOOTER_SIZE;
+        if (footerOffset < BLOCKS_OFFSET + BLOCK_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer checkpointFooter = ByteBuffer.allocate(CHECKPOINT_FOOTER_SIZE);
+        HuffmanUtility.readFully(compressedFile, checkpointFooter, footerOffset);
+        long[] checkpoints = locateCheckpoints(checkpointFooter, blockDirectory, footerOffset, firstBlock, numberOfBlocks);
+        if (checkpoints == null) {
+            return null;
+        }
+        ByteBuffer bitOffsets = ByteBuffer.allocate((int) checkpoints[1] * Integer.BYTES);
+        HuffmanUtility.readFully(compressedFile, bitOffsets, checkpoints[0]);
+        bitOffsets.flip();
+        return readCheckpoints(bitOffsets, checkpointFooter.getInt(0), blockDirectory, firstBlock, numberOfBlocks);
+    }
+
+    /**
+     * The method checks the checkpoint footer against the block directory.
+     *
+     * @return long[], offset of the first checkpoint of the blocks and their number of checkpoints; null if there is no
+     *                 checkpoint footer
+     */
+    private static long[] locateCheckpoints(ByteBuffer checkpointFooter, BlockDirectory blockDirectory, long footerOffset, int firstBlock, int numberOfBlocks) {
+        for (int index = 0; index < CHECKPOINT_MAGIC_BYTES.length; ++index) {
+            if (checkpointFooter.get(Integer.BYTES + index) != CHECKPOINT_MAGIC_BYTES[index]) {
+                return null;
+            }
+        }
+        int checkpointInterval = checkpointFooter.getInt(0);
+        if (checkpointInterval < CompressionSettings.MIN_CHECKPOINT_INTERVAL) {
+            throw new HuffmanException("The compressed data holds an invalid checkpoint interval: " + checkpointInterval);
+        }
+        long firstCheckpoint = 0;
+        long numberOfCheckpoints = 0;
+        for (int block = 0; block < blockDirectory.getNumberOfBlocks(); ++block) {
+            int blockCheckpoints = CheckpointIndex.getNumberOfCheckpoints(checkpointInterval, blockDirectory.getNumberOfOriginalBytes(block));
+            if (block < firstBlock) {
+                firstCheckpoint += blockCheckpoints;
+            } else if (block < firstBlock + numberOfBlocks) {
+                numberOfCheckpoints += blockCheckpoints;
+            }
+        }
+        long totalCheckpoints = firstCheckpoint + numberOfCheckpoints;
+        for (int block = firstBlock + numberOfBlocks; block < blockDirectory.getNumberOfBlocks(); ++block) {
+            totalCheckpoints += CheckpointIndex.getNumberOfCheckpoints(checkpointInterval, blockDirectory.getNumberOfOriginalBytes(block));
+        }
+        long indexOffset = footerOffset - totalCheckpoints * Integer.BYTES;
+        if (indexOffset != endOfBlocks(blockDirectory) + BLOCK_HEADER_SIZE) {
+            throw new HuffmanException("The compressed data holds a malformed checkpoint index.");
+        }
+        return new long[]{indexOffset + firstCheckpoint * Integer.BYTES, numberOfCheckpoints};
+    }
+
+    private static ByteBuffer slice(ByteBuffer compressedData, int offset, int length) {
+        ByteBuffer part = compressedData.duplicate();
+        part.limit(offset + length);
+        part.position(offset);
+        return part.slice();
+    }
+
+    private static CheckpointIndex readCheckpoints(ByteBuffer bitOffsets, int checkpointInterval, BlockDirectory blockDirectory, int firstBlock, int numberOfBlocks) {
+        CheckpointIndex checkpointIndex = new CheckpointIndex(checkpointInterval);
+        for (int block = firstBlock; block < firstBlock + numberOfBlocks; ++block) {
+            int[] blockBitOffsets = new int[CheckpointIndex.getNumberOfCheckpoints(checkpointInterval, blockDirectory.getNumberOfOriginalBytes(block))];
+            for (int checkpoint = 0; checkpoint < blockBitOffsets.length; ++checkpoint) {
+                blockBitOffsets[checkpoint] = bitOffsets.getInt();
+                if (blockBitOffsets[checkpoint] < 0 || blockBitOffsets[checkpoint] > (long) blockDirectory.getSizeofBlockBody(block) * Byte.SIZE) {
+                    throw new HuffmanException("The checkpoint index holds an invalid bit offset: " + blockBitOffsets[checkpoint]);
+                }
+            }
+            checkpointIndex.addBlock(blockBitOffsets);
+        }
+        return checkpointIndex;
+    }
+
+    /**
+     * @return boolean, true if the compressed data starts with the MAGIC BYTES followed by a supported block format version
+     */
+    static boolean isBlockFormat(ByteBuffer compressedData) {
+        if (compressedData.limit() < BLOCKS_OFFSET) {
+            return false;
+        }
+        for (int index = 0; index < MAGIC_BYTES.length; ++index) {
+            if (compressedData.get(index) != MAGIC_BYTES[index]) {
+                return false;
+            }
+        }
+        byte formatVersion = compressedData.get(MAGIC_BYTES.length);
+        return formatVersion >= MIN_BLOCK_FORMAT_VERSION && formatVersion <= BLOCK_FORMAT_VERSION;
+    }
+
+    /**
+     * @return boolean, true if the compressed data is a message encoded with a shared table
+     */
+    static boolean isSharedTableFormat(ByteBuffer compressedData) {
+        if (compressedData.limit() < SHARED_TABLE_HEADER_SIZE) {
+            return false;
+        }
+        for (int index = 0; index < MAGIC_BYTES.length; ++index) {
+            if (compressedData.get(index) != MAGIC_BYTES[index]) {
+                return false;
+            }
+        }
+        return compressedData.get(MAGIC_BYTES.length) == SHARED_TABLE_FORMAT;
+    }
+
+    /**
+     * The method reads the block directory at the end of the compressed data, or rebuilds it from the block headers when the
+     * compressed data has none. Throws {@link HuffmanException} if the directory or a block header is malformed.
+     *
+     * @param {@code ByteBuffer}, block compressed data from index 0 to its limit
+     * @return {@code BlockDirectory}
+     */
+    static BlockDirectory readDirectory(ByteBuffer compressedData) {
+        long length = compressedData.limit();
+        if (length >= BLOCKS_OFFSET + BLOCK_HEADER_SIZE + DIRECTORY_FOOTER_SIZE && hasDirectoryFooter(compressedData)) {
+            int footerOffset = (int) (length - DIRECTORY_FOOTER_SIZE);
+            long directoryOffset = compressedData.getLong(footerOffset);
+            int numberOfBlocks = compressedData.getInt(footerOffset + Long.BYTES);
+            if (numberOfBlocks < 0 || directoryOffset < BLOCKS_OFFSET + BLOCK_HEADER_SIZE || directoryOffset + sizeofDirectory(numberOfBlocks) != length) {
+                throw new HuffmanException("The compressed data holds a malformed block directory.");
+            }
+            return readDirectoryEntries(compressedData, (int) directoryOffset, numberOfBlocks, directoryOffset);
+        }
+        return scanBlockHeaders(compressedData);
+    }
+
+    /**
+     * The method reads the block directory of a compressed file, or rebuilds it from the block headers when the file has none.
+     * Only the directory, or the block headers, are read. Throws {@link HuffmanException} if the directory or a block header is
+     * malformed.
+     *
+     * @param {@code FileChannel}, the compressed file
+     * @return {@code BlockDirectory}
+     */
+    static BlockDirectory readDirectory(FileChannel compressedFile) throws IOException {
+        long length = compressedFile.size();
+        if (length >= BLOCKS_OFFSET + BLOCK_HEADER_SIZE + DIRECTORY_FOOTER_SIZE) {
+            ByteBuffer footer = ByteBuffer.allocate(DIRECTORY_FOOTER_SIZE);
+            HuffmanUtility.readFully(compressedFile, footer, length - DIRECTORY_FOOTER_SIZE);
+            if (hasDirectoryFooter(footer)) {
+                long directoryOffset = footer.getLong(0);
+                int numberOfBlocks = footer.getInt(Long.BYTES);
+                if (numberOfBlocks < 0 || directoryOffset < BLOCKS_OFFSET + BLOCK_HEADER_SIZE || directoryOffset + sizeofDirectory(numberOfBlocks) != length
+                        || sizeofDirectory(numberOfBlocks) > Integer.MAX_VALUE) {
+                    throw new HuffmanException("The compressed data holds a malformed block directory.");
+                }
+                ByteBuffer directory = ByteBuffer.allocate(numberOfBlocks * DIRECTORY_ENTRY_SIZE);
+                HuffmanUtility.readFully(compressedFile, directory, directoryOffset);
+                return readDirectoryEntries(directory, 0, numberOfBlocks, directoryOffset);
+            }
+        }
+
+        BlockDirectory blockDirectory = new BlockDirectory();
+        ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+        long offset = BLOCKS_OFFSET;
+        while (true) {
+            if (offset > length - BLOCK_HEADER_SIZE) {
+                throw new HuffmanException("The compressed data is truncated.");
+            }
+            blockHeader.clear();
+            HuffmanUtility.readFully(compressedFile, blockHeader, offset);
+            int numberOfOriginalBytes = blockHeader.getInt(0);
+            int sizeofBlockBody = blockHeader.getInt(Integer.BYTES);
+            if (numberOfOriginalBytes == 0 && sizeofBlockBody == 0) {
+                return blockDirectory;
+            }
+            if (numberOfOriginalBytes <= 0 || sizeofBlockBody <= 0 || sizeofBlockBody > length - offset - BLOCK_HEADER_SIZE) {
+                throw new HuffmanException("The compressed data holds a malformed block header.");
+            }
+            blockDirectory.addBlock(offset, sizeofBlockBody, numberOfOriginalBytes);
+            offset += BLOCK_HEADER_SIZE + sizeofBlockBody;
+        }
+    }
+
+    private static BlockDirectory readDirectoryEntries(ByteBuffer directory, int entriesOffset, int numberOfBlocks, long directoryOffset) {
+        BlockDirectory blockDirectory = new BlockDirectory();
+        for (int block = 0; block < numberOfBlocks; ++block) {
+            int entryOffset = entriesOffset + block * DIRECTORY_ENTRY_SIZE;
+            long blockOffset = directory.getLong(entryOffset);
+            int sizeofBlockBody = directory.getInt(entryOffset + Long.BYTES);
+            int numberOfOriginalBytes = directory.getInt(entryOffset + Long.BYTES + Integer.BYTES);
+            if (blockOffset < BLOCKS_OFFSET || numberOfOriginalBytes <= 0 || sizeofBlockBody <= 0 || blockOffset + BLOCK_HEADER_SIZE + sizeofBlockBody > directoryOffset) {
+                throw new HuffmanException("The compressed data holds a malformed block directory.");
+            }
+            blockDirectory.addBlock(blockOffset, sizeofBlockBody, numberOfOriginalBytes);
+        }
+        return blockDirectory;
+    }
+
+    /**
+     * The method follows the chain of block headers up to the end of stream marker.
+     */
+    private static BlockDirectory scanBlockHeaders(ByteBuffer compressedData) {
+        BlockDirectory blockDirectory = new BlockDirectory();
+        int offset = BLOCKS_OFFSET;
+        while (true) {
+            if (offset > compressedData.limit() - BLOCK_HEADER_SIZE) {
+                throw new HuffmanException("The compressed data is truncated.");
+            }
+            int numberOfOriginalBytes = compressedData.getInt(offset);
+            int sizeofBlockBody = compressedData.getInt(offset + Integer.BYTES);
+            if (numberOfOriginalBytes == 0 && sizeofBlockBody == 0) {
+                return blockDirectory;
+            }
+            if (numberOfOriginalBytes <= 0 || sizeofBlockBody <= 0 || sizeofBlockBody > compressedData.limit() - offset - BLOCK_HEADER_SIZE) {
+                throw new HuffmanException("The compressed data holds a malformed block header.");
+            }
+            blockDirectory.addBlock(offset, sizeofBlockBody, numberOfOriginalBytes);
+            offset += BLOCK_HEADER_SIZE + sizeofBlockBody;
+        }
+    }
+
+    private static boolean hasDirectoryFooter(ByteBuffer compressedData) {
+        int magicOffset = compressedData.limit() - DIRECTORY_MAGIC_BYTES.length;
+        for (int index = 0; index < DIRECTORY_MAGIC_BYTES.length; ++index) {
+            if (compressedData.get(magicOffset + index) != DIRECTORY_MAGIC_BYTES[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,250 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAX_BLOCK_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MIN_BLOCK_FORMAT_VERSION;
+
+import java.nio.ByteBuffer;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+/**
+ * The {@code HuffmanDecoder} class expands block compressed data from {@code ByteBuffer} to {@code ByteBuffer} in the manner of
+ * {@link java.util.zip.Inflater}: the compressed data is passed in with {@link #setInput(ByteBuffer)}, in pieces of any size,
+ * and {@link #decompress(ByteBuffer)} writes as much of the decompressed data as fits into the destination, until
+ * {@link #finished()} returns true:
+ *
+ *      decoder.setInput(compressedMessage);
+ *      while (!decoder.finished()) {
+ *          decoder.decompress(destination);
+ *          ... consume and clear the destination, or set more input when the decoder needs it ...
+ *      }
+ *      decoder.reset();
+ *
+ * It reads the data written by {@link HuffmanEncoder}, {@link HuffmanOutputStream} and {@link HuffmanCompressor}. The decoder
+ * stops at the end of stream marker, so the input keeps any following data, e.g. the block directory or the next message, from
+ * its position. Heap and direct buffers are both supported. A block body held as a whole by heap input is decoded in place, and
+ * a block is decoded straight into a heap destination with room for it; other data goes through buffers of one block, which are
+ * kept, like the decoding tables, across {@link #reset()}. Throws {@link HuffmanException} if the check for MAGIC BYTES fails or
+ * a block is malformed.
+ *
+ * A decoder is not thread safe.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanDecoder {
+
+    private static final int READING_HEADER = 0;
+
+    private static final int READING_BLOCK_HEADER = 1;
+
+    private static final int READING_BLOCK_BODY = 2;
+
+    private static final int FINISHED = 3;
+
+    private HuffmanBlockDecoder blockDecoder;
+
+    private final byte[] header = new byte[BLOCK_HEADER_SIZE];
+
+    private int headerLength;
+
+    private int numberOfOriginalBytes;
+
+    private int sizeofBlockBodyInBytes;
+
+    private byte[] compressedBlock = new byte[0];
+
+    private int compressedLength;
+
+    private byte[] block = new byte[0];
+
+    private int blockLength;
+
+    private int blockPosition;
+
+    private ByteBuffer input;
+
+    private int state = READING_HEADER;
+
+    private long bytesRead;
+
+    private long bytesWritten;
+
+    /**
+     * The method sets the compressed data to expand. The decoder reads the buffer from its position up to its limit while
+     * decompressing and advances the position accordingly; the buffer must not be changed until it has been consumed, i.e. until
+     * {@link #needsInput()} returns true or another buffer is set.
+     *
+     * @param {@code ByteBuffer}, heap or direct buffer
+     */
+    public void setInput(ByteBuffer input) {
+        this.input = input;
+    }
+
+    /**
+     * @return boolean, true if the decoder cannot go on without more compressed data
+     */
+    public boolean needsInput() {
+        return state != FINISHED && (input == null || !input.hasRemaining()) && blockPosition == blockLength;
+    }
+
+    /**
+     * @return boolean, true once the end of stream marker has been read and all the decompressed data has been passed on
+     */
+    public boolean finished() {
+        return state == FINISHED && blockPosition == blockLength;
+    }
+
+    /**
+     * The method expands input into the destination until either the destination is full, the decoder needs input or the end of
+     * stream marker has been read. A block is decoded once its body has been read as a whole.
+     *
+     * @param {@code ByteBuffer}, heap or direct buffer, written from its position up to its limit
+     * @return int, number of decompressed bytes written to the destination
+     */
+    public int decompress(ByteBuffer destination) {
+        int start = destination.position();
+        while (true) {
+            int count = Math.min(blockLength - blockPosition, destination.remaining());
+            destination.put(block, blockPosition, count);
+            blockPosition += count;
+            if (blockPosition < blockLength || state == FINISHED || input == null || !input.hasRemaining()) {
+                break;
+            }
+            switch (state) {
+                case READING_HEADER:
+                    if (readHeader(MAGIC_BYTES.length + 1)) {
+                        readFormatVersion();
+                    }
+                    break;
+                case READING_BLOCK_HEADER:
+                    if (readHeader(BLOCK_HEADER_SIZE)) {
+                        readBlockHeader();
+                    }
+                    break;
+                default:
+                    readBlockBody(destination);
+            }
+        }
+        int count = destination.position() - start;
+        bytesWritten += count;
+        return count;
+    }
+
+    /**
+     * The method prepares the decoder for new compressed data, keeping its buffers. Any input and any decompressed data not
+     * written yet are dropped.
+     */
+    public void reset() {
+        input = null;
+        state = READING_HEADER;
+        headerLength = 0;
+        compressedLength = 0;
+        blockLength = 0;
+        blockPosition = 0;
+        bytesRead = 0;
+        bytesWritten = 0;
+    }
+
+    /**
+     * @return long, number of compressed bytes consumed since the last reset
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return long, number of decompressed bytes written since the last reset
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * The method reads input into the header buffer until it holds the passed in number of bytes.
+     *
+     * @return boolean, true if the header is complete
+     */
+    private boolean readHeader(int length) {
+        int count = Math.min(length - headerLength, input.remaining());
+        input.get(header, headerLength, count);
+        headerLength += count;
+        bytesRead += count;
+        if (headerLength < length) {
+            return false;
+        }
+        headerLength = 0;
+        return true;
+    }
+
+    private void readFormatVersion() {
+        for (int index = 0; index < MAGIC_BYTES.length; ++index) {
+            if (header[index] != MAGIC_BYTES[index]) {
+                throw new HuffmanException("Check for MAGIC CODE failed. Please provide a valid compressed stream.");
+            }
+        }
+        byte formatVersion = header[MAGIC_BYTES.length];
+        if (formatVersion < MIN_BLOCK_FORMAT_VERSION || formatVersion > BLOCK_FORMAT_VERSION) {
+            throw new HuffmanException("Unsupported format version: " + formatVersion);
+        }
+        if (blockDecoder == null || blockDecoder.getFormatVersion() != formatVersion) {
+            blockDecoder = new HuffmanBlockDecoder(formatVersion);
+        }
+        state = READING_BLOCK_HEADER;
+    }
+
+    private void readBlockHeader() {
+        ByteBuffer blockHeader = ByteBuffer.wrap(header);
+        numberOfOriginalBytes = blockHeader.getInt();
+        sizeofBlockBodyInBytes = blockHeader.getInt();
+        if (numberOfOriginalBytes == 0 && sizeofBlockBodyInBytes == 0) {
+            state = FINISHED;
+            return;
+        }
+        if (numberOfOriginalBytes <= 0 || numberOfOriginalBytes > MAX_BLOCK_SIZE || sizeofBlockBodyInBytes <= 0 || sizeofBlockBodyInBytes > 2 * MAX_BLOCK_SIZE) {
+            throw new HuffmanException("The compressed stream holds a malformed block header.");
+        }
+        compressedLength = 0;
+        state = READING_BLOCK_BODY;
+    }
+
+    private void readBlockBody(ByteBuffer destination) {
+        if (compressedLength == 0 && input.hasArray() && input.remaining() >= sizeofBlockBodyInBytes) {
+            // the whole block body is decoded where it is
+            decodeBlock(input.array(), input.arrayOffset() + input.position(), destination);
+            input.position(input.position() + sizeofBlockBodyInBytes);
+            bytesRead += sizeofBlockBodyInBytes;
+            return;
+        }
+        if (compressedBlock.length < sizeofBlockBodyInBytes) {
+            compressedBlock = new byte[Math.max(sizeofBlockBodyInBytes, 2 * compressedBlock.length)];
+        }
+        int count = Math.min(sizeofBlockBodyInBytes - compressedLength, input.remaining());
+        input.get(compressedBlock, compressedLength, count);
+        compressedLength += count;
+        bytesRead += count;
+        if (compressedLength == sizeofBlockBodyInBytes) {
+            decodeBlock(compressedBlock, 0, destination);
+            compressedLength = 0;
+        }
+    }
+
+    private void decodeBlock(byte[] compressedData, int offset, ByteBuffer destination) {
+        state = READING_BLOCK_HEADER;
+        if (destination.hasArray() && destination.remaining() >= numberOfOriginalBytes) {
+            blockDecoder.decodeBlock(compressedData, offset, sizeofBlockBodyInBytes, destination.array(), destination.arrayOffset() + destination.position(),
+                    numberOfOriginalBytes);
+            destination.position(destination.position() + numberOfOriginalBytes);
+            return;
+        }
+        if (block.length < numberOfOriginalBytes) {
+            block = new byte[numberOfOriginalBytes];
+        }
+        blockDecoder.decodeBlock(compressedData, offset, sizeofBlockBodyInBytes, block, 0, numberOfOriginalBytes);
+        blockLength = numberOfOriginalBytes;
+        blockPosition = 0;
+    }
+}
@@ -1,20 +1,40 @@
 package com.dushyant.huffman.tools;
 
-import static com.dushyant.huffman.utils.HuffmanUtility.BYTES_PER_HUFFMAN_NODE;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DEFAULT_SHARED_TABLE_CACHE_SIZE;
 import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.SHARED_TABLE_HEADER_SIZE;
 
+import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.BitSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.logging.Logger;
 
 import com.dushyant.huffman.exception.HuffmanException;
-import com.dushyant.huffman.model.*;
+import com.dushyant.huffman.model.BlockDirectory;
+import com.dushyant.huffman.model.CheckpointIndex;
+import com.dushyant.huffman.model.DecompressionMetrics;
+import com.dushyant.huffman.model.HuffmanDecodingTable;
+import com.dushyant.huffman.utils.HuffmanUtility;
 
 /**
  * The {@code HuffmanDecompressor} class provides method for expanding a Huffman-compressed data.
  *
+ * A decompressor is thread safe: any number of threads may share one instance. Its only mutable state, the shared tables and
+ * their decoding tables, is held in synchronized maps; the block decoders, with their code length and decoding tables, are kept
+ * per thread (see {@link HuffmanCoderPool}), so a thread expanding message after message does not allocate them again.
+ *
  * @author  Dushyant Shukla
  * @version 1.0
  */
@@ -22,6 +42,74 @@ public class HuffmanDecompressor {
 
     private static final Logger LOGGER = Logger.getLogger(HuffmanDecompressor.class.getName());
 
+    private final ExecutorService executor;
+
+    private final Map<Integer, HuffmanSharedTable> sharedTables = new ConcurrentHashMap<>();
+
+    private final Map<Integer, HuffmanDecodingTable> sharedDecodingTables;
+
+    private volatile HuffmanMetricsListener metricsListener;
+
+    private final HuffmanCoderPool<HuffmanBlockDecoder> blockDecoderPool = new HuffmanCoderPool<>(() -> new HuffmanBlockDecoder(BLOCK_FORMAT_VERSION),
+            HuffmanBlockDecoder::clear);
+
+    public HuffmanDecompressor() {
+        this(null);
+    }
+
+    /**
+     * @param {@code ExecutorService}, the executor decoding the blocks of block compressed data, null to decode them on the
+     *                                 calling thread
+     */
+    public HuffmanDecompressor(ExecutorService executor) {
+        this(executor, DEFAULT_SHARED_TABLE_CACHE_SIZE);
+    }
+
+    /**
+     * @param {@code ExecutorService}, the executor decoding the blocks of block compressed data, null to decode them on the
+     *                                 calling thread
+     * @param int, number of decoding tables of shared tables kept ready, the least recently used one is dropped first
+     */
+    public HuffmanDecompressor(ExecutorService executor, int sharedTableCacheSize) {
+        if (sharedTableCacheSize < 0) {
+            throw new HuffmanException("Invalid size of the shared table cache: " + sharedTableCacheSize);
+        }
+        this.executor = executor;
+        this.sharedDecodingTables = new LinkedHashMap<Integer, HuffmanDecodingTable>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, HuffmanDecodingTable> eldest) {
+                return size() > sharedTableCacheSize;
+            }
+        };
+    }
+
+    /**
+     * The listener receives the measurements of every following decompression. The blocks are only timed while a listener is
+     * set; without one the decoding loops read no clock.
+     *
+     * @param {@code HuffmanMetricsListener}, the listener, null to stop measuring
+     */
+    public void setMetricsListener(HuffmanMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    public HuffmanMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * The method makes a shared table known to the decompressor, so that messages compressed with
+     * {@link HuffmanCompressor#compress(byte[], HuffmanSharedTable)} can be expanded. A table replaces the one of the same id.
+     *
+     * @param {@code HuffmanSharedTable}
+     */
+    public void addSharedTable(HuffmanSharedTable sharedTable) {
+        sharedTables.put(sharedTable.getId(), sharedTable);
+        synchronized (sharedDecodingTables) {
+            sharedDecodingTables.remove(sharedTable.getId());
+        }
+    }
+
     /**
      * The method expands an already Huffman-compressed data into its original form. Throws {@link HuffmanException} if the check for
      * MAGIC BYTES fails. The compressed data must have the below structure:
@@ -33,71 +121,515 @@ public class HuffmanDecompressor {
      *     |     2 BYTES                              4 BYTES                                            NUMBER OF HUFFMAN LEAF NODES * (1 + 4) BYTES PER NODE               |
      *    -----------------------------------------------------------------------------   HEADER   --------------------------------------------------------------------------
      *
+     * The structure above is the original single block format, which is still read. Block compressed data, as written by
+     * {@link HuffmanCompressor} and {@link HuffmanOutputStream}, and messages compressed with a shared table are recognized by
+     * the format version following the MAGIC BYTES.
+     *
+     * The exact size of the decompressed data is read from the headers before decoding starts, so the decompressed data is
+     * decoded straight into an array of that size.
+     *
      * @param byte[] compressedData
-     * @return Byte[] the decompressed data
+     * @return byte[] the decompressed data
+     */
+    public byte[] decompress(byte[] compressedData) {
+        long sizeofDecompressedData = getSizeofDecompressedData(compressedData);
+        if (sizeofDecompressedData > Integer.MAX_VALUE) {
+            throw new HuffmanException("The compressed data holds more symbols than a byte array can hold: " + sizeofDecompressedData);
+        }
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        DecompressionMetrics metrics = listener == null ? null : new DecompressionMetrics();
+        byte[] decompressedData = new byte[(int) sizeofDecompressedData];
+        expand(compressedData, decompressedData, 0, metrics);
+        notifyDecompressed(listener, metrics, start, compressedData.length, sizeofDecompressedData);
+        return decompressedData;
+    }
+
+    /**
+     * The method expands the compressed data into the passed in array. Throws {@link HuffmanException} if the decompressed data
+     * does not fit into the array from the offset on; {@link #getSizeofDecompressedData(byte[])} tells the size needed.
+     *
+     * @param byte[], the compressed data
+     * @param byte[], the destination
+     * @param int, offset of the decompressed data in the destination
+     * @return int, number of bytes written to the destination
+     */
+    public int decompress(byte[] compressedData, byte[] destination, int destinationOffset) {
+        long sizeofDecompressedData = getSizeofDecompressedData(compressedData);
+        if (destinationOffset < 0 || destinationOffset > destination.length || sizeofDecompressedData > destination.length - destinationOffset) {
+            throw new HuffmanException("The decompressed data (" + sizeofDecompressedData + " bytes) does not fit into the destination at offset " + destinationOffset);
+        }
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        DecompressionMetrics metrics = listener == null ? null : new DecompressionMetrics();
+        expand(compressedData, destination, destinationOffset, metrics);
+        notifyDecompressed(listener, metrics, start, compressedData.length, sizeofDecompressedData);
+        return (int) sizeofDecompressedData;
+    }
+
+    /**
+     * The method expands the compressed data into the passed in buffer, from its position on, and moves the position of the buffer
+     * past the decompressed data. Buffers backed by an array are decoded into directly, every block of other buffers is decoded
+     * into an array of its own and copied. Throws {@link HuffmanException} if the decompressed data does not fit into the
+     * remaining space of the buffer.
+     *
+     * @param byte[], the compressed data
+     * @param {@code ByteBuffer}, the destination
+     * @return int, number of bytes written to the destination
+     */
+    public int decompress(byte[] compressedData, ByteBuffer destination) {
+        long sizeofDecompressedData = getSizeofDecompressedData(compressedData);
+        if (sizeofDecompressedData > destination.remaining()) {
+            throw new HuffmanException("The decompressed data (" + sizeofDecompressedData + " bytes) does not fit into the " + destination.remaining() + " bytes remaining in the destination");
+        }
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        DecompressionMetrics metrics = listener == null ? null : new DecompressionMetrics();
+        if (destination.hasArray()) {
+            expand(compressedData, destination.array(), destination.arrayOffset() + destination.position(), metrics);
+        } else if (HuffmanContainer.isBlockFormat(ByteBuffer.wrap(compressedData))) {
+            BlockDirectory blockDirectory = HuffmanContainer.readDirectory(ByteBuffer.wrap(compressedData));
+            byte formatVersion = compressedData[MAGIC_BYTES.length];
+            int destinationOffset = destination.position();
+            HuffmanBlockDecoder[] blockDecoders = new HuffmanBlockDecoder[blockDirectory.getNumberOfBlocks()];
+            boolean pooled = acquireBlockDecoders(blockDecoders, formatVersion, metrics != null);
+            try {
+                List<Callable<Integer>> decodings = new ArrayList<>(blockDirectory.getNumberOfBlocks());
+                for (int block = 0; block < blockDirectory.getNumberOfBlocks(); ++block) {
+                    int blockIndex = block;
+                    decodings.add(() -> {
+                        byte[] decompressedBlock = new byte[blockDirectory.getNumberOfOriginalBytes(blockIndex)];
+                        expandBlock(compressedData, (int) blockDirectory.getBlockOffset(blockIndex), blockDirectory.getSizeofBlockBody(blockIndex),
+                                blockDecoders[blockIndex], decompressedBlock, 0, decompressedBlock.length);
+                        ByteBuffer blockDestination = destination.duplicate();
+                        blockDestination.position(destinationOffset + (int) blockDirectory.getOriginalOffset(blockIndex));
+                        blockDestination.put(decompressedBlock);
+                        return decompressedBlock.length;
+                    });
+                }
+                HuffmanTasks.invokeAll(executor, decodings);
+                addBlockMetrics(metrics, blockDecoders);
+            } finally {
+                blockDecoderPool.release(blockDecoders, pooled);
+            }
+        } else {
+            byte[] decompressedData = new byte[(int) sizeofDecompressedData];
+            expand(compressedData, decompressedData, 0, metrics);
+            destination.duplicate().put(decompressedData);
+        }
+        destination.position(destination.position() + (int) sizeofDecompressedData);
+        notifyDecompressed(listener, metrics, start, compressedData.length, sizeofDecompressedData);
+        return (int) sizeofDecompressedData;
+    }
+
+    /**
+     * The method reads the size of the decompressed data from the block directory, or from the Huffman leaf nodes of the original
+     * single block format, without decoding anything. Throws {@link HuffmanException} if the check for MAGIC BYTES fails.
+     *
+     * @param byte[], the compressed data
+     * @return long, size of the decompressed data in bytes
+     */
+    public long getSizeofDecompressedData(byte[] compressedData) {
+        validateMagicBytes(compressedData);
+        if (HuffmanContainer.isBlockFormat(ByteBuffer.wrap(compressedData))) {
+            return HuffmanContainer.readDirectory(ByteBuffer.wrap(compressedData)).getSizeofOriginalData();
+        }
+        if (HuffmanContainer.isSharedTableFormat(ByteBuffer.wrap(compressedData))) {
+            return readNumberOfOriginalBytes(compressedData);
+        }
+        return HuffmanBlockDecoder.readLegacyNumberOfSymbols(compressedData, MAGIC_BYTES.length, compressedData.length - MAGIC_BYTES.length);
+    }
+
+    /**
+     * The method expands a compressed file of any size into another file. Only the block directory is held in memory as a
+     * whole: every block is read from its position in the compressed file into a buffer of its own, decoded and written to its
+     * position in the decompressed file, concurrently when an executor has been passed in. Files of the original single block
+     * format are expanded in memory. Throws {@link HuffmanException} if the check for MAGIC BYTES fails or a file cannot be read
+     * or written.
+     *
+     * @param {@code Path}, the compressed file
+     * @param {@code Path}, the decompressed file, replaced if it exists
+     */
+    public void decompress(Path compressedFile, Path decompressedFile) {
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        try (FileChannel source = FileChannel.open(compressedFile, StandardOpenOption.READ);
+             FileChannel target = FileChannel.open(decompressedFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(HuffmanContainer.BLOCKS_OFFSET, source.size()));
+            HuffmanUtility.readFully(source, header, 0);
+            validateMagicBytes(header.array());
+            if (!HuffmanContainer.isBlockFormat(header)) {
+                if (source.size() > Integer.MAX_VALUE) {
+                    throw new HuffmanException("The compressed file is too large for the original single block format: " + compressedFile);
+                }
+                ByteBuffer compressedData = ByteBuffer.allocate((int) source.size());
+                HuffmanUtility.readFully(source, compressedData, 0);
+                HuffmanUtility.writeFully(target, ByteBuffer.wrap(decompress(compressedData.array())), 0);
+                return;
+            }
+
+            BlockDirectory blockDirectory = HuffmanContainer.readDirectory(source);
+            byte formatVersion = header.get(MAGIC_BYTES.length);
+            DecompressionMetrics metrics = listener == null ? null : new DecompressionMetrics();
+            HuffmanBlockDecoder[] blockDecoders = new HuffmanBlockDecoder[blockDirectory.getNumberOfBlocks()];
+            boolean pooled = acquireBlockDecoders(blockDecoders, formatVersion, metrics != null);
+            try {
+                List<Callable<Integer>> decodings = new ArrayList<>(blockDirectory.getNumberOfBlocks());
+                for (int block = 0; block < blockDirectory.getNumberOfBlocks(); ++block) {
+                    int blockIndex = block;
+                    decodings.add(() -> {
+                        byte[] compressedBlock = new byte[BLOCK_HEADER_SIZE + blockDirectory.getSizeofBlockBody(blockIndex)];
+                        HuffmanUtility.readFully(source, ByteBuffer.wrap(compressedBlock), blockDirectory.getBlockOffset(blockIndex));
+                        byte[] decompressedBlock = new byte[blockDirectory.getNumberOfOriginalBytes(blockIndex)];
+                        expandBlock(compressedBlock, 0, blockDirectory.getSizeofBlockBody(blockIndex), blockDecoders[blockIndex], decompressedBlock, 0,
+                                decompressedBlock.length);
+                        HuffmanUtility.writeFully(target, ByteBuffer.wrap(decompressedBlock), blockDirectory.getOriginalOffset(blockIndex));
+                        return decompressedBlock.length;
+                    });
+                }
+                HuffmanTasks.invokeAll(executor, decodings);
+                addBlockMetrics(metrics, blockDecoders);
+            } finally {
+                blockDecoderPool.release(blockDecoders, pooled);
+            }
+            notifyDecompressed(listener, metrics, start, source.size(), blockDirectory.getSizeofOriginalData());
+        } catch (IOException ioException) {
+            throw new HuffmanException("An error occurred while decompressing the file: " + compressedFile, ioException);
+        }
+    }
+
+    /**
+     * The method expands a range of the original data without expanding the rest: only the blocks holding the range are decoded,
+     * each from the nearest checkpoint in front of the range when the data has been compressed with a checkpoint interval (see
+     * {@link com.dushyant.huffman.model.CompressionSettings#setCheckpointInterval(int)}), from the start of the block otherwise.
+     * Data of the original single block format and messages compressed with a shared table are expanded as a whole. Throws
+     * {@link HuffmanException} if the check for MAGIC BYTES fails or the range does not lie within the original data.
+     *
+     * @param byte[], the compressed data
+     * @param long, position of the range in the original data
+     * @param int, length of the range
+     * @return byte[], the original bytes of the range
      */
-    public Byte[] decompress(byte[] compressedData) {
+    public byte[] decompressRange(byte[] compressedData, long offset, int length) {
         validateMagicBytes(compressedData);
+        if (!HuffmanContainer.isBlockFormat(ByteBuffer.wrap(compressedData))) {
+            byte[] decompressedData = decompress(compressedData);
+            checkRange(offset, length, decompressedData.length);
+            return Arrays.copyOfRange(decompressedData, (int) offset, (int) offset + length);
+        }
+        HuffmanMetricsListener listener = metricsListener;
+        long start = listener == null ? 0 : System.nanoTime();
+        BlockDirectory blockDirectory = HuffmanContainer.readDirectory(ByteBuffer.wrap(compressedData));
+        checkRange(offset, length, blockDirectory.getSizeofOriginalData());
+        byte[] range = new byte[length];
+        if (length == 0) {
+            return range;
+        }
+        int firstBlock = blockDirectory.findBlock(offset);
+        int numberOfBlocks = blockDirectory.findBlock(offset + length - 1) - firstBlock + 1;
+        CheckpointIndex checkpointIndex = HuffmanContainer.readCheckpointIndex(ByteBuffer.wrap(compressedData), blockDirectory, firstBlock, numberOfBlocks);
+        DecompressionMetrics metrics = listener == null ? null : new DecompressionMetrics();
+        HuffmanBlockDecoder blockDecoder = new HuffmanBlockDecoder(compressedData[MAGIC_BYTES.length]);
+        blockDecoder.setTimed(metrics != null);
+        long sizeofCompressedData = 0;
+        for (int block = firstBlock; block < firstBlock + numberOfBlocks; ++block) {
+            expandBlockRange(compressedData, (int) blockDirectory.getBlockOffset(block), blockDirectory, block, checkpointIndex, firstBlock, blockDecoder, offset, range, metrics);
+            sizeofCompressedData += BLOCK_HEADER_SIZE + blockDirectory.getSizeofBlockBody(block);
+        }
+        if (metrics != null) {
+            metrics.setTableNanos(blockDecoder.getTableNanos());
+            metrics.setDecodingNanos(blockDecoder.getDecodingNanos());
+        }
+        notifyDecompressed(listener, metrics, start, sizeofCompressedData, length);
+        return range;
+    }
 
-        // Extracting the number of Huffman leaf nodes from the compressed data. The next four bytes after the MAGIC BYTES contain the number of Huffman leaf nodes.
-        int numberOfHuffmanLeafNodes = ByteBuffer.wrap(compressedData, MAGIC_BYTES.length, Integer.BYTES).getInt();
+    /**
+     * The method expands a range of the original data of a compressed file; only the block directory, the checkpoints of the
+     * blocks holding the range and these blocks are read. Files of the original single block format are expanded as a whole.
+     * Throws {@link HuffmanException} if the check for MAGIC BYTES fails, the range does not lie within the original data or the
+     * file cannot be read.
+     *
+     * @param {@code Path}, the compressed file
+     * @param long, position of the range in the original data
+     * @param int, length of the range
+     * @return byte[], the original bytes of the range
+     */
+    public byte[] decompressRange(Path compressedFile, long offset, int length) {
+        try (FileChannel source = FileChannel.open(compressedFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(HuffmanContainer.BLOCKS_OFFSET, source.size()));
+            HuffmanUtility.readFully(source, header, 0);
+            validateMagicBytes(header.array());
+            if (!HuffmanContainer.isBlockFormat(header)) {
+                if (source.size() > Integer.MAX_VALUE) {
+                    throw new HuffmanException("The compressed file is too large for the original single block format: " + compressedFile);
+                }
+                ByteBuffer compressedData = ByteBuffer.allocate((int) source.size());
+                HuffmanUtility.readFully(source, compressedData, 0);
+                return decompressRange(compressedData.array(), offset, length);
+            }
 
-        FrequencyTable huffmanNodeFrequencies = new FrequencyTable();
-        for (int index = MAGIC_BYTES.length + Integer.BYTES; index < MAGIC_BYTES.length + Integer.BYTES + (numberOfHuffmanLeafNodes * BYTES_PER_HUFFMAN_NODE); index = index + BYTES_PER_HUFFMAN_NODE) {
-            byte bitPattern = compressedData[index];
-            int frequency = ByteBuffer.wrap(compressedData, index + 1, Integer.BYTES).getInt();
-            huffmanNodeFrequencies.addSymbol(bitPattern, frequency);
+            HuffmanMetricsListener listener = metricsListener;
+            long start = listener == null ? 0 : System.nanoTime();
+            BlockDirectory blockDirectory = HuffmanContainer.readDirectory(source);
+            checkRange(offset, length, blockDirectory.getSizeofOriginalData());
+            byte[] range = new byte[length];
+            if (length == 0) {
+                return range;
+            }
+            int firstBlock = blockDirectory.findBlock(offset);
+            int numberOfBlocks = blockDirectory.findBlock(offset + length - 1) - firstBlock + 1;
+            CheckpointIndex checkpointIndex = HuffmanContainer.readCheckpointIndex(source, blockDirectory, firstBlock, numberOfBlocks);
+            DecompressionMetrics metrics = listener == null ? null : new DecompressionMetrics();
+            HuffmanBlockDecoder blockDecoder = new HuffmanBlockDecoder(header.get(MAGIC_BYTES.length));
+            blockDecoder.setTimed(metrics != null);
+            long sizeofCompressedData = 0;
+            for (int block = firstBlock; block < firstBlock + numberOfBlocks; ++block) {
+                byte[] compressedBlock = new byte[BLOCK_HEADER_SIZE + blockDirectory.getSizeofBlockBody(block)];
+                HuffmanUtility.readFully(source, ByteBuffer.wrap(compressedBlock), blockDirectory.getBlockOffset(block));
+                expandBlockRange(compressedBlock, 0, blockDirectory, block, checkpointIndex, firstBlock, blockDecoder, offset, range, metrics);
+                sizeofCompressedData += compressedBlock.length;
+            }
+            if (metrics != null) {
+                metrics.setTableNanos(blockDecoder.getTableNanos());
+                metrics.setDecodingNanos(blockDecoder.getDecodingNanos());
+            }
+            notifyDecompressed(listener, metrics, start, sizeofCompressedData, length);
+            return range;
+        } catch (IOException ioException) {
+            throw new HuffmanException("An error occurred while decompressing the file: " + compressedFile, ioException);
         }
+    }
 
-        HuffmanTree huffmanTree = new HuffmanTree(huffmanNodeFrequencies);
+    private static void checkRange(long offset, int length, long sizeofOriginalData) {
+        if (offset < 0 || length < 0 || offset > sizeofOriginalData - length) {
+            throw new HuffmanException("The range " + offset + " + " + length + " does not lie within the " + sizeofOriginalData + " original bytes");
+        }
+    }
 
-        // Determining the total size(bytes) of the header.
-        int sizeofHeadersInBytes = MAGIC_BYTES.length + Integer.BYTES + (BYTES_PER_HUFFMAN_NODE * numberOfHuffmanLeafNodes);
+    /**
+     * The method checks the block header against the block directory and decodes the part of the block within the range.
+     *
+     * @param byte[], the compressed data holding the block
+     * @param int, offset of the block header
+     * @param {@code BlockDirectory}
+     * @param int, the block
+     * @param {@code CheckpointIndex}, the checkpoints of the blocks from the first block of the range on, null for none
+     * @param int, the first block of the range
+     * @param {@code HuffmanBlockDecoder}, a decoder for the format version of the compressed data
+     * @param long, position of the range in the original data
+     * @param byte[], the destination holding the range
+     * @param {@code DecompressionMetrics}, null when nothing is measured
+     */
+    private void expandBlockRange(byte[] compressedData, int blockOffset, BlockDirectory blockDirectory, int block, CheckpointIndex checkpointIndex, int firstBlock,
+                                  HuffmanBlockDecoder blockDecoder, long offset, byte[] range, DecompressionMetrics metrics) {
+        int numberOfOriginalBytes = blockDirectory.getNumberOfOriginalBytes(block);
+        int sizeofBlockBody = blockDirectory.getSizeofBlockBody(block);
+        ByteBuffer blockHeader = ByteBuffer.wrap(compressedData, blockOffset, BLOCK_HEADER_SIZE);
+        if (blockHeader.getInt() != numberOfOriginalBytes || blockHeader.getInt() != sizeofBlockBody) {
+            throw new HuffmanException("The block header does not match the block directory.");
+        }
+        long originalOffset = blockDirectory.getOriginalOffset(block);
+        int from = (int) (Math.max(offset, originalOffset) - originalOffset);
+        int to = (int) (Math.min(offset + range.length, originalOffset + numberOfOriginalBytes) - originalOffset);
+        int[] checkpoints = checkpointIndex == null ? null : checkpointIndex.getBlockBitOffsets(block - firstBlock);
+        int checkpointInterval = checkpointIndex == null ? 0 : checkpointIndex.getCheckpointInterval();
+        blockDecoder.decodeBlockRange(compressedData, blockOffset + BLOCK_HEADER_SIZE, sizeofBlockBody, numberOfOriginalBytes, checkpoints, checkpointInterval, from,
+                range, (int) (originalOffset + from - offset), to - from);
+        if (metrics != null) {
+            HuffmanMetrics.countBlock(metrics, blockDecoder.getBlockType());
+        }
+    }
+
+    /**
+     * The method expands the compressed data into a destination known to be large enough.
+     */
+    private void expand(byte[] compressedData, byte[] destination, int destinationOffset, DecompressionMetrics metrics) {
+        if (HuffmanContainer.isBlockFormat(ByteBuffer.wrap(compressedData))) {
+            expandBlocks(compressedData, destination, destinationOffset, metrics);
+        } else if (HuffmanContainer.isSharedTableFormat(ByteBuffer.wrap(compressedData))) {
+            expandSharedTableMessage(compressedData, destination, destinationOffset, metrics);
+        } else {
+            expandSingleBlock(compressedData, destination, destinationOffset, metrics);
+        }
+    }
+
+    private void expandSingleBlock(byte[] compressedData, byte[] destination, int destinationOffset, DecompressionMetrics metrics) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        // The header following the MAGIC BYTES holds the Huffman leaf nodes, which tell the number of bytes in the original data.
+        HuffmanBlockDecoder blockDecoder = new HuffmanBlockDecoder();
+        int sizeofHeadersInBytes = MAGIC_BYTES.length + blockDecoder.readLegacyTable(compressedData, MAGIC_BYTES.length, compressedData.length - MAGIC_BYTES.length);
 
         /*
-            Extracting the Huffman encoding from the compressed data.
+            Decoding the Huffman encoding from the compressed data.
             The compressed data has two parts: headers(magic bytes + bytes storing the number different 8 bit patterns + bytes storing the bit patterns and corresponding frequencies) and actual huffman encoded data.
             Here total size of headers (bytes) acts as an offset for the Huffman encoded portion in the compressed data.
+            The number of symbols stored in the headers bounds the decoding, so trailing all-zero codes are decoded too.
          */
-        BitSet huffmanEncoding = BitSet.valueOf(ByteBuffer.wrap(compressedData, sizeofHeadersInBytes, compressedData.length - sizeofHeadersInBytes));
+        long decodingStart = metrics == null ? 0 : System.nanoTime();
+        blockDecoder.decode(compressedData, sizeofHeadersInBytes, compressedData.length - sizeofHeadersInBytes, destination, destinationOffset, (int) blockDecoder.getNumberOfSymbols());
+        addSingleBlockMetrics(metrics, start, decodingStart);
+    }
 
-        List<Byte> decompressedData = decode(huffmanEncoding, huffmanTree);
+    /**
+     * The method expands a message compressed with a shared table. The decoding table of the shared table is built once and
+     * kept in the cache of the decompressor, so no table is built per message.
+     */
+    private void expandSharedTableMessage(byte[] compressedData, byte[] destination, int destinationOffset, DecompressionMetrics metrics) {
+        long start = metrics == null ? 0 : System.nanoTime();
+        int sharedTableId = ByteBuffer.wrap(compressedData).getInt(MAGIC_BYTES.length + 1);
+        HuffmanBlockDecoder blockDecoder = new HuffmanBlockDecoder();
+        blockDecoder.setDecodingTable(getSharedDecodingTable(sharedTableId));
+        long decodingStart = metrics == null ? 0 : System.nanoTime();
+        blockDecoder.decode(compressedData, SHARED_TABLE_HEADER_SIZE, compressedData.length - SHARED_TABLE_HEADER_SIZE, destination, destinationOffset,
+                readNumberOfOriginalBytes(compressedData));
+        addSingleBlockMetrics(metrics, start, decodingStart);
+    }
 
-        return decompressedData.toArray(new Byte[decompressedData.size()]);
+    private int readNumberOfOriginalBytes(byte[] sharedTableMessage) {
+        int numberOfOriginalBytes = ByteBuffer.wrap(sharedTableMessage).getInt(MAGIC_BYTES.length + 1 + Integer.BYTES);
+        if (numberOfOriginalBytes < 0) {
+            throw new HuffmanException("The compressed data holds an invalid number of original bytes: " + numberOfOriginalBytes);
+        }
+        return numberOfOriginalBytes;
     }
 
     /**
-     * The method decodes Huffman encoded data using the passed in Huffman Tree.
-     *
-     * @param BitSet, the huffman encoded original data
-     * @param {@code HuffmanTree}
-     * @return List<Byte>, the decoded data
-     */
-    private List<Byte> decode(BitSet huffmanEncoding, HuffmanTree huffmanTree) {
-        HuffmanNode rootNode = huffmanTree.getTree().poll();
-        HuffmanNode node = rootNode;
-        List<Byte> decompressedData = new ArrayList<>();
-        for (int index = 0; index < huffmanEncoding.length(); ++index) {
-            if (node instanceof HuffmanInternalNode) {
-                HuffmanInternalNode internalNode = (HuffmanInternalNode) node;
-                boolean bit = huffmanEncoding.get(index);
-                if (bit) {
-                    node = internalNode.getRightChild();
-                } else {
-                    node = internalNode.getLeftChild();
-                }
+     * @param int, id of a shared table
+     * @return {@code HuffmanDecodingTable}, the decoding table of the shared table, from the cache when it is there
+     */
+    private HuffmanDecodingTable getSharedDecodingTable(int sharedTableId) {
+        HuffmanDecodingTable decodingTable;
+        synchronized (sharedDecodingTables) {
+            decodingTable = sharedDecodingTables.get(sharedTableId);
+        }
+        if (decodingTable == null) {
+            HuffmanSharedTable sharedTable = sharedTables.get(sharedTableId);
+            if (sharedTable == null) {
+                throw new HuffmanException("Unknown shared table: " + sharedTableId);
             }
-            if (node instanceof HuffmanLeafNode) {
-                HuffmanLeafNode leafNode = (HuffmanLeafNode) node;
-                byte symbol = leafNode.getBitPattern();
-                decompressedData.add(symbol);
-                node = rootNode;
+            // Built outside the lock; two threads missing the same table at once both build it, the tables are equal.
+            decodingTable = sharedTable.getHuffmanCodes().createDecodingTable();
+            synchronized (sharedDecodingTables) {
+                sharedDecodingTables.put(sharedTableId, decodingTable);
             }
         }
-        return decompressedData;
+        return decodingTable;
+    }
+
+    /**
+     * The method expands block compressed data. The block directory gives the position of every block in the compressed data
+     * and in the original data, so the blocks are decoded independently, concurrently when an executor has been passed in,
+     * straight to their final position in the destination.
+     */
+    private void expandBlocks(byte[] compressedData, byte[] destination, int destinationOffset, DecompressionMetrics metrics) {
+        BlockDirectory blockDirectory = HuffmanContainer.readDirectory(ByteBuffer.wrap(compressedData));
+        byte formatVersion = compressedData[MAGIC_BYTES.length];
+        HuffmanBlockDecoder[] blockDecoders = new HuffmanBlockDecoder[blockDirectory.getNumberOfBlocks()];
+        boolean pooled = acquireBlockDecoders(blockDecoders, formatVersion, metrics != null);
+        try {
+            List<Callable<Integer>> decodings = new ArrayList<>(blockDirectory.getNumberOfBlocks());
+            for (int block = 0; block < blockDirectory.getNumberOfBlocks(); ++block) {
+                int blockIndex = block;
+                decodings.add(() -> expandBlock(compressedData, (int) blockDirectory.getBlockOffset(blockIndex), blockDirectory.getSizeofBlockBody(blockIndex),
+                        blockDecoders[blockIndex], destination, destinationOffset + (int) blockDirectory.getOriginalOffset(blockIndex), blockDirectory.getNumberOfOriginalBytes(blockIndex)));
+            }
+            HuffmanTasks.invokeAll(executor, decodings);
+            addBlockMetrics(metrics, blockDecoders);
+        } finally {
+            blockDecoderPool.release(blockDecoders, pooled);
+        }
+    }
+
+    /**
+     * The method fills the array with decoders of the calling thread if the compressed data has the current block format version,
+     * with new decoders otherwise.
+     *
+     * @param {@code HuffmanBlockDecoder[]}, populated with a decoder per block
+     * @param byte, the block format version of the compressed data
+     * @param boolean, true to time the blocks
+     * @return boolean, to be passed on to {@link HuffmanCoderPool#release(Object[], boolean)}
+     */
+    private boolean acquireBlockDecoders(HuffmanBlockDecoder[] blockDecoders, byte formatVersion, boolean timed) {
+        boolean pooled = false;
+        if (formatVersion == BLOCK_FORMAT_VERSION) {
+            pooled = blockDecoderPool.acquire(blockDecoders);
+        } else {
+            for (int block = 0; block < blockDecoders.length; ++block) {
+                blockDecoders[block] = new HuffmanBlockDecoder(formatVersion);
+            }
+        }
+        for (HuffmanBlockDecoder blockDecoder : blockDecoders) {
+            blockDecoder.setTimed(timed);
+        }
+        return pooled;
+    }
+
+    /**
+     * The method adds the times and block types of the decoded blocks to the metrics, if there are any.
+     */
+    private static void addBlockMetrics(DecompressionMetrics metrics, HuffmanBlockDecoder[] blockDecoders) {
+        if (metrics == null) {
+            return;
+        }
+        for (HuffmanBlockDecoder blockDecoder : blockDecoders) {
+            HuffmanMetrics.countBlock(metrics, blockDecoder.getBlockType());
+            metrics.setTableNanos(metrics.getTableNanos() + blockDecoder.getTableNanos());
+            metrics.setDecodingNanos(metrics.getDecodingNanos() + blockDecoder.getDecodingNanos());
+        }
+    }
+
+    /**
+     * The method adds a Huffman block decoded outside of {@link HuffmanBlockDecoder#decodeBlock(byte[], int, int, byte[], int, int)}
+     * to the metrics, if there are any.
+     */
+    private static void addSingleBlockMetrics(DecompressionMetrics metrics, long start, long decodingStart) {
+        if (metrics == null) {
+            return;
+        }
+        HuffmanMetrics.countBlock(metrics, HuffmanBlockEncoder.HUFFMAN_BLOCK);
+        metrics.setTableNanos(metrics.getTableNanos() + decodingStart - start);
+        metrics.setDecodingNanos(metrics.getDecodingNanos() + System.nanoTime() - decodingStart);
+    }
+
+    private static void notifyDecompressed(HuffmanMetricsListener listener, DecompressionMetrics metrics, long start, long sizeofCompressedData,
+                                           long sizeofDecompressedData) {
+        if (listener == null) {
+            return;
+        }
+        metrics.setTotalNanos(System.nanoTime() - start);
+        metrics.setSizeofCompressedData(sizeofCompressedData);
+        metrics.setSizeofOriginalData(sizeofDecompressedData);
+        listener.decompressed(metrics);
+    }
+
+    /**
+     * The method checks the block header against the block directory and decodes the block.
+     *
+     * @param byte[], the compressed data holding the block
+     * @param int, offset of the block header
+     * @param int, size of the block body according to the block directory
+     * @param {@code HuffmanBlockDecoder}, a decoder for the format version of the compressed data
+     * @param byte[], the destination
+     * @param int, offset of the block in the destination
+     * @param int, number of original bytes according to the block directory
+     * @return int, number of original bytes
+     */
+    private int expandBlock(byte[] compressedData, int blockOffset, int sizeofBlockBody, HuffmanBlockDecoder blockDecoder, byte[] decompressedData,
+                            int decompressedOffset, int numberOfOriginalBytes) {
+        ByteBuffer blockHeader = ByteBuffer.wrap(compressedData, blockOffset, BLOCK_HEADER_SIZE);
+        if (blockHeader.getInt() != numberOfOriginalBytes || blockHeader.getInt() != sizeofBlockBody) {
+            throw new HuffmanException("The block header does not match the block directory.");
+        }
+
+        blockDecoder.decodeBlock(compressedData, blockOffset + BLOCK_HEADER_SIZE, sizeofBlockBody, decompressedData, decompressedOffset, numberOfOriginalBytes);
+        return numberOfOriginalBytes;
     }
 
     private void validateMagicBytes(byte[] bytes) {
+        if (bytes.length < MAGIC_BYTES.length) {
+            throw new HuffmanException("Check for MAGIC CODE failed. Please provide a valid compressed file.");
+        }
         for (int index = 0; index < MAGIC_BYTES.length; ++index) {
             if (bytes[index] != MAGIC_BYTES[index]) {
                 throw new HuffmanException("Check for MAGIC CODE failed. Please provide a valid compressed file.");
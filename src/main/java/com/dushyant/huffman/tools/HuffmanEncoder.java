@@ -0,0 +1,231 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.dushyant.huffman.model.CompressionSettings;
+
+/**
+ * The {@code HuffmanEncoder} class compresses data from {@code ByteBuffer} to {@code ByteBuffer} in the manner of
+ * {@link java.util.zip.Deflater}: the data is passed in with {@link #setInput(ByteBuffer)}, as often as it becomes available,
+ * and {@link #compress(ByteBuffer)} writes as much of the compressed data as fits into the destination. Once
+ * {@link #finish()} has been called, {@link #compress(ByteBuffer)} also writes the last block and the end of stream marker,
+ * until {@link #finished()} returns true:
+ *
+ *      encoder.setInput(message);
+ *      encoder.finish();
+ *      while (!encoder.finished()) {
+ *          encoder.compress(destination);
+ *          ... send and clear the destination ...
+ *      }
+ *      encoder.reset();
+ *
+ * The compressed data has the format written by {@link HuffmanOutputStream} and is expanded by {@link HuffmanDecoder},
+ * {@link HuffmanInputStream} or {@link HuffmanDecompressor}. Heap and direct buffers are both supported. A whole block of heap
+ * input is encoded in place, and a compressed block is written straight into a heap destination with room for it; other data
+ * goes through a buffer of one block, which is kept, like the tables of the block encoder, across {@link #reset()}. At
+ * {@link CompressionSettings#FAST_LEVEL} a block may be coded with the table of the previous block of the same stream, never with
+ * one from before the last reset.
+ *
+ * An encoder is not thread safe.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanEncoder {
+
+    private final HuffmanBlockEncoder blockEncoder;
+
+    private final byte[] block;
+
+    private int blockLength;
+
+    private byte[] compressedBlock = new byte[0];
+
+    private int compressedPosition;
+
+    private int compressedLength;
+
+    private ByteBuffer input;
+
+    private boolean headerWritten;
+
+    private boolean finish;
+
+    private boolean endOfStreamWritten;
+
+    private long bytesRead;
+
+    private long bytesWritten;
+
+    public HuffmanEncoder() {
+        this(new CompressionSettings());
+    }
+
+    public HuffmanEncoder(int blockSize) {
+        this(new CompressionSettings(blockSize));
+    }
+
+    /**
+     * The settings are copied, later changes to them do not affect the encoder.
+     *
+     * @param {@code CompressionSettings}
+     */
+    public HuffmanEncoder(CompressionSettings settings) {
+        this.block = new byte[settings.getBlockSize()];
+        this.blockEncoder = new HuffmanBlockEncoder(settings);
+    }
+
+    /**
+     * The method sets the data to compress. The encoder reads the buffer from its position up to its limit while compressing and
+     * advances the position accordingly; the buffer must not be changed until it has been consumed, i.e. until
+     * {@link #needsInput()} returns true or another buffer is set.
+     *
+     * @param {@code ByteBuffer}, heap or direct buffer
+     */
+    public void setInput(ByteBuffer input) {
+        if (finish) {
+            throw new IllegalStateException("The encoder has already been finished.");
+        }
+        this.input = input;
+    }
+
+    /**
+     * @return boolean, true if the input has been consumed and all the compressed data written so far has been passed on
+     */
+    public boolean needsInput() {
+        return !finish && (input == null || !input.hasRemaining()) && compressedPosition == compressedLength;
+    }
+
+    /**
+     * The method tells the encoder that the current input is the last one: the following calls of {@link #compress(ByteBuffer)}
+     * write the remaining data as a (possibly short) block and the end of stream marker.
+     */
+    public void finish() {
+        finish = true;
+    }
+
+    /**
+     * @return boolean, true once the end of stream marker has been written to a destination
+     */
+    public boolean finished() {
+        return endOfStreamWritten && compressedPosition == compressedLength;
+    }
+
+    /**
+     * The method compresses input into the destination until either the destination is full or the encoder needs input. A block
+     * is encoded once it is full or the encoder has been finished; its compressed data is kept until it has been written to
+     * destinations as a whole.
+     *
+     * @param {@code ByteBuffer}, heap or direct buffer, written from its position up to its limit
+     * @return int, number of compressed bytes written to the destination
+     */
+    public int compress(ByteBuffer destination) {
+        int start = destination.position();
+        while (true) {
+            int count = Math.min(compressedLength - compressedPosition, destination.remaining());
+            destination.put(compressedBlock, compressedPosition, count);
+            compressedPosition += count;
+            if (compressedPosition < compressedLength || endOfStreamWritten) {
+                break;
+            }
+            if (!headerWritten) {
+                setCompressedBlock(MAGIC_BYTES.length + 1);
+                System.arraycopy(MAGIC_BYTES, 0, compressedBlock, 0, MAGIC_BYTES.length);
+                compressedBlock[MAGIC_BYTES.length] = BLOCK_FORMAT_VERSION;
+                headerWritten = true;
+                continue;
+            }
+
+            int remaining = input == null ? 0 : input.remaining();
+            if (blockLength == 0 && input != null && input.hasArray() && (remaining >= block.length || (finish && remaining > 0))) {
+                // a whole block of heap input is encoded where it is
+                int length = Math.min(remaining, block.length);
+                writeBlock(input.array(), input.arrayOffset() + input.position(), length, destination);
+                input.position(input.position() + length);
+                bytesRead += length;
+                continue;
+            }
+            if (remaining > 0) {
+                int length = Math.min(remaining, block.length - blockLength);
+                input.get(block, blockLength, length);
+                blockLength += length;
+                bytesRead += length;
+            }
+            if (blockLength == block.length || (finish && blockLength > 0)) {
+                writeBlock(block, 0, blockLength, destination);
+                blockLength = 0;
+            } else if (finish) {
+                setCompressedBlock(BLOCK_HEADER_SIZE);
+                Arrays.fill(compressedBlock, 0, BLOCK_HEADER_SIZE, (byte) 0);
+                endOfStreamWritten = true;
+            } else {
+                break;
+            }
+        }
+        int count = destination.position() - start;
+        bytesWritten += count;
+        return count;
+    }
+
+    /**
+     * The method prepares the encoder for new data, keeping its buffers and settings. Any input and any compressed data not
+     * written yet are dropped.
+     */
+    public void reset() {
+        input = null;
+        blockLength = 0;
+        compressedPosition = 0;
+        compressedLength = 0;
+        headerWritten = false;
+        finish = false;
+        endOfStreamWritten = false;
+        bytesRead = 0;
+        bytesWritten = 0;
+        blockEncoder.clear();
+    }
+
+    /**
+     * @return long, number of original bytes consumed since the last reset
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return long, number of compressed bytes written since the last reset
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    private void writeBlock(byte[] data, int offset, int length, ByteBuffer destination) {
+        int sizeofBlockBodyInBytes = blockEncoder.prepare(data, offset, length, blockEncoder);
+        int sizeofCompressedBlock = BLOCK_HEADER_SIZE + sizeofBlockBodyInBytes;
+        if (destination.hasArray() && destination.remaining() >= sizeofCompressedBlock) {
+            int destinationOffset = destination.arrayOffset() + destination.position();
+            ByteBuffer.wrap(destination.array(), destinationOffset, BLOCK_HEADER_SIZE).putInt(length).putInt(sizeofBlockBodyInBytes);
+            blockEncoder.write(destination.array(), destinationOffset + BLOCK_HEADER_SIZE);
+            destination.position(destination.position() + sizeofCompressedBlock);
+            return;
+        }
+        setCompressedBlock(sizeofCompressedBlock);
+        ByteBuffer.wrap(compressedBlock).putInt(length).putInt(sizeofBlockBodyInBytes);
+        blockEncoder.write(compressedBlock, BLOCK_HEADER_SIZE);
+    }
+
+    /**
+     * The method makes the next passed in number of bytes of the compressed block buffer pending, growing the buffer if needed.
+     */
+    private void setCompressedBlock(int length) {
+        if (compressedBlock.length < length) {
+            compressedBlock = new byte[Math.max(length, 2 * compressedBlock.length)];
+        }
+        compressedPosition = 0;
+        compressedLength = length;
+    }
+}
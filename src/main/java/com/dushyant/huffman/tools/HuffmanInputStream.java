@@ -0,0 +1,163 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAX_BLOCK_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MIN_BLOCK_FORMAT_VERSION;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+/**
+ * The {@code HuffmanInputStream} class expands a stream written by {@link HuffmanOutputStream}. Blocks are read and decoded one
+ * at a time as the data is consumed, so memory use is bounded by the block size whatever the size of the data. Throws
+ * {@link HuffmanException} if the check for MAGIC BYTES fails or a block is malformed.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanInputStream extends FilterInputStream {
+
+    private final HuffmanBlockDecoder blockDecoder;
+
+    private final byte[] blockHeader = new byte[BLOCK_HEADER_SIZE];
+
+    private byte[] compressedBlock = new byte[0];
+
+    private byte[] block = new byte[0];
+
+    private int blockLength;
+
+    private int blockPosition;
+
+    private boolean endOfStream;
+
+    public HuffmanInputStream(InputStream in) throws IOException {
+        super(in);
+        byte[] header = new byte[MAGIC_BYTES.length + 1];
+        readFully(header, header.length);
+        for (int index = 0; index < MAGIC_BYTES.length; ++index) {
+            if (header[index] != MAGIC_BYTES[index]) {
+                throw new HuffmanException("Check for MAGIC CODE failed. Please provide a valid compressed stream.");
+            }
+        }
+        byte formatVersion = header[MAGIC_BYTES.length];
+        if (formatVersion < MIN_BLOCK_FORMAT_VERSION || formatVersion > BLOCK_FORMAT_VERSION) {
+            throw new HuffmanException("Unsupported format version: " + formatVersion);
+        }
+        blockDecoder = new HuffmanBlockDecoder(formatVersion);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureData()) {
+            return -1;
+        }
+        return block[blockPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureData()) {
+            return -1;
+        }
+        int count = Math.min(len, blockLength - blockPosition);
+        System.arraycopy(block, blockPosition, b, off, count);
+        blockPosition += count;
+        return count;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && ensureData()) {
+            int count = (int) Math.min(n - skipped, blockLength - blockPosition);
+            blockPosition += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return blockLength - blockPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    /**
+     * The method decodes the next block once the current one has been consumed.
+     *
+     * @return boolean, false when the end of the stream has been reached
+     */
+    private boolean ensureData() throws IOException {
+        while (blockPosition == blockLength) {
+            if (endOfStream) {
+                return false;
+            }
+            readBlock();
+        }
+        return true;
+    }
+
+    private void readBlock() throws IOException {
+        readFully(blockHeader, BLOCK_HEADER_SIZE);
+        ByteBuffer header = ByteBuffer.wrap(blockHeader);
+        int numberOfOriginalBytes = header.getInt();
+        int sizeofBlockBodyInBytes = header.getInt();
+        if (numberOfOriginalBytes == 0 && sizeofBlockBodyInBytes == 0) {
+            endOfStream = true;
+            return;
+        }
+        if (numberOfOriginalBytes <= 0 || numberOfOriginalBytes > MAX_BLOCK_SIZE || sizeofBlockBodyInBytes <= 0 || sizeofBlockBodyInBytes > 2 * MAX_BLOCK_SIZE) {
+            throw new HuffmanException("The compressed stream holds a malformed block header.");
+        }
+
+        if (compressedBlock.length < sizeofBlockBodyInBytes) {
+            compressedBlock = new byte[sizeofBlockBodyInBytes];
+        }
+        readFully(compressedBlock, sizeofBlockBodyInBytes);
+
+        if (block.length < numberOfOriginalBytes) {
+            block = new byte[numberOfOriginalBytes];
+        }
+        blockDecoder.decodeBlock(compressedBlock, 0, sizeofBlockBodyInBytes, block, 0, numberOfOriginalBytes);
+        blockLength = numberOfOriginalBytes;
+        blockPosition = 0;
+    }
+
+    private void readFully(byte[] buffer, int length) throws IOException {
+        int offset = 0;
+        while (offset < length) {
+            int count = in.read(buffer, offset, length - offset);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of the compressed stream.");
+            }
+            offset += count;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.dushyant.huffman.tools;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.CodecMetrics;
+import com.dushyant.huffman.model.CompressionMetrics;
+import com.dushyant.huffman.model.DecompressionMetrics;
+
+/**
+ * The {@code HuffmanMetrics} class is a {@link HuffmanMetricsListener} which adds up the measurements of every call and keeps
+ * the ones of the last call. It can be set on any number of compressors and decompressors, and registered with the platform
+ * MBean server to read the metrics over JMX:
+ *
+ *      HuffmanMetrics metrics = new HuffmanMetrics();
+ *      metrics.register("default");
+ *      compressor.setMetricsListener(metrics);
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanMetrics implements HuffmanMetricsListener, HuffmanMetricsMXBean {
+
+    public static final String OBJECT_NAME_PREFIX = "com.dushyant.huffman:type=HuffmanMetrics,name=";
+
+    private long numberOfCompressions;
+
+    private long numberOfDecompressions;
+
+    private CompressionMetrics compressionTotals = new CompressionMetrics();
+
+    private CompressionMetrics lastCompression;
+
+    private DecompressionMetrics decompressionTotals = new DecompressionMetrics();
+
+    private DecompressionMetrics lastDecompression;
+
+    private ObjectName objectName;
+
+    @Override
+    public synchronized void compressed(CompressionMetrics metrics) {
+        ++numberOfCompressions;
+        compressionTotals.add(metrics);
+        lastCompression = metrics;
+    }
+
+    @Override
+    public synchronized void decompressed(DecompressionMetrics metrics) {
+        ++numberOfDecompressions;
+        decompressionTotals.add(metrics);
+        lastDecompression = metrics;
+    }
+
+    @Override
+    public synchronized long getNumberOfCompressions() {
+        return numberOfCompressions;
+    }
+
+    @Override
+    public synchronized long getNumberOfDecompressions() {
+        return numberOfDecompressions;
+    }
+
+    @Override
+    public synchronized CompressionMetrics getCompressionTotals() {
+        CompressionMetrics totals = new CompressionMetrics();
+        totals.add(compressionTotals);
+        return totals;
+    }
+
+    @Override
+    public synchronized CompressionMetrics getLastCompression() {
+        return lastCompression;
+    }
+
+    @Override
+    public synchronized DecompressionMetrics getDecompressionTotals() {
+        DecompressionMetrics totals = new DecompressionMetrics();
+        totals.add(decompressionTotals);
+        return totals;
+    }
+
+    @Override
+    public synchronized DecompressionMetrics getLastDecompression() {
+        return lastDecompression;
+    }
+
+    @Override
+    public synchronized void reset() {
+        numberOfCompressions = 0;
+        numberOfDecompressions = 0;
+        compressionTotals = new CompressionMetrics();
+        lastCompression = null;
+        decompressionTotals = new DecompressionMetrics();
+        lastDecompression = null;
+    }
+
+    /**
+     * The method registers the metrics with the platform MBean server under {@link #OBJECT_NAME_PREFIX} followed by the passed in
+     * name. Throws {@link HuffmanException} if the name is invalid or already taken.
+     *
+     * @param String, name telling the metrics apart from other registered ones
+     */
+    public synchronized void register(String name) {
+        try {
+            ObjectName newObjectName = new ObjectName(OBJECT_NAME_PREFIX + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+            objectName = newObjectName;
+        } catch (JMException jmException) {
+            throw new HuffmanException("The metrics could not be registered as " + name, jmException);
+        }
+    }
+
+    /**
+     * The method removes the metrics from the platform MBean server, if they have been registered.
+     */
+    public synchronized void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+            objectName = null;
+        } catch (JMException jmException) {
+            throw new HuffmanException("The metrics could not be unregistered: " + objectName, jmException);
+        }
+    }
+
+    /**
+     * @return {@code ObjectName}, the name the metrics are registered under, null if they are not registered
+     */
+    public synchronized ObjectName getObjectName() {
+        return objectName;
+    }
+
+    /**
+     * The method counts a block of the passed in block type.
+     *
+     * @param {@code CodecMetrics}
+     * @param int, block type as written by {@link HuffmanBlockEncoder}
+     */
+    static void countBlock(CodecMetrics metrics, int blockType) {
+        switch (blockType) {
+            case HuffmanBlockEncoder.HUFFMAN_BLOCK:
+                metrics.setNumberOfHuffmanBlocks(metrics.getNumberOfHuffmanBlocks() + 1);
+                break;
+            case HuffmanBlockEncoder.INTERLEAVED_HUFFMAN_BLOCK:
+                metrics.setNumberOfInterleavedBlocks(metrics.getNumberOfInterleavedBlocks() + 1);
+                break;
+            case HuffmanBlockEncoder.RAW_BLOCK:
+                metrics.setNumberOfRawBlocks(metrics.getNumberOfRawBlocks() + 1);
+                break;
+            case HuffmanBlockEncoder.CONTEXT_BLOCK:
+                metrics.setNumberOfContextBlocks(metrics.getNumberOfContextBlocks() + 1);
+                break;
+            case HuffmanBlockEncoder.DIGRAM_BLOCK:
+                metrics.setNumberOfDigramBlocks(metrics.getNumberOfDigramBlocks() + 1);
+                break;
+            default:
+                metrics.setNumberOfRunBlocks(metrics.getNumberOfRunBlocks() + 1);
+        }
+    }
+}
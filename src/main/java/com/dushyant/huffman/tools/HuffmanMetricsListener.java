@@ -0,0 +1,27 @@
+package com.dushyant.huffman.tools;
+
+import com.dushyant.huffman.model.CompressionMetrics;
+import com.dushyant.huffman.model.DecompressionMetrics;
+
+/**
+ * The {@code HuffmanMetricsListener} interface receives the measurements of every call of a {@link HuffmanCompressor} or
+ * {@link HuffmanDecompressor} it has been set on. It is called on the thread which made the call, once the call has completed,
+ * and must be safe to call from several threads at once when the codec is shared. Without a listener nothing is measured.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public interface HuffmanMetricsListener {
+
+    /**
+     * @param {@code CompressionMetrics}, the measurements of one compression
+     */
+    default void compressed(CompressionMetrics metrics) {
+    }
+
+    /**
+     * @param {@code DecompressionMetrics}, the measurements of one decompression
+     */
+    default void decompressed(DecompressionMetrics metrics) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.dushyant.huffman.tools;
+
+import com.dushyant.huffman.model.CompressionMetrics;
+import com.dushyant.huffman.model.DecompressionMetrics;
+
+/**
+ * The {@code HuffmanMetricsMXBean} interface is the management interface of {@link HuffmanMetrics}. The metrics are exposed as
+ * composite data, so any JMX client reads them without the classes of this library.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public interface HuffmanMetricsMXBean {
+
+    long getNumberOfCompressions();
+
+    long getNumberOfDecompressions();
+
+    /**
+     * @return {@code CompressionMetrics}, the measurements of all the compressions since the last reset
+     */
+    CompressionMetrics getCompressionTotals();
+
+    /**
+     * @return {@code CompressionMetrics}, the measurements of the last compression, null if there has been none
+     */
+    CompressionMetrics getLastCompression();
+
+    /**
+     * @return {@code DecompressionMetrics}, the measurements of all the decompressions since the last reset
+     */
+    DecompressionMetrics getDecompressionTotals();
+
+    /**
+     * @return {@code DecompressionMetrics}, the measurements of the last decompression, null if there has been none
+     */
+    DecompressionMetrics getLastDecompression();
+
+    /**
+     * The method drops all the measurements.
+     */
+    void reset();
+}
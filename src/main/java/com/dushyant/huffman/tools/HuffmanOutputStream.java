@@ -0,0 +1,152 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.logging.Logger;
+
+import com.dushyant.huffman.model.CompressionSettings;
+
+/**
+ * The {@code HuffmanOutputStream} class compresses the data written to it block by block. Each block is Huffman encoded with
+ * its own table as soon as it is full, so memory use is bounded by the block size whatever the size of the data. The written
+ * stream has the below format:
+ *
+ *      --------------    ----------------    ---------------------------------------------------------------------------    ---------------
+ *     | MAGIC BYTES | + | FORMAT VERSION | + | BLOCK HEADER (NUMBER OF ORIGINAL BYTES + SIZE OF BLOCK BODY) + BLOCK BODY | + | END OF STREAM |
+ *      --------------    ----------------    ---------------------------------------------------------------------------    ---------------
+ *          2 BYTES            1 BYTE                              4 BYTES + 4 BYTES + BLOCK BODY, REPEATED PER BLOCK               8 ZERO BYTES
+ *
+ * The block body is described in {@link HuffmanBlockEncoder}.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public class HuffmanOutputStream extends FilterOutputStream {
+
+    private static final Logger LOGGER = Logger.getLogger(HuffmanOutputStream.class.getName());
+
+    private final HuffmanBlockEncoder blockEncoder;
+
+    private final int maxCodeLength;
+
+    private final byte[] block;
+
+    private int blockLength;
+
+    private byte[] compressedBlock = new byte[0];
+
+    private boolean finished;
+
+    private long sizeofEncodingInBits;
+
+    private long sizeofUnlimitedEncodingInBits;
+
+    public HuffmanOutputStream(OutputStream out) throws IOException {
+        this(out, new CompressionSettings());
+    }
+
+    public HuffmanOutputStream(OutputStream out, int blockSize) throws IOException {
+        this(out, new CompressionSettings(blockSize));
+    }
+
+    /**
+     * The settings are copied, later changes to them do not affect the stream.
+     *
+     * @param {@code OutputStream}
+     * @param {@code CompressionSettings}
+     */
+    public HuffmanOutputStream(OutputStream out, CompressionSettings settings) throws IOException {
+        super(out);
+        this.block = new byte[settings.getBlockSize()];
+        this.maxCodeLength = settings.getMaxCodeLength();
+        this.blockEncoder = new HuffmanBlockEncoder(settings);
+        out.write(MAGIC_BYTES);
+        out.write(BLOCK_FORMAT_VERSION);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[blockLength++] = (byte) b;
+        if (blockLength == block.length) {
+            writeBlock();
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException();
+        }
+        while (len > 0) {
+            int count = Math.min(len, block.length - blockLength);
+            System.arraycopy(b, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+            if (blockLength == block.length) {
+                writeBlock();
+            }
+        }
+    }
+
+    /**
+     * The method compresses the buffered data as a (possibly short) block before flushing the underlying stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        writeBlock();
+        out.flush();
+    }
+
+    /**
+     * The method writes the buffered data and the end of stream marker without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (!finished) {
+            writeBlock();
+            out.write(new byte[BLOCK_HEADER_SIZE]);
+            finished = true;
+            HuffmanBlockEncoder.logCodeLengthLimitPenalty(LOGGER, maxCodeLength, sizeofEncodingInBits, sizeofUnlimitedEncodingInBits);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockLength == 0) {
+            return;
+        }
+        int sizeofBlockBodyInBytes = blockEncoder.prepare(block, 0, blockLength, blockEncoder);
+        sizeofEncodingInBits += blockEncoder.getSizeofEncodingInBits();
+        sizeofUnlimitedEncodingInBits += blockEncoder.getSizeofUnlimitedEncodingInBits();
+        if (compressedBlock.length < BLOCK_HEADER_SIZE + sizeofBlockBodyInBytes) {
+            compressedBlock = new byte[BLOCK_HEADER_SIZE + sizeofBlockBodyInBytes];
+        }
+        ByteBuffer.wrap(compressedBlock).putInt(blockLength).putInt(sizeofBlockBodyInBytes);
+        int end = blockEncoder.write(compressedBlock, BLOCK_HEADER_SIZE);
+        out.write(compressedBlock, 0, end);
+        blockLength = 0;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (finished) {
+            throw new IOException("The stream has already been finished.");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.SHARED_TABLE_MAGIC_BYTES;
+
+import java.nio.ByteBuffer;
+import java.util.Collection;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.model.FrequencyTable;
+import com.dushyant.huffman.model.HuffmanCodeTable;
+
+/**
+ * The {@code HuffmanSharedTable} class holds canonical Huffman codes trained once from a sample of messages and shared by the
+ * compressing and the decompressing side under an id. Small messages compressed with a shared table carry the id of the table
+ * instead of a code length table of their own, and neither side builds a Huffman Tree per message; see
+ * {@link HuffmanCompressor#compress(byte[], HuffmanSharedTable)}.
+ *
+ * Every bit pattern is counted once more than it occurs in the samples, so the table codes all the 256 bit patterns and
+ * encodes any message, even one holding bit patterns the samples lack. A serialized table has the below structure:
+ *
+ *      ---------------------    ------------    ---------------------
+ *     | SHARED TABLE MAGIC | + | ID OF TABLE | + | CODE LENGTH TABLE |
+ *      ---------------------    ------------    ---------------------
+ *            4 BYTES               4 BYTES          3 TO 256 BYTES
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class HuffmanSharedTable {
+
+    private final int id;
+
+    private final HuffmanCodeTable huffmanCodes;
+
+    private HuffmanSharedTable(int id, byte[] codeLengths) {
+        this.id = id;
+        this.huffmanCodes = new HuffmanCodeTable(codeLengths);
+        if (huffmanCodes.getNumberOfSymbols() != codeLengths.length) {
+            throw new HuffmanException("A shared table has to code all the 256 bit patterns.");
+        }
+    }
+
+    /**
+     * @param int, the id the compressed messages refer to the table by
+     * @param {@code Collection<byte[]>}, sample messages
+     * @return {@code HuffmanSharedTable}, the table trained with the default settings
+     */
+    public static HuffmanSharedTable train(int id, Collection<byte[]> samples) {
+        return train(id, samples, new CompressionSettings());
+    }
+
+    /**
+     * The method counts the 8 bit patterns of the sample messages and builds their canonical Huffman codes, limited to the
+     * maximum code length of the settings.
+     *
+     * @param int, the id the compressed messages refer to the table by
+     * @param {@code Collection<byte[]>}, sample messages
+     * @param {@code CompressionSettings}
+     * @return {@code HuffmanSharedTable}
+     */
+    public static HuffmanSharedTable train(int id, Collection<byte[]> samples, CompressionSettings settings) {
+        FrequencyTable bitPatternFrequencies = new FrequencyTable();
+        for (byte[] sample : samples) {
+            bitPatternFrequencies.count(sample, 0, sample.length);
+        }
+        long[] frequencies = bitPatternFrequencies.getFrequencies();
+        for (int bitPattern = 0; bitPattern < frequencies.length; ++bitPattern) {
+            ++frequencies[bitPattern];
+        }
+        HuffmanBlockEncoder blockEncoder = new HuffmanBlockEncoder(settings);
+        blockEncoder.buildCodeLengths(bitPatternFrequencies);
+        return new HuffmanSharedTable(id, blockEncoder.getCodeLengths().clone());
+    }
+
+    /**
+     * The method reads a table written by {@link #toByteArray()}. Throws {@link HuffmanException} if the table is malformed.
+     *
+     * @param byte[], the serialized table
+     * @return {@code HuffmanSharedTable}
+     */
+    public static HuffmanSharedTable fromByteArray(byte[] serializedTable) {
+        int tableOffset = SHARED_TABLE_MAGIC_BYTES.length + Integer.BYTES;
+        if (serializedTable.length < tableOffset) {
+            throw new HuffmanException("The shared table is truncated.");
+        }
+        for (int index = 0; index < SHARED_TABLE_MAGIC_BYTES.length; ++index) {
+            if (serializedTable[index] != SHARED_TABLE_MAGIC_BYTES[index]) {
+                throw new HuffmanException("Check for MAGIC CODE failed. Please provide a valid shared table.");
+            }
+        }
+        HuffmanBlockDecoder blockDecoder = new HuffmanBlockDecoder();
+        int sizeofTableInBytes = blockDecoder.readTable(serializedTable, tableOffset, serializedTable.length - tableOffset);
+        if (tableOffset + sizeofTableInBytes != serializedTable.length) {
+            throw new HuffmanException("The shared table holds trailing bytes.");
+        }
+        return new HuffmanSharedTable(ByteBuffer.wrap(serializedTable).getInt(SHARED_TABLE_MAGIC_BYTES.length), blockDecoder.getCodeLengths().clone());
+    }
+
+    /**
+     * @return byte[], the serialized table, to be read by {@link #fromByteArray(byte[])}
+     */
+    public byte[] toByteArray() {
+        byte[] codeLengthTable = new byte[256];
+        int sizeofCodeLengthTable = HuffmanBlockEncoder.writeCodeLengthTable(huffmanCodes.getCodeLengths(), codeLengthTable);
+        ByteBuffer serializedTable = ByteBuffer.allocate(SHARED_TABLE_MAGIC_BYTES.length + Integer.BYTES + sizeofCodeLengthTable);
+        serializedTable.put(SHARED_TABLE_MAGIC_BYTES);
+        serializedTable.putInt(id);
+        serializedTable.put(codeLengthTable, 0, sizeofCodeLengthTable);
+        return serializedTable.array();
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    HuffmanCodeTable getHuffmanCodes() {
+        return huffmanCodes;
+    }
+}
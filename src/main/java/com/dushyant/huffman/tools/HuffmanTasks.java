@@ -0,0 +1,58 @@
+package com.dushyant.huffman.tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+/**
+ * The {@code HuffmanTasks} class runs the per block tasks of the codec, either on an executor or on the calling thread.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+final class HuffmanTasks {
+
+    private HuffmanTasks() {
+    }
+
+    /**
+     * The method runs all the tasks and waits for them to complete. Throws {@link HuffmanException} if a task fails or the
+     * calling thread is interrupted.
+     *
+     * @param {@code ExecutorService}, the executor running the tasks, null to run them one after the other on the calling thread
+     * @param List<Callable<T>>, the tasks
+     * @return List<T>, the results of the tasks in the order of the tasks
+     */
+    static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks) {
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            if (executor == null) {
+                for (Callable<T> task : tasks) {
+                    results.add(task.call());
+                }
+                return results;
+            }
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new HuffmanException("The operation has been interrupted.", interruptedException);
+        } catch (ExecutionException executionException) {
+            if (executionException.getCause() instanceof HuffmanException) {
+                throw (HuffmanException) executionException.getCause();
+            }
+            throw new HuffmanException("An error occurred while processing a block.", executionException.getCause());
+        } catch (HuffmanException huffmanException) {
+            throw huffmanException;
+        } catch (Exception exception) {
+            throw new HuffmanException("An error occurred while processing a block.", exception);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.dushyant.huffman.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@code BitReader} class reads a Huffman encoding through a 64-bit bit buffer. Bits are consumed least significant bit
+ * first, which is the order in which the encoders in this project pack them. Reading past the end of the data yields zero bits.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class BitReader {
+
+    private final byte[] data;
+
+    private final ByteBuffer words;
+
+    private final int limit;
+
+    private int position;
+
+    private long bitBuffer;
+
+    private int bitCount;
+
+    public BitReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    /**
+     * The method tops up the bit buffer so that it holds at least 56 bits. Whole 64-bit words are loaded while at least eight
+     * bytes remain; the tail of the data is loaded byte by byte and padded with zero bits.
+     */
+    public void refill() {
+        if (position + Long.BYTES <= limit) {
+            bitBuffer |= words.getLong(position) << bitCount;
+            position += (63 - bitCount) >>> 3;
+            bitCount |= 56;
+        } else {
+            while (bitCount <= 56) {
+                if (position < limit) {
+                    bitBuffer |= (data[position++] & 0xFFL) << bitCount;
+                }
+                bitCount += 8;
+            }
+        }
+    }
+
+    /**
+     * @return long, the buffered bits; the next bit of the encoding is the least significant one
+     */
+    public long peek() {
+        return bitBuffer;
+    }
+
+    /**
+     * @param int, number of buffered bits to drop
+     */
+    public void skip(int numberOfBits) {
+        bitBuffer >>>= numberOfBits;
+        bitCount -= numberOfBits;
+    }
+}
@@ -0,0 +1,84 @@
+package com.dushyant.huffman.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The {@code BitWriter} class packs Huffman codes into a preallocated byte array through a 64-bit accumulator. Bits are written
+ * least significant bit first and the accumulator is flushed one whole 64-bit word at a time.
+ *
+ * @author  Dushyant Shukla
+ * @version 1.0
+ */
+public final class BitWriter {
+
+    private final byte[] data;
+
+    private final ByteBuffer words;
+
+    private final int offset;
+
+    private int position;
+
+    private long bitBuffer;
+
+    private int bitCount;
+
+    public BitWriter(byte[] data, int offset) {
+        this.data = data;
+        this.words = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        this.offset = offset;
+        this.position = offset;
+    }
+
+    /**
+     * @return long, number of bits written so far
+     */
+    public long getNumberOfBits() {
+        return (long) (position - offset) * Byte.SIZE + bitCount;
+    }
+
+    /**
+     * The method appends a code to the encoding.
+     *
+     * @param long, the code, least significant bit first
+     * @param int, number of bits in the code
+     */
+    public void write(long code, int length) {
+        while (length > Integer.SIZE) {
+            writeBits(code & 0xFFFFFFFFL, Integer.SIZE);
+            code >>>= Integer.SIZE;
+            length -= Integer.SIZE;
+        }
+        writeBits(code, length);
+    }
+
+    /**
+     * The method writes the bits left in the accumulator, padding the last byte with zero bits.
+     *
+     * @return int, the index following the last written byte
+     */
+    public int flush() {
+        while (bitCount > 0) {
+            data[position++] = (byte) bitBuffer;
+            bitBuffer >>>= Byte.SIZE;
+            bitCount -= Byte.SIZE;
+        }
+        bitBuffer = 0;
+        bitCount = 0;
+        return position;
+    }
+
+    private void writeBits(long code, int length) {
+        if (bitCount + length >= Long.SIZE) {
+            // The accumulator is full: store it as one word and keep the bits of the code that did not fit.
+            words.putLong(position, bitBuffer | (code << bitCount));
+            position += Long.BYTES;
+            bitBuffer = code >>> (Long.SIZE - bitCount);
+            bitCount += length - Long.SIZE;
+        } else {
+            bitBuffer |= code << bitCount;
+            bitCount += length;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.dushyant.huffman.utils;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import com.dushyant.huffman.exception.HuffmanException;
@@ -14,6 +18,38 @@ public class HuffmanUtility {
 
     public static final int BYTES_PER_HUFFMAN_NODE = 1 + Integer.BYTES; // 1 byte for the 8 bit pattern + 4 bytes for the frequency
 
+    public static final byte BLOCK_FORMAT_VERSION = 3; // follows the MAGIC BYTES of block compressed data, never 0 unlike the first byte of the number of Huffman leaf nodes
+
+    public static final byte MIN_BLOCK_FORMAT_VERSION = 2; // version 2 block bodies have no block type and hold a single bitstream
+
+    public static final byte SHARED_TABLE_FORMAT = 0x7F; // follows the MAGIC BYTES of a message encoded with a shared table
+
+    public static final int SHARED_TABLE_HEADER_SIZE = MAGIC_BYTES.length + 1 + Integer.BYTES + Integer.BYTES; // MAGIC BYTES + format + 4 bytes for the id of the shared table + 4 bytes for the number of original bytes
+
+    public static final byte[] SHARED_TABLE_MAGIC_BYTES = new byte[]{72, 70, 84, 66}; // starts a serialized shared table
+
+    public static final int DEFAULT_SHARED_TABLE_CACHE_SIZE = 64; // decoding tables of shared tables kept by a decompressor
+
+    public static final int BLOCK_HEADER_SIZE = Integer.BYTES + Integer.BYTES; // 4 bytes for the number of original bytes + 4 bytes for the size of the block body
+
+    public static final byte[] DIRECTORY_MAGIC_BYTES = new byte[]{72, 70, 68, 88}; // closes the block directory at the very end of the compressed data
+
+    public static final int DIRECTORY_ENTRY_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES; // 8 bytes for the offset of the block + 4 bytes for the size of the block body + 4 bytes for the number of original bytes
+
+    public static final byte[] CHECKPOINT_MAGIC_BYTES = new byte[]{72, 70, 67, 80}; // closes the checkpoint index right in front of the block directory
+
+    public static final int CHECKPOINT_FOOTER_SIZE = Integer.BYTES + CHECKPOINT_MAGIC_BYTES.length; // 4 bytes for the checkpoint interval + 4 checkpoint magic bytes
+
+    public static final int DIRECTORY_FOOTER_SIZE = Long.BYTES + Integer.BYTES + DIRECTORY_MAGIC_BYTES.length; // 8 bytes for the offset of the directory + 4 bytes for the number of blocks + 4 directory magic bytes
+
+    public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+    public static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    public static final int DEFAULT_MAX_CODE_LENGTH = 11; // every code fits the primary decoding table
+
+    public static final int FILE_BATCH_SIZE = 64 * 1024 * 1024; // original bytes held in memory at once when compressing a file
+
     public static final String DECOMPRESSED_FILE = System.getProperty("java.io.tmpdir") + File.separator + "huffman" + File.separator + "decompressed-file";
 
     public static final String COMPRESSED_FILE = System.getProperty("java.io.tmpdir") + File.separator + "huffman" + File.separator + "compressed-file";
@@ -43,12 +79,47 @@ public class HuffmanUtility {
         }
     }
 
-    public static void writeAllBytes(Byte[] bytes, String filePath) {
-        byte[] data = new byte[bytes.length];
-        for (int index = 0; index < bytes.length; ++index) {
-            data[index] = bytes[index].byteValue();
+    /**
+     * Throws {@link HuffmanException} if the file path is empty.
+     *
+     * @param String, path of a file
+     * @return {@code Path}
+     */
+    public static Path getPath(String filePath) {
+        validateFilePath(filePath);
+        return Paths.get(filePath.trim());
+    }
+
+    /**
+     * The method reads from the channel at the passed in position until the buffer is full, without moving the position of the
+     * channel, so several threads can read from the same channel. Throws {@link EOFException} if the file ends first.
+     *
+     * @param {@code FileChannel}
+     * @param {@code ByteBuffer}, the destination, filled from its position to its limit
+     * @param long, position in the file of the first byte to read
+     */
+    public static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int count = channel.read(buffer, position);
+            if (count < 0) {
+                throw new EOFException("Unexpected end of the file at position " + position);
+            }
+            position += count;
+        }
+    }
+
+    /**
+     * The method writes the buffer to the channel at the passed in position, without moving the position of the channel, so
+     * several threads can write disjoint parts of the same file.
+     *
+     * @param {@code FileChannel}
+     * @param {@code ByteBuffer}, the source, written from its position to its limit
+     * @param long, position in the file of the first byte to write
+     */
+    public static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
         }
-        writeAllBytes(data, filePath);
     }
 
     private static void validateFilePath(String filePath) {
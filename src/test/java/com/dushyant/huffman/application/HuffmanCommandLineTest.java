@@ -0,0 +1,92 @@
+package com.dushyant.huffman.application;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HuffmanCommandLineTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private byte[] inputData;
+
+    private ByteArrayOutputStream standardOutput;
+
+    private ByteArrayOutputStream standardError;
+
+    @Before
+    public void setUp() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        inputData = Files.readAllBytes(path);
+        standardOutput = new ByteArrayOutputStream();
+        standardError = new ByteArrayOutputStream();
+    }
+
+    @Test
+    public void testCompressDirectoryInParallel() throws Exception {
+        Path inputDirectory = temporaryFolder.newFolder("input").toPath();
+        Files.createDirectories(inputDirectory.resolve("nested"));
+        for (int file = 0; file < 5; ++file) {
+            Files.write(inputDirectory.resolve(file % 2 == 0 ? "sample" + file + ".txt" : "nested/sample" + file + ".txt"), inputData);
+        }
+        Path compressedDirectory = temporaryFolder.getRoot().toPath().resolve("compressed/not/yet/created");
+        Path decompressedDirectory = temporaryFolder.getRoot().toPath().resolve("decompressed");
+
+        assertEquals("Compress", HuffmanCommandLine.EXIT_SUCCESS, run(null, "compress", "-j", "3", "-b", "1000", "-o", compressedDirectory.toString(), inputDirectory.toString()));
+        assertTrue("Summary of every file", standardOutput.toString().contains("5 files"));
+        assertTrue("Directories created", Files.isRegularFile(compressedDirectory.resolve("nested/sample1.txt.huf")));
+        assertEquals("Test", HuffmanCommandLine.EXIT_SUCCESS, run(null, "test", compressedDirectory + "/**.huf"));
+        assertEquals("Decompress", HuffmanCommandLine.EXIT_SUCCESS, run(null, "decompress", "-o", decompressedDirectory.toString(), compressedDirectory + "/*/*.huf"));
+        assertArrayEquals("Decompressed file", inputData, Files.readAllBytes(decompressedDirectory.resolve("nested/sample3.txt")));
+        assertTrue("Only the files matching the glob", !Files.exists(decompressedDirectory.resolve("sample0.txt")));
+    }
+
+    @Test
+    public void testCompressSingleFileNextToInput() throws Exception {
+        Path inputFile = temporaryFolder.newFile("sample.txt").toPath();
+        Files.write(inputFile, inputData);
+        assertEquals(HuffmanCommandLine.EXIT_SUCCESS, run(null, "compress", inputFile.toString()));
+        Files.delete(inputFile);
+        assertEquals(HuffmanCommandLine.EXIT_SUCCESS, run(null, "decompress", "-j", "1", inputFile + ".huf"));
+        assertArrayEquals(inputData, Files.readAllBytes(inputFile));
+        assertEquals("Bench", HuffmanCommandLine.EXIT_SUCCESS, run(null, "bench", inputFile.toString()));
+        assertTrue("Throughput", standardOutput.toString().contains("MB/s"));
+    }
+
+    @Test
+    public void testPipeStandardStreams() {
+        assertEquals(HuffmanCommandLine.EXIT_SUCCESS, run(inputData, "compress", "-"));
+        byte[] compressedData = standardOutput.toByteArray();
+        assertTrue("Summary on the standard error", standardError.toString().contains("<stdin>"));
+
+        standardOutput.reset();
+        assertEquals(HuffmanCommandLine.EXIT_SUCCESS, run(compressedData, "decompress", "-", "-o", "-"));
+        assertArrayEquals(inputData, standardOutput.toByteArray());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertEquals(HuffmanCommandLine.EXIT_USAGE, run(null, "shrink", "file"));
+        assertEquals(HuffmanCommandLine.EXIT_USAGE, run(null, "compress", "-j", "0", "file"));
+        assertEquals(HuffmanCommandLine.EXIT_FAILURE, run(null, "compress", temporaryFolder.getRoot() + "/missing"));
+    }
+
+    private int run(byte[] standardInput, String... args) {
+        HuffmanCommandLine commandLine = new HuffmanCommandLine(new ByteArrayInputStream(standardInput == null ? new byte[0] : standardInput),
+                new PrintStream(standardOutput), new PrintStream(standardError));
+        return commandLine.run(args);
+    }
+}
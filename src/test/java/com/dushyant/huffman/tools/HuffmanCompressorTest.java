@@ -1,20 +1,51 @@
 package com.dushyant.huffman.tools;
 
-import static com.dushyant.huffman.utils.HuffmanUtility.BYTES_PER_HUFFMAN_NODE;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_ENTRY_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_FOOTER_SIZE;
 import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.BitSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.BlockDirectory;
+import com.dushyant.huffman.model.BlockSplitter;
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.model.FrequencyTable;
+import com.dushyant.huffman.model.HuffmanCodeLengths;
+import com.dushyant.huffman.model.HuffmanInternalNode;
+import com.dushyant.huffman.model.HuffmanNode;
+import com.dushyant.huffman.model.HuffmanTree;
 
 public class HuffmanCompressorTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private HuffmanCompressor huffmanCompressor;
 
     private byte[] inputData;
@@ -29,16 +60,520 @@ public class HuffmanCompressorTest {
     @Test
     public void testCompress() {
         byte[] compressedData = huffmanCompressor.compress(inputData);
-        assertEquals("Size of compressed data", 2200, compressedData.length);
+        assertEquals("Size of compressed data", 2056, compressedData.length);
         byte[] actualMagicBytes = ByteBuffer.wrap(compressedData, 0, MAGIC_BYTES.length).array();
         for (int index = 0; index < MAGIC_BYTES.length; ++index) {
             assertEquals("Magic byte", MAGIC_BYTES[index], actualMagicBytes[index]);
         }
-        int numberOfHuffmanLeafNodes = ByteBuffer.wrap(compressedData, MAGIC_BYTES.length, Integer.BYTES).getInt();
-        assertEquals("Number of different 8 bit patterns", 51, numberOfHuffmanLeafNodes);
-        int sizeofHeaderInBytes = MAGIC_BYTES.length + Integer.BYTES + BYTES_PER_HUFFMAN_NODE * numberOfHuffmanLeafNodes;
-        assertEquals("Size of header in bytes", 261, sizeofHeaderInBytes);
-        int sizeofHuffmanEncodingInBits = BitSet.valueOf(ByteBuffer.wrap(compressedData, sizeofHeaderInBytes, compressedData.length - sizeofHeaderInBytes)).length();
-        assertEquals("", 15511, sizeofHuffmanEncodingInBits);
+        assertEquals("Format version", BLOCK_FORMAT_VERSION, compressedData[MAGIC_BYTES.length]);
+
+        ByteBuffer blockHeader = ByteBuffer.wrap(compressedData, MAGIC_BYTES.length + 1, BLOCK_HEADER_SIZE);
+        assertEquals("Number of original bytes in block", inputData.length, blockHeader.getInt());
+        int sizeofBlockBodyInBytes = blockHeader.getInt();
+        int bodyOffset = blockHeader.position();
+        assertEquals("Block type", HuffmanBlockEncoder.HUFFMAN_BLOCK, compressedData[bodyOffset]);
+        int sizeofTableInBytes = new HuffmanBlockDecoder().readTable(compressedData, bodyOffset + 1, sizeofBlockBodyInBytes - 1);
+        assertEquals("Size of code length table in bytes", 64, sizeofTableInBytes);
+        assertEquals("Size of Huffman encoding in bytes", 1940, sizeofBlockBodyInBytes - 1 - sizeofTableInBytes);
+
+        ByteBuffer directoryFooter = ByteBuffer.wrap(compressedData, compressedData.length - DIRECTORY_FOOTER_SIZE, DIRECTORY_FOOTER_SIZE);
+        long directoryOffset = directoryFooter.getLong();
+        assertEquals("Offset of block directory", bodyOffset + sizeofBlockBodyInBytes + BLOCK_HEADER_SIZE, directoryOffset);
+        assertEquals("Number of blocks", 1, directoryFooter.getInt());
+        ByteBuffer directoryEntry = ByteBuffer.wrap(compressedData, (int) directoryOffset, DIRECTORY_ENTRY_SIZE);
+        assertEquals("Offset of block", MAGIC_BYTES.length + 1, directoryEntry.getLong());
+        assertEquals("Size of block body", sizeofBlockBodyInBytes, directoryEntry.getInt());
+        assertEquals("Number of original bytes", inputData.length, directoryEntry.getInt());
+    }
+
+    @Test
+    public void testCompressCodeLengthTableOfUniformData() {
+        byte[] codeLengths = new byte[256];
+        Arrays.fill(codeLengths, (byte) 8);
+        // One code length followed by two runs repeating it cover the 256 bit patterns.
+        assertEquals("Size of code length table in bytes", 3, HuffmanBlockEncoder.writeCodeLengthTable(codeLengths, new byte[256]));
+    }
+
+    @Test
+    public void testCompressIncompressibleData() {
+        byte[] uniformData = new byte[256 * 16];
+        for (int index = 0; index < uniformData.length; ++index) {
+            uniformData[index] = (byte) index;
+        }
+        byte[] randomData = new byte[100000];
+        new Random(42).nextBytes(randomData);
+        byte[] singleBitPattern = new byte[100000];
+        Arrays.fill(singleBitPattern, (byte) 'a');
+
+        int bodyOffset = MAGIC_BYTES.length + 1 + BLOCK_HEADER_SIZE;
+        for (byte[] incompressibleData : Arrays.asList(uniformData, randomData)) {
+            byte[] compressedData = huffmanCompressor.compress(incompressibleData);
+            assertEquals("Block type", HuffmanBlockEncoder.RAW_BLOCK, compressedData[bodyOffset]);
+            assertEquals("Size of block body in bytes", 1 + incompressibleData.length, ByteBuffer.wrap(compressedData, bodyOffset - Integer.BYTES, Integer.BYTES).getInt());
+            assertArrayEquals("Decompressed data", incompressibleData, new HuffmanDecompressor().decompress(compressedData));
+        }
+        // random data is not worth a Huffman Tree, whatever the size of the block
+        for (int length : new int[]{1024, 65536, randomData.length}) {
+            HuffmanBlockEncoder blockEncoder = new HuffmanBlockEncoder(new CompressionSettings());
+            assertEquals("Raw block of " + length + " bytes", 1 + length, blockEncoder.prepare(randomData, 0, length));
+            assertArrayEquals("No code lengths built", new byte[256], blockEncoder.getCodeLengths());
+        }
+
+        byte[] compressedData = huffmanCompressor.compress(singleBitPattern);
+        assertEquals("Block type", HuffmanBlockEncoder.RUN_BLOCK, compressedData[bodyOffset]);
+        assertEquals("Size of block body in bytes", 2, ByteBuffer.wrap(compressedData, bodyOffset - Integer.BYTES, Integer.BYTES).getInt());
+        assertArrayEquals("Decompressed data", singleBitPattern, new HuffmanDecompressor().decompress(compressedData));
+    }
+
+    @Test
+    public void testCompressInParallel() throws Exception {
+        byte[] largeInputData = new byte[40 * inputData.length + 123];
+        for (int offset = 0; offset < largeInputData.length; offset += inputData.length) {
+            System.arraycopy(inputData, 0, largeInputData, offset, Math.min(inputData.length, largeInputData.length - offset));
+        }
+
+        ForkJoinPool singleThread = new ForkJoinPool(1);
+        ForkJoinPool fourThreads = new ForkJoinPool(4);
+        try {
+            byte[] compressedData = new HuffmanCompressor(singleThread, 4096).compress(largeInputData);
+            assertArrayEquals("Compressed data independent of the number of threads", compressedData, new HuffmanCompressor(fourThreads, 4096).compress(largeInputData));
+            assertEquals("Format version", BLOCK_FORMAT_VERSION, compressedData[MAGIC_BYTES.length]);
+
+            assertArrayEquals("Decompressed data", largeInputData, new HuffmanDecompressor().decompress(compressedData));
+
+            ByteArrayOutputStream streamedData = new ByteArrayOutputStream();
+            try (HuffmanInputStream huffmanInputStream = new HuffmanInputStream(new ByteArrayInputStream(compressedData))) {
+                byte[] buffer = new byte[8192];
+                int count;
+                while ((count = huffmanInputStream.read(buffer)) != -1) {
+                    streamedData.write(buffer, 0, count);
+                }
+            }
+            assertArrayEquals("Blocks readable as a stream", largeInputData, streamedData.toByteArray());
+        } finally {
+            singleThread.shutdown();
+            fourThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompressSingleLargeBlockInParallel() {
+        byte[] largeInputData = new byte[3 * HuffmanBlockEncoder.PARALLEL_COUNT_PART_SIZE + 123];
+        for (int offset = 0; offset < largeInputData.length; offset += inputData.length) {
+            System.arraycopy(inputData, 0, largeInputData, offset, Math.min(inputData.length, largeInputData.length - offset));
+        }
+
+        FrequencyTable frequencies = new FrequencyTable();
+        for (byte bitPattern : largeInputData) {
+            frequencies.incrementCount(bitPattern);
+        }
+        FrequencyTable parallelFrequencies = HuffmanBlockEncoder.countInParallel(null, largeInputData, 0, largeInputData.length);
+        assertArrayEquals("Frequencies counted in parts", frequencies.getFrequencies(), parallelFrequencies.getFrequencies());
+
+        ForkJoinPool fourThreads = new ForkJoinPool(4);
+        try {
+            CompressionSettings settings = new CompressionSettings(4 * HuffmanBlockEncoder.PARALLEL_COUNT_PART_SIZE);
+            byte[] compressedData = new HuffmanCompressor(fourThreads, settings).compress(largeInputData);
+            assertArrayEquals("Compressed data independent of the number of threads", new HuffmanCompressor(null, settings).compress(largeInputData), compressedData);
+        } finally {
+            fourThreads.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompressFile() throws Exception {
+        byte[] largeInputData = new byte[10 * inputData.length + 7];
+        for (int offset = 0; offset < largeInputData.length; offset += inputData.length) {
+            System.arraycopy(inputData, 0, largeInputData, offset, Math.min(inputData.length, largeInputData.length - offset));
+        }
+        Path originalFile = temporaryFolder.newFile("original").toPath();
+        Path compressedFile = temporaryFolder.newFile("compressed").toPath();
+        Files.write(originalFile, largeInputData);
+
+        ForkJoinPool fourThreads = new ForkJoinPool(4);
+        try {
+            new HuffmanCompressor(fourThreads, 4096).compress(originalFile, compressedFile);
+            assertArrayEquals("Same compressed data as from memory", new HuffmanCompressor(null, 4096).compress(largeInputData), Files.readAllBytes(compressedFile));
+        } finally {
+            fourThreads.shutdown();
+        }
+
+        Files.write(originalFile, new byte[0]);
+        huffmanCompressor.compress(originalFile, compressedFile);
+        assertArrayEquals("Empty file", huffmanCompressor.compress(new byte[0]), Files.readAllBytes(compressedFile));
+    }
+
+    @Test
+    public void testAppend() throws Exception {
+        byte[] largeInputData = new byte[10 * inputData.length + 7];
+        for (int offset = 0; offset < largeInputData.length; offset += inputData.length) {
+            System.arraycopy(inputData, 0, largeInputData, offset, Math.min(inputData.length, largeInputData.length - offset));
+        }
+        CompressionSettings settings = new CompressionSettings(4096);
+        settings.setCheckpointInterval(100);
+        HuffmanCompressor blockCompressor = new HuffmanCompressor(null, settings);
+        Path originalFile = temporaryFolder.newFile("original").toPath();
+        Path compressedFile = temporaryFolder.newFile("compressed").toPath();
+
+        // Appending whole blocks gives the same data as compressing everything at once.
+        int split = 3 * 4096;
+        Files.write(compressedFile, blockCompressor.compress(Arrays.copyOf(largeInputData, split)));
+        Files.write(originalFile, Arrays.copyOfRange(largeInputData, split, 6 * 4096));
+        blockCompressor.append(originalFile, compressedFile);
+        blockCompressor.append(Arrays.copyOfRange(largeInputData, 6 * 4096, largeInputData.length), compressedFile);
+        blockCompressor.append(new byte[0], compressedFile);
+        assertArrayEquals("Same compressed data as at once", blockCompressor.compress(largeInputData), Files.readAllBytes(compressedFile));
+
+        // Appending to a stream keeps its checkpoint-less blocks and adds a directory.
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(stream, 1000)) {
+            huffmanOutputStream.write(largeInputData, 0, 2500);
+        }
+        Files.write(compressedFile, stream.toByteArray());
+        blockCompressor.append(Arrays.copyOfRange(largeInputData, 2500, largeInputData.length), compressedFile);
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        byte[] compressedData = Files.readAllBytes(compressedFile);
+        assertArrayEquals("Appended to a stream", largeInputData, huffmanDecompressor.decompress(compressedData));
+        assertArrayEquals("Range across the appended data", Arrays.copyOfRange(largeInputData, 2000, 9000), huffmanDecompressor.decompressRange(compressedFile, 2000, 7000));
+        try (HuffmanInputStream huffmanInputStream = new HuffmanInputStream(new ByteArrayInputStream(compressedData))) {
+            ByteArrayOutputStream decompressedData = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read; (read = huffmanInputStream.read(buffer)) > 0; ) {
+                decompressedData.write(buffer, 0, read);
+            }
+            assertArrayEquals("Appended data read as a stream", largeInputData, decompressedData.toByteArray());
+        }
+
+        Files.write(compressedFile, new byte[]{MAGIC_BYTES[0], MAGIC_BYTES[1], 0, 0, 0, 0});
+        try {
+            blockCompressor.append(largeInputData, compressedFile);
+            fail("Legacy data appended to");
+        } catch (HuffmanException huffmanException) {
+            assertArrayEquals("Legacy data untouched", new byte[]{MAGIC_BYTES[0], MAGIC_BYTES[1], 0, 0, 0, 0}, Files.readAllBytes(compressedFile));
+        }
+    }
+
+    @Test
+    public void testCompressWithMaxCodeLength() {
+        byte[] skewedData = fibonacciData(24);
+        HuffmanBlockEncoder unlimitedEncoder = new HuffmanBlockEncoder(Integer.MAX_VALUE, false);
+        unlimitedEncoder.prepare(skewedData, 0, skewedData.length);
+        assertEquals("Unrestricted codes", unlimitedEncoder.getSizeofUnlimitedEncodingInBits(), unlimitedEncoder.getSizeofEncodingInBits());
+
+        for (int maxCodeLength = CompressionSettings.MIN_CODE_LENGTH_LIMIT; maxCodeLength <= CompressionSettings.MAX_CODE_LENGTH_LIMIT; ++maxCodeLength) {
+            CompressionSettings settings = new CompressionSettings();
+            settings.setMaxCodeLength(maxCodeLength);
+            byte[] compressedData = new HuffmanCompressor(null, settings).compress(skewedData);
+            int bodyOffset = MAGIC_BYTES.length + 1 + BLOCK_HEADER_SIZE;
+            HuffmanBlockDecoder blockDecoder = new HuffmanBlockDecoder();
+            blockDecoder.readTable(compressedData, bodyOffset + 1, compressedData.length - bodyOffset - 1);
+            for (byte codeLength : blockDecoder.getCodeLengths()) {
+                assertTrue("Code length within " + maxCodeLength + " bits", codeLength <= maxCodeLength);
+            }
+
+            HuffmanBlockEncoder blockEncoder = new HuffmanBlockEncoder(maxCodeLength, false);
+            blockEncoder.prepare(skewedData, 0, skewedData.length);
+            assertEquals("Unrestricted size of encoding", unlimitedEncoder.getSizeofEncodingInBits(), blockEncoder.getSizeofUnlimitedEncodingInBits());
+            assertTrue("Length limited encoding never shorter", blockEncoder.getSizeofEncodingInBits() >= unlimitedEncoder.getSizeofEncodingInBits());
+        }
+    }
+
+    @Test
+    public void testCompressWithContextTables() {
+        byte[] largeInputData = new byte[10 * inputData.length];
+        for (int offset = 0; offset < largeInputData.length; offset += inputData.length) {
+            System.arraycopy(inputData, 0, largeInputData, offset, inputData.length);
+        }
+        CompressionSettings settings = new CompressionSettings(16384);
+        settings.setCheckpointInterval(100);
+        byte[] singleTableData = new HuffmanCompressor(null, settings).compress(largeInputData);
+        settings.setNumberOfContextTables(8);
+        HuffmanMetrics huffmanMetrics = new HuffmanMetrics();
+        HuffmanCompressor contextCompressor = new HuffmanCompressor(null, settings);
+        contextCompressor.setMetricsListener(huffmanMetrics);
+        byte[] contextData = contextCompressor.compress(largeInputData);
+        assertTrue("Context tables compress better: " + contextData.length + " against " + singleTableData.length, contextData.length < 0.95 * singleTableData.length);
+        assertEquals("Blocks of at least 4 KB use context tables", 2, huffmanMetrics.getLastCompression().getNumberOfContextBlocks());
+
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        assertArrayEquals("Round trip", largeInputData, huffmanDecompressor.decompress(contextData));
+        assertArrayEquals("Range", Arrays.copyOfRange(largeInputData, 16000, 34000), huffmanDecompressor.decompressRange(contextData, 16000, 18000));
+
+        byte[] uniformData = new byte[8192];
+        for (int index = 0; index < uniformData.length; ++index) {
+            uniformData[index] = (byte) (index % 7);
+        }
+        assertArrayEquals("Contexts with a single successor", uniformData, huffmanDecompressor.decompress(contextCompressor.compress(uniformData)));
+        assertArrayEquals("Tables rebuilt in reused encoders", contextData, contextCompressor.compress(largeInputData));
+    }
+
+    @Test
+    public void testCompressWithDigrams() {
+        byte[] largeInputData = new byte[40 * inputData.length];
+        for (int offset = 0; offset < largeInputData.length; offset += inputData.length) {
+            System.arraycopy(inputData, 0, largeInputData, offset, inputData.length);
+        }
+        CompressionSettings settings = new CompressionSettings(65536);
+        settings.setCheckpointInterval(100);
+        byte[] singleByteData = new HuffmanCompressor(null, settings).compress(largeInputData);
+        settings.setNumberOfDigrams(CompressionSettings.MAX_DIGRAMS);
+        HuffmanMetrics huffmanMetrics = new HuffmanMetrics();
+        HuffmanCompressor digramCompressor = new HuffmanCompressor(null, settings);
+        digramCompressor.setMetricsListener(huffmanMetrics);
+        byte[] digramData = digramCompressor.compress(largeInputData);
+        assertTrue("Digrams compress better: " + digramData.length + " against " + singleByteData.length, digramData.length < 0.95 * singleByteData.length);
+        assertEquals("Blocks of at least 4 KB use digrams", 3, huffmanMetrics.getLastCompression().getNumberOfDigramBlocks());
+
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        assertArrayEquals("Round trip", largeInputData, huffmanDecompressor.decompress(digramData));
+        for (int from : new int[]{0, 1, 65000, 65001, 65535}) {
+            for (int rangeLength : new int[]{0, 1, 2, 70000 - from}) {
+                assertArrayEquals("Range " + from + " + " + rangeLength, Arrays.copyOfRange(largeInputData, from, from + rangeLength),
+                        huffmanDecompressor.decompressRange(digramData, from, rangeLength));
+            }
+        }
+
+        byte[] pairedData = new byte[8193];
+        for (int index = 0; index < pairedData.length; ++index) {
+            pairedData[index] = (byte) (index % 2 == 0 ? 'a' + index / 2 % 3 : ' ');
+        }
+        assertArrayEquals("Digrams only, odd length", pairedData, huffmanDecompressor.decompress(digramCompressor.compress(pairedData)));
+        assertArrayEquals("Tables rebuilt in reused encoders", digramData, digramCompressor.compress(largeInputData));
+        settings.setMaxCodeLength(CompressionSettings.MIN_CODE_LENGTH_LIMIT);
+        assertArrayEquals("Digrams within 8 bit codes", largeInputData, huffmanDecompressor.decompress(new HuffmanCompressor(null, settings).compress(largeInputData)));
+    }
+
+    @Test
+    public void testCompressWithAdaptiveBlocks() throws Exception {
+        // text, then skewed binary records, then text again: one table per section beats one table for all
+        byte[] mixedData = new byte[3 * 40960];
+        Random random = new Random(7);
+        for (int index = 0; index < mixedData.length; ++index) {
+            boolean binary = index >= 40960 && index < 81920;
+            mixedData[index] = binary ? (byte) (128 + random.nextInt(4) * random.nextInt(32)) : inputData[index % inputData.length];
+        }
+        CompressionSettings settings = new CompressionSettings(1024 * 1024);
+        byte[] fixedData = new HuffmanCompressor(null, settings).compress(mixedData);
+        settings.setAdaptiveBlocks(true);
+        HuffmanCompressor adaptiveCompressor = new HuffmanCompressor(null, settings);
+        byte[] adaptiveData = adaptiveCompressor.compress(mixedData);
+        assertTrue("Adaptive blocks compress better: " + adaptiveData.length + " against " + fixedData.length, adaptiveData.length < 0.9 * fixedData.length);
+
+        BlockDirectory blockDirectory = HuffmanContainer.readDirectory(ByteBuffer.wrap(adaptiveData));
+        assertEquals("A block per section", 3, blockDirectory.getNumberOfBlocks());
+        assertEquals("Blocks end with the sections", 40960, blockDirectory.getNumberOfOriginalBytes(0));
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        assertArrayEquals("Round trip", mixedData, huffmanDecompressor.decompress(adaptiveData));
+
+        Path originalFile = temporaryFolder.newFile("mixed.bin").toPath();
+        Path compressedFile = temporaryFolder.newFile("mixed.bin.huf").toPath();
+        Files.write(originalFile, mixedData);
+        adaptiveCompressor.compress(originalFile, compressedFile);
+        assertArrayEquals("Same as in memory", adaptiveData, Files.readAllBytes(compressedFile));
+
+        // sections keep being found past the blocks the splitter keeps open
+        byte[] longMixedData = new byte[3 * BlockSplitter.WINDOW_SIZE * BlockSplitter.SEGMENT_SIZE];
+        for (int index = 0; index < longMixedData.length; ++index) {
+            boolean binary = index / 40960 % 2 == 1;
+            longMixedData[index] = binary ? (byte) (128 + random.nextInt(4) * random.nextInt(32)) : inputData[index % inputData.length];
+        }
+        int[] blockLengths = BlockSplitter.split(longMixedData, 0, longMixedData.length, 1024 * 1024);
+        assertEquals("A block per section", (longMixedData.length + 40959) / 40960, blockLengths.length);
+        for (int block = 0; block < blockLengths.length - 1; ++block) {
+            assertEquals("Blocks end with the sections", 40960, blockLengths[block]);
+        }
+
+        settings.setBlockSize(16384);
+        byte[] smallBlocksData = new HuffmanCompressor(null, settings).compress(mixedData);
+        blockDirectory = HuffmanContainer.readDirectory(ByteBuffer.wrap(smallBlocksData));
+        for (int block = 0; block < blockDirectory.getNumberOfBlocks(); ++block) {
+            assertTrue("Block size is the largest block", blockDirectory.getNumberOfOriginalBytes(block) <= 16384);
+        }
+        assertArrayEquals("Round trip of small blocks", mixedData, huffmanDecompressor.decompress(smallBlocksData));
+    }
+
+    @Test
+    public void testCompressAtFastLevel() throws Exception {
+        CompressionSettings settings = new CompressionSettings(1024);
+        settings.setLevel(CompressionSettings.FAST_LEVEL);
+        HuffmanBlockEncoder fastEncoder = new HuffmanBlockEncoder(settings);
+        HuffmanBlockEncoder defaultEncoder = new HuffmanBlockEncoder(new CompressionSettings(1024));
+        fastEncoder.prepare(inputData, 0, 3000);
+        // a kilobyte of the same text is coded with the table of the previous block, never smaller than with a table of its own
+        fastEncoder.prepare(inputData, 1024, 1024, fastEncoder);
+        defaultEncoder.prepare(inputData, 1024, 1024);
+        assertTrue("No table built", fastEncoder.isTableReused());
+        assertTrue("Previous table", fastEncoder.getSizeofEncodingInBits() >= defaultEncoder.getSizeofEncodingInBits());
+        assertTrue("Within the tolerance", fastEncoder.getSizeofEncodingInBits() <= 1.05 * defaultEncoder.getSizeofEncodingInBits());
+
+        HuffmanCompressor fastCompressor = new HuffmanCompressor(null, settings);
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        byte[] skewedData = fibonacciData(24);
+        byte[][] messages = {inputData, Arrays.copyOf(inputData, 100), skewedData, new byte[]{0, 1, 2, (byte) 255}, inputData};
+        for (byte[] message : messages) {
+            assertArrayEquals("Round trip", message, huffmanDecompressor.decompress(fastCompressor.compress(message)));
+        }
+
+        // within a call every block but the first of a run is offered the table of the block before it, also past the encoders kept per thread
+        byte[] textData = new byte[24 * 4096];
+        for (int offset = 0; offset < textData.length; offset += inputData.length) {
+            System.arraycopy(inputData, 0, textData, offset, Math.min(inputData.length, textData.length - offset));
+        }
+        CompressionSettings textSettings = new CompressionSettings(4096);
+        textSettings.setLevel(CompressionSettings.FAST_LEVEL);
+        HuffmanCompressor textCompressor = new HuffmanCompressor(null, textSettings);
+        textCompressor.compress(skewedData);
+        byte[] fastData = textCompressor.compress(textData);
+        BlockDirectory blockDirectory = HuffmanContainer.readDirectory(ByteBuffer.wrap(fastData));
+        HuffmanBlockEncoder previousEncoder = null;
+        int numberOfReusedTables = 0;
+        for (int block = 0; block < blockDirectory.getNumberOfBlocks(); ++block) {
+            HuffmanBlockEncoder chainedEncoder = new HuffmanBlockEncoder(textSettings);
+            if (block % HuffmanCompressor.TABLE_REUSE_RUN == 0) {
+                previousEncoder = null;
+            }
+            assertEquals("Block " + block, chainedEncoder.prepare(textData, block * 4096, 4096, previousEncoder), blockDirectory.getSizeofBlockBody(block));
+            if (chainedEncoder.isTableReused()) {
+                ++numberOfReusedTables;
+            }
+            previousEncoder = chainedEncoder;
+        }
+        assertTrue("Tables reused within the call: " + numberOfReusedTables, numberOfReusedTables > 16);
+        assertArrayEquals("Same as from a fresh compressor", new HuffmanCompressor(null, textSettings).compress(textData), fastData);
+        ForkJoinPool fourThreads = new ForkJoinPool(4);
+        try {
+            assertArrayEquals("Same with threads", fastData, new HuffmanCompressor(fourThreads, textSettings).compress(textData));
+        } finally {
+            fourThreads.shutdown();
+        }
+        Path originalFile = temporaryFolder.newFile("text.txt").toPath();
+        Path compressedFile = temporaryFolder.newFile("text.txt.huf").toPath();
+        Files.write(originalFile, textData);
+        textCompressor.compress(originalFile, compressedFile);
+        assertArrayEquals("Same as in memory", fastData, Files.readAllBytes(compressedFile));
+        assertArrayEquals("Round trip of reused tables", textData, huffmanDecompressor.decompress(fastData));
+
+        // over-long codes are shortened by the heuristic, which codes no better than package-merge
+        HuffmanBlockEncoder limitedEncoder = new HuffmanBlockEncoder(CompressionSettings.MIN_CODE_LENGTH_LIMIT, false, 0, 1, CompressionSettings.FAST_LEVEL);
+        HuffmanBlockEncoder packageMergeEncoder = new HuffmanBlockEncoder(CompressionSettings.MIN_CODE_LENGTH_LIMIT, false);
+        limitedEncoder.prepare(skewedData, 0, skewedData.length);
+        packageMergeEncoder.prepare(skewedData, 0, skewedData.length);
+        assertTrue("Heuristic length limit", limitedEncoder.getSizeofEncodingInBits() >= packageMergeEncoder.getSizeofEncodingInBits());
+        // a reused table keeps the size its unrestricted codes would have produced
+        HuffmanBlockEncoder firstEncoder = new HuffmanBlockEncoder(CompressionSettings.MAX_CODE_LENGTH_LIMIT, false, 0, 1, CompressionSettings.FAST_LEVEL);
+        HuffmanBlockEncoder reusingEncoder = new HuffmanBlockEncoder(CompressionSettings.MAX_CODE_LENGTH_LIMIT, false, 0, 1, CompressionSettings.FAST_LEVEL);
+        firstEncoder.prepare(skewedData, 0, skewedData.length);
+        reusingEncoder.prepare(skewedData, 0, skewedData.length, firstEncoder);
+        assertTrue("Limited table reused", reusingEncoder.isTableReused());
+        assertTrue("Penalty of the limited table", firstEncoder.getSizeofUnlimitedEncodingInBits() < firstEncoder.getSizeofEncodingInBits());
+        assertEquals("Penalty of the reused table", firstEncoder.getSizeofUnlimitedEncodingInBits(), reusingEncoder.getSizeofUnlimitedEncodingInBits());
+        assertEquals("Size with the reused table", firstEncoder.getSizeofEncodingInBits(), reusingEncoder.getSizeofEncodingInBits());
+        settings.setMaxCodeLength(CompressionSettings.MIN_CODE_LENGTH_LIMIT);
+        settings.setBlockSize(skewedData.length);
+        assertArrayEquals("Round trip of limited codes", skewedData, huffmanDecompressor.decompress(new HuffmanCompressor(null, settings).compress(skewedData)));
+    }
+
+    @Test
+    public void testCompressAtMaxLevel() throws Exception {
+        byte[] mixedData = new byte[3 * 40000];
+        Random random = new Random(11);
+        for (int index = 0; index < mixedData.length; ++index) {
+            boolean binary = index >= 40000 && index < 80000;
+            mixedData[index] = binary ? (byte) (128 + random.nextInt(4) * random.nextInt(32)) : inputData[index % inputData.length];
+        }
+        CompressionSettings settings = new CompressionSettings(65536);
+        settings.setAdaptiveBlocks(true);
+        byte[] adaptiveData = new HuffmanCompressor(null, settings).compress(mixedData);
+        settings.setLevel(CompressionSettings.MAX_LEVEL);
+        HuffmanCompressor maxCompressor = new HuffmanCompressor(null, settings);
+        byte[] maxData = maxCompressor.compress(mixedData);
+        assertTrue("Max level compresses better: " + maxData.length + " against " + adaptiveData.length, maxData.length < adaptiveData.length);
+        assertArrayEquals("Round trip", mixedData, new HuffmanDecompressor().decompress(maxData));
+
+        Path originalFile = temporaryFolder.newFile("mixed.bin").toPath();
+        Path compressedFile = temporaryFolder.newFile("mixed.bin.huf").toPath();
+        Files.write(originalFile, mixedData);
+        maxCompressor.compress(originalFile, compressedFile);
+        assertArrayEquals("Same as in memory", maxData, Files.readAllBytes(compressedFile));
+    }
+
+    @Test
+    public void testCompressorsSharedAcrossThreads() throws Exception {
+        CompressionSettings settings = new CompressionSettings(4096);
+        settings.setNumberOfContextTables(4);
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            // the callers share the instances, whose blocks also go to a pool that runs calls of its own
+            HuffmanCompressor sharedCompressor = new HuffmanCompressor(forkJoinPool, settings);
+            HuffmanDecompressor sharedDecompressor = new HuffmanDecompressor(forkJoinPool);
+            List<Callable<Integer>> calls = new ArrayList<>();
+            for (int caller = 0; caller < 16; ++caller) {
+                Random random = new Random(caller);
+                calls.add(() -> {
+                    for (int message = 0; message < 40; ++message) {
+                        int offset = random.nextInt(inputData.length);
+                        byte[] originalData = Arrays.copyOfRange(inputData, offset, offset + random.nextInt(inputData.length - offset + 1));
+                        byte[] expected = new HuffmanCompressor(null, settings).compress(originalData);
+                        byte[] compressedData = random.nextBoolean() ? sharedCompressor.compress(originalData)
+                                : forkJoinPool.submit(() -> sharedCompressor.compress(originalData)).get();
+                        assertArrayEquals("Same as an own compressor", expected, compressedData);
+                        assertArrayEquals("Round trip", originalData, sharedDecompressor.decompress(compressedData));
+                    }
+                    return 0;
+                });
+            }
+            for (Future<Integer> result : callers.invokeAll(calls)) {
+                result.get();
+            }
+        } finally {
+            callers.shutdown();
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Test
+    public void testCodeLengthsWithoutHuffmanNodes() {
+        for (byte[] data : Arrays.asList(inputData, fibonacciData(24), "abbcccddddeeeee".getBytes())) {
+            FrequencyTable frequencies = new FrequencyTable();
+            frequencies.count(data, 0, data.length);
+            int[] codeLengths = new int[256];
+            int longestCodeLength = HuffmanCodeLengths.computeCodeLengths(frequencies.getFrequencies(), codeLengths);
+
+            long sizeofEncodingInBits = 0;
+            double kraftSum = 0;
+            for (int bitPattern = 0; bitPattern < 256; ++bitPattern) {
+                sizeofEncodingInBits += frequencies.getFrequency(bitPattern) * codeLengths[bitPattern];
+                kraftSum += codeLengths[bitPattern] > 0 ? Math.pow(2, -codeLengths[bitPattern]) : 0;
+                assertTrue("Longest code length", codeLengths[bitPattern] <= longestCodeLength);
+            }
+            assertEquals("Complete prefix code", 1.0, kraftSum, 1e-12);
+            assertEquals("Same size as the Huffman Tree", sizeofEncodingInBits(new HuffmanTree(frequencies).getTree().poll(), 0), sizeofEncodingInBits);
+        }
+    }
+
+    private static long sizeofEncodingInBits(HuffmanNode node, int depth) {
+        if (node instanceof HuffmanInternalNode) {
+            return sizeofEncodingInBits(((HuffmanInternalNode) node).getLeftChild(), depth + 1) + sizeofEncodingInBits(((HuffmanInternalNode) node).getRightChild(), depth + 1);
+        }
+        return node.frequency() * depth;
+    }
+
+    /**
+     * @return byte[], bit patterns 0 to (numberOfBitPatterns - 1) with Fibonacci frequencies, the most skewed Huffman Tree
+     */
+    static byte[] fibonacciData(int numberOfBitPatterns) {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int previous = 1;
+        int current = 1;
+        for (int bitPattern = 0; bitPattern < numberOfBitPatterns; ++bitPattern) {
+            for (int count = 0; count < current; ++count) {
+                data.write(bitPattern);
+            }
+            int next = previous + current;
+            previous = current;
+            current = next;
+        }
+        return data.toByteArray();
     }
-}
\ No newline at end of file
+}
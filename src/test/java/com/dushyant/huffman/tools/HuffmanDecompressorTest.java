@@ -1,19 +1,37 @@
 package com.dushyant.huffman.tools;
 
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.DIRECTORY_FOOTER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.dushyant.huffman.exception.HuffmanException;
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.model.HuffmanCodeTable;
+import com.dushyant.huffman.model.HuffmanDecodingTable;
 
 public class HuffmanDecompressorTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private HuffmanDecompressor huffmanDecompressor;
 
     private byte[] compressedData;
@@ -32,10 +50,281 @@ public class HuffmanDecompressorTest {
     }
 
     @Test
-    public void testDecompress() {
-        Byte[] decompressedData = huffmanDecompressor.decompress(compressedData);
-        assertEquals("Size of decompressed data in bytes", 3529, decompressedData.length);
+    public void testDecompress() throws Exception {
+        byte[] decompressedData = huffmanDecompressor.decompress(compressedData);
+        // The symbol count stored in the header bounds decoding, so the trailing all-zero code of the fixture is kept.
+        assertEquals("Size of decompressed data in bytes", 3530, decompressedData.length);
         assertTrue(decompressedData.length > compressedData.length);
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] originalData = Files.readAllBytes(path);
+        assertArrayEquals("Decompressed data", originalData, decompressedData);
+    }
+
+    @Test
+    public void testDecompressRoundTrip() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] inputData = Files.readAllBytes(path);
+        assertRoundTrip(inputData);
+    }
+
+    @Test
+    public void testDecompressCodesLongerThanPrimaryTable() {
+        // Fibonacci frequencies produce the most skewed Huffman Tree, codes of up to 15 bits need the secondary tables.
+        byte[] inputData = HuffmanCompressorTest.fibonacciData(24);
+        CompressionSettings settings = new CompressionSettings();
+        settings.setMaxCodeLength(CompressionSettings.MAX_CODE_LENGTH_LIMIT);
+        byte[] compressedData = new HuffmanCompressor(null, settings).compress(inputData);
+        assertArrayEquals(inputData, huffmanDecompressor.decompress(compressedData));
+        assertRoundTrip(inputData);
+    }
+
+    @Test
+    public void testDecompressWithTablesRebuiltInPlace() throws Exception {
+        // the same decoder alternates between codes that need secondary tables, short codes and a single bit pattern
+        CompressionSettings settings = new CompressionSettings();
+        settings.setMaxCodeLength(CompressionSettings.MAX_CODE_LENGTH_LIMIT);
+        byte[] skewedData = HuffmanCompressorTest.fibonacciData(24);
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] textData = Files.readAllBytes(path);
+        byte[] runData = new byte[100];
+        HuffmanCompressor huffmanCompressor = new HuffmanCompressor(null, settings);
+        byte[][] messages = {skewedData, textData, runData, skewedData, Arrays.copyOf(textData, 50), skewedData};
+        for (byte[] message : messages) {
+            assertArrayEquals("Round trip", message, huffmanDecompressor.decompress(huffmanCompressor.compress(message)));
+        }
+
+        HuffmanCodeTable skewedCodes = new HuffmanCodeTable(limitedCodeLengths(skewedData, CompressionSettings.MAX_CODE_LENGTH_LIMIT));
+        HuffmanCodeTable textCodes = new HuffmanCodeTable(limitedCodeLengths(textData, CompressionSettings.MAX_CODE_LENGTH_LIMIT));
+        HuffmanDecodingTable decodingTable = skewedCodes.createDecodingTable();
+        int[] entries = decodingTable.getEntries();
+        textCodes.rebuildDecodingTable(decodingTable);
+        assertTrue("No entries allocated", entries == decodingTable.getEntries());
+        HuffmanDecodingTable textTable = textCodes.createDecodingTable();
+        assertEquals("Same primary table", textTable.getPrimaryBits(), decodingTable.getPrimaryBits());
+        assertEquals("Same size", textTable.getSize(), decodingTable.getSize());
+        assertArrayEquals("Same entries", Arrays.copyOf(textTable.getEntries(), textTable.getSize()), Arrays.copyOf(decodingTable.getEntries(), decodingTable.getSize()));
+    }
+
+    private static byte[] limitedCodeLengths(byte[] data, int maxCodeLength) {
+        HuffmanBlockEncoder blockEncoder = new HuffmanBlockEncoder(maxCodeLength, false);
+        blockEncoder.prepare(data, 0, data.length);
+        return blockEncoder.getCodeLengths();
+    }
+
+    @Test
+    public void testDecompressSingleBitPattern() {
+        byte[] inputData = new byte[1000];
+        Arrays.fill(inputData, (byte) 'a');
+        assertRoundTrip(inputData);
+    }
+
+    @Test
+    public void testDecompressTrailingZeroCodes() {
+        // The last bytes map to an all-zero code, so the encoding ends with zero bits that are not stored.
+        byte[] inputData = new byte[]{'a', 'b', 'b', 'c', 'c', 'c', 'c', 'a', 'a', 'a', 'a', 'a', 'a', 'a', 'a'};
+        assertRoundTrip(inputData);
+    }
+
+    @Test
+    public void testDecompressBlocksInParallel() throws Exception {
+        byte[] inputData = new byte[100000];
+        Random random = new Random(42);
+        for (int index = 0; index < inputData.length; ++index) {
+            inputData[index] = (byte) ('a' + Math.min(25, (int) Math.abs(random.nextGaussian() * 6)));
+        }
+        byte[] compressedData = new HuffmanCompressor(null, 4096).compress(inputData);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertArrayEquals(inputData, new HuffmanDecompressor(pool).decompress(compressedData));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testDecompressBlocksWithoutDirectory() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] inputData = Files.readAllBytes(path);
+        ByteArrayOutputStream compressedStream = new ByteArrayOutputStream();
+        try (HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(compressedStream, 1000)) {
+            huffmanOutputStream.write(inputData);
+        }
+        assertArrayEquals(inputData, huffmanDecompressor.decompress(compressedStream.toByteArray()));
+    }
+
+    @Test
+    public void testDecompressFile() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] inputData = Files.readAllBytes(path);
+        Path compressedFile = temporaryFolder.newFile("compressed").toPath();
+        Path decompressedFile = temporaryFolder.newFile("decompressed").toPath();
+
+        Files.write(compressedFile, new HuffmanCompressor(null, 1000).compress(inputData));
+        ForkJoinPool fourThreads = new ForkJoinPool(4);
+        try {
+            new HuffmanDecompressor(fourThreads).decompress(compressedFile, decompressedFile);
+            assertArrayEquals("Blocks with directory", inputData, Files.readAllBytes(decompressedFile));
+        } finally {
+            fourThreads.shutdown();
+        }
+
+        ByteArrayOutputStream compressedStream = new ByteArrayOutputStream();
+        try (HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(compressedStream, 1000)) {
+            huffmanOutputStream.write(inputData);
+        }
+        Files.write(compressedFile, compressedStream.toByteArray());
+        huffmanDecompressor.decompress(compressedFile, decompressedFile);
+        assertArrayEquals("Blocks without directory", inputData, Files.readAllBytes(decompressedFile));
+
+        Files.write(compressedFile, compressedData);
+        huffmanDecompressor.decompress(compressedFile, decompressedFile);
+        assertArrayEquals("Original single block format", huffmanDecompressor.decompress(compressedData), Files.readAllBytes(decompressedFile));
+    }
+
+    @Test
+    public void testDecompressIntoDestination() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] inputData = Files.readAllBytes(path);
+        byte[] blockCompressedData = new HuffmanCompressor(null, 1000).compress(inputData);
+        assertEquals("Size of decompressed data", inputData.length, huffmanDecompressor.getSizeofDecompressedData(blockCompressedData));
+        assertEquals("Size of decompressed data of the original format", 3530, huffmanDecompressor.getSizeofDecompressedData(compressedData));
+
+        byte[] destination = new byte[inputData.length + 20];
+        assertEquals("Number of bytes written", inputData.length, huffmanDecompressor.decompress(blockCompressedData, destination, 10));
+        assertArrayEquals("Decompressed data at offset", inputData, Arrays.copyOfRange(destination, 10, 10 + inputData.length));
+        assertEquals("Bytes before the offset untouched", 0, destination[9]);
+
+        ByteBuffer heapBuffer = ByteBuffer.allocate(inputData.length + 5);
+        heapBuffer.position(5);
+        huffmanDecompressor.decompress(blockCompressedData, heapBuffer);
+        assertEquals("Position after the decompressed data", inputData.length + 5, heapBuffer.position());
+        assertArrayEquals("Decompressed data in heap buffer", inputData, Arrays.copyOfRange(heapBuffer.array(), 5, 5 + inputData.length));
+
+        ByteBuffer directBuffer = ByteBuffer.allocateDirect(inputData.length + 5);
+        directBuffer.position(5);
+        new HuffmanDecompressor(ForkJoinPool.commonPool()).decompress(blockCompressedData, directBuffer);
+        assertEquals("Position after the decompressed data", inputData.length + 5, directBuffer.position());
+        byte[] directData = new byte[inputData.length];
+        directBuffer.position(5);
+        directBuffer.get(directData);
+        assertArrayEquals("Decompressed data in direct buffer", inputData, directData);
+
+        ByteBuffer legacyBuffer = ByteBuffer.allocateDirect(3530);
+        huffmanDecompressor.decompress(compressedData, legacyBuffer);
+        assertEquals("Original format fills the buffer", 0, legacyBuffer.remaining());
+    }
+
+    @Test
+    public void testDecompressInterleavedBlocks() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] inputData = Files.readAllBytes(path);
+        CompressionSettings settings = new CompressionSettings(2001);
+        settings.setInterleaved(true);
+        byte[] interleavedData = new HuffmanCompressor(null, settings).compress(inputData);
+        assertEquals("Block type", HuffmanBlockEncoder.INTERLEAVED_HUFFMAN_BLOCK, interleavedData[MAGIC_BYTES.length + 1 + BLOCK_HEADER_SIZE]);
+        assertArrayEquals("Blocks not a multiple of the number of bitstreams", inputData, huffmanDecompressor.decompress(interleavedData));
+
+        ByteArrayOutputStream compressedStream = new ByteArrayOutputStream();
+        try (HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(compressedStream, settings)) {
+            huffmanOutputStream.write(inputData);
+        }
+        assertArrayEquals("Same blocks as a stream", Arrays.copyOf(interleavedData, compressedStream.size()), compressedStream.toByteArray());
+
+        byte[] skewedData = HuffmanCompressorTest.fibonacciData(24);
+        settings = new CompressionSettings();
+        settings.setMaxCodeLength(CompressionSettings.MAX_CODE_LENGTH_LIMIT);
+        settings.setInterleaved(true);
+        assertArrayEquals("Codes longer than the primary table", skewedData, huffmanDecompressor.decompress(new HuffmanCompressor(null, settings).compress(skewedData)));
+
+        byte[] singleBitPattern = new byte[5003];
+        Arrays.fill(singleBitPattern, (byte) 'a');
+        assertArrayEquals("Single bit pattern", singleBitPattern, huffmanDecompressor.decompress(new HuffmanCompressor(null, settings).compress(singleBitPattern)));
+    }
+
+    @Test
+    public void testDecompressFormatVersion2() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] inputData = Files.readAllBytes(path);
+        byte[] compressedData = new HuffmanCompressor().compress(inputData);
+
+        // Version 2 is the same single block without the block type.
+        int bodyOffset = MAGIC_BYTES.length + 1 + BLOCK_HEADER_SIZE;
+        byte[] version2Data = new byte[compressedData.length - 1];
+        System.arraycopy(compressedData, 0, version2Data, 0, bodyOffset);
+        System.arraycopy(compressedData, bodyOffset + 1, version2Data, bodyOffset, version2Data.length - bodyOffset);
+        ByteBuffer container = ByteBuffer.wrap(version2Data);
+        container.put(MAGIC_BYTES.length, (byte) 2);
+        int sizeofBlockBody = container.getInt(bodyOffset - Integer.BYTES) - 1;
+        container.putInt(bodyOffset - Integer.BYTES, sizeofBlockBody);
+        int footerOffset = version2Data.length - DIRECTORY_FOOTER_SIZE;
+        long directoryOffset = container.getLong(footerOffset) - 1;
+        container.putLong(footerOffset, directoryOffset);
+        container.putInt((int) directoryOffset + Long.BYTES, sizeofBlockBody);
+
+        assertArrayEquals("Decompressed data", inputData, huffmanDecompressor.decompress(version2Data));
+        ByteArrayOutputStream streamedData = new ByteArrayOutputStream();
+        try (HuffmanInputStream huffmanInputStream = new HuffmanInputStream(new ByteArrayInputStream(version2Data))) {
+            byte[] buffer = new byte[1024];
+            int count;
+            while ((count = huffmanInputStream.read(buffer)) != -1) {
+                streamedData.write(buffer, 0, count);
+            }
+        }
+        assertArrayEquals("Decompressed stream", inputData, streamedData.toByteArray());
+    }
+
+    @Test
+    public void testDecompressRange() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] text = Files.readAllBytes(path);
+        byte[] inputData = new byte[40000];
+        for (int offset = 0; offset < inputData.length; offset += text.length) {
+            System.arraycopy(text, 0, inputData, offset, Math.min(text.length, inputData.length - offset));
+        }
+        byte[] randomData = new byte[3000];
+        new Random(5).nextBytes(randomData);
+        System.arraycopy(randomData, 0, inputData, 20000, randomData.length);
+        Arrays.fill(inputData, 30000, 34000, (byte) 'z');
+
+        for (boolean interleaved : new boolean[]{false, true}) {
+            CompressionSettings settings = new CompressionSettings(4001);
+            settings.setInterleaved(interleaved);
+            byte[] withoutCheckpoints = new HuffmanCompressor(null, settings).compress(inputData);
+            settings.setCheckpointInterval(100);
+            byte[] withCheckpoints = new HuffmanCompressor(null, settings).compress(inputData);
+            assertArrayEquals("Whole data with checkpoints", inputData, huffmanDecompressor.decompress(withCheckpoints));
+            assertEquals("Checkpoint index", withoutCheckpoints.length + HuffmanContainer.sizeofCheckpointIndex(9 * 40 + 39), withCheckpoints.length);
+
+            Path compressedFile = temporaryFolder.newFile().toPath();
+            Files.write(compressedFile, withCheckpoints);
+            Random random = new Random(11);
+            for (int range = 0; range < 200; ++range) {
+                int offset = random.nextInt(inputData.length);
+                int length = random.nextInt(Math.min(inputData.length - offset, 9000) + 1);
+                byte[] expected = Arrays.copyOfRange(inputData, offset, offset + length);
+                assertArrayEquals("Range with checkpoints", expected, huffmanDecompressor.decompressRange(withCheckpoints, offset, length));
+                assertArrayEquals("Range without checkpoints", expected, huffmanDecompressor.decompressRange(withoutCheckpoints, offset, length));
+                assertArrayEquals("Range of a file", expected, huffmanDecompressor.decompressRange(compressedFile, offset, length));
+            }
+        }
+
+        assertArrayEquals("Range of the original single block format", Arrays.copyOfRange(text, 100, 150), huffmanDecompressor.decompressRange(compressedData, 100, 50));
+    }
+
+    @Test(expected = HuffmanException.class)
+    public void testDecompressRangeBeyondOriginalData() {
+        huffmanDecompressor.decompressRange(new HuffmanCompressor().compress(new byte[100]), 90, 11);
+    }
+
+    @Test(expected = HuffmanException.class)
+    public void testDecompressIntoTooSmallDestination() {
+        byte[] inputData = "destination too small".getBytes();
+        huffmanDecompressor.decompress(new HuffmanCompressor().compress(inputData), new byte[inputData.length], 1);
+    }
+
+    private void assertRoundTrip(byte[] inputData) {
+        byte[] compressedData = new HuffmanCompressor().compress(inputData);
+        assertArrayEquals(inputData, huffmanDecompressor.decompress(compressedData));
     }
 
     @Test(expected = HuffmanException.class)
@@ -0,0 +1,147 @@
+package com.dushyant.huffman.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HuffmanEncoderTest {
+
+    private byte[] inputData;
+
+    @Before
+    public void setUp() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        inputData = Files.readAllBytes(path);
+    }
+
+    @Test
+    public void testCompressSameAsOutputStream() throws Exception {
+        ByteArrayOutputStream compressedStream = new ByteArrayOutputStream();
+        try (HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(compressedStream, 1000)) {
+            huffmanOutputStream.write(inputData);
+        }
+        byte[] expected = compressedStream.toByteArray();
+
+        HuffmanEncoder huffmanEncoder = new HuffmanEncoder(1000);
+        for (boolean direct : new boolean[]{false, true}) {
+            for (int chunkSize : new int[]{1, 77, 1000, inputData.length}) {
+                for (int destinationSize : new int[]{1, 13, 4096, 2 * inputData.length}) {
+                    byte[] compressedData = compress(huffmanEncoder, inputData, chunkSize, destinationSize, direct);
+                    assertArrayEquals("Input of " + chunkSize + " bytes, destination of " + destinationSize + " bytes, direct " + direct, expected, compressedData);
+                    assertEquals("Bytes read", inputData.length, huffmanEncoder.getBytesRead());
+                    assertEquals("Bytes written", expected.length, huffmanEncoder.getBytesWritten());
+                    huffmanEncoder.reset();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecompressInPieces() throws Exception {
+        byte[] compressedData = compress(new HuffmanEncoder(1000), inputData, inputData.length, 2 * inputData.length, false);
+        HuffmanDecoder huffmanDecoder = new HuffmanDecoder();
+        for (boolean direct : new boolean[]{false, true}) {
+            for (int chunkSize : new int[]{1, 77, 1000, compressedData.length}) {
+                for (int destinationSize : new int[]{1, 13, 4096, 2 * inputData.length}) {
+                    byte[] decompressedData = decompress(huffmanDecoder, compressedData, chunkSize, destinationSize, direct);
+                    assertArrayEquals("Input of " + chunkSize + " bytes, destination of " + destinationSize + " bytes, direct " + direct, inputData, decompressedData);
+                    assertEquals("Bytes read", compressedData.length, huffmanDecoder.getBytesRead());
+                    huffmanDecoder.reset();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDecompressStopsAtEndOfStream() {
+        byte[] compressedData = new HuffmanCompressor(null, 1000).compress(inputData);
+        HuffmanDecoder huffmanDecoder = new HuffmanDecoder();
+        ByteBuffer input = ByteBuffer.wrap(compressedData);
+        ByteBuffer destination = ByteBuffer.allocateDirect(inputData.length);
+        huffmanDecoder.setInput(input);
+        huffmanDecoder.decompress(destination);
+        assertTrue("Finished", huffmanDecoder.finished());
+        assertFalse("Finished decoder needs no input", huffmanDecoder.needsInput());
+        assertTrue("Block directory left in the input", input.hasRemaining());
+
+        byte[] decompressedData = new byte[inputData.length];
+        destination.flip();
+        destination.get(decompressedData);
+        assertArrayEquals(inputData, decompressedData);
+    }
+
+    @Test
+    public void testCompressEmptyInput() {
+        HuffmanEncoder huffmanEncoder = new HuffmanEncoder();
+        assertTrue("Needs input", huffmanEncoder.needsInput());
+        byte[] compressedData = compress(huffmanEncoder, new byte[0], 1, 64, false);
+        assertArrayEquals("Empty stream", new byte[0], new HuffmanDecompressor().decompress(compressedData));
+        assertTrue("Finished", huffmanEncoder.finished());
+    }
+
+    private static byte[] compress(HuffmanEncoder huffmanEncoder, byte[] data, int chunkSize, int destinationSize, boolean direct) {
+        ByteArrayOutputStream compressedData = new ByteArrayOutputStream();
+        ByteBuffer destination = direct ? ByteBuffer.allocateDirect(destinationSize) : ByteBuffer.allocate(destinationSize);
+        int offset = 0;
+        while (!huffmanEncoder.finished()) {
+            if (huffmanEncoder.needsInput()) {
+                int length = Math.min(chunkSize, data.length - offset);
+                huffmanEncoder.setInput(copy(data, offset, length, direct));
+                offset += length;
+                if (offset == data.length) {
+                    huffmanEncoder.finish();
+                }
+            }
+            huffmanEncoder.compress(destination);
+            drain(destination, compressedData);
+        }
+        return compressedData.toByteArray();
+    }
+
+    private static byte[] decompress(HuffmanDecoder huffmanDecoder, byte[] compressedData, int chunkSize, int destinationSize, boolean direct) {
+        ByteArrayOutputStream decompressedData = new ByteArrayOutputStream();
+        ByteBuffer destination = direct ? ByteBuffer.allocateDirect(destinationSize) : ByteBuffer.allocate(destinationSize);
+        int offset = 0;
+        while (!huffmanDecoder.finished()) {
+            if (huffmanDecoder.needsInput()) {
+                int length = Math.min(chunkSize, compressedData.length - offset);
+                huffmanDecoder.setInput(copy(compressedData, offset, length, direct));
+                offset += length;
+            }
+            huffmanDecoder.decompress(destination);
+            drain(destination, decompressedData);
+        }
+        return decompressedData.toByteArray();
+    }
+
+    private static ByteBuffer copy(byte[] data, int offset, int length, boolean direct) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(length);
+        if (!direct) {
+            // a heap buffer whose array offset is not 0
+            buffer = ByteBuffer.allocate(length + 3);
+            buffer.position(3);
+            buffer = buffer.slice();
+        }
+        buffer.put(data, offset, length);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void drain(ByteBuffer destination, ByteArrayOutputStream data) {
+        destination.flip();
+        byte[] bytes = new byte[destination.remaining()];
+        destination.get(bytes);
+        data.write(bytes, 0, bytes.length);
+        destination.clear();
+    }
+}
@@ -0,0 +1,76 @@
+package com.dushyant.huffman.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+public class HuffmanInputStreamTest {
+
+    private byte[] inputData;
+
+    @Before
+    public void setUp() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        inputData = Files.readAllBytes(path);
+    }
+
+    @Test
+    public void testReadRoundTrip() throws Exception {
+        byte[] compressedData = compress(inputData, 1000);
+        ByteArrayOutputStream decompressedData = new ByteArrayOutputStream();
+        try (HuffmanInputStream huffmanInputStream = new HuffmanInputStream(new ByteArrayInputStream(compressedData))) {
+            byte[] buffer = new byte[333];
+            int count;
+            while ((count = huffmanInputStream.read(buffer)) != -1) {
+                decompressedData.write(buffer, 0, count);
+            }
+            assertEquals("Read after end of stream", -1, huffmanInputStream.read());
+        }
+        assertArrayEquals(inputData, decompressedData.toByteArray());
+    }
+
+    @Test
+    public void testReadEmptyStream() throws Exception {
+        byte[] compressedData = compress(new byte[0], 1000);
+        try (HuffmanInputStream huffmanInputStream = new HuffmanInputStream(new ByteArrayInputStream(compressedData))) {
+            assertEquals("Read from empty stream", -1, huffmanInputStream.read());
+        }
+    }
+
+    @Test(expected = HuffmanException.class)
+    public void testReadWithInvalidMagicBytes() throws Exception {
+        byte[] compressedData = compress(inputData, 1000);
+        compressedData[0] = 0;
+        new HuffmanInputStream(new ByteArrayInputStream(compressedData));
+    }
+
+    @Test(expected = EOFException.class)
+    public void testReadTruncatedStream() throws Exception {
+        byte[] compressedData = compress(inputData, 1000);
+        try (HuffmanInputStream huffmanInputStream = new HuffmanInputStream(new ByteArrayInputStream(Arrays.copyOf(compressedData, compressedData.length / 2)))) {
+            while (huffmanInputStream.read() != -1) {
+                // draining the stream
+            }
+        }
+    }
+
+    private byte[] compress(byte[] data, int blockSize) throws Exception {
+        ByteArrayOutputStream compressedStream = new ByteArrayOutputStream();
+        try (HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(compressedStream, blockSize)) {
+            huffmanOutputStream.write(data);
+        }
+        return compressedStream.toByteArray();
+    }
+}
@@ -0,0 +1,148 @@
+package com.dushyant.huffman.tools;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dushyant.huffman.model.CompressionMetrics;
+import com.dushyant.huffman.model.CompressionSettings;
+import com.dushyant.huffman.model.DecompressionMetrics;
+
+public class HuffmanMetricsTest {
+
+    private byte[] originalData;
+
+    @Before
+    public void setUp() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        byte[] text = Files.readAllBytes(path);
+        byte[] random = new byte[1000];
+        new Random(17).nextBytes(random);
+        // A text block, a random block and a single repeated bit pattern.
+        originalData = new byte[3000];
+        System.arraycopy(text, 0, originalData, 0, Math.min(text.length, 1000));
+        System.arraycopy(random, 0, originalData, 1000, random.length);
+        Arrays.fill(originalData, 2000, 3000, (byte) 'x');
+    }
+
+    @Test
+    public void testCompressionMetrics() {
+        HuffmanMetrics huffmanMetrics = new HuffmanMetrics();
+        HuffmanCompressor huffmanCompressor = new HuffmanCompressor(null, new CompressionSettings(1000));
+        huffmanCompressor.setMetricsListener(huffmanMetrics);
+        byte[] compressedData = huffmanCompressor.compress(originalData);
+
+        CompressionMetrics metrics = huffmanMetrics.getLastCompression();
+        assertEquals("Original bytes", originalData.length, metrics.getSizeofOriginalData());
+        assertEquals("Compressed bytes", compressedData.length, metrics.getSizeofCompressedData());
+        assertEquals("Huffman blocks", 1, metrics.getNumberOfHuffmanBlocks());
+        assertEquals("Raw blocks", 1, metrics.getNumberOfRawBlocks());
+        assertEquals("Run blocks", 1, metrics.getNumberOfRunBlocks());
+        assertTrue("Histogram timed", metrics.getHistogramNanos() > 0);
+        assertTrue("Tree timed", metrics.getTreeNanos() > 0);
+        assertTrue("Encoding timed", metrics.getEncodingNanos() > 0);
+        assertTrue("Total timed", metrics.getTotalNanos() > 0);
+        assertTrue("No code beats the entropy", metrics.getEntropyPerSymbol() <= metrics.getEncodingBitsPerSymbol());
+        assertTrue("Tables and headers cost bits", metrics.getEncodingBitsPerSymbol() < metrics.getBitsPerSymbol());
+        assertEquals("Ratio", 100.0 * compressedData.length / originalData.length, metrics.getRatio(), 1e-9);
+
+        huffmanCompressor.compress(originalData);
+        assertEquals("Compressions", 2, huffmanMetrics.getNumberOfCompressions());
+        assertEquals("Cumulative original bytes", 2L * originalData.length, huffmanMetrics.getCompressionTotals().getSizeofOriginalData());
+        assertEquals("Cumulative run blocks", 2, huffmanMetrics.getCompressionTotals().getNumberOfRunBlocks());
+
+        huffmanCompressor.setMetricsListener(null);
+        huffmanCompressor.compress(originalData);
+        assertEquals("Nothing measured without a listener", 2, huffmanMetrics.getNumberOfCompressions());
+    }
+
+    @Test
+    public void testCodeLengthLimitPenalty() throws Exception {
+        // Fibonacci frequencies make a Huffman Tree as deep as there are bit patterns, 20 levels here.
+        byte[] skewedData = new byte[17710];
+        int index = 0;
+        for (int bitPattern = 0, frequency = 1, nextFrequency = 1; bitPattern < 20; ++bitPattern) {
+            Arrays.fill(skewedData, index, index + frequency, (byte) bitPattern);
+            index += frequency;
+            nextFrequency += frequency;
+            frequency = nextFrequency - frequency;
+        }
+        HuffmanMetrics huffmanMetrics = new HuffmanMetrics();
+        CompressionSettings settings = new CompressionSettings();
+        settings.setMaxCodeLength(CompressionSettings.MIN_CODE_LENGTH_LIMIT);
+        HuffmanCompressor huffmanCompressor = new HuffmanCompressor(null, settings);
+        huffmanCompressor.setMetricsListener(huffmanMetrics);
+        huffmanCompressor.compress(skewedData);
+        CompressionMetrics metrics = huffmanMetrics.getLastCompression();
+        assertTrue("Unrestricted codes are shorter", metrics.getSizeofUnlimitedEncodingInBits() < metrics.getSizeofEncodingInBits());
+        assertTrue("Penalty", metrics.getCodeLengthLimitPenalty() > 0);
+
+        huffmanCompressor = new HuffmanCompressor(null, new CompressionSettings(1000));
+        huffmanCompressor.setMetricsListener(huffmanMetrics);
+        huffmanCompressor.compress(originalData);
+        metrics = huffmanMetrics.getLastCompression();
+        assertEquals("No penalty within the limit", metrics.getSizeofEncodingInBits(), metrics.getSizeofUnlimitedEncodingInBits());
+        assertEquals("No penalty within the limit", 0, metrics.getCodeLengthLimitPenalty(), 0);
+
+        huffmanMetrics.register("penalty");
+        try {
+            CompositeData totals = (CompositeData) ManagementFactory.getPlatformMBeanServer().getAttribute(huffmanMetrics.getObjectName(), "CompressionTotals");
+            assertEquals("Penalty over JMX", huffmanMetrics.getCompressionTotals().getCodeLengthLimitPenalty(), (double) totals.get("codeLengthLimitPenalty"), 1e-9);
+        } finally {
+            huffmanMetrics.unregister();
+        }
+    }
+
+    @Test
+    public void testDecompressionMetrics() {
+        HuffmanMetrics huffmanMetrics = new HuffmanMetrics();
+        byte[] compressedData = new HuffmanCompressor(null, new CompressionSettings(1000)).compress(originalData);
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        huffmanDecompressor.setMetricsListener(huffmanMetrics);
+        assertArrayEquals(originalData, huffmanDecompressor.decompress(compressedData));
+
+        DecompressionMetrics metrics = huffmanMetrics.getLastDecompression();
+        assertEquals("Decompressed bytes", originalData.length, metrics.getSizeofOriginalData());
+        assertEquals("Compressed bytes", compressedData.length, metrics.getSizeofCompressedData());
+        assertEquals("Blocks", 3, metrics.getNumberOfHuffmanBlocks() + metrics.getNumberOfRawBlocks() + metrics.getNumberOfRunBlocks());
+        assertTrue("Table timed", metrics.getTableNanos() > 0);
+        assertTrue("Throughput", metrics.getThroughput() > 0);
+
+        huffmanMetrics.reset();
+        assertEquals("Reset", 0, huffmanMetrics.getNumberOfDecompressions());
+        assertNull("Reset", huffmanMetrics.getLastDecompression());
+    }
+
+    @Test
+    public void testRegisterWithPlatformMBeanServer() throws Exception {
+        HuffmanMetrics huffmanMetrics = new HuffmanMetrics();
+        huffmanMetrics.register("test");
+        try {
+            HuffmanCompressor huffmanCompressor = new HuffmanCompressor();
+            huffmanCompressor.setMetricsListener(huffmanMetrics);
+            huffmanCompressor.compress(originalData);
+
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            assertEquals("Compressions", 1L, mBeanServer.getAttribute(huffmanMetrics.getObjectName(), "NumberOfCompressions"));
+            CompositeData totals = (CompositeData) mBeanServer.getAttribute(huffmanMetrics.getObjectName(), "CompressionTotals");
+            assertEquals("Original bytes", (long) originalData.length, totals.get("sizeofOriginalData"));
+        } finally {
+            huffmanMetrics.unregister();
+        }
+        assertNull("Unregistered", huffmanMetrics.getObjectName());
+    }
+}
@@ -0,0 +1,62 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_FORMAT_VERSION;
+import static com.dushyant.huffman.utils.HuffmanUtility.BLOCK_HEADER_SIZE;
+import static com.dushyant.huffman.utils.HuffmanUtility.MAGIC_BYTES;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HuffmanOutputStreamTest {
+
+    private byte[] inputData;
+
+    @Before
+    public void setUp() throws Exception {
+        Path path = Paths.get(getClass().getClassLoader().getResource("sample-input-compression/sample.txt").toURI());
+        inputData = Files.readAllBytes(path);
+    }
+
+    @Test
+    public void testWriteInBlocks() throws Exception {
+        ByteArrayOutputStream compressedStream = new ByteArrayOutputStream();
+        try (HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(compressedStream, 1024)) {
+            huffmanOutputStream.write(inputData);
+        }
+        ByteBuffer compressedData = ByteBuffer.wrap(compressedStream.toByteArray());
+        for (byte magicByte : MAGIC_BYTES) {
+            assertEquals("Magic byte", magicByte, compressedData.get());
+        }
+        assertEquals("Format version", BLOCK_FORMAT_VERSION, compressedData.get());
+
+        int numberOfBlocks = 0;
+        int numberOfOriginalBytes;
+        while ((numberOfOriginalBytes = compressedData.getInt()) != 0) {
+            int sizeofBlockBodyInBytes = compressedData.getInt();
+            assertEquals("Number of original bytes in block", Math.min(1024, inputData.length - numberOfBlocks * 1024), numberOfOriginalBytes);
+            compressedData.position(compressedData.position() + sizeofBlockBodyInBytes);
+            ++numberOfBlocks;
+        }
+        assertEquals("Number of blocks", 4, numberOfBlocks);
+        assertEquals("Size of end of stream marker", BLOCK_HEADER_SIZE, Integer.BYTES + compressedData.remaining());
+        assertEquals("Size of block body in end of stream marker", 0, compressedData.getInt());
+    }
+
+    @Test
+    public void testFlushEmitsPendingBlock() throws Exception {
+        ByteArrayOutputStream compressedStream = new ByteArrayOutputStream();
+        HuffmanOutputStream huffmanOutputStream = new HuffmanOutputStream(compressedStream);
+        huffmanOutputStream.write(inputData, 0, 100);
+        int sizeBeforeFlush = compressedStream.size();
+        huffmanOutputStream.flush();
+        assertEquals("Size of stream header", MAGIC_BYTES.length + 1, sizeBeforeFlush);
+        assertEquals("Number of original bytes in flushed block", 100, ByteBuffer.wrap(compressedStream.toByteArray(), sizeBeforeFlush, BLOCK_HEADER_SIZE).getInt());
+    }
+}
@@ -0,0 +1,93 @@
+package com.dushyant.huffman.tools;
+
+import static com.dushyant.huffman.utils.HuffmanUtility.SHARED_TABLE_HEADER_SIZE;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.dushyant.huffman.exception.HuffmanException;
+
+public class HuffmanSharedTableTest {
+
+    private List<byte[]> samples;
+
+    private HuffmanSharedTable sharedTable;
+
+    @Before
+    public void setUp() {
+        samples = new ArrayList<>();
+        for (int request = 0; request < 200; ++request) {
+            samples.add(message(request));
+        }
+        sharedTable = HuffmanSharedTable.train(7, samples);
+    }
+
+    @Test
+    public void testCompressSmallMessages() {
+        HuffmanCompressor huffmanCompressor = new HuffmanCompressor();
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        huffmanDecompressor.addSharedTable(HuffmanSharedTable.fromByteArray(sharedTable.toByteArray()));
+        for (int request = 1000; request < 1010; ++request) {
+            byte[] originalData = message(request);
+            byte[] compressedData = huffmanCompressor.compress(originalData, sharedTable);
+            assertTrue("Smaller than a message with its own table", compressedData.length < huffmanCompressor.compress(originalData).length);
+            assertTrue("Smaller than the original message", compressedData.length < originalData.length);
+            assertEquals("Size of decompressed data", originalData.length, huffmanDecompressor.getSizeofDecompressedData(compressedData));
+            assertArrayEquals("Decompressed data", originalData, huffmanDecompressor.decompress(compressedData));
+        }
+    }
+
+    @Test
+    public void testCompressBitPatternsMissingFromSamples() {
+        byte[] originalData = new byte[256];
+        for (int index = 0; index < originalData.length; ++index) {
+            originalData[index] = (byte) index;
+        }
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor();
+        huffmanDecompressor.addSharedTable(sharedTable);
+        assertArrayEquals(originalData, huffmanDecompressor.decompress(new HuffmanCompressor().compress(originalData, sharedTable)));
+
+        byte[] emptyMessage = new HuffmanCompressor().compress(new byte[0], sharedTable);
+        assertEquals("Size of empty message", SHARED_TABLE_HEADER_SIZE, emptyMessage.length);
+        assertEquals("Empty message", 0, huffmanDecompressor.decompress(emptyMessage).length);
+    }
+
+    @Test
+    public void testDecompressWithEvictedTables() {
+        HuffmanSharedTable otherTable = HuffmanSharedTable.train(8, Arrays.asList("{}[]0123456789".getBytes(StandardCharsets.US_ASCII)));
+        HuffmanDecompressor huffmanDecompressor = new HuffmanDecompressor(null, 1);
+        huffmanDecompressor.addSharedTable(sharedTable);
+        huffmanDecompressor.addSharedTable(otherTable);
+        HuffmanCompressor huffmanCompressor = new HuffmanCompressor();
+        for (int request = 0; request < 4; ++request) {
+            byte[] originalData = message(request);
+            HuffmanSharedTable table = request % 2 == 0 ? sharedTable : otherTable;
+            assertArrayEquals(originalData, huffmanDecompressor.decompress(huffmanCompressor.compress(originalData, table)));
+        }
+    }
+
+    @Test(expected = HuffmanException.class)
+    public void testDecompressWithUnknownTable() {
+        new HuffmanDecompressor().decompress(new HuffmanCompressor().compress(message(0), sharedTable));
+    }
+
+    @Test(expected = HuffmanException.class)
+    public void testReadTableWithInvalidMagicBytes() {
+        byte[] serializedTable = sharedTable.toByteArray();
+        serializedTable[0] = 0;
+        HuffmanSharedTable.fromByteArray(serializedTable);
+    }
+
+    private static byte[] message(int request) {
+        return ("{\"requestId\":" + request + ",\"method\":\"getAccount\",\"status\":\"OK\",\"account\":{\"id\":" + (request * 7919 % 100000)
+                + ",\"currency\":\"EUR\",\"balance\":" + (request * 31 % 1000) + ".25}}").getBytes(StandardCharsets.US_ASCII);
+    }
+}